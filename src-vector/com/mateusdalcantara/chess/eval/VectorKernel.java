@@ -0,0 +1,34 @@
+package com.mateusdalcantara.chess.eval;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD kernel of {@link BatchEvaluation}: sums the feature values of as many positions as
+ * a vector has lanes at a time.
+ * <p>
+ * For each slot, the feature indices of consecutive positions are contiguous, so one gather
+ * reads the values of that slot for a full lane of positions. This class is only loaded when
+ * the {@code jdk.incubator.vector} module is present; the batch falls back to scalar code
+ * otherwise. It is kept out of the main source root because it only compiles with
+ * {@code --add-modules jdk.incubator.vector}; see {@link BatchEvaluation} for the build.
+ * </p>
+ */
+final class VectorKernel implements BatchEvaluation.Kernel {
+
+    /** The widest integer vector of the processor. */
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void sum(int[] values, int[] features, int slots, int capacity, int count, int[] scores) {
+        int bound = SPECIES.loopBound(count);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            IntVector sums = IntVector.zero(SPECIES);
+            for (int slot = 0; slot < slots; slot++) {
+                sums = sums.add(IntVector.fromArray(SPECIES, values, 0, features, slot * capacity + i));
+            }
+            sums.intoArray(scores, i);
+        }
+        BatchEvaluation.scalarSum(values, features, slots, capacity, bound, count, scores);
+    }
+}
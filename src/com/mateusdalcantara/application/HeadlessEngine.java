@@ -0,0 +1,88 @@
+package com.mateusdalcantara.application;
+
+import com.mateusdalcantara.chess.ChessException;
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
+import com.mateusdalcantara.chess.search.Search;
+import com.mateusdalcantara.chess.search.SearchLimits;
+import com.mateusdalcantara.chess.search.TranspositionTable;
+
+import java.util.Arrays;
+
+/**
+ * Analyses one position and exits: the entry point of the short-lived analysis processes that
+ * are launched by the thousand, where the startup of the JVM costs more than the search.
+ * <p>
+ * Unlike {@link Program} and {@link UciEngine}, it starts no console, no JMX registration and
+ * no reader thread, and its transposition table is small, so that the time to the first legal
+ * move is mostly the time to start the JVM and load the classes of the search.
+ * </p>
+ * <p>
+ * For the same reason, the code on the path to the first move, from move generation to the
+ * printing of the move, avoids lambdas, method references and string concatenation. The JVM
+ * bootstraps each of their call sites the first time it runs, which costs milliseconds per
+ * kind of call site and more than building the precomputed tables. This is why
+ * {@code MoveGenerator.of} does not use {@code computeIfAbsent}, {@code Metrics} has its own
+ * maximum operator, {@code ChessMove.toString} uses a {@code StringBuilder} and the best move
+ * below is printed in two parts.
+ * </p>
+ * <p>
+ * The startup time can be cut further with a class-data sharing archive, which the JVM
+ * memory-maps instead of loading and verifying each class:
+ * </p>
+ * <pre>
+ *     java -XX:ArchiveClassesAtExit=engine.jsa -cp chess.jar com.mateusdalcantara.application.HeadlessEngine
+ *     java -XX:SharedArchiveFile=engine.jsa -cp chess.jar com.mateusdalcantara.application.HeadlessEngine 6
+ * </pre>
+ * <p>
+ * The archive is only valid for the JVM and the class path that created it; the JVM ignores a
+ * stale archive and loads the classes as usual. Class-data sharing requires the classes to be
+ * in a jar. {@link com.mateusdalcantara.chess.perf.StartupBenchmark} measures the gain.
+ * </p>
+ * <p>
+ * Usage: {@code HeadlessEngine [depth] [fen]}. The depth is 1 by default and the position is
+ * the initial setup. The best move is printed as {@code bestmove <move>}, in coordinate
+ * notation, or {@code bestmove -} when the side to move has no legal move. An invalid depth
+ * or position is reported on the error stream, with exit status 1.
+ * </p>
+ *
+ * @see com.mateusdalcantara.chess.perf.StartupBenchmark
+ */
+public final class HeadlessEngine {
+
+    /** The size of the transposition table, in megabytes: enough for a short search, quick to allocate. */
+    private static final int HASH_MEGABYTES = 1;
+
+    private HeadlessEngine() {
+    }
+
+    /**
+     * Analyses the position given on the command line and prints the best move.
+     *
+     * @param args the depth and the position in FEN, both optional.
+     */
+    public static void main(String[] args) {
+        SearchLimits limits = null;
+        try {
+            limits = SearchLimits.depth(args.length > 0 ? Integer.parseInt(args[0]) : 1);
+        } catch (IllegalArgumentException e) {
+            System.err.print("Invalid depth: ");
+            System.err.println(args[0]);
+            System.exit(1);
+        }
+        ChessMatch chessMatch = new ChessMatch();
+        try {
+            if (args.length > 1) {
+                chessMatch.setPosition(String.join(" ", Arrays.copyOfRange(args, 1, args.length)));
+            }
+        } catch (ChessException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        Search search = new Search();
+        search.setTranspositionTable(new TranspositionTable(HASH_MEGABYTES));
+        int move = search.search(chessMatch, limits).getBestMove();
+        System.out.print("bestmove ");
+        System.out.println(ChessMove.toString(move, chessMatch.getRows(), chessMatch.getColumns()));
+    }
+}
@@ -2,9 +2,19 @@ package com.mateusdalcantara.application;
 
 import com.mateusdalcantara.chess.ChessException;
 import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
 import com.mateusdalcantara.chess.ChessPiece;
 import com.mateusdalcantara.chess.ChessPosition;
-
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.metrics.Metrics;
+import com.mateusdalcantara.chess.metrics.RejectReason;
+import com.mateusdalcantara.chess.search.Ponderer;
+import com.mateusdalcantara.chess.search.Search;
+import com.mateusdalcantara.chess.search.SearchLimits;
+import com.mateusdalcantara.chess.search.SearchResult;
+import com.mateusdalcantara.chess.search.TranspositionTable;
+
+import java.io.IOException;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 
@@ -20,31 +30,86 @@ import java.util.Scanner;
  * @see ChessPosition
  */
 public class Program {
+
+    /**
+     * The time the engine takes for each of its moves, in milliseconds.
+     */
+    private static final long ENGINE_MOVE_MILLIS = 1000;
+
     /**
      * The main method that starts the chess game and prints the chessboard.
      * <p>
      * This method initializes a new chess match, retrieves the current state of the chessboard,
      * and uses the {@code UI.printBoard} method to display the board on the console.
      *
-     * @param args command-line arguments (not used in this program).
+     * <p>
+     * When the first argument is {@code uci}, the console interface is not started and the
+     * match is played through the UCI protocol instead, see {@link UciEngine}.
+     *
+     * <p>
+     * With {@code engine}, the engine plays the black pieces. With {@code ponder}, it also keeps
+     * searching in the background while the human chooses a move, and reuses that work when
+     * the move arrives, see {@link Ponderer}.
+     *
+     * @param args command-line arguments; {@code uci} selects the UCI mode, {@code engine} or
+     *             {@code ponder} a game against the engine.
+     * @throws IOException if the UCI commands cannot be read.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+
+        if (args.length > 0 && args[0].equals("uci")) {
+            new UciEngine(System.in, System.out).run();
+            return;
+        }
 
         /** Object who receive the user input. */
         Scanner sc = new Scanner(System.in);
 
+        /** Expose the runtime metrics over JMX */
+        Metrics.register();
+
         /** Initialize a new chess match */
         ChessMatch chessMatch = new ChessMatch();
 
-        while (true) {
+        /** The engine opponent, when requested: it plays black and may ponder on the human's time */
+        boolean pondering = args.length > 0 && args[0].equals("ponder");
+        boolean engine = pondering || (args.length > 0 && args[0].equals("engine"));
+        Search search = new Search();
+        search.setTranspositionTable(new TranspositionTable(64));
+        Ponderer ponderer = new Ponderer(search);
+        String engineMove = null;
+
+        while (!chessMatch.getCheckMate() && !chessMatch.getStalemate()) {
             try{
 
+                if (engine && chessMatch.getCurrentPlayer() == Color.BLACK) {
+                    /** Cancel the background search at once and reuse its transposition table */
+                    ponderer.stop();
+                    SearchResult result = search.search(chessMatch, SearchLimits.time(ENGINE_MOVE_MILLIS));
+                    chessMatch.performChessMove(result.getBestMove());
+                    engineMove = ChessMove.toString(result.getBestMove()) + " (" + result + ")";
+                    continue;
+                }
+
+                if (pondering) {
+                    ponderer.start(chessMatch);
+                }
+
                 /** Method to clean the board after moving pieces */
                 UI.clearScreen();
 
                 /** Print the chessboard using the UI class */
                 UI.printBoard(chessMatch.getPieces());
 
+                System.out.println();
+                System.out.println("Turn: " + chessMatch.getTurn());
+                System.out.println("Waiting player: " + chessMatch.getCurrentPlayer());
+                if (engineMove != null) {
+                    System.out.println("Engine played: " + engineMove);
+                }
+                if (chessMatch.getCheck()) {
+                    System.out.println("CHECK!");
+                }
                 System.out.println();
                 System.out.print("Source: ");
 
@@ -74,12 +139,28 @@ public class Program {
 
 
                 ChessPosition target = UI.readChessPosition(sc); // Read the target position from user input.
+                ponderer.stop(); // The human's move has arrived: the engine takes over.
                 ChessPiece capturedPiece = chessMatch.performChessMove(source, target); // Perform the chess move and capture any piece.
 
+            }catch (ChessException e){
+                System.out.println(e.getMessage());
+                sc.nextLine();
             }catch (InputMismatchException e){
+                Metrics.moveRejected(RejectReason.INVALID_INPUT);
                 System.out.println(e.getMessage());
                 sc.nextLine();
             }
         }
+
+        ponderer.stop();
+        UI.clearScreen();
+        UI.printBoard(chessMatch.getPieces());
+        System.out.println();
+        if (chessMatch.getCheckMate()) {
+            System.out.println("CHECKMATE!");
+            System.out.println("Winner: " + (chessMatch.getCurrentPlayer() == Color.WHITE ? Color.BLACK : Color.WHITE));
+        } else {
+            System.out.println("STALEMATE!");
+        }
     }
 }
@@ -3,7 +3,10 @@ package com.mateusdalcantara.application;
 import com.mateusdalcantara.chess.ChessPiece;
 import com.mateusdalcantara.chess.ChessPosition;
 import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.metrics.Metrics;
+import com.mateusdalcantara.chess.metrics.RenderEvent;
 
+import java.io.PrintStream;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 
@@ -158,27 +161,66 @@ public class UI {
      * @see ChessPiece
      */
     public static void printBoard(ChessPiece[][] pieces) {
+        printBoard(pieces, System.out);
+    }
+
+    /**
+     * Prints the chessboard to the given stream, as {@link #printBoard(ChessPiece[][])} does to
+     * the console. Benchmarks and servers render into their own streams this way.
+     *
+     * @param pieces the pieces of the board, {@code null} for the empty squares.
+     * @param out    the stream receiving the board.
+     */
+    public static void printBoard(ChessPiece[][] pieces, PrintStream out) {
+        long start = System.nanoTime();
+        RenderEvent event = new RenderEvent();
+        event.start();
         for (int i = 0; i < pieces.length; i++) {
-            System.out.print((8 - i) + " "); // Print the row number (from 8 to 1)
+            out.print((8 - i) + " "); // Print the row number (from 8 to 1)
             for (int j = 0; j < pieces.length; j++) {
-                printPiece(pieces[i][j], false); // Print each piece or "-" if no piece is present
+                printPiece(out, pieces[i][j], false); // Print each piece or "-" if no piece is present
             }
-            System.out.println();
+            out.println();
         }
-        System.out.print("  a b c d e f g h"); // Print the column labels
-
+        out.print("  a b c d e f g h"); // Print the column labels
+        frameRendered(event, start, false);
     }
 
     public static void printBoard(ChessPiece[][] pieces, boolean[][] possibleMoves) {
+        printBoard(pieces, possibleMoves, System.out);
+    }
+
+    /**
+     * Prints the chessboard with the possible moves highlighted to the given stream.
+     *
+     * @param pieces        the pieces of the board, {@code null} for the empty squares.
+     * @param possibleMoves the squares to highlight.
+     * @param out           the stream receiving the board.
+     */
+    public static void printBoard(ChessPiece[][] pieces, boolean[][] possibleMoves, PrintStream out) {
+        long start = System.nanoTime();
+        RenderEvent event = new RenderEvent();
+        event.start();
         for (int i = 0; i < pieces.length; i++) {
-            System.out.print((8 - i) + " "); // Print the row number (from 8 to 1)
+            out.print((8 - i) + " "); // Print the row number (from 8 to 1)
             for (int j = 0; j < pieces.length; j++) {
-                printPiece(pieces[i][j], possibleMoves[i][j]); // Print each piece or "-" if no piece is present
+                printPiece(out, pieces[i][j], possibleMoves[i][j]); // Print each piece or "-" if no piece is present
             }
-            System.out.println();
+            out.println();
         }
-        System.out.print("  a b c d e f g h"); // Print the column labels
+        out.print("  a b c d e f g h"); // Print the column labels
+        frameRendered(event, start, true);
+    }
 
+    /**
+     * Records the render time of a frame in {@link Metrics} and commits its JFR event if sampled.
+     */
+    private static void frameRendered(RenderEvent event, long start, boolean highlighted) {
+        Metrics.frameRendered(System.nanoTime() - start);
+        if (event.finish()) {
+            event.highlighted = highlighted;
+            event.commit();
+        }
     }
 
     /**
@@ -188,24 +230,25 @@ public class UI {
      * or a hyphen ("-") if there is no piece at that position.
      *
      *
+     * @param out   The stream receiving the piece.
      * @param piece The {@code ChessPiece} to be printed, or {@code null} if the position is empty (no piece present).
      */
-    private static void printPiece(ChessPiece piece, boolean backGround) {
+    private static void printPiece(PrintStream out, ChessPiece piece, boolean backGround) {
         if (backGround){
-            System.out.print(ANSI_BLUE_BACKGROUND);
+            out.print(ANSI_BLUE_BACKGROUND);
         }
         if (piece == null) {
             // Print a hyphen if the square is empty
-            System.out.print("-" + ANSI_RESET);
+            out.print("-" + ANSI_RESET);
         } else {
             // Print piece with appropriate color (white or black)
             if (piece.getColor() == Color.WHITE) {
-                System.out.print(ANSI_WHITE + piece + ANSI_RESET); // White pieces are printed in white
+                out.print(ANSI_WHITE + piece + ANSI_RESET); // White pieces are printed in white
             } else {
-                System.out.print(ANSI_YELLOW + piece + ANSI_RESET); // Black pieces are printed in yellow
+                out.print(ANSI_YELLOW + piece + ANSI_RESET); // Black pieces are printed in yellow
             }
         }
-        System.out.print(" "); // Print a space after each piece for separation
+        out.print(" "); // Print a space after each piece for separation
     }
 }
 
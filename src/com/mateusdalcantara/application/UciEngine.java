@@ -0,0 +1,431 @@
+package com.mateusdalcantara.application;
+
+import com.mateusdalcantara.chess.ChessException;
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.book.OpeningBook;
+import com.mateusdalcantara.chess.search.Search;
+import com.mateusdalcantara.chess.search.SearchLimits;
+import com.mateusdalcantara.chess.search.SearchResult;
+import com.mateusdalcantara.chess.search.TranspositionTable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Plays the match through the Universal Chess Interface (UCI) protocol, so that the engine
+ * can be used by chess GUIs and tournament managers.
+ * <p>
+ * The thread calling {@link #run()} only reads commands, and every search runs on a separate
+ * search thread. The reader is therefore never blocked by a search: {@code isready} is answered
+ * at once, and {@code stop} and {@code ponderhit} only set flags that the search reads at
+ * every node.
+ * </p>
+ * <p>
+ * Supported commands: {@code uci}, {@code isready}, {@code ucinewgame},
+ * {@code position [startpos | fen <fen>] [moves <move>...]},
+ * {@code go [depth <n>] [nodes <n>] [movetime <ms>] [wtime <ms>] [btime <ms>] [winc <ms>] [binc <ms>] [movestogo <n>] [ponder] [infinite]},
+ * {@code setoption name <MultiPV | OwnBook | BookFile> value <value>}, {@code stop},
+ * {@code ponderhit} and {@code quit}.
+ * </p>
+ * <p>
+ * With {@code OwnBook} set and a {@code BookFile} loaded, a {@code go} command in a position
+ * of the {@link OpeningBook} is answered at once with a book move instead of a search, unless
+ * the GUI asked to ponder or to analyse.
+ * </p>
+ *
+ * @see Search
+ */
+public class UciEngine {
+
+    /** The time kept in reserve on the clock, in milliseconds. */
+    private static final long MOVE_OVERHEAD = 50;
+
+    /** The size of the transposition table, in megabytes. */
+    private static final int HASH_MEGABYTES = 64;
+
+    /** The largest value of the {@code MultiPV} option. */
+    private static final int MAX_MULTI_PV = 256;
+
+    /** The number of moves assumed to be left when the GUI does not send {@code movestogo}. */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    /** The match holding the position sent by the GUI; only touched while no search is running. */
+    private final ChessMatch chessMatch = new ChessMatch();
+
+    private final Search search = new Search();
+
+    /** The transposition table kept between the searches of a game. */
+    private final TranspositionTable transpositionTable = new TranspositionTable(HASH_MEGABYTES);
+
+    /** The search thread of the current {@code go} command, or {@code null}. */
+    private Thread searchThread;
+
+    /** Released when the current search may send its best move. */
+    private volatile CountDownLatch release;
+
+    /** The time budget applied when a {@code ponderhit} arrives, in milliseconds. */
+    private volatile long ponderBudget;
+
+    /** Whether the current search was started with {@code go infinite}. */
+    private volatile boolean infinite;
+
+    /** The number of lines searched, set by the {@code MultiPV} option. */
+    private int multiPv = 1;
+
+    /** The book set by the {@code BookFile} option, or {@code null}. */
+    private OpeningBook book;
+
+    /** Whether book moves are played, set by the {@code OwnBook} option. */
+    private boolean ownBook;
+
+    /** Varies the book moves between games. */
+    private final Random random = new Random();
+
+    /**
+     * Constructs a UCI engine.
+     *
+     * @param in  the stream of commands from the GUI.
+     * @param out the stream of replies to the GUI.
+     */
+    public UciEngine(InputStream in, PrintStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.out = out;
+        search.setListener(this::sendInfo);
+        search.setTranspositionTable(transpositionTable);
+    }
+
+    /**
+     * Reads and executes commands until {@code quit} or the end of the input.
+     *
+     * @throws IOException if reading the commands fails.
+     */
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            switch (tokens[0]) {
+                case "uci":
+                    send("id name chess-java");
+                    send("id author Mateus Dalcantara");
+                    send("option name MultiPV type spin default 1 min 1 max " + MAX_MULTI_PV);
+                    send("option name OwnBook type check default false");
+                    send("option name BookFile type string default <empty>");
+                    send("uciok");
+                    break;
+                case "isready":
+                    send("readyok");
+                    break;
+                case "ucinewgame":
+                    finishSearch();
+                    chessMatch.setPosition(ChessMatch.INITIAL_FEN);
+                    transpositionTable.clear();
+                    break;
+                case "position":
+                    finishSearch();
+                    position(tokens);
+                    break;
+                case "setoption":
+                    finishSearch();
+                    setOption(tokens);
+                    break;
+                case "go":
+                    finishSearch();
+                    go(tokens);
+                    break;
+                case "stop":
+                    stop();
+                    break;
+                case "ponderhit":
+                    ponderHit();
+                    break;
+                case "quit":
+                    finishSearch();
+                    return;
+                default:
+                    break; // unknown commands are ignored, as the protocol requires
+            }
+        }
+        finishSearch();
+    }
+
+    /**
+     * Handles {@code setoption name <name> value <value>} for the {@code MultiPV},
+     * {@code OwnBook} and {@code BookFile} options. The value of {@code BookFile} may contain
+     * spaces.
+     */
+    private void setOption(String[] tokens) {
+        if (tokens.length >= 5 && tokens[1].equals("name") && tokens[3].equals("value")) {
+            String value = String.join(" ", Arrays.copyOfRange(tokens, 4, tokens.length));
+            try {
+                if (tokens[2].equalsIgnoreCase("MultiPV")) {
+                    multiPv = Math.max(1, Math.min(MAX_MULTI_PV, Integer.parseInt(value)));
+                    return;
+                } else if (tokens[2].equalsIgnoreCase("OwnBook")) {
+                    ownBook = Boolean.parseBoolean(value);
+                    return;
+                } else if (tokens[2].equalsIgnoreCase("BookFile")) {
+                    book = value.equals("<empty>") ? null : OpeningBook.open(Paths.get(value));
+                    return;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            } catch (IOException | RuntimeException e) {
+                book = null;
+                send("info string Cannot open book: " + e.getMessage());
+                return;
+            }
+        }
+        send("info string Unsupported option: " + String.join(" ", tokens));
+    }
+
+    /**
+     * Handles {@code position}: loads the start or FEN position and plays the moves that follow.
+     * Each move is checked against the moves of its position; on the first one that is not
+     * legal, the loaded position is restored without any of the moves, so that a search never
+     * starts from a position the GUI did not mean.
+     */
+    private void position(String[] tokens) {
+        int i = 1;
+        String fen = ChessMatch.INITIAL_FEN;
+        try {
+            if (tokens.length > 1 && tokens[1].equals("fen")) {
+                StringBuilder text = new StringBuilder();
+                for (i = 2; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                    text.append(tokens[i]).append(' ');
+                }
+                fen = text.toString();
+            } else {
+                i = 2;
+            }
+            chessMatch.setPosition(fen);
+        } catch (ChessException e) {
+            send("info string " + e.getMessage());
+            return;
+        }
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            int[] moves = new int[chessMatch.getMoveBufferSize()];
+            for (i++; i < tokens.length; i++) {
+                try {
+                    int count = chessMatch.generateMoves(moves);
+                    if (chessMatch.tryChessMove(ChessMove.parse(tokens[i]), moves, count) != null) {
+                        throw new ChessException("Illegal move: " + tokens[i]);
+                    }
+                } catch (ChessException e) {
+                    chessMatch.setPosition(fen);
+                    send("info string " + e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles {@code go}: starts a search on a new search thread and returns at once.
+     */
+    private void go(String[] tokens) {
+        int depth = Search.MAX_PLY;
+        long nodes = Long.MAX_VALUE;
+        long moveTime = 0;
+        long whiteTime = 0;
+        long blackTime = 0;
+        long whiteIncrement = 0;
+        long blackIncrement = 0;
+        int movesToGo = 0;
+        boolean ponder = false;
+        infinite = false;
+        for (int i = 1; i < tokens.length; i++) {
+            try {
+                switch (tokens[i]) {
+                    case "depth":
+                        depth = Integer.parseInt(tokens[++i]);
+                        break;
+                    case "nodes":
+                        nodes = Long.parseLong(tokens[++i]);
+                        break;
+                    case "movetime":
+                        moveTime = Long.parseLong(tokens[++i]);
+                        break;
+                    case "wtime":
+                        whiteTime = Long.parseLong(tokens[++i]);
+                        break;
+                    case "btime":
+                        blackTime = Long.parseLong(tokens[++i]);
+                        break;
+                    case "winc":
+                        whiteIncrement = Long.parseLong(tokens[++i]);
+                        break;
+                    case "binc":
+                        blackIncrement = Long.parseLong(tokens[++i]);
+                        break;
+                    case "movestogo":
+                        movesToGo = Integer.parseInt(tokens[++i]);
+                        break;
+                    case "ponder":
+                        ponder = true;
+                        break;
+                    case "infinite":
+                        infinite = true;
+                        break;
+                    default:
+                        break;
+                }
+            } catch (RuntimeException e) {
+                send("info string Invalid go parameter: " + tokens[i - 1]);
+            }
+        }
+
+        if (!ponder && !infinite) {
+            int bookMove = bookMove();
+            if (bookMove != ChessMove.NONE) {
+                send("bestmove " + uciMove(bookMove));
+                return;
+            }
+        }
+
+        long budget = Long.MAX_VALUE;
+        if (moveTime > 0) {
+            budget = moveTime;
+        } else {
+            boolean white = chessMatch.getCurrentPlayer() == Color.WHITE;
+            long time = white ? whiteTime : blackTime;
+            long increment = white ? whiteIncrement : blackIncrement;
+            if (time > 0) {
+                int movesLeft = movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO;
+                budget = Math.max(1, Math.min(time / movesLeft + increment * 3 / 4, time - MOVE_OVERHEAD));
+            }
+        }
+        ponderBudget = budget;
+
+        // While pondering or analysing, the search runs until the GUI stops it or the ponder move is played.
+        long timeLimit = ponder || infinite ? Long.MAX_VALUE : budget;
+        search.prepare(new SearchLimits(Math.max(1, depth), Math.max(1, nodes), timeLimit, multiPv));
+        release = new CountDownLatch(ponder || infinite ? 1 : 0);
+        searchThread = new Thread(this::searchAndReply, "uci-search");
+        searchThread.setDaemon(true);
+        searchThread.start();
+    }
+
+    /**
+     * Chooses a book move for the current position, checking that it is legal there: two
+     * positions may share a key.
+     *
+     * @return the book move, or {@link ChessMove#NONE} if the book is off or has no move.
+     */
+    private int bookMove() {
+        if (!ownBook || book == null) {
+            return ChessMove.NONE;
+        }
+        int move = book.chooseMove(chessMatch, random);
+        if (move == ChessMove.NONE) {
+            return ChessMove.NONE;
+        }
+        int[] moves = new int[chessMatch.getMoveBufferSize()];
+        int count = chessMatch.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move && chessMatch.makeMove(move)) {
+                chessMatch.unmakeMove();
+                return move;
+            }
+        }
+        return ChessMove.NONE;
+    }
+
+    /**
+     * Runs on the search thread: searches, waits for {@code stop} or {@code ponderhit} if the
+     * search was started with {@code ponder} or {@code infinite}, then sends the best move.
+     */
+    private void searchAndReply() {
+        SearchResult result = search.search(chessMatch);
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int[] line = result.getPrincipalVariation();
+        String bestMove = "bestmove " + uciMove(result.getBestMove());
+        send(line.length > 1 ? bestMove + " ponder " + uciMove(line[1]) : bestMove);
+    }
+
+    /**
+     * Handles {@code stop}: the search ends at its next node and the best move is sent.
+     */
+    private void stop() {
+        search.stop();
+        CountDownLatch latch = release;
+        if (latch != null) {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Handles {@code ponderhit}: the ponder move was played, so the search continues on the
+     * engine's own clock.
+     */
+    private void ponderHit() {
+        search.setTimeLimit(ponderBudget);
+        CountDownLatch latch = release;
+        if (latch != null && !infinite) {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Stops the current search, if any, and waits until its best move has been sent.
+     */
+    private void finishSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        stop();
+        try {
+            searchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+        release = null;
+    }
+
+    /**
+     * Sends an {@code info} line for a completed depth.
+     */
+    private void sendInfo(SearchResult result) {
+        send("info depth " + result.getDepth()
+                + (multiPv > 1 ? " multipv " + result.getMultiPv() : "")
+                + " score " + (result.isMate() ? "mate " + result.getMateIn() : "cp " + result.getScore())
+                + " nodes " + result.getNodes()
+                + " nps " + result.getNodesPerSecond()
+                + " time " + result.getTimeMillis()
+                + " pv " + result.principalVariationString());
+    }
+
+    /**
+     * Sends one line to the GUI. Called from both the reader and the search thread.
+     */
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    /**
+     * Returns a move in UCI notation; the null move is written "0000".
+     */
+    private static String uciMove(int move) {
+        return move == ChessMove.NONE ? "0000" : ChessMove.toString(move);
+    }
+}
@@ -11,6 +11,7 @@ package com.mateusdalcantara.boardgame;
  * @see Piece
  * @see Position
  * @see BoardException
+ * @see BoardListener
  */
 public class Board {
 
@@ -21,6 +22,14 @@ public class Board {
     /** 2D array to hold pieces on the board */
     private Piece[][] pieces;
 
+    /**
+     * One shared position per square, returned by {@link #position(int, int)} so that the
+     * hot paths do not allocate. These positions must never be modified.
+     */
+    private Position[][] positions;
+    /** Listener notified when pieces are placed or removed, or {@code null} */
+    private BoardListener listener;
+
     /**
      * Constructs a new {@code Board} with the specified number of rows and columns.
      *
@@ -38,6 +47,12 @@ public class Board {
         this.rows = rows;
         this.columns = columns;
         pieces = new Piece[rows][columns];
+        positions = new Position[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                positions[i][j] = new Position(i, j);
+            }
+        }
     }
     /**
      * Returns the number of rows on the board.
@@ -57,6 +72,15 @@ public class Board {
         return columns;
     }
 
+    /**
+     * Sets the listener notified every time a piece is placed on or removed from the board.
+     *
+     * @param listener the listener, or {@code null} to remove the current one.
+     */
+    public void setListener(BoardListener listener) {
+        this.listener = listener;
+    }
+
     /**
      * Returns the piece located at the specified row and column.
      * This method retrieves the {@code Piece} object located at the
@@ -105,6 +129,9 @@ public class Board {
         }
         pieces[position.getRow()][position.getColumn()] = piece;
         piece.position = position;
+        if (listener != null) {
+            listener.piecePlaced(piece, position);
+        }
     }
 
     /**
@@ -124,9 +151,32 @@ public class Board {
         Piece aux = piece(position);
         aux.position = null;
         pieces[position.getRow()][position.getColumn()] = null;
+        if (listener != null) {
+            listener.pieceRemoved(aux, position);
+        }
         return aux;
     }
 
+    /**
+     * Returns the shared position of a square.
+     * <p>
+     * The same instance is returned for every call with the same coordinates, so callers must
+     * never modify it. Use it instead of {@code new Position(row, column)} in code that runs
+     * at every move.
+     * </p>
+     *
+     * @param row    the row index.
+     * @param column the column index.
+     * @return the position of the square.
+     * @throws BoardException if the position is not on the board.
+     */
+    public Position position(int row, int column) {
+        if (!positionExists(row, column)) {
+            throw new BoardException("Position not on the board");
+        }
+        return positions[row][column];
+    }
+
     /**
      * Checks if the given row and column are within the bound of the board.
      * this method verifies if the provided row and column indices are valid for
@@ -136,7 +186,7 @@ public class Board {
      * @param column the column index.
      * @return {@code true} if the position exists on the board, {@code false} otherwise.
      */
-    private boolean positionExists(int row, int column) {
+    public boolean positionExists(int row, int column) {
         return row >= 0 && row < rows && column >= 0 && column < columns;
     }
 
@@ -0,0 +1,31 @@
+package com.mateusdalcantara.boardgame;
+
+/**
+ * Receives a notification every time a piece is placed on or removed from a board.
+ * <p>
+ * A listener lets a game keep derived state (such as a position hash or evaluation terms)
+ * up to date incrementally, instead of scanning the whole board when the state is needed.
+ * Because every move, and every undo of a move, is made of removals and placements, the
+ * listener sees the exact inverse operations when a move is undone.
+ * </p>
+ *
+ * @see Board#setListener(BoardListener)
+ */
+public interface BoardListener {
+
+    /**
+     * Called after a piece has been placed on the board.
+     *
+     * @param piece    the piece that was placed.
+     * @param position the position where the piece was placed.
+     */
+    void piecePlaced(Piece piece, Position position);
+
+    /**
+     * Called after a piece has been removed from the board.
+     *
+     * @param piece    the piece that was removed.
+     * @param position the position from which the piece was removed.
+     */
+    void pieceRemoved(Piece piece, Position position);
+}
@@ -1,11 +1,23 @@
 package com.mateusdalcantara.chess;
 
 import com.mateusdalcantara.boardgame.Board;
+import com.mateusdalcantara.boardgame.BoardListener;
 import com.mateusdalcantara.boardgame.Piece;
 import com.mateusdalcantara.boardgame.Position;
+import com.mateusdalcantara.chess.eval.Evaluation;
+import com.mateusdalcantara.chess.metrics.Metrics;
+import com.mateusdalcantara.chess.metrics.MoveApplicationEvent;
+import com.mateusdalcantara.chess.metrics.MoveValidationEvent;
+import com.mateusdalcantara.chess.metrics.RejectReason;
+import com.mateusdalcantara.chess.pieces.Bishop;
 import com.mateusdalcantara.chess.pieces.King;
+import com.mateusdalcantara.chess.pieces.Knight;
+import com.mateusdalcantara.chess.pieces.Pawn;
+import com.mateusdalcantara.chess.pieces.Queen;
 import com.mateusdalcantara.chess.pieces.Rook;
 
+import java.util.Arrays;
+
 /**
  * Represent a match of chess, including the board and pieces.
  *
@@ -13,6 +25,11 @@ import com.mateusdalcantara.chess.pieces.Rook;
  * configuring the position of the pieces. It allows the access to the pieces
  * on the board and organizes their position.
  *
+ * Besides the validated moves of {@link #performChessMove}, the match offers the
+ * primitives used by engines: {@link #generateMoves(int[])}, {@link #makeMove(int)}
+ * and {@link #unmakeMove()}. Every move played is kept in a history, so any move can
+ * be taken back and repeated positions can be detected.
+ *
  * @see Board
  * @see ChessPiece
  * @see Rook
@@ -21,11 +38,118 @@ import com.mateusdalcantara.chess.pieces.Rook;
  */
 public class ChessMatch {
 
+    /**
+     * The initial setup of the match in Forsyth-Edwards Notation.
+     */
+    public static final String INITIAL_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    /**
+     * The largest number of rows or columns of a board, so that every square can be encoded by {@link ChessMove}.
+     */
+    public static final int MAX_SIZE = 16;
+
     /**
      * The game board for the chess match, which holds the pieces and their positions.
      */
     private Board board;
 
+    /**
+     * The current turn of the match. It starts at 1 and is incremented after every move.
+     */
+    private int turn;
+
+    /**
+     * The color of the player who makes the next move.
+     */
+    private Color currentPlayer;
+
+    /**
+     * The Zobrist key of the current position, updated incrementally on every move.
+     */
+    private long positionKey;
+
+    /**
+     * The running totals of the static evaluation of the current position.
+     */
+    private final Evaluation evaluation;
+
+    /**
+     * The number of pieces on the board.
+     */
+    private int pieceCount;
+
+    /**
+     * The moves played, encoded with {@link ChessMove}, in the order they were played.
+     */
+    private int[] moveHistory = new int[64];
+
+    /**
+     * The piece captured by each move of the history, or {@code null}.
+     */
+    private ChessPiece[] captureHistory = new ChessPiece[64];
+
+    /**
+     * The pawn replaced by each move of the history that is a promotion, or {@code null}.
+     */
+    private ChessPiece[] promotionHistory = new ChessPiece[64];
+
+    /**
+     * The position key before each move of the history.
+     */
+    private long[] keyHistory = new long[64];
+
+    /**
+     * The pieces taken off the board for good, indexed by {@link PieceType} ordinal times two
+     * plus {@link Color} ordinal: the pieces of a cleared position and the pieces replaced by
+     * a taken back promotion. Loading a position or promoting a pawn takes its pieces from
+     * here before allocating new ones, so a pooled match loads positions without allocating.
+     */
+    private final ChessPiece[][] sparePieces = new ChessPiece[2 * PieceType.values().length][8];
+
+    /**
+     * The number of pieces of each kind in {@link #sparePieces}.
+     */
+    private final int[] spareCounts = new int[2 * PieceType.values().length];
+
+    /**
+     * The number of moves in the history.
+     */
+    private int historySize;
+
+    /**
+     * The square of the king of each color, indexed by {@link Color} ordinal, or -1 if there is none.
+     */
+    private final int[] kingSquares = {-1, -1};
+
+    /**
+     * The squares of the pieces of each color, indexed by {@link Color} ordinal, in no particular order.
+     * <p>
+     * Move generation and check detection walk these lists instead of the board, so their cost
+     * depends on the number of pieces and not on the size of the board.
+     * </p>
+     */
+    private final int[][] pieceSquares;
+
+    /**
+     * The number of pieces of each color in {@link #pieceSquares}.
+     */
+    private final int[] pieceListSizes = new int[2];
+
+    /**
+     * The index in {@link #pieceSquares} of the piece standing on each square.
+     */
+    private final int[] pieceListIndexes;
+
+    /**
+     * The static exchange evaluator of the board of this match.
+     */
+    private final StaticExchange staticExchange;
+
+    /**
+     * The move buffer of {@link #hasLegalMove()}, kept so that checking for mate allocates nothing.
+     */
+    private final int[] legalMoveBuffer;
+
     /**
      * This constructor starts a chess match and builds the chess board.
      *
@@ -33,10 +157,187 @@ public class ChessMatch {
      * the pieces will be placed on the board. Their positions are defined by the {@code initialSetup} method.
      */
     public ChessMatch() {
-        board = new Board(8, 8); //numbers of rows and columns in chess board
+        this(8, 8); //numbers of rows and columns in chess board
         initialSetup(); //set the initial positions of the pieces
     }
 
+    /**
+     * Starts a match on an empty board of the given dimensions, for the variants played on
+     * larger or non-square boards. The pieces are placed with {@link #setPosition(String)}.
+     *
+     * @param rows    the number of rows, from 1 to {@value #MAX_SIZE}.
+     * @param columns the number of columns, from 1 to {@value #MAX_SIZE}.
+     * @throws ChessException if a dimension is out of range.
+     */
+    public ChessMatch(int rows, int columns) {
+        if (rows < 1 || rows > MAX_SIZE || columns < 1 || columns > MAX_SIZE) {
+            throw new ChessException("The board must have from 1 to " + MAX_SIZE + " rows and columns.");
+        }
+        board = new Board(rows, columns);
+        evaluation = new Evaluation(rows, columns);
+        pieceSquares = new int[2][rows * columns];
+        pieceListIndexes = new int[rows * columns];
+        legalMoveBuffer = new int[getMoveBufferSize()];
+        staticExchange = new StaticExchange(board);
+        board.setListener(new PositionTracker());
+        turn = 1;
+        currentPlayer = Color.WHITE;
+    }
+
+    /**
+     * Returns the number of rows of the board.
+     *
+     * @return the number of rows.
+     */
+    public int getRows() {
+        return board.getRows();
+    }
+
+    /**
+     * Returns the number of columns of the board.
+     *
+     * @return the number of columns.
+     */
+    public int getColumns() {
+        return board.getColumns();
+    }
+
+    /**
+     * Returns a size of move buffer that is always enough for {@link #generateMoves(int[])}:
+     * 256 on an 8x8 board, and four moves per square on larger boards.
+     *
+     * @return the number of moves the buffer must hold.
+     */
+    public int getMoveBufferSize() {
+        return Math.max(256, 4 * board.getRows() * board.getColumns());
+    }
+
+    /**
+     * Returns the current turn of the match.
+     *
+     * @return the turn number, starting at 1.
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * Returns the number of half-moves played since the initial setup.
+     *
+     * @return the ply of the current position, starting at 0.
+     */
+    public int getPly() {
+        return turn - 1;
+    }
+
+    /**
+     * Checks whether the current player is in check.
+     *
+     * @return {@code true} if the king of the current player is attacked.
+     */
+    public boolean getCheck() {
+        return testCheck(currentPlayer);
+    }
+
+    /**
+     * Checks whether the current player is checkmated.
+     *
+     * @return {@code true} if the current player is in check and has no legal move.
+     */
+    public boolean getCheckMate() {
+        return testCheck(currentPlayer) && !hasLegalMove();
+    }
+
+    /**
+     * Checks whether the current player is stalemated.
+     *
+     * @return {@code true} if the current player is not in check and has no legal move.
+     */
+    public boolean getStalemate() {
+        return !testCheck(currentPlayer) && !hasLegalMove();
+    }
+
+    /**
+     * Returns the number of pieces on the board.
+     *
+     * @return the piece count, kings included.
+     */
+    public int getPieceCount() {
+        return pieceCount;
+    }
+
+    /**
+     * Copies the squares of the pieces of one side into a buffer, in no particular order, so
+     * that the pieces can be walked without scanning the board or allocating.
+     *
+     * @param color   the side.
+     * @param squares the buffer receiving the squares; it must have room for every piece of
+     *                the side after {@code offset}.
+     * @param offset  the index of the first square written.
+     * @return the number of squares written.
+     */
+    public int getPieceSquares(Color color, int[] squares, int offset) {
+        int size = pieceListSizes[color.ordinal()];
+        System.arraycopy(pieceSquares[color.ordinal()], 0, squares, offset, size);
+        return size;
+    }
+
+    /**
+     * Returns the material of the pieces of one side other than its king and pawns, which
+     * tells whether the side is likely to be in zugzwang.
+     *
+     * @param color the side.
+     * @return the material value, in centipawns.
+     */
+    public int getNonPawnMaterial(Color color) {
+        int[] squares = pieceSquares[color.ordinal()];
+        int material = 0;
+        for (int i = pieceListSizes[color.ordinal()] - 1; i >= 0; i--) {
+            PieceType type = piece(squares[i]).getType();
+            if (type != PieceType.PAWN) {
+                material += Evaluation.PIECE_VALUES[type.ordinal()];
+            }
+        }
+        return material;
+    }
+
+    /**
+     * Returns the color of the player who makes the next move.
+     *
+     * @return the current player (Black or White).
+     */
+    public Color getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * Returns the Zobrist key of the current position.
+     * <p>
+     * The key identifies the placement of the pieces and the side to move. It is kept up to date
+     * incrementally by every move, so reading it costs nothing.
+     * </p>
+     *
+     * @return the 64-bit key of the current position.
+     * @see Zobrist
+     */
+    public long getPositionKey() {
+        return positionKey;
+    }
+
+    /**
+     * Returns the static evaluation of the current position.
+     * <p>
+     * The evaluation terms are kept up to date incrementally by every placement and removal of
+     * a piece, so this method takes constant time.
+     * </p>
+     *
+     * @return the score in centipawns, from the point of view of the current player.
+     * @see Evaluation
+     */
+    public int evaluate() {
+        return evaluation.evaluate(currentPlayer);
+    }
+
     /**
      * Returns the chess pieces on the board.
      *
@@ -57,7 +358,7 @@ public class ChessMatch {
     }
 
     public boolean[][] possibleMoves(ChessPosition sourcePosition){
-        Position position = sourcePosition.toPosition();
+        Position position = toPosition(square(sourcePosition));
         validateSourcePosition(position);
         return board.piece(position).possibleMoves();
     }
@@ -67,6 +368,7 @@ public class ChessMatch {
      *
      * This method performs a move from a source position to a target position,
      * validates the source position, and updates the board. If a piece is captured, it is returned.
+     * Validation and application are counted in {@link Metrics} and traced as JFR events.
      *
      * @param sourcePosition the position of the piece to move.
      * @param targetPosition the position to move the piece to.
@@ -74,12 +376,453 @@ public class ChessMatch {
      * @throws ChessException if the move is invalid or the source position does not contain a piece.
      * */
     public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition){
-        Position source = sourcePosition.toPosition();
-        Position target = targetPosition.toPosition();
-        validateSourcePosition(source);
-        validateTargetPosition(source, target);
+        return performChessMove(ChessMove.encode(square(sourcePosition), square(targetPosition)));
+    }
+
+    /**
+     * Executes a move given in the encoded form of {@link ChessMove}.
+     * <p>
+     * A pawn that reaches the last row is promoted to the piece encoded in the move, or to a
+     * queen if the move does not name one.
+     * </p>
+     *
+     * @param move the encoded move.
+     * @return the captured {@code ChessPiece}, or {@code null} if no piece was captured.
+     * @throws ChessException if the move is invalid.
+     * @see #performChessMove(ChessPosition, ChessPosition)
+     */
+    public ChessPiece performChessMove(int move) {
+        Position source = toPosition(ChessMove.source(move));
+        Position target = toPosition(ChessMove.target(move));
+
+        MoveValidationEvent validation = new MoveValidationEvent();
+        validation.start();
+        String rejection = "";
+        try {
+            validateSourcePosition(source);
+            validateTargetPosition(source, target);
+            move = validatePromotion(move, source, target);
+            validateKingSafety(move);
+        } catch (ChessException e) {
+            rejection = e.getMessage();
+            throw e;
+        } finally {
+            if (validation.finish()) {
+                validation.source = ChessMove.toChessPosition(ChessMove.source(move), board.getRows(), board.getColumns()).toString();
+                validation.target = ChessMove.toChessPosition(ChessMove.target(move), board.getRows(), board.getColumns()).toString();
+                validation.rejection = rejection;
+                validation.commit();
+            }
+        }
+        Metrics.moveValidated();
+
+        MoveApplicationEvent application = new MoveApplicationEvent();
+        application.start();
+        makeMove(move);
+        ChessPiece capturedPiece = captureHistory[historySize - 1];
+        if (application.finish()) {
+            application.move = moveToString(move);
+            application.capture = capturedPiece != null;
+            application.commit();
+        }
+        return capturedPiece;
+    }
+
+    /**
+     * Validates and plays an encoded move, reporting a rejected move by its reason instead of
+     * an exception.
+     * <p>
+     * The move is checked against the pseudo-legal moves of the current position, which the
+     * caller generates with {@link #generateMoves(int[])}: a caller validating several moves in
+     * the same position, such as a queue of submitted moves that are all rejected, generates
+     * them once. After a move is played the position changes, and the moves must be generated
+     * again. Unlike {@link #performChessMove(int)}, this method allocates nothing and records no
+     * JFR event; accepted and rejected moves are still counted in {@link Metrics}.
+     * </p>
+     *
+     * @param move  the encoded move; a pawn reaching the last row without a promotion piece is
+     *              promoted to a queen.
+     * @param moves the pseudo-legal moves of the current position.
+     * @param count the number of moves.
+     * @return {@code null} if the move was played, or the reason it was rejected.
+     */
+    public RejectReason tryChessMove(int move, int[] moves, int count) {
+        int source = ChessMove.source(move);
+        int target = ChessMove.target(move);
+        PieceType promotion = ChessMove.promotion(move);
+        int squares = board.getRows() * board.getColumns();
+        ChessPiece piece = source < squares && target < squares ? piece(source) : null;
+        RejectReason reason;
+        if (piece == null) {
+            reason = RejectReason.NO_PIECE;
+        } else if (piece.getColor() != currentPlayer) {
+            reason = RejectReason.NOT_YOUR_PIECE;
+        } else {
+            boolean movable = false;
+            int legal = ChessMove.NONE;
+            for (int i = 0; i < count; i++) {
+                int candidate = moves[i];
+                if (ChessMove.source(candidate) != source) {
+                    continue;
+                }
+                movable = true;
+                PieceType candidatePromotion = ChessMove.promotion(candidate);
+                if (ChessMove.target(candidate) == target && (candidatePromotion == promotion
+                        || (promotion == null && candidatePromotion == PieceType.QUEEN))) {
+                    legal = candidate;
+                    break;
+                }
+            }
+            if (!movable) {
+                reason = RejectReason.NO_POSSIBLE_MOVES;
+            } else if (legal == ChessMove.NONE) {
+                reason = RejectReason.ILLEGAL_TARGET;
+            } else if (!makeMove(legal)) {
+                reason = RejectReason.SELF_CHECK;
+            } else {
+                Metrics.moveValidated();
+                return null;
+            }
+        }
+        Metrics.moveRejected(reason);
+        return reason;
+    }
+
+    /**
+     * Writes the pseudo-legal moves of the current player into a buffer.
+     * <p>
+     * Pseudo-legal moves follow the movement rules of the pieces but may leave the king in
+     * check; {@link #makeMove(int)} rejects those. The buffer must be large enough for every
+     * move of the position, see {@link #getMoveBufferSize()}.
+     * </p>
+     *
+     * @param moves the buffer receiving the encoded moves.
+     * @return the number of moves written.
+     */
+    public int generateMoves(int[] moves) {
+        int count = 0;
+        int[] squares = pieceSquares[currentPlayer.ordinal()];
+        for (int i = pieceListSizes[currentPlayer.ordinal()] - 1; i >= 0; i--) {
+            count = piece(squares[i]).generateMoves(moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Parses a move in coordinate notation on the board of this match, such as "e2e4" on an
+     * 8x8 board or "a10b12" on a larger one.
+     *
+     * @param text the move in coordinate notation.
+     * @return the encoded move.
+     * @throws ChessException if the text is not a move on this board.
+     * @see ChessMove#parse(String, int, int)
+     */
+    public int parseMove(String text) {
+        return ChessMove.parse(text, board.getRows(), board.getColumns());
+    }
+
+    /**
+     * Returns the coordinate notation of a move on the board of this match.
+     *
+     * @param move the encoded move.
+     * @return the move in coordinate notation, or "-" for {@link ChessMove#NONE}.
+     * @see ChessMove#toString(int, int, int)
+     */
+    public String moveToString(int move) {
+        return ChessMove.toString(move, board.getRows(), board.getColumns());
+    }
+
+    /**
+     * Checks whether a move captures a piece.
+     *
+     * @param move the encoded move.
+     * @return {@code true} if there is a piece on the target square of the move.
+     */
+    public boolean isCapture(int move) {
+        return piece(ChessMove.target(move)) != null;
+    }
+
+    /**
+     * Returns the type of the piece on a square, for example to order captures by the value
+     * of the captured and capturing pieces.
+     *
+     * @param square the square index.
+     * @return the piece type, or {@code null} if the square is empty.
+     */
+    public PieceType getPieceType(int square) {
+        ChessPiece piece = piece(square);
+        return piece == null ? null : piece.getType();
+    }
+
+    /**
+     * Returns the static exchange evaluation (SEE) of a move: the material it wins once every
+     * recapture on the target square has been played out, each side capturing with its least
+     * valuable piece and stopping when going on would lose material.
+     * <p>
+     * The search uses it to order captures and to skip the losing ones. It allocates nothing.
+     * </p>
+     *
+     * @param move the encoded move, usually a capture.
+     * @return the material won by the current player, in centipawns; negative if the move loses material.
+     * @see StaticExchange
+     */
+    public int see(int move) {
+        return staticExchange.evaluate(move);
+    }
+
+    /**
+     * Checks whether the piece on a position can be won by its opponent, that is, whether it
+     * is attacked and not defended well enough to make the capture lose material.
+     *
+     * @param position the position of the piece.
+     * @return {@code true} if the piece is hanging, {@code false} if it is safe or the position is empty.
+     */
+    public boolean isHanging(ChessPosition position) {
+        return staticExchange.isHanging(square(position));
+    }
+
+    /**
+     * Plays a move without validating the movement rules, as engines do.
+     * <p>
+     * The move must be pseudo-legal, such as one returned by {@link #generateMoves(int[])}.
+     * If it would leave the king of the current player in check it is not played.
+     * </p>
+     *
+     * @param move the encoded move.
+     * @return {@code true} if the move was played, {@code false} if it was illegal.
+     */
+    public boolean makeMove(int move) {
+        Position source = toPosition(ChessMove.source(move));
+        Position target = toPosition(ChessMove.target(move));
+        long key = positionKey;
         Piece capturedPiece = makeMove(source, target);
-        return (ChessPiece) capturedPiece;
+        if (testCheck(currentPlayer)) {
+            undoMove(source, target, capturedPiece);
+            return false;
+        }
+        ChessPiece pawn = null;
+        PieceType promotion = ChessMove.promotion(move);
+        if (promotion != null) {
+            pawn = (ChessPiece) board.removePiece(target);
+            board.placePiece(takePiece(promotion, pawn.getColor()), target);
+        }
+        if (historySize == moveHistory.length) {
+            moveHistory = Arrays.copyOf(moveHistory, historySize * 2);
+            captureHistory = Arrays.copyOf(captureHistory, historySize * 2);
+            promotionHistory = Arrays.copyOf(promotionHistory, historySize * 2);
+            keyHistory = Arrays.copyOf(keyHistory, historySize * 2);
+        }
+        moveHistory[historySize] = move;
+        captureHistory[historySize] = (ChessPiece) capturedPiece;
+        promotionHistory[historySize] = pawn;
+        keyHistory[historySize] = key;
+        historySize++;
+        nextTurn();
+        return true;
+    }
+
+    /**
+     * Passes the turn without moving, as the null-move pruning of a search does. The null move
+     * is recorded as {@link ChessMove#NONE} and taken back by {@link #unmakeMove()}; it must not
+     * be played while the current player is in check.
+     */
+    public void makeNullMove() {
+        if (historySize == moveHistory.length) {
+            moveHistory = Arrays.copyOf(moveHistory, historySize * 2);
+            captureHistory = Arrays.copyOf(captureHistory, historySize * 2);
+            promotionHistory = Arrays.copyOf(promotionHistory, historySize * 2);
+            keyHistory = Arrays.copyOf(keyHistory, historySize * 2);
+        }
+        moveHistory[historySize] = ChessMove.NONE;
+        keyHistory[historySize] = positionKey;
+        historySize++;
+        nextTurn();
+    }
+
+    /**
+     * Takes back the last move played, or the last null move.
+     *
+     * @throws ChessException if no move was played.
+     */
+    public void unmakeMove() {
+        if (historySize == 0) {
+            throw new ChessException("There is no move to take back.");
+        }
+        historySize--;
+        int move = moveHistory[historySize];
+        if (move == ChessMove.NONE) {
+            previousTurn();
+            return;
+        }
+        ChessPiece capturedPiece = captureHistory[historySize];
+        ChessPiece pawn = promotionHistory[historySize];
+        captureHistory[historySize] = null;
+        promotionHistory[historySize] = null;
+        previousTurn();
+        Position target = toPosition(ChessMove.target(move));
+        if (pawn != null) {
+            recycle((ChessPiece) board.removePiece(target));
+            board.placePiece(pawn, target);
+        }
+        undoMove(toPosition(ChessMove.source(move)), target, capturedPiece);
+    }
+
+    /**
+     * Checks whether the current position already occurred with the same player to move.
+     *
+     * @return {@code true} if the position is a repetition.
+     */
+    public boolean isRepetition() {
+        for (int i = historySize - 2; i >= 0; i -= 2) {
+            if (moveHistory[i] == ChessMove.NONE || moveHistory[i + 1] == ChessMove.NONE) {
+                return false; // a null move is not a real move, so nothing before it repeats
+            }
+            if (keyHistory[i] == positionKey) {
+                return true;
+            }
+            if (captureHistory[i] != null || captureHistory[i + 1] != null) {
+                return false; // positions before a capture cannot occur again
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the last move played.
+     *
+     * @return the encoded move, or {@link ChessMove#NONE} if no move was played.
+     */
+    public int getLastMove() {
+        return historySize == 0 ? ChessMove.NONE : moveHistory[historySize - 1];
+    }
+
+    /**
+     * Returns the piece captured by the last move played.
+     *
+     * @return the captured piece, or {@code null} if the last move was not a capture or no move was played.
+     */
+    public ChessPiece getLastCapturedPiece() {
+        return historySize == 0 ? null : captureHistory[historySize - 1];
+    }
+
+    /**
+     * Loads a position given in Forsyth-Edwards Notation, replacing the current one.
+     * <p>
+     * The board is reused: the current pieces are removed and the pieces of the position are
+     * placed on it. The move history is cleared.
+     * </p>
+     *
+     * @param fen the position in FEN.
+     * @throws ChessException if the FEN is invalid.
+     * @see Fen
+     */
+    public void setPosition(String fen) {
+        Fen.load(this, fen);
+    }
+
+    /**
+     * Returns the current position in Forsyth-Edwards Notation.
+     *
+     * @return the position in FEN.
+     * @see Fen
+     */
+    public String toFen() {
+        return Fen.toFen(this);
+    }
+
+    /**
+     * Removes every piece and clears the history, so that a new position can be placed.
+     *
+     * @param player the color of the player who makes the next move.
+     * @param turn   the turn number of the new position.
+     */
+    void clearPosition(Color player, int turn) {
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getColumns(); j++) {
+                if (board.piece(i, j) != null) {
+                    recycle((ChessPiece) board.removePiece(board.position(i, j)));
+                }
+            }
+        }
+        for (int i = 0; i < historySize; i++) {
+            if (captureHistory[i] != null) {
+                recycle(captureHistory[i]);
+            }
+            if (promotionHistory[i] != null) {
+                recycle(promotionHistory[i]);
+            }
+        }
+        Arrays.fill(captureHistory, 0, historySize, null);
+        Arrays.fill(promotionHistory, 0, historySize, null);
+        historySize = 0;
+        if (currentPlayer != player) {
+            positionKey ^= Zobrist.SIDE_TO_MOVE;
+        }
+        this.currentPlayer = player;
+        this.turn = turn;
+    }
+
+    /**
+     * Places a piece of the given type on a square, reusing a spare piece when there is one.
+     *
+     * @param type   the type of the piece.
+     * @param color  the color of the piece.
+     * @param square the square index.
+     */
+    void placeNewPiece(PieceType type, Color color, int square) {
+        board.placePiece(takePiece(type, color), toPosition(square));
+    }
+
+    /**
+     * Returns a spare piece of the given type and color, or a new one if there is none.
+     */
+    private ChessPiece takePiece(PieceType type, Color color) {
+        int kind = 2 * type.ordinal() + color.ordinal();
+        if (spareCounts[kind] == 0) {
+            return newPiece(type, color);
+        }
+        return sparePieces[kind][--spareCounts[kind]];
+    }
+
+    /**
+     * Keeps a piece that was taken off the board for good, to be reused by {@link #takePiece}.
+     */
+    private void recycle(ChessPiece piece) {
+        int kind = 2 * piece.getType().ordinal() + piece.getColor().ordinal();
+        if (spareCounts[kind] == sparePieces[kind].length) {
+            sparePieces[kind] = Arrays.copyOf(sparePieces[kind], 2 * spareCounts[kind]);
+        }
+        sparePieces[kind][spareCounts[kind]++] = piece;
+    }
+
+    /**
+     * Creates a piece of the given type for the board of this match.
+     */
+    private ChessPiece newPiece(PieceType type, Color color) {
+        switch (type) {
+            case KING:
+                return new King(board, color);
+            case QUEEN:
+                return new Queen(board, color);
+            case ROOK:
+                return new Rook(board, color);
+            case BISHOP:
+                return new Bishop(board, color);
+            case KNIGHT:
+                return new Knight(board, color);
+            default:
+                return new Pawn(board, color);
+        }
+    }
+
+    /**
+     * Returns the piece on a square.
+     *
+     * @param square the square index.
+     * @return the piece, or {@code null} if the square is empty.
+     */
+    ChessPiece piece(int square) {
+        return (ChessPiece) board.piece(square / board.getColumns(), square % board.getColumns());
     }
 
     /**
@@ -99,6 +842,101 @@ public class ChessMatch {
         return capturedPiece;
     }
 
+    /**
+     * Takes back a move made by {@link #makeMove(Position, Position)}.
+     *
+     * @param source        the source position of the move.
+     * @param target        the target position of the move.
+     * @param capturedPiece the piece captured by the move, or {@code null}.
+     */
+    private void undoMove(Position source, Position target, Piece capturedPiece) {
+        Piece p = board.removePiece(target);
+        board.placePiece(p, source);
+        if (capturedPiece != null) {
+            board.placePiece(capturedPiece, target);
+        }
+    }
+
+    /**
+     * Passes the turn to the opponent.
+     */
+    private void nextTurn() {
+        turn++;
+        currentPlayer = opponent(currentPlayer);
+        positionKey ^= Zobrist.SIDE_TO_MOVE;
+    }
+
+    /**
+     * Gives the turn back to the previous player.
+     */
+    private void previousTurn() {
+        turn--;
+        currentPlayer = opponent(currentPlayer);
+        positionKey ^= Zobrist.SIDE_TO_MOVE;
+    }
+
+    private static Color opponent(Color color) {
+        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    }
+
+    /**
+     * Checks whether the king of the given color is attacked by any opponent piece.
+     *
+     * @param color the color of the king.
+     * @return {@code true} if the king is in check, {@code false} otherwise or if there is no such king.
+     */
+    private boolean testCheck(Color color) {
+        int kingSquare = kingSquares[color.ordinal()];
+        if (kingSquare < 0) {
+            return false;
+        }
+        int row = kingSquare / board.getColumns();
+        int column = kingSquare % board.getColumns();
+        int opponent = opponent(color).ordinal();
+        int[] squares = pieceSquares[opponent];
+        for (int i = pieceListSizes[opponent] - 1; i >= 0; i--) {
+            if (piece(squares[i]).attacks(row, column)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the current player has at least one legal move.
+     */
+    private boolean hasLegalMove() {
+        int count = generateMoves(legalMoveBuffer);
+        for (int i = 0; i < count; i++) {
+            if (makeMove(legalMoveBuffer[i])) {
+                unmakeMove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the board position of a square index.
+     */
+    private Position toPosition(int square) {
+        return board.position(square / board.getColumns(), square % board.getColumns());
+    }
+
+    /**
+     * Returns the square index of a chess position on the board of this match.
+     */
+    private int square(ChessPosition position) {
+        return ChessMove.square(position, board.getRows(), board.getColumns());
+    }
+
+    /**
+     * Returns the square index of a board position, as used by {@link Zobrist} and {@link ChessMove}.
+     */
+    private int square(Position position) {
+        return position.getRow() * board.getColumns() + position.getColumn();
+    }
+
     /**
      * Validates that the source position on the chess board contains a piece and that the piece has at
      * least one possible move.
@@ -113,15 +951,57 @@ public class ChessMatch {
      * */
     private void validateSourcePosition(Position position){
         if (!board.thereIsAPiece(position)){
+            Metrics.moveRejected(RejectReason.NO_PIECE);
             throw new ChessException("There is no piece on source position.");
         }
+        if (currentPlayer != ((ChessPiece) board.piece(position)).getColor()) {
+            Metrics.moveRejected(RejectReason.NOT_YOUR_PIECE);
+            throw new ChessException("The chosen piece is not yours.");
+        }
         if (!board.piece(position).isThereAnyPossibleMove()){
+            Metrics.moveRejected(RejectReason.NO_POSSIBLE_MOVES);
             throw new ChessException("There is no possible moves for the chosen piece");
         }
     }
 
+    /**
+     * Validates that a move does not leave the king of the current player in check.
+     *
+     * @param move the encoded move.
+     * @throws ChessException if the move would leave the king in check.
+     */
+    private void validateKingSafety(int move) {
+        if (!makeMove(move)) {
+            Metrics.moveRejected(RejectReason.SELF_CHECK);
+            throw new ChessException("You can't put yourself in check.");
+        }
+        unmakeMove();
+    }
+
+    /**
+     * Checks the promotion of a move: a pawn reaching the last row must be promoted, and no
+     * other move may be.
+     *
+     * @return the move, with a promotion to a queen added if the pawn reaches the last row without one.
+     * @throws ChessException if the move names a promotion it cannot make.
+     */
+    private int validatePromotion(int move, Position source, Position target) {
+        ChessPiece piece = (ChessPiece) board.piece(source);
+        int lastRow = piece.getColor() == Color.WHITE ? 0 : board.getRows() - 1;
+        boolean promotes = piece.getType() == PieceType.PAWN && target.getRow() == lastRow;
+        if (promotes && ChessMove.promotion(move) == null) {
+            return ChessMove.encode(ChessMove.source(move), ChessMove.target(move), PieceType.QUEEN);
+        }
+        if (!promotes && ChessMove.promotion(move) != null) {
+            Metrics.moveRejected(RejectReason.ILLEGAL_TARGET);
+            throw new ChessException("Only a pawn reaching the last row can be promoted.");
+        }
+        return move;
+    }
+
     private void validateTargetPosition(Position source, Position target){
         if (!board.piece(source).possibleMove(target)){
+            Metrics.moveRejected(RejectReason.ILLEGAL_TARGET);
             throw new ChessException("The chosen piece can't move to target position");
         }
     }
@@ -149,15 +1029,16 @@ public class ChessMatch {
      * @see ChessPosition
      */
     private void placeNewPiece(char column, int row, ChessPiece piece){
-        board.placePiece(piece, new ChessPosition(column, row).toPosition());
+        board.placePiece(piece, toPosition(square(new ChessPosition(column, row, board.getRows(), board.getColumns()))));
     }
 
     /**
      * Sets up the initial configuration of the match, placing the
      * pieces on the board.
      *
-     * This method set positions the pieces on the chessboard. The {@code Rook}
-     * are placed, and the {@code King} are placed.
+     * This method places the pieces of both players on their first two rows, as in a
+     * standard chess game: the {@code Rook}, {@code Knight}, {@code Bishop}, {@code Queen}
+     * and {@code King} on the first row and the {@code Pawn} on the second.
      *
      * @see Rook
      * @see King
@@ -165,19 +1046,51 @@ public class ChessMatch {
     private void initialSetup() {
 
         /** Column = a-h, Row = 1-8 */
-        placeNewPiece('c', 1, new Rook(board, Color.WHITE));
-        placeNewPiece('c', 2, new Rook(board, Color.WHITE));
-        placeNewPiece('d', 2, new Rook(board, Color.WHITE));
-        placeNewPiece('e', 2, new Rook(board, Color.WHITE));
-        placeNewPiece('e', 1, new Rook(board, Color.WHITE));
-        placeNewPiece('d', 1, new King(board, Color.WHITE));
-
-        placeNewPiece('c', 7, new Rook(board, Color.BLACK));
-        placeNewPiece('c', 8, new Rook(board, Color.BLACK));
-        placeNewPiece('d', 7, new Rook(board, Color.BLACK));
-        placeNewPiece('e', 7, new Rook(board, Color.BLACK));
-        placeNewPiece('e', 8, new Rook(board, Color.BLACK));
-        placeNewPiece('d', 8, new King(board, Color.BLACK));
+        for (char column = 'a'; column <= 'h'; column++) {
+            placeNewPiece(column, 2, new Pawn(board, Color.WHITE));
+            placeNewPiece(column, 7, new Pawn(board, Color.BLACK));
+        }
+        PieceType[] backRow = {PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN,
+                PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK};
+        for (int i = 0; i < backRow.length; i++) {
+            placeNewPiece((char) ('a' + i), 1, newPiece(backRow[i], Color.WHITE));
+            placeNewPiece((char) ('a' + i), 8, newPiece(backRow[i], Color.BLACK));
+        }
+
+    }
+
+    /**
+     * Updates the position key, the evaluation and the piece lists every time a piece is placed or removed.
+     */
+    private class PositionTracker implements BoardListener {
 
+        @Override
+        public void piecePlaced(Piece piece, Position position) {
+            int square = square(position);
+            positionKey ^= Zobrist.pieceKey((ChessPiece) piece, square);
+            evaluation.add((ChessPiece) piece, square);
+            pieceCount++;
+            int color = ((ChessPiece) piece).getColor().ordinal();
+            pieceListIndexes[square] = pieceListSizes[color];
+            pieceSquares[color][pieceListSizes[color]++] = square;
+            if (((ChessPiece) piece).getType() == PieceType.KING) {
+                kingSquares[color] = square;
+            }
+        }
+
+        @Override
+        public void pieceRemoved(Piece piece, Position position) {
+            int square = square(position);
+            positionKey ^= Zobrist.pieceKey((ChessPiece) piece, square);
+            evaluation.remove((ChessPiece) piece, square);
+            pieceCount--;
+            int color = ((ChessPiece) piece).getColor().ordinal();
+            int last = pieceSquares[color][--pieceListSizes[color]];
+            pieceSquares[color][pieceListIndexes[square]] = last;
+            pieceListIndexes[last] = pieceListIndexes[square];
+            if (((ChessPiece) piece).getType() == PieceType.KING) {
+                kingSquares[color] = -1;
+            }
+        }
     }
 }
@@ -0,0 +1,257 @@
+package com.mateusdalcantara.chess;
+
+/**
+ * Utility class to encode chess moves as compact integers.
+ * <p>
+ * On an 8x8 board a move is stored in the low 16 bits of an {@code int}: the source square in
+ * bits 0-5, the target square in bits 6-11 and, for a pawn promotion, the {@link PieceType}
+ * ordinal of the new piece in bits 12-14 (0 means no promotion, since a pawn cannot become a
+ * king). Squares are numbered from 0 ('a8') to 63 ('h1'), following the row and column order of
+ * the internal {@code Position} ({@code square = row * columns + column}). The value
+ * {@link #NONE} means "no move", which can never be a real move because the source and target
+ * squares are the same.
+ * </p>
+ * <p>
+ * Larger boards have up to {@value #MAX_SQUARES} squares. The low 6 bits of each square stay
+ * where they are and the 2 high bits go to bits 16-17 (source) and 18-19 (target), so the moves
+ * of an 8x8 board are encoded exactly as before and still fit in 16 bits.
+ * </p>
+ * <p>
+ * Encoded moves are used wherever moves are stored in bulk, such as archive indexes, so
+ * that they can be kept in primitive arrays and written to disk as 16-bit values.
+ * </p>
+ * <p>
+ * The methods without board dimensions use the standard 8x8 board. On other boards, columns are
+ * named from 'a' and rows are numbered from 1, so that 'p16' is the top right square of a 16x16
+ * board and "a10b12" is a move.
+ * </p>
+ *
+ * @see ChessPosition
+ * @see ChessMatch
+ */
+public final class ChessMove {
+
+    /** The value used when there is no move. */
+    public static final int NONE = 0;
+
+    /** The letter of each piece type in coordinate notation, indexed by {@link PieceType} ordinal. */
+    private static final String PROMOTION_LETTERS = "kqrbnp";
+
+    /** The piece types by ordinal, copied once: {@code values()} returns a new array each call. */
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private ChessMove() {
+    }
+
+    /** The number of squares of the largest board whose moves can be encoded (16x16). */
+    public static final int MAX_SQUARES = 256;
+
+    /**
+     * Encodes a move from a source square to a target square.
+     *
+     * @param source the source square index.
+     * @param target the target square index.
+     * @return the encoded move.
+     */
+    public static int encode(int source, int target) {
+        return (source & 0x3F) | (target & 0x3F) << 6 | (source >>> 6) << 16 | (target >>> 6) << 18;
+    }
+
+    /**
+     * Encodes a pawn move that promotes the pawn.
+     *
+     * @param source    the source square index.
+     * @param target    the target square index.
+     * @param promotion the type of the new piece.
+     * @return the encoded move.
+     */
+    public static int encode(int source, int target, PieceType promotion) {
+        return encode(source, target) | (promotion.ordinal() << 12);
+    }
+
+    /**
+     * Encodes a move from a source position to a target position of an 8x8 board.
+     *
+     * @param source the source position in chess notation.
+     * @param target the target position in chess notation.
+     * @return the encoded move.
+     */
+    public static int encode(ChessPosition source, ChessPosition target) {
+        return encode(square(source), square(target));
+    }
+
+    /**
+     * Returns the source square index of an encoded move.
+     *
+     * @param move the encoded move.
+     * @return the source square index.
+     */
+    public static int source(int move) {
+        return (move & 0x3F) | (move >>> 16 & 0x3) << 6;
+    }
+
+    /**
+     * Returns the target square index of an encoded move.
+     *
+     * @param move the encoded move.
+     * @return the target square index.
+     */
+    public static int target(int move) {
+        return (move >>> 6 & 0x3F) | (move >>> 18 & 0x3) << 6;
+    }
+
+    /**
+     * Returns the promotion of an encoded move.
+     *
+     * @param move the encoded move.
+     * @return the type of the new piece, or {@code null} if the move is not a promotion.
+     */
+    public static PieceType promotion(int move) {
+        int type = (move >>> 12) & 0x7;
+        return type == 0 ? null : TYPES[type];
+    }
+
+    /**
+     * Converts a chess position of an 8x8 board into its square index.
+     *
+     * @param position the position in chess notation.
+     * @return the square index (0 for 'a8', 63 for 'h1').
+     */
+    public static int square(ChessPosition position) {
+        return square(position, 8, 8);
+    }
+
+    /**
+     * Converts a chess position into its square index on a board of the given dimensions.
+     *
+     * @param position the position in chess notation.
+     * @param rows     the number of rows of the board.
+     * @param columns  the number of columns of the board.
+     * @return the square index (0 for the top left square).
+     */
+    public static int square(ChessPosition position, int rows, int columns) {
+        return (rows - position.getRow()) * columns + (position.getColumn() - 'a');
+    }
+
+    /**
+     * Converts a square index of an 8x8 board into a chess position.
+     *
+     * @param square the square index (0-63).
+     * @return the corresponding position in chess notation.
+     * @throws ChessException if the square index is out of range.
+     */
+    public static ChessPosition toChessPosition(int square) {
+        return toChessPosition(square, 8, 8);
+    }
+
+    /**
+     * Converts a square index into a chess position on a board of the given dimensions.
+     *
+     * @param square  the square index.
+     * @param rows    the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @return the corresponding position in chess notation.
+     * @throws ChessException if the square index is out of range.
+     */
+    public static ChessPosition toChessPosition(int square, int rows, int columns) {
+        return new ChessPosition((char) ('a' + square % columns), rows - square / columns, rows, columns);
+    }
+
+    /**
+     * Parses a move of an 8x8 board written in coordinate notation, such as "c1c3", or "e7e8q"
+     * for a promotion.
+     *
+     * @param text the move in coordinate notation.
+     * @return the encoded move.
+     * @throws ChessException if the text is not a valid move.
+     */
+    public static int parse(String text) {
+        return parse(text, 8, 8);
+    }
+
+    /**
+     * Parses a move written in coordinate notation on a board of the given dimensions, such as
+     * "a10b12", or "c15c16q" for a promotion.
+     *
+     * @param text    the move in coordinate notation.
+     * @param rows    the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @return the encoded move.
+     * @throws ChessException if the text is not a valid move.
+     */
+    public static int parse(String text, int rows, int columns) {
+        try {
+            int sourceEnd = digitsEnd(text, 1);
+            int targetEnd = digitsEnd(text, sourceEnd + 1);
+            ChessPosition source = new ChessPosition(text.charAt(0),
+                    Integer.parseInt(text.substring(1, sourceEnd)), rows, columns);
+            ChessPosition target = new ChessPosition(text.charAt(sourceEnd),
+                    Integer.parseInt(text.substring(sourceEnd + 1, targetEnd)), rows, columns);
+            int move = encode(square(source, rows, columns), square(target, rows, columns));
+            if (targetEnd == text.length()) {
+                return move;
+            }
+            int type = PROMOTION_LETTERS.indexOf(text.charAt(targetEnd));
+            if (targetEnd + 1 != text.length() || type < 1 || type == PieceType.PAWN.ordinal()) {
+                throw new ChessException("Invalid move: " + text);
+            }
+            return move | (type << 12);
+        }
+        catch (RuntimeException e) {
+            throw new ChessException("Invalid move: " + text);
+        }
+    }
+
+    /**
+     * Returns the coordinate notation of an encoded move of an 8x8 board, such as "c1c3" or "e7e8q".
+     *
+     * @param move the encoded move.
+     * @return the move in coordinate notation, or "-" for {@link #NONE}.
+     */
+    public static String toString(int move) {
+        return toString(move, 8, 8);
+    }
+
+    /**
+     * Returns the coordinate notation of an encoded move on a board of the given dimensions.
+     *
+     * @param move    the encoded move.
+     * @param rows    the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @return the move in coordinate notation, or "-" for {@link #NONE}.
+     */
+    public static String toString(int move, int rows, int columns) {
+        if (move == NONE) {
+            return "-";
+        }
+        StringBuilder text = new StringBuilder(7);
+        appendSquare(text, source(move), rows, columns);
+        appendSquare(text, target(move), rows, columns);
+        PieceType promotion = promotion(move);
+        if (promotion != null) {
+            text.append(PROMOTION_LETTERS.charAt(promotion.ordinal()));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Appends a square in chess notation, as {@link ChessPosition#toString()} writes it.
+     */
+    private static void appendSquare(StringBuilder text, int square, int rows, int columns) {
+        text.append((char) ('a' + square % columns)).append(rows - square / columns);
+    }
+
+    /**
+     * Returns the index just after the digits of a row number that starts at the given index.
+     */
+    private static int digitsEnd(String text, int start) {
+        int end = start;
+        while (end < text.length() && Character.isDigit(text.charAt(end))) {
+            end++;
+        }
+        if (end == start) {
+            throw new ChessException("Invalid move: " + text);
+        }
+        return end;
+    }
+}
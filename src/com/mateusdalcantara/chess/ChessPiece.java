@@ -43,9 +43,92 @@ public abstract class ChessPiece extends Piece {
         return color;
     }
 
+    /**
+     *  Return the type of the piece
+     *
+     * @return the {@code PieceType} of the chess piece (King, Rook, etc).
+     * */
+    public abstract PieceType getType();
+
+    /**
+     * Writes the pseudo-legal moves of this piece into a buffer, encoded with {@link ChessMove}.
+     * <p>
+     * Unlike {@link #possibleMoves()}, this method allocates nothing, so it can be called at
+     * every node of a search.
+     * </p>
+     *
+     * @param moves the buffer receiving the moves.
+     * @param count the number of moves already in the buffer.
+     * @return the number of moves in the buffer after the moves of this piece were added.
+     */
+    public abstract int generateMoves(int[] moves, int count);
+
+    /**
+     * Checks whether this piece attacks a square, that is, whether it could capture a piece
+     * of the opponent standing on it.
+     *
+     * @param row    the row of the square.
+     * @param column the column of the square.
+     * @return {@code true} if the square is attacked.
+     */
+    public abstract boolean attacks(int row, int column);
+
+    /**
+     * Returns the matrix of the possible moves of this piece, built from {@link #generateMoves(int[], int)}.
+     *
+     * @return a matrix where {@code true} marks a square the piece can move to.
+     */
+    @Override
+    public boolean[][] possibleMoves() {
+        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
+        int[] moves = new int[getBoard().getRows() * getBoard().getColumns()];
+        int count = generateMoves(moves, 0);
+        for (int i = 0; i < count; i++) {
+            int target = ChessMove.target(moves[i]);
+            mat[target / getBoard().getColumns()][target % getBoard().getColumns()] = true;
+        }
+        return mat;
+    }
+
     protected boolean isThereOpponentPiece(Position position){
         ChessPiece p = (ChessPiece)getBoard().piece(position);
         return p != null && p.getColor() != color;
     }
 
+    /**
+     * Checks whether this piece may end a move on a square: the square is on the board and
+     * is empty or holds an opponent piece.
+     *
+     * @param row    the row of the square.
+     * @param column the column of the square.
+     * @return {@code true} if the piece may move there.
+     */
+    protected boolean canMoveTo(int row, int column) {
+        if (!getBoard().positionExists(row, column)) {
+            return false;
+        }
+        ChessPiece p = (ChessPiece) getBoard().piece(row, column);
+        return p == null || p.color != color;
+    }
+
+    /**
+     * Returns the square index of this piece, as used by {@link ChessMove}.
+     *
+     * @return the square index of the current position of the piece.
+     */
+    protected int square() {
+        return position.getRow() * getBoard().getColumns() + position.getColumn();
+    }
+
+    /**
+     * Returns the square index of a board coordinate, as used by {@link ChessMove}.
+     *
+     * @param row    the row.
+     * @param column the column.
+     * @return the square index.
+     */
+    protected int square(int row, int column) {
+        return row * getBoard().getColumns() + column;
+    }
+
 }
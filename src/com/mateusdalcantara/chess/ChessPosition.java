@@ -12,6 +12,9 @@ import com.mateusdalcantara.boardgame.Position;
  * It ensures that only valid chess positions (from 'a1' to 'h8') are created,
  * throwing an exception for any invalid values.
  *
+ * On boards larger than 8x8, the columns go on with the next letters and the rows
+ * with the next numbers, so 'p16' is the top right square of a 16x16 board.
+ *
  * @see Position
  * @see ChessException
  * */
@@ -60,6 +63,27 @@ public class ChessPosition {
         this.row = row;
     }
 
+    /**
+     * Constructs a ChessPosition instance on a board of the given dimensions.
+     *
+     * The column must be one of the first {@code columns} letters and the row must be
+     * between 1 and {@code rows}.
+     *
+     * @param column the column of the chess position (from 'a')
+     * @param row the row of the chess position (from 1)
+     * @param rows the number of rows of the board
+     * @param columns the number of columns of the board
+     * @throws ChessException if the column or row is out of the board
+     * */
+    public ChessPosition(char column, int row, int rows, int columns) {
+        if(column < 'a' || column >= 'a' + columns || row < 1 || row > rows){
+            throw new ChessException("Error instantiating ChessPosition. Valid values are from a1 to "
+                    + (char) ('a' + columns - 1) + rows + ".");
+        }
+        this.column = column;
+        this.row = row;
+    }
+
     /** Method returns the column of the chess position.
      *
      * The column is represented by a letter from 'a' to 'h'.
@@ -0,0 +1,146 @@
+package com.mateusdalcantara.chess;
+
+import java.util.Arrays;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation (FEN).
+ * <p>
+ * A FEN record describes the placement of the pieces rank by rank from the 8th to the 1st,
+ * the side to move, and then castling rights, the en passant square and the move counters.
+ * Castling and en passant are not supported by this game, so those fields are written as "-"
+ * and ignored when reading. Only the fields up to the side to move are required.
+ * </p>
+ * <p>
+ * On boards of other sizes, the placement has one rank per row of the board, and runs of
+ * empty squares may take several digits, such as "10" on a 16x16 board.
+ * </p>
+ *
+ * Example: {@code "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1"} is the initial setup.
+ *
+ * @see ChessMatch#setPosition(String)
+ * @see ChessMatch#toFen()
+ */
+final class Fen {
+
+    /** The FEN letter of each piece type, indexed by {@link PieceType} ordinal. */
+    private static final String LETTERS = "kqrbnp";
+
+    private Fen() {
+    }
+
+    /**
+     * Loads a FEN position into a match.
+     * <p>
+     * The whole record is parsed and validated before the match is touched, so an invalid FEN
+     * leaves the current position unchanged.
+     * </p>
+     *
+     * @param chessMatch the match receiving the position.
+     * @param fen        the position in FEN.
+     * @throws ChessException if the FEN is invalid.
+     */
+    static void load(ChessMatch chessMatch, String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 2 || (!fields[1].equals("w") && !fields[1].equals("b"))) {
+            throw new ChessException("Invalid FEN: " + fen);
+        }
+        int rows = chessMatch.getRows();
+        int columns = chessMatch.getColumns();
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != rows) {
+            throw new ChessException("Invalid FEN: " + fen);
+        }
+        Color player = fields[1].equals("w") ? Color.WHITE : Color.BLACK;
+        int fullMove = 1;
+        if (fields.length >= 6) {
+            try {
+                fullMove = Math.max(1, Integer.parseInt(fields[5]));
+            } catch (NumberFormatException e) {
+                throw new ChessException("Invalid FEN: " + fen);
+            }
+        }
+
+        // the letter index of each piece, plus LETTERS.length() for white ones; -1 when empty
+        int[] placement = new int[rows * columns];
+        Arrays.fill(placement, -1);
+        int[] kings = new int[2];
+        for (int row = 0; row < rows; row++) {
+            int column = 0;
+            int empty = 0;
+            for (char c : ranks[row].toCharArray()) {
+                if (c >= '0' && c <= '9') {
+                    empty = empty * 10 + c - '0';
+                    continue;
+                }
+                column += empty;
+                empty = 0;
+                int type = LETTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || column >= columns) {
+                    throw new ChessException("Invalid FEN: " + fen);
+                }
+                Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+                if (type == PieceType.KING.ordinal()) {
+                    kings[color.ordinal()]++;
+                }
+                if (type == PieceType.PAWN.ordinal() && (row == 0 || row == rows - 1)) {
+                    throw new ChessException("Invalid FEN, a pawn cannot stand on the first or last rank: " + fen);
+                }
+                placement[row * columns + column] = color == Color.WHITE ? type + LETTERS.length() : type;
+                column++;
+            }
+            if (column + empty != columns) {
+                throw new ChessException("Invalid FEN: " + fen);
+            }
+        }
+        if (kings[0] != 1 || kings[1] != 1) {
+            throw new ChessException("Invalid FEN, each side must have one king: " + fen);
+        }
+
+        chessMatch.clearPosition(player, 2 * (fullMove - 1) + (player == Color.WHITE ? 1 : 2));
+        PieceType[] types = PieceType.values();
+        for (int square = 0; square < placement.length; square++) {
+            int piece = placement[square];
+            if (piece >= 0) {
+                boolean white = piece >= LETTERS.length();
+                chessMatch.placeNewPiece(types[piece % LETTERS.length()], white ? Color.WHITE : Color.BLACK, square);
+            }
+        }
+    }
+
+    /**
+     * Writes the current position of a match in FEN.
+     *
+     * @param chessMatch the match.
+     * @return the position in FEN.
+     */
+    static String toFen(ChessMatch chessMatch) {
+        int rows = chessMatch.getRows();
+        int columns = chessMatch.getColumns();
+        StringBuilder sb = new StringBuilder(64);
+        for (int row = 0; row < rows; row++) {
+            int empty = 0;
+            for (int column = 0; column < columns; column++) {
+                ChessPiece piece = chessMatch.piece(row * columns + column);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                char letter = LETTERS.charAt(piece.getType().ordinal());
+                sb.append(piece.getColor() == Color.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (row < rows - 1) {
+                sb.append('/');
+            }
+        }
+        sb.append(chessMatch.getCurrentPlayer() == Color.WHITE ? " w" : " b");
+        sb.append(" - - 0 ").append(chessMatch.getPly() / 2 + 1);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,237 @@
+package com.mateusdalcantara.chess;
+
+/**
+ * An immutable, compact copy of the position of a match on an 8x8 board, for games kept in
+ * memory while nobody plays them.
+ * <p>
+ * A {@link ChessMatch} holds a {@code Board} of separately allocated pieces, each with its own
+ * {@code Position} and reference to the board, plus the piece lists, the evaluation totals
+ * and the move history: several kilobytes of objects per game. A packed board holds three
+ * {@code long}s and an {@code int}:
+ * </p>
+ * <ul>
+ *     <li>the occupancy: one bit per square from 'a8' (bit 0) to 'h1' (bit 63), set for the
+ *     squares that hold a piece;</li>
+ *     <li>the pieces: one nibble per occupied square, in square order, sixteen nibbles per
+ *     {@code long}, the first square in the lowest nibble. A nibble is encoded as in
+ *     {@link PackedPosition}. Two {@code long}s hold the 32 pieces of a game of chess, which
+ *     is the most a game from the initial setup can have;</li>
+ *     <li>the state word: the side to move in bit 0 (0 for white, 1 for black) and the turn
+ *     number in the bits above.</li>
+ * </ul>
+ * <p>
+ * The move history is not kept, so a repetition of a position reached before the game was
+ * packed is not detected after it is unpacked.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     PackedBoard parked = PackedBoard.pack(chessMatch);
+ *     ...
+ *     parked.unpack(chessMatch);
+ * </pre>
+ *
+ * @see PackedPosition
+ */
+public final class PackedBoard {
+
+    /** The largest number of pieces a packed board holds. */
+    public static final int MAX_PIECES = 32;
+
+    /** The piece types by ordinal, copied once: {@code values()} returns a new array each call. */
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private final long occupancy;
+    private final long lowPieces;
+    private final long highPieces;
+    private final int state;
+
+    /**
+     * Constructs a packed board from its fields, as stored by {@link #getOccupancy()},
+     * {@link #getLowPieces()}, {@link #getHighPieces()} and {@link #getState()}. They are checked
+     * by {@link #unpack(ChessMatch)}.
+     *
+     * @param occupancy  the occupancy bits.
+     * @param lowPieces  the nibbles of the first sixteen pieces.
+     * @param highPieces the nibbles of the other pieces.
+     * @param state      the state word.
+     */
+    public PackedBoard(long occupancy, long lowPieces, long highPieces, int state) {
+        this.occupancy = occupancy;
+        this.lowPieces = lowPieces;
+        this.highPieces = highPieces;
+        this.state = state;
+    }
+
+    /**
+     * Packs the current position of a match.
+     *
+     * @param chessMatch the match.
+     * @return the packed board.
+     * @throws ChessException if the board of the match is not 8x8 or holds more than {@value #MAX_PIECES} pieces.
+     */
+    public static PackedBoard pack(ChessMatch chessMatch) {
+        if (chessMatch.getRows() != 8 || chessMatch.getColumns() != 8) {
+            throw new ChessException("Packed boards only hold 8x8 boards");
+        }
+        if (chessMatch.getPieceCount() > MAX_PIECES) {
+            throw new ChessException("Packed boards hold at most " + MAX_PIECES + " pieces");
+        }
+        long occupancy = 0;
+        long lowPieces = 0;
+        long highPieces = 0;
+        int count = 0;
+        for (int square = 0; square < 64; square++) {
+            int nibble = PackedPosition.nibble(chessMatch.piece(square));
+            if (nibble == 0) {
+                continue;
+            }
+            occupancy |= 1L << square;
+            if (count < 16) {
+                lowPieces |= (long) nibble << (4 * count);
+            } else {
+                highPieces |= (long) nibble << (4 * (count - 16));
+            }
+            count++;
+        }
+        int state = chessMatch.getTurn() << 1 | (chessMatch.getCurrentPlayer() == Color.WHITE ? 0 : 1);
+        return new PackedBoard(occupancy, lowPieces, highPieces, state);
+    }
+
+    /**
+     * Loads the position into a match, replacing its current position and clearing its history.
+     * <p>
+     * The board is checked before the match is touched, so an invalid board, such as one
+     * without exactly one king per side, leaves the match unchanged. The pieces of the previous
+     * position are kept by the match and reused, so loading a position into a match that held
+     * one allocates nothing.
+     * </p>
+     *
+     * @param chessMatch the match receiving the position.
+     * @throws ChessException if the packed board is invalid or the board of the match is not 8x8.
+     */
+    public void unpack(ChessMatch chessMatch) {
+        if (chessMatch.getRows() != 8 || chessMatch.getColumns() != 8) {
+            throw new ChessException("Packed boards only hold 8x8 boards");
+        }
+        int pieceCount = Long.bitCount(occupancy);
+        if (pieceCount > MAX_PIECES || getTurn() < 1) {
+            throw new ChessException("Invalid packed board");
+        }
+        int whiteKings = 0;
+        int blackKings = 0;
+        for (int i = 0; i < pieceCount; i++) {
+            int nibble = nibble(i);
+            int type = (nibble & 7) - 1;
+            if (type < 0 || type >= TYPES.length) {
+                throw new ChessException("Invalid packed board");
+            }
+            if (type == PieceType.KING.ordinal()) {
+                if ((nibble & 8) == 0) {
+                    whiteKings++;
+                } else {
+                    blackKings++;
+                }
+            }
+        }
+        if (whiteKings != 1 || blackKings != 1) {
+            throw new ChessException("Invalid packed board, each side must have one king");
+        }
+
+        chessMatch.clearPosition(getCurrentPlayer(), getTurn());
+        int count = 0;
+        for (long bits = occupancy; bits != 0; bits &= bits - 1) {
+            int nibble = nibble(count++);
+            chessMatch.placeNewPiece(TYPES[(nibble & 7) - 1], (nibble & 8) == 0 ? Color.WHITE : Color.BLACK,
+                    Long.numberOfTrailingZeros(bits));
+        }
+    }
+
+    /**
+     * Returns the nibble of the piece of index {@code index}, in square order.
+     */
+    private int nibble(int index) {
+        long pieces = index < 16 ? lowPieces : highPieces;
+        return (int) (pieces >>> (4 * (index & 15))) & 0xF;
+    }
+
+    /**
+     * Returns the occupancy bits.
+     *
+     * @return one bit per square, set for the occupied squares.
+     */
+    public long getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * Returns the nibbles of the first sixteen pieces, in square order.
+     *
+     * @return the nibbles, the first piece in the lowest one.
+     */
+    public long getLowPieces() {
+        return lowPieces;
+    }
+
+    /**
+     * Returns the nibbles of the pieces after the first sixteen, in square order.
+     *
+     * @return the nibbles, the seventeenth piece in the lowest one.
+     */
+    public long getHighPieces() {
+        return highPieces;
+    }
+
+    /**
+     * Returns the state word.
+     *
+     * @return the turn number shifted left by one, with the side to move in bit 0.
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Returns the color of the player who makes the next move.
+     *
+     * @return the side to move.
+     */
+    public Color getCurrentPlayer() {
+        return (state & 1) == 0 ? Color.WHITE : Color.BLACK;
+    }
+
+    /**
+     * Returns the turn number.
+     *
+     * @return the turn number of the match when it was packed.
+     */
+    public int getTurn() {
+        return state >>> 1;
+    }
+
+    /**
+     * Returns the number of pieces.
+     *
+     * @return the number of occupied squares.
+     */
+    public int getPieceCount() {
+        return Long.bitCount(occupancy);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PackedBoard)) {
+            return false;
+        }
+        PackedBoard board = (PackedBoard) other;
+        return occupancy == board.occupancy && lowPieces == board.lowPieces && highPieces == board.highPieces
+                && state == board.state;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = occupancy * 31 + lowPieces;
+        hash = hash * 31 + highPieces;
+        return Long.hashCode(hash * 31 + state);
+    }
+}
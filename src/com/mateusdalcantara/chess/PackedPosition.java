@@ -0,0 +1,86 @@
+package com.mateusdalcantara.chess;
+
+/**
+ * Reads and writes positions as fixed-size binary records.
+ * <p>
+ * A record takes {@value #SIZE} bytes: one nibble per square from 'a8' to 'h1' (two squares
+ * per byte, the first square in the high nibble), then one byte for the side to move
+ * (0 for white, 1 for black) and one reserved byte. A nibble is 0 for an empty square, or
+ * {@code PieceType.ordinal() + 1}, plus 8 for black pieces.
+ * </p>
+ * <p>
+ * Fixed-size records can be read and written in bulk without parsing, and a file of records
+ * can be split at any multiple of {@value #SIZE} bytes.
+ * </p>
+ *
+ * @see Fen
+ */
+public final class PackedPosition {
+
+    /** The size of one record in bytes. */
+    public static final int SIZE = 34;
+
+    private PackedPosition() {
+    }
+
+    /**
+     * Writes the current position of a match into a record.
+     *
+     * @param chessMatch the match.
+     * @param record     the array receiving the record.
+     * @param offset     the offset of the record in the array.
+     * @throws ChessException if the board of the match is not 8x8.
+     */
+    public static void pack(ChessMatch chessMatch, byte[] record, int offset) {
+        checkBoard(chessMatch);
+        for (int square = 0; square < 64; square += 2) {
+            record[offset + square / 2] = (byte) (nibble(chessMatch.piece(square)) << 4 | nibble(chessMatch.piece(square + 1)));
+        }
+        record[offset + 32] = (byte) (chessMatch.getCurrentPlayer() == Color.WHITE ? 0 : 1);
+        record[offset + 33] = 0;
+    }
+
+    /**
+     * Loads a record into a match, replacing its current position.
+     *
+     * @param record     the array holding the record.
+     * @param offset     the offset of the record in the array.
+     * @param chessMatch the match receiving the position.
+     * @throws ChessException if the record is invalid or the board of the match is not 8x8.
+     */
+    public static void unpack(byte[] record, int offset, ChessMatch chessMatch) {
+        checkBoard(chessMatch);
+        Color player = record[offset + 32] == 0 ? Color.WHITE : Color.BLACK;
+        chessMatch.clearPosition(player, player == Color.WHITE ? 1 : 2);
+        for (int square = 0; square < 64; square++) {
+            int value = record[offset + square / 2] >> (square % 2 == 0 ? 4 : 0) & 0xF;
+            int type = (value & 7) - 1;
+            if (value == 0) {
+                continue;
+            }
+            if (type < 0 || type >= PieceType.values().length) {
+                throw new ChessException("Invalid packed position");
+            }
+            chessMatch.placeNewPiece(PieceType.values()[type], (value & 8) == 0 ? Color.WHITE : Color.BLACK, square);
+        }
+    }
+
+    /**
+     * Returns the nibble of a piece, or 0 for an empty square.
+     */
+    static int nibble(ChessPiece piece) {
+        if (piece == null) {
+            return 0;
+        }
+        return (piece.getType().ordinal() + 1) | (piece.getColor() == Color.BLACK ? 8 : 0);
+    }
+
+    /**
+     * Checks that a match is played on the 8x8 board the record format is made for.
+     */
+    private static void checkBoard(ChessMatch chessMatch) {
+        if (chessMatch.getRows() != 8 || chessMatch.getColumns() != 8) {
+            throw new ChessException("Packed positions only hold 8x8 boards");
+        }
+    }
+}
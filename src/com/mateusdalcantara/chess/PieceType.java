@@ -0,0 +1,21 @@
+package com.mateusdalcantara.chess;
+
+/**
+ * Enum representing the kinds of chess pieces.
+ *
+ * The {@code PieceType} enum identifies a piece independently of its color and of the
+ * Java class that implements it. The ordinal of each constant is used as an index into
+ * tables such as the Zobrist keys, so the order of the constants must never change.
+ *
+ *
+ * @see ChessPiece
+ * @see Zobrist
+ */
+public enum PieceType {
+    KING,
+    QUEEN,
+    ROOK,
+    BISHOP,
+    KNIGHT,
+    PAWN;
+}
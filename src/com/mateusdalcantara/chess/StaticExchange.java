@@ -0,0 +1,215 @@
+package com.mateusdalcantara.chess;
+
+import com.mateusdalcantara.boardgame.Board;
+
+/**
+ * Static exchange evaluation (SEE): the material won or lost by a capture once every
+ * recapture on the same square has been played out, without searching.
+ * <p>
+ * The exchange is resolved on the board as it is. At each step the side to capture uses its
+ * least valuable piece that attacks the square, and the pieces that already captured are
+ * marked as gone, so that a rook or queen behind them (an x-ray attacker) joins the exchange.
+ * Either side may stop capturing when going on would lose material, which is resolved by a
+ * negamax over the list of gains. Pins and checks are ignored, as usual for SEE.
+ * </p>
+ * <p>
+ * The attackers are found by walking the eight lines and the knight jumps from the target
+ * square, so the cost depends on the pieces near the square and not on the size of the board.
+ * An instance keeps its work arrays and allocates nothing; it belongs to one match.
+ * </p>
+ *
+ * @see ChessMatch#see(int)
+ */
+final class StaticExchange {
+
+    /** The value of each piece type in an exchange, indexed by {@link PieceType} ordinal; capturing a king ends everything. */
+    private static final int[] VALUES = {20000, 900, 500, 330, 320, 100};
+
+    /** The row and column steps of the eight lines; the first four are orthogonal. */
+    private static final int[] LINE_ROWS = {-1, 0, 0, 1, -1, -1, 1, 1};
+    private static final int[] LINE_COLUMNS = {0, -1, 1, 0, -1, 1, -1, 1};
+
+    /** The row and column offsets of the knight jumps. */
+    private static final int[] KNIGHT_ROWS = {-2, -2, -1, -1, 1, 1, 2, 2};
+    private static final int[] KNIGHT_COLUMNS = {-1, 1, -2, 2, -2, 2, -1, 1};
+
+    private final Board board;
+    private final int rows;
+    private final int columns;
+
+    /** The squares whose piece already captured in the current exchange. */
+    private final boolean[] gone;
+
+    /** The squares marked in {@link #gone}, so that they can be cleared. */
+    private final int[] goneSquares;
+
+    /** The material balance after each capture of the exchange. */
+    private final int[] gains;
+
+    StaticExchange(Board board) {
+        this.board = board;
+        this.rows = board.getRows();
+        this.columns = board.getColumns();
+        int squares = rows * columns;
+        gone = new boolean[squares];
+        goneSquares = new int[squares];
+        gains = new int[squares + 1];
+    }
+
+    /**
+     * Returns the value of a piece type in an exchange.
+     *
+     * @param type the piece type.
+     * @return the value, in centipawns.
+     */
+    static int value(PieceType type) {
+        return VALUES[type.ordinal()];
+    }
+
+    /**
+     * Evaluates the exchange started by a move.
+     *
+     * @param move the encoded move, usually a capture.
+     * @return the material won by the side making the move, in centipawns; negative if it loses material.
+     */
+    int evaluate(int move) {
+        int source = ChessMove.source(move);
+        int target = ChessMove.target(move);
+        ChessPiece attacker = piece(source);
+        ChessPiece captured = piece(target);
+        PieceType promotion = ChessMove.promotion(move);
+        int gain = captured == null ? 0 : value(captured.getType());
+        int onSquare = value(attacker.getType());
+        if (promotion != null) {
+            gain += value(promotion) - value(PieceType.PAWN);
+            onSquare = value(promotion);
+        }
+        return exchange(source, target, attacker.getColor(), gain, onSquare);
+    }
+
+    /**
+     * Checks whether the piece on a square can be won by the opponent: capturing it with the
+     * least valuable attacker gains material once the exchange is played out.
+     *
+     * @param square the square of the piece.
+     * @return {@code true} if the piece is hanging, {@code false} if it is defended well enough or the square is empty.
+     */
+    boolean isHanging(int square) {
+        ChessPiece piece = piece(square);
+        if (piece == null) {
+            return false;
+        }
+        Color opponent = piece.getColor() == Color.WHITE ? Color.BLACK : Color.WHITE;
+        int attacker = leastValuableAttacker(square, opponent);
+        if (attacker < 0) {
+            return false;
+        }
+        return exchange(attacker, square, opponent, value(piece.getType()), value(piece(attacker).getType())) > 0;
+    }
+
+    /**
+     * Plays out the exchange after the first capture and resolves the gains.
+     *
+     * @param source   the square of the first capturing piece.
+     * @param target   the square of the exchange.
+     * @param color    the color of the first capturing piece.
+     * @param gain     the material won by the first capture.
+     * @param onSquare the value of the piece standing on the target after the first capture.
+     * @return the material won by the first side.
+     */
+    private int exchange(int source, int target, Color color, int gain, int onSquare) {
+        int marked = 0;
+        gone[source] = true;
+        goneSquares[marked++] = source;
+        gains[0] = gain;
+        int depth = 0;
+        Color side = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+        int attacker;
+        while ((attacker = leastValuableAttacker(target, side)) >= 0) {
+            depth++;
+            gains[depth] = onSquare - gains[depth - 1];
+            onSquare = value(piece(attacker).getType());
+            gone[attacker] = true;
+            goneSquares[marked++] = attacker;
+            side = side == Color.WHITE ? Color.BLACK : Color.WHITE;
+        }
+        while (depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+        for (int i = 0; i < marked; i++) {
+            gone[goneSquares[i]] = false;
+        }
+        return gains[0];
+    }
+
+    /**
+     * Returns the square of the least valuable piece of a color that attacks a square,
+     * ignoring the pieces marked as gone, or -1 if there is none.
+     */
+    private int leastValuableAttacker(int target, Color color) {
+        int targetRow = target / columns;
+        int targetColumn = target % columns;
+        int best = -1;
+        int bestValue = Integer.MAX_VALUE;
+        for (int line = 0; line < 8; line++) {
+            boolean orthogonal = line < 4;
+            int row = targetRow + LINE_ROWS[line];
+            int column = targetColumn + LINE_COLUMNS[line];
+            for (int distance = 1; row >= 0 && row < rows && column >= 0 && column < columns; distance++) {
+                int square = row * columns + column;
+                ChessPiece piece = gone[square] ? null : (ChessPiece) board.piece(row, column);
+                if (piece != null) {
+                    if (piece.getColor() == color && attacksAlong(piece, orthogonal, distance, LINE_ROWS[line])
+                            && value(piece.getType()) < bestValue) {
+                        best = square;
+                        bestValue = value(piece.getType());
+                    }
+                    break;
+                }
+                row += LINE_ROWS[line];
+                column += LINE_COLUMNS[line];
+            }
+        }
+        for (int jump = 0; jump < 8 && bestValue > value(PieceType.KNIGHT); jump++) {
+            int row = targetRow + KNIGHT_ROWS[jump];
+            int column = targetColumn + KNIGHT_COLUMNS[jump];
+            if (row < 0 || row >= rows || column < 0 || column >= columns || gone[row * columns + column]) {
+                continue;
+            }
+            ChessPiece piece = (ChessPiece) board.piece(row, column);
+            if (piece != null && piece.getColor() == color && piece.getType() == PieceType.KNIGHT) {
+                best = row * columns + column;
+                bestValue = value(PieceType.KNIGHT);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks whether a piece found first on a line from the target attacks the target.
+     *
+     * @param rowStep the row step from the target towards the piece.
+     */
+    private static boolean attacksAlong(ChessPiece piece, boolean orthogonal, int distance, int rowStep) {
+        switch (piece.getType()) {
+            case QUEEN:
+                return true;
+            case ROOK:
+                return orthogonal;
+            case BISHOP:
+                return !orthogonal;
+            case KING:
+                return distance == 1;
+            case PAWN:
+                // a white pawn captures upwards, so it stands one row below the target
+                return !orthogonal && distance == 1 && rowStep == (piece.getColor() == Color.WHITE ? 1 : -1);
+            default:
+                return false;
+        }
+    }
+
+    private ChessPiece piece(int square) {
+        return (ChessPiece) board.piece(square / columns, square % columns);
+    }
+}
@@ -0,0 +1,112 @@
+package com.mateusdalcantara.chess;
+
+import com.mateusdalcantara.boardgame.Board;
+
+/**
+ * Provides the Zobrist keys used to hash chess positions into 64-bit values.
+ * <p>
+ * Each combination of piece type, color and square has a pseudo-random key, and the key of a
+ * position is the exclusive or of the keys of all the pieces on the board, plus the side key
+ * when black is to move. Because exclusive or is its own inverse, a position key can be updated
+ * incrementally when a piece is placed or removed.
+ * </p>
+ * <p>
+ * The keys are derived from a fixed seed with the SplitMix64 function instead of a random
+ * generator, so they are identical in every process and on any board size. This is required
+ * because position keys are written to disk (for example by the archive index).
+ * </p>
+ *
+ * @see ChessMatch
+ * @see PieceType
+ */
+public final class Zobrist {
+
+    /** The seed from which every key is derived. Changing it invalidates every key stored on disk. */
+    private static final long SEED = 0x5DEECE66DL;
+
+    /** The key that is mixed into the position key when black is to move. */
+    public static final long SIDE_TO_MOVE = mix(SEED);
+
+    /** Number of squares with precomputed keys: every square of the largest board (16x16). */
+    private static final int CACHED_SQUARES = ChessMove.MAX_SQUARES;
+
+    /** Precomputed keys for every square of every board size, indexed by {@link #index(PieceType, Color, int)}. */
+    private static final long[] KEYS = new long[PieceType.values().length * 2 * CACHED_SQUARES];
+
+    static {
+        for (PieceType type : PieceType.values()) {
+            for (Color color : Color.values()) {
+                for (int square = 0; square < CACHED_SQUARES; square++) {
+                    KEYS[index(type, color, square)] = compute(type, color, square);
+                }
+            }
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a piece of the given type and color standing on the given square.
+     *
+     * @param type   the type of the piece.
+     * @param color  the color of the piece.
+     * @param square the square index ({@code row * columns + column}), less than
+     *               {@link ChessMove#MAX_SQUARES}.
+     * @return the Zobrist key for that piece on that square.
+     */
+    public static long pieceKey(PieceType type, Color color, int square) {
+        return KEYS[index(type, color, square)];
+    }
+
+    /**
+     * Returns the key of the given piece standing on the given square.
+     *
+     * @param piece  the chess piece.
+     * @param square the square index ({@code row * columns + column}).
+     * @return the Zobrist key for that piece on that square.
+     */
+    public static long pieceKey(ChessPiece piece, int square) {
+        return pieceKey(piece.getType(), piece.getColor(), square);
+    }
+
+    /**
+     * Computes the key of a position from scratch by scanning the whole board.
+     * <p>
+     * This method is meant for verification and for positions that were not built move by
+     * move. Code that follows a game should update the key incrementally instead.
+     * </p>
+     *
+     * @param board         the board to hash.
+     * @param currentPlayer the color of the side to move.
+     * @return the Zobrist key of the position.
+     */
+    public static long compute(Board board, Color currentPlayer) {
+        long key = currentPlayer == Color.BLACK ? SIDE_TO_MOVE : 0L;
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getColumns(); j++) {
+                ChessPiece piece = (ChessPiece) board.piece(i, j);
+                if (piece != null) {
+                    key ^= pieceKey(piece, i * board.getColumns() + j);
+                }
+            }
+        }
+        return key;
+    }
+
+    private static int index(PieceType type, Color color, int square) {
+        return (type.ordinal() * 2 + color.ordinal()) * CACHED_SQUARES + square;
+    }
+
+    private static long compute(PieceType type, Color color, int square) {
+        long id = ((long) square << 8) | (type.ordinal() << 1) | color.ordinal();
+        return mix(SEED + (id + 1) * 0x9E3779B97F4A7C15L);
+    }
+
+    /** The SplitMix64 finalizer, a fast bijective mixing function. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,370 @@
+package com.mateusdalcantara.chess.analysis;
+
+import com.mateusdalcantara.chess.ChessException;
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
+import com.mateusdalcantara.chess.PackedPosition;
+import com.mateusdalcantara.chess.search.Search;
+import com.mateusdalcantara.chess.search.SearchLimits;
+import com.mateusdalcantara.chess.search.SearchResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Analyses a stream of positions with a pool of searching workers.
+ * <p>
+ * The pipeline has three stages connected by bounded queues: the calling thread reads the
+ * positions, the workers search them, and a writer thread writes one result line per position.
+ * When a stage is slower than the previous one, its input queue fills up and the previous stage
+ * blocks, so the number of positions in memory never exceeds the capacity of the queues, whatever
+ * the size of the input.
+ * </p>
+ * <p>
+ * Each worker owns a {@link ChessMatch} and a {@link Search}, which are reused for every position:
+ * a new position is placed on the same board instead of building a new match.
+ * </p>
+ * <p>
+ * Results are written in completion order, as tab-separated lines:
+ * {@code sequence, fen, best move, score, depth, nodes}, where the sequence is the position's
+ * number in the input (starting at 0) and the score is either {@code cp <centipawns>} or
+ * {@code mate <moves>}. An invalid position, or one whose analysis fails, produces the line
+ * {@code sequence, input, error <message>}.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     AnalysisPipeline pipeline = new AnalysisPipeline(SearchLimits.depth(6), 4, 1024);
+ *     long count = pipeline.run(in, PositionFormat.FEN, out);
+ * </pre>
+ */
+public class AnalysisPipeline {
+
+    /** The marker that ends the input of a stage. */
+    private static final Task END_OF_TASKS = new Task(-1, null, null);
+    private static final String END_OF_RESULTS = "";
+
+    /** The limits of each search. */
+    private final SearchLimits limits;
+
+    /** The number of worker threads. */
+    private final int workers;
+
+    /** The capacity of each queue. */
+    private final int queueCapacity;
+
+    /**
+     * Constructs a pipeline.
+     *
+     * @param limits        the limits of the search of each position.
+     * @param workers       the number of worker threads.
+     * @param queueCapacity the capacity of the queues between the stages.
+     */
+    public AnalysisPipeline(SearchLimits limits, int workers, int queueCapacity) {
+        if (workers < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("The number of workers and the queue capacity must be positive");
+        }
+        this.limits = limits;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Analyses every position of an input stream and writes the results to an output stream.
+     * <p>
+     * This method blocks until the whole input has been analysed and written. Neither stream is closed.
+     * </p>
+     * <p>
+     * If writing a result fails, the pipeline stops at once: no more positions are read, the
+     * workers discard the positions already queued, and the failure is thrown.
+     * </p>
+     *
+     * @param in     the positions.
+     * @param format the format of the positions.
+     * @param out    the stream receiving the result lines, in UTF-8.
+     * @return the number of positions read.
+     * @throws IOException if reading or writing fails; the pipeline is stopped first.
+     */
+    public long run(InputStream in, PositionFormat format, OutputStream out) throws IOException {
+        BlockingQueue<Task> tasks = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<String> results = new ArrayBlockingQueue<>(queueCapacity);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        ResultWriter resultWriter = new ResultWriter(results, writer);
+
+        Thread[] threads = new Thread[workers + 1];
+        for (int i = 0; i < workers; i++) {
+            threads[i] = new Thread(new Worker(tasks, results, resultWriter), "analysis-worker-" + i);
+        }
+        threads[workers] = new Thread(resultWriter, "analysis-writer");
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long count = 0;
+        try {
+            count = format == PositionFormat.FEN ? readFen(in, tasks, resultWriter) : readBinary(in, tasks, resultWriter);
+        } finally {
+            try {
+                for (int i = 0; i < workers; i++) {
+                    tasks.put(END_OF_TASKS);
+                }
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Analysis interrupted");
+            }
+        }
+        if (resultWriter.failure != null) {
+            throw resultWriter.failure;
+        }
+        return count;
+    }
+
+    /**
+     * Reads FEN lines into the task queue, until the end of the input or a write failure.
+     */
+    private long readFen(InputStream in, BlockingQueue<Task> tasks, ResultWriter resultWriter) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        long sequence = 0;
+        String line;
+        while (resultWriter.failure == null && (line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            submit(tasks, new Task(sequence++, line, null));
+        }
+        return sequence;
+    }
+
+    /**
+     * Reads binary records into the task queue, until the end of the input or a write failure.
+     */
+    private long readBinary(InputStream in, BlockingQueue<Task> tasks, ResultWriter resultWriter) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(in));
+        long sequence = 0;
+        while (resultWriter.failure == null) {
+            byte[] record = new byte[PackedPosition.SIZE];
+            try {
+                input.readFully(record);
+            } catch (EOFException e) {
+                return sequence;
+            }
+            submit(tasks, new Task(sequence++, null, record));
+        }
+        return sequence;
+    }
+
+    /**
+     * Puts a task in the queue, blocking while the workers are busy.
+     */
+    private static void submit(BlockingQueue<Task> tasks, Task task) throws InterruptedIOException {
+        try {
+            tasks.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Analysis interrupted");
+        }
+    }
+
+    /**
+     * Runs the pipeline from the command line.
+     * <p>
+     * Usage: {@code AnalysisPipeline <input> <output> <fen|binary> <depth> [nodes] [threads]}.
+     * </p>
+     *
+     * @param args the command line arguments.
+     * @throws IOException if reading or writing fails.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("Usage: AnalysisPipeline <input> <output> <fen|binary> <depth> [nodes] [threads]");
+            return;
+        }
+        SearchLimits limits = SearchLimits.depth(Integer.parseInt(args[3]));
+        if (args.length > 4) {
+            limits = limits.withNodes(Long.parseLong(args[4]));
+        }
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        AnalysisPipeline pipeline = new AnalysisPipeline(limits, threads, 64 * threads);
+
+        long start = System.nanoTime();
+        long count;
+        try (InputStream in = Files.newInputStream(Paths.get(args[0]));
+             OutputStream out = Files.newOutputStream(Paths.get(args[1]))) {
+            count = pipeline.run(in, PositionFormat.valueOf(args[2].toUpperCase()), out);
+        }
+        System.out.printf("%d positions analysed in %d ms%n", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * A position waiting to be analysed: either a FEN line or a binary record.
+     */
+    private static final class Task {
+
+        private final long sequence;
+        private final String fen;
+        private final byte[] record;
+
+        Task(long sequence, String fen, byte[] record) {
+            this.sequence = sequence;
+            this.fen = fen;
+            this.record = record;
+        }
+    }
+
+    /**
+     * Searches positions from the task queue until the end marker.
+     */
+    private final class Worker implements Runnable {
+
+        private final BlockingQueue<Task> tasks;
+        private final BlockingQueue<String> results;
+        private final ResultWriter resultWriter;
+        private final ChessMatch chessMatch = new ChessMatch();
+        private final Search search = new Search();
+        private final StringBuilder line = new StringBuilder();
+
+        Worker(BlockingQueue<Task> tasks, BlockingQueue<String> results, ResultWriter resultWriter) {
+            this.tasks = tasks;
+            this.results = results;
+            this.resultWriter = resultWriter;
+        }
+
+        /**
+         * Analyses tasks until the end marker. A task that fails produces an error line, and the
+         * end marker is always posted, so that the writer never waits for a dead worker. Once
+         * the writer has failed, the remaining tasks are discarded without being analysed.
+         */
+        @Override
+        public void run() {
+            try {
+                Task task;
+                while ((task = tasks.take()) != END_OF_TASKS) {
+                    if (resultWriter.failure != null) {
+                        continue;
+                    }
+                    String result;
+                    try {
+                        result = analyse(task);
+                    } catch (RuntimeException e) {
+                        result = error(task, e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+                    }
+                    results.put(result);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // the writer drains the queue until every worker has finished, so this put returns
+                boolean interrupted = Thread.interrupted();
+                while (true) {
+                    try {
+                        results.put(END_OF_RESULTS);
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private String analyse(Task task) {
+            try {
+                if (task.fen != null) {
+                    chessMatch.setPosition(task.fen);
+                } else {
+                    PackedPosition.unpack(task.record, 0, chessMatch);
+                }
+            } catch (ChessException e) {
+                return error(task, e.getMessage());
+            }
+            line.setLength(0);
+            line.append(task.sequence).append('\t');
+            SearchResult result = search.search(chessMatch, limits);
+            line.append(chessMatch.toFen())
+                    .append('\t').append(ChessMove.toString(result.getBestMove()))
+                    .append('\t').append(result.isMate() ? "mate " + result.getMateIn() : "cp " + result.getScore())
+                    .append('\t').append(result.getDepth())
+                    .append('\t').append(result.getNodes());
+            return line.toString();
+        }
+
+        private String error(Task task, String message) {
+            line.setLength(0);
+            return line.append(task.sequence).append('\t').append(task.fen != null ? task.fen : "-")
+                    .append("\terror ").append(message).toString();
+        }
+    }
+
+    /**
+     * Writes result lines until every worker has finished.
+     * <p>
+     * If writing fails, the remaining results are drained and discarded, so that the workers never
+     * block on a full queue, and the failure is reported by {@link #run}, which stops reading as
+     * soon as it sees it.
+     * </p>
+     */
+    private final class ResultWriter implements Runnable {
+
+        private final BlockingQueue<String> results;
+        private final Writer writer;
+        private volatile IOException failure;
+
+        ResultWriter(BlockingQueue<String> results, Writer writer) {
+            this.results = results;
+            this.writer = writer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int finished = 0;
+                while (finished < workers) {
+                    String result = results.take();
+                    if (result == END_OF_RESULTS) {
+                        finished++;
+                    } else if (failure == null) {
+                        write(result);
+                    }
+                }
+                if (failure == null) {
+                    writer.flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void write(String result) {
+            try {
+                writer.write(result);
+                writer.write('\n');
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+}
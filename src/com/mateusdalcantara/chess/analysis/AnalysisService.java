@@ -0,0 +1,277 @@
+package com.mateusdalcantara.chess.analysis;
+
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.search.Search;
+import com.mateusdalcantara.chess.search.SearchLimits;
+import com.mateusdalcantara.chess.search.SearchListener;
+import com.mateusdalcantara.chess.search.SearchResult;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Analyses positions asynchronously on a shared pool of worker threads.
+ * <p>
+ * {@link #analyse(String, String, SearchLimits, SearchListener)} never blocks: it takes a
+ * snapshot of the position, queues the request and returns a {@link CompletableFuture} of the
+ * result. The future can be cancelled at any time; a request that is still queued is dropped,
+ * and a running search stops at its next node.
+ * </p>
+ * <p>
+ * Requests are queued per match and the workers take them from the matches in turn, so a match
+ * that sends many requests does not delay the requests of the other matches. The total number
+ * of queued requests is bounded; when the bound is reached, new requests fail at once with a
+ * {@link RejectedExecutionException} instead of blocking the caller.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     AnalysisService service = new AnalysisService(4, 1000);
+ *     service.analyse("game-42", chessMatch, SearchLimits.depth(8).withTime(2000))
+ *            .thenAccept(result -&gt; System.out.println(result));
+ * </pre>
+ */
+public class AnalysisService implements AutoCloseable {
+
+    /** The maximum number of queued requests. */
+    private final int maxQueued;
+
+    /** The queued requests of each match. */
+    private final Map<String, ArrayDeque<Job>> queues = new HashMap<>();
+
+    /** The matches that have queued requests, in the order the workers serve them. */
+    private final ArrayDeque<String> matches = new ArrayDeque<>();
+
+    /** The number of queued requests; guarded by {@code queues}. */
+    private int queued;
+
+    /** Set by {@link #close()}, under the lock of {@code queues}. */
+    private volatile boolean closed;
+
+    private final Worker[] workers;
+
+    /**
+     * Constructs a service and starts its workers.
+     *
+     * @param threads   the number of worker threads.
+     * @param maxQueued the maximum number of requests waiting for a worker.
+     */
+    public AnalysisService(int threads, int maxQueued) {
+        if (threads < 1 || maxQueued < 1) {
+            throw new IllegalArgumentException("The number of threads and the queue size must be positive");
+        }
+        this.maxQueued = maxQueued;
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker();
+            Thread thread = new Thread(workers[i], "analysis-service-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Analyses the current position of a match.
+     * <p>
+     * The position is copied before this method returns, so the match may be changed at once.
+     * This method must be called on the thread that owns the match.
+     * </p>
+     *
+     * @param matchId    the match the request belongs to, used to share the workers fairly.
+     * @param chessMatch the match whose position is analysed.
+     * @param limits     the limits of the search.
+     * @return the future result of the search.
+     */
+    public CompletableFuture<SearchResult> analyse(String matchId, ChessMatch chessMatch, SearchLimits limits) {
+        return analyse(matchId, chessMatch.toFen(), limits, null);
+    }
+
+    /**
+     * Analyses a position.
+     *
+     * @param matchId  the match the request belongs to, used to share the workers fairly.
+     * @param fen      the position in FEN.
+     * @param limits   the limits of the search.
+     * @param progress notified on the worker thread after each completed depth, or {@code null}.
+     * @return the future result of the search. It completes exceptionally with a
+     *         {@link com.mateusdalcantara.chess.ChessException} if the position is invalid, or
+     *         with a {@link RejectedExecutionException} if the queue is full or the service closed.
+     */
+    public CompletableFuture<SearchResult> analyse(String matchId, String fen, SearchLimits limits, SearchListener progress) {
+        Job job = new Job(matchId, fen, limits, progress);
+        synchronized (queues) {
+            if (closed || queued >= maxQueued) {
+                job.future.completeExceptionally(new RejectedExecutionException(closed ? "The analysis service is closed" : "Too many queued analyses"));
+                return job.future;
+            }
+            ArrayDeque<Job> queue = queues.get(matchId);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                queues.put(matchId, queue);
+                matches.addLast(matchId);
+            }
+            queue.addLast(job);
+            queued++;
+            queues.notify();
+        }
+        job.future.whenComplete((result, failure) -> {
+            if (job.future.isCancelled()) {
+                cancel(job);
+            }
+        });
+        return job.future;
+    }
+
+    /**
+     * Returns the number of requests waiting for a worker.
+     *
+     * @return the number of queued requests.
+     */
+    public int getQueued() {
+        synchronized (queues) {
+            return queued;
+        }
+    }
+
+    /**
+     * Stops the workers. Queued requests fail with a {@link RejectedExecutionException}, and
+     * running searches stop at once and complete with the best move found so far.
+     */
+    @Override
+    public void close() {
+        synchronized (queues) {
+            closed = true;
+            for (ArrayDeque<Job> queue : queues.values()) {
+                for (Job job : queue) {
+                    job.future.completeExceptionally(new RejectedExecutionException("The analysis service is closed"));
+                }
+            }
+            queues.clear();
+            matches.clear();
+            queued = 0;
+            queues.notifyAll();
+        }
+        for (Worker worker : workers) {
+            worker.search.stop();
+        }
+    }
+
+    /**
+     * Removes a cancelled request from its queue, or stops its search if it is running.
+     */
+    private void cancel(Job job) {
+        synchronized (queues) {
+            ArrayDeque<Job> queue = queues.get(job.matchId);
+            if (queue != null && queue.remove(job)) {
+                queued--;
+                if (queue.isEmpty()) {
+                    queues.remove(job.matchId);
+                    matches.remove(job.matchId);
+                }
+            }
+        }
+        synchronized (job) {
+            if (job.search != null) {
+                job.search.stop();
+            }
+        }
+    }
+
+    /**
+     * Waits for the next request, taking the matches in turn.
+     *
+     * @return the request, or {@code null} when the service is closed.
+     */
+    private Job take() throws InterruptedException {
+        synchronized (queues) {
+            while (matches.isEmpty()) {
+                if (closed) {
+                    return null;
+                }
+                queues.wait();
+            }
+            String matchId = matches.pollFirst();
+            ArrayDeque<Job> queue = queues.get(matchId);
+            Job job = queue.pollFirst();
+            if (queue.isEmpty()) {
+                queues.remove(matchId);
+            } else {
+                matches.addLast(matchId);
+            }
+            queued--;
+            return job;
+        }
+    }
+
+    /**
+     * A queued analysis request.
+     */
+    private static final class Job {
+
+        private final String matchId;
+        private final String fen;
+        private final SearchLimits limits;
+        private final SearchListener progress;
+        private final CompletableFuture<SearchResult> future = new CompletableFuture<>();
+
+        /** The search running this request, or {@code null} when it is not running; guarded by the job. */
+        private Search search;
+
+        Job(String matchId, String fen, SearchLimits limits, SearchListener progress) {
+            this.matchId = matchId;
+            this.fen = fen;
+            this.limits = limits;
+            this.progress = progress;
+        }
+    }
+
+    /**
+     * Runs requests with its own match and search, which are reused for every request.
+     */
+    private final class Worker implements Runnable {
+
+        private final ChessMatch chessMatch = new ChessMatch();
+        private final Search search = new Search();
+
+        @Override
+        public void run() {
+            try {
+                Job job;
+                while ((job = take()) != null) {
+                    run(job);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void run(Job job) {
+            search.prepare(job.limits);
+            synchronized (job) {
+                if (job.future.isDone()) {
+                    return; // cancelled while it was being taken from the queue
+                }
+                if (closed) {
+                    job.future.completeExceptionally(new RejectedExecutionException("The analysis service is closed"));
+                    return;
+                }
+                job.search = search;
+            }
+            try {
+                chessMatch.setPosition(job.fen);
+                search.setListener(job.progress);
+                job.future.complete(search.search(chessMatch));
+            } catch (RuntimeException e) {
+                job.future.completeExceptionally(e);
+            } finally {
+                synchronized (job) {
+                    job.search = null; // a late cancellation must not stop the next request
+                }
+                search.setListener(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.mateusdalcantara.chess.analysis;
+
+import com.mateusdalcantara.chess.PackedPosition;
+
+/**
+ * The formats of the position files read by the {@link AnalysisPipeline}.
+ */
+public enum PositionFormat {
+
+    /** One position in Forsyth-Edwards Notation per line; blank lines and lines starting with '#' are skipped. */
+    FEN,
+
+    /** Consecutive {@link PackedPosition} records of {@value PackedPosition#SIZE} bytes. */
+    BINARY
+}
@@ -0,0 +1,69 @@
+package com.mateusdalcantara.chess.archive;
+
+import com.mateusdalcantara.chess.ChessMove;
+
+/**
+ * Represents one game read from a game archive.
+ * <p>
+ * A game is identified by its position in the archive (the first game has id 0) and holds
+ * the sequence of moves in the encoded form of {@link ChessMove}, plus the result recorded
+ * in the archive.
+ * </p>
+ *
+ * @see GameArchive
+ * @see ChessMove
+ */
+public class ArchivedGame {
+
+    /** Result value used when the archive does not record how the game ended. */
+    public static final String UNKNOWN_RESULT = "*";
+
+    /** The id of the game inside its archive. */
+    private final int id;
+
+    /** The moves of the game, encoded with {@link ChessMove}. */
+    private final int[] moves;
+
+    /** The result of the game: "1-0", "0-1", "1/2-1/2" or "*". */
+    private final String result;
+
+    /**
+     * Constructs an archived game.
+     *
+     * @param id     the id of the game inside its archive.
+     * @param moves  the encoded moves of the game.
+     * @param result the result of the game.
+     */
+    public ArchivedGame(int id, int[] moves, String result) {
+        this.id = id;
+        this.moves = moves;
+        this.result = result;
+    }
+
+    /**
+     * Returns the id of the game inside its archive.
+     *
+     * @return the game id.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the encoded moves of the game.
+     *
+     * @return the moves, in the order they were played.
+     */
+    public int[] getMoves() {
+        return moves;
+    }
+
+    /**
+     * Returns the result of the game.
+     *
+     * @return "1-0", "0-1", "1/2-1/2" or "*" if unknown.
+     */
+    public String getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,88 @@
+package com.mateusdalcantara.chess.archive;
+
+import com.mateusdalcantara.chess.ChessException;
+import com.mateusdalcantara.chess.ChessMove;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads games sequentially from a text archive.
+ * <p>
+ * The archive holds one game per line. Each line is a list of moves in coordinate notation
+ * separated by spaces (for example {@code "c1c3 c7c6 e1e3"}), optionally followed by the
+ * result ({@code 1-0}, {@code 0-1}, {@code 1/2-1/2} or {@code *}). Empty lines and lines
+ * starting with {@code #} are ignored and do not consume a game id.
+ * </p>
+ * <p>
+ * Games are read one at a time, so an archive of any size can be processed with constant memory.
+ * </p>
+ *
+ * @see ArchivedGame
+ */
+public class GameArchive implements Closeable {
+
+    /** The reader over the archive file. */
+    private final BufferedReader reader;
+
+    /** The id that will be given to the next game read. */
+    private int nextId;
+
+    /**
+     * Opens a game archive for reading.
+     *
+     * @param file the archive file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public GameArchive(Path file) throws IOException {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the next game of the archive.
+     *
+     * @return the next game, or {@code null} if the end of the archive was reached.
+     * @throws IOException if the archive cannot be read.
+     * @throws ChessException if a line contains an invalid move.
+     */
+    public ArchivedGame next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                return parse(nextId++, line);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Parses one archive line into a game.
+     */
+    private static ArchivedGame parse(int id, String line) {
+        String[] tokens = line.split("\\s+");
+        int count = tokens.length;
+        String result = ArchivedGame.UNKNOWN_RESULT;
+        if (isResult(tokens[count - 1])) {
+            result = tokens[--count];
+        }
+        int[] moves = new int[count];
+        for (int i = 0; i < count; i++) {
+            moves[i] = ChessMove.parse(tokens[i]);
+        }
+        return new ArchivedGame(id, moves, result);
+    }
+
+    private static boolean isResult(String token) {
+        return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+    }
+}
@@ -0,0 +1,205 @@
+package com.mateusdalcantara.chess.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Represents one immutable, sorted segment file of a {@link PositionIndex}.
+ * <p>
+ * A segment starts with a 16-byte header (magic number, format version and record count)
+ * followed by fixed-size records of 16 bytes: the 64-bit position key and a 64-bit payload
+ * packing the game id (32 bits), the ply (16 bits) and the next move (16 bits). Records are
+ * sorted by key and then by payload, so all the postings of a position are contiguous and
+ * can be found by binary search.
+ * </p>
+ * <p>
+ * The file is memory-mapped read-only, so opening a segment costs no heap besides this object
+ * and the operating system shares its pages between every reader.
+ * </p>
+ *
+ * @see PositionIndex
+ * @see Posting
+ */
+class IndexSegment {
+
+    /** Magic number at the start of every segment ("CPIX"). */
+    static final int MAGIC = 0x43504958;
+
+    /** Version of the segment format. */
+    static final int VERSION = 1;
+
+    /** Size of the header in bytes. */
+    static final int HEADER_BYTES = 16;
+
+    /** Size of one record in bytes. */
+    static final int RECORD_BYTES = 16;
+
+    /** Largest number of records that fits in a single mapping. */
+    static final long MAX_RECORDS = (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES;
+
+    /** The segment file. */
+    private final Path file;
+
+    /** The first and last flush sequence numbers covered by this segment. */
+    private final long firstSequence;
+    private final long lastSequence;
+
+    /** The read-only mapping of the file. */
+    private final MappedByteBuffer buffer;
+
+    /** The number of records in the segment. */
+    private final int size;
+
+    private IndexSegment(Path file, long firstSequence, long lastSequence, MappedByteBuffer buffer, int size) {
+        this.file = file;
+        this.firstSequence = firstSequence;
+        this.lastSequence = lastSequence;
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * Opens and maps a segment file.
+     *
+     * @param file          the segment file.
+     * @param firstSequence the first flush sequence covered by the segment.
+     * @param lastSequence  the last flush sequence covered by the segment.
+     * @return the opened segment.
+     * @throws IOException if the file cannot be read or is not a valid segment.
+     */
+    static IndexSegment open(Path file, long firstSequence, long lastSequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a position index segment: " + file);
+            }
+            long size = buffer.getLong(8);
+            if (size < 0 || HEADER_BYTES + size * RECORD_BYTES != buffer.capacity()) {
+                throw new IOException("Truncated position index segment: " + file);
+            }
+            return new IndexSegment(file, firstSequence, lastSequence, buffer, (int) size);
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Returns the number of records in the segment.
+     */
+    int size() {
+        return size;
+    }
+
+    long key(int i) {
+        return buffer.getLong(HEADER_BYTES + i * RECORD_BYTES);
+    }
+
+    long payload(int i) {
+        return buffer.getLong(HEADER_BYTES + i * RECORD_BYTES + 8);
+    }
+
+    /**
+     * Returns the index of the first record whose key is not less than the given key,
+     * or {@link #size()} if there is none.
+     */
+    int lowerBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (key(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Adds every posting of the given key to the list.
+     */
+    void collect(long key, List<Posting> postings) {
+        for (int i = lowerBound(key); i < size && key(i) == key; i++) {
+            long payload = payload(i);
+            postings.add(new Posting(gameId(payload), ply(payload), nextMove(payload)));
+        }
+    }
+
+    /**
+     * Packs a game id, a ply and a move into a record payload.
+     */
+    static long payload(int gameId, int ply, int nextMove) {
+        return ((long) gameId << 32) | ((long) (ply & 0xFFFF) << 16) | (nextMove & 0xFFFF);
+    }
+
+    static int gameId(long payload) {
+        return (int) (payload >>> 32);
+    }
+
+    static int ply(long payload) {
+        return (int) (payload >>> 16) & 0xFFFF;
+    }
+
+    static int nextMove(long payload) {
+        return (int) payload & 0xFFFF;
+    }
+
+    /**
+     * Writes records to a new segment file. Records must be appended in sorted order.
+     */
+    static class Writer implements AutoCloseable {
+
+        private final Path file;
+        private final DataOutputStream out;
+        private long count;
+
+        Writer(Path file) throws IOException {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(0L);
+        }
+
+        void append(long key, long payload) throws IOException {
+            if (count == MAX_RECORDS) {
+                throw new IOException("Position index segment is full: " + file);
+            }
+            out.writeLong(key);
+            out.writeLong(payload);
+            count++;
+        }
+
+        /**
+         * Flushes the records and writes the final record count in the header.
+         */
+        @Override
+        public void close() throws IOException {
+            out.close();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(8).putLong(0, count);
+                channel.write(header, 8);
+                channel.force(true);
+            }
+        }
+    }
+}
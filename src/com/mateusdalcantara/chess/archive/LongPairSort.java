@@ -0,0 +1,86 @@
+package com.mateusdalcantara.chess.archive;
+
+/**
+ * Sorts two parallel {@code long} arrays as pairs, without allocating objects.
+ * <p>
+ * Pairs are ordered by the first array and then by the second one. Bulk writers such as the
+ * {@link PositionIndexBuilder} and the opening book builder keep their records in parallel
+ * primitive arrays, and this class lets them sort millions of records without boxing them.
+ * </p>
+ *
+ * @see PositionIndexBuilder
+ */
+public final class LongPairSort {
+
+    /** Below this size the sort switches to insertion sort. */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private LongPairSort() {
+    }
+
+    /**
+     * Sorts the pairs {@code (first[i], second[i])} for {@code from <= i < to}.
+     *
+     * @param first  the primary sort values.
+     * @param second the secondary sort values, moved together with {@code first}.
+     * @param from   the index of the first pair to sort, inclusive.
+     * @param to     the index of the last pair to sort, exclusive.
+     */
+    public static void sort(long[] first, long[] second, int from, int to) {
+        quicksort(first, second, from, to - 1);
+    }
+
+    /**
+     * A quicksort over the range {@code low..high} (inclusive) with median-of-three pivots.
+     */
+    private static void quicksort(long[] first, long[] second, int low, int high) {
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            int mid = (low + high) >>> 1;
+            if (compare(first, second, mid, low) < 0) swap(first, second, mid, low);
+            if (compare(first, second, high, low) < 0) swap(first, second, high, low);
+            if (compare(first, second, high, mid) < 0) swap(first, second, high, mid);
+            long pivotFirst = first[mid];
+            long pivotSecond = second[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(first[i], second[i], pivotFirst, pivotSecond) < 0) i++;
+                while (compare(first[j], second[j], pivotFirst, pivotSecond) > 0) j--;
+                if (i <= j) {
+                    swap(first, second, i++, j--);
+                }
+            }
+            // recurse into the smaller half to bound the stack depth
+            if (j - low < high - i) {
+                quicksort(first, second, low, j);
+                low = i;
+            } else {
+                quicksort(first, second, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(first, second, j, j - 1) < 0; j--) {
+                swap(first, second, j, j - 1);
+            }
+        }
+    }
+
+    private static int compare(long[] first, long[] second, int i, int j) {
+        return compare(first[i], second[i], first[j], second[j]);
+    }
+
+    private static int compare(long a1, long a2, long b1, long b2) {
+        int byFirst = Long.compare(a1, b1);
+        return byFirst != 0 ? byFirst : Long.compare(a2, b2);
+    }
+
+    private static void swap(long[] first, long[] second, int i, int j) {
+        long a = first[i];
+        first[i] = first[j];
+        first[j] = a;
+        long b = second[i];
+        second[i] = second[j];
+        second[j] = b;
+    }
+}
@@ -0,0 +1,447 @@
+package com.mateusdalcantara.chess.archive;
+
+import com.mateusdalcantara.chess.ChessMatch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An on-disk index from position keys to the archived games that reached them.
+ * <p>
+ * The index is a directory of immutable, sorted {@link IndexSegment} files. Each flush of a
+ * {@link PositionIndexBuilder} adds a new segment, and a background thread merges runs of
+ * adjacent segments so that the number of segments (and therefore the number of binary
+ * searches per lookup) stays bounded. Lookups never block on merges: they read a snapshot of
+ * the segment list, and merged segments stay mapped until no reader uses them.
+ * </p>
+ * <p>
+ * Each segment file is named after the range of flush sequence numbers it covers
+ * ({@code first-last.seg}). If the process stops between writing a merged segment and deleting
+ * its inputs, the leftover inputs are recognised by their covered range and removed on the
+ * next {@link #open(Path)}: a segment is kept unless a surviving segment covers its whole
+ * range.
+ * </p>
+ * <p>
+ * Several builders may flush at the same time, so their segments can be published out of
+ * sequence order. A merge only takes a run of segments when no flush of a sequence inside the
+ * run is still being written, so that a late segment never falls inside the range of a merged
+ * one. A merge that fails stops the background merges, and its error is thrown by
+ * {@link #awaitMerges()} and {@link #close()}; the index stays readable.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     try (PositionIndex index = PositionIndex.open(dir)) {
+ *         List&lt;Posting&gt; postings = index.lookup(chessMatch);
+ *     }
+ * </pre>
+ *
+ * @see PositionIndexBuilder
+ * @see Posting
+ * @see ChessMatch#getPositionKey()
+ */
+public class PositionIndex implements Closeable {
+
+    /** Default number of segments merged together by one background merge. */
+    public static final int DEFAULT_MERGE_FACTOR = 8;
+
+    /** Pattern of segment file names. */
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d+)-(\\d+)\\.seg");
+
+    /** Orders postings by game and then by ply. */
+    private static final Comparator<Posting> POSTING_ORDER =
+            Comparator.comparingInt(Posting::getGameId).thenComparingInt(Posting::getPly);
+
+    /** The directory holding the segment files. */
+    private final Path directory;
+
+    /** Number of segments merged together by one merge. */
+    private final int mergeFactor;
+
+    /** The current segments, ordered by sequence. Replaced as a whole, never modified in place. */
+    private volatile List<IndexSegment> segments;
+
+    /** The next flush sequence number. Guarded by {@code this}, as are the fields below. */
+    private long nextSequence;
+
+    /** The sequences reserved by flushes whose segment is not published yet. */
+    private final NavigableSet<Long> inFlight = new TreeSet<>();
+
+    /** Whether a merge task is queued or running. */
+    private boolean mergeScheduled;
+
+    /** Whether segments were added since the running merge task last looked for a run. */
+    private boolean mergeRequested;
+
+    /** The error that stopped the background merges, if any. */
+    private IOException mergeFailure;
+
+    /** The single background thread that merges segments. */
+    private final ExecutorService merger;
+
+    private PositionIndex(Path directory, int mergeFactor, List<IndexSegment> segments, long nextSequence) {
+        this.directory = directory;
+        this.mergeFactor = mergeFactor;
+        this.segments = segments;
+        this.nextSequence = nextSequence;
+        this.merger = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "position-index-merger");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the index stored in the given directory, creating the directory if needed.
+     *
+     * @param directory the index directory.
+     * @return the opened index.
+     * @throws IOException if the directory or a segment cannot be read.
+     */
+    public static PositionIndex open(Path directory) throws IOException {
+        return open(directory, DEFAULT_MERGE_FACTOR);
+    }
+
+    /**
+     * Opens the index stored in the given directory, creating the directory if needed.
+     *
+     * @param directory   the index directory.
+     * @param mergeFactor the number of segments merged together by one background merge (at least 2).
+     * @return the opened index.
+     * @throws IOException if the directory or a segment cannot be read.
+     */
+    public static PositionIndex open(Path directory, int mergeFactor) throws IOException {
+        if (mergeFactor < 2) {
+            throw new IllegalArgumentException("Merge factor must be at least 2");
+        }
+        Files.createDirectories(directory);
+        List<long[]> ranges = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher matcher = SEGMENT_NAME.matcher(name);
+                if (matcher.matches()) {
+                    ranges.add(new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))});
+                } else if (name.endsWith(".tmp")) {
+                    Files.delete(file); // unfinished segment of an interrupted flush or merge
+                }
+            }
+        }
+        // widest range first among equal starts, so that a merged segment precedes its inputs
+        ranges.sort(Comparator.<long[]>comparingLong(r -> r[0]).thenComparingLong(r -> -r[1]));
+
+        List<IndexSegment> segments = new ArrayList<>();
+        long nextSequence = 0;
+        for (long[] range : ranges) {
+            Path file = directory.resolve(fileName(range[0], range[1]));
+            if (isCovered(segments, range[0], range[1])) {
+                Files.delete(file); // input of a merge that completed
+                continue;
+            }
+            segments.add(IndexSegment.open(file, range[0], range[1]));
+            nextSequence = Math.max(nextSequence, range[1] + 1);
+        }
+        PositionIndex index = new PositionIndex(directory, mergeFactor, Collections.unmodifiableList(segments), nextSequence);
+        index.requestMerge();
+        return index;
+    }
+
+    /**
+     * Returns whether one of the given segments covers the whole sequence range.
+     */
+    private static boolean isCovered(List<IndexSegment> segments, long firstSequence, long lastSequence) {
+        for (IndexSegment segment : segments) {
+            if (segment.getFirstSequence() <= firstSequence && segment.getLastSequence() >= lastSequence) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns every posting of the given position key, ordered by game and ply.
+     *
+     * @param key the Zobrist key of the position.
+     * @return the postings of the position; empty if no archived game reached it.
+     */
+    public List<Posting> lookup(long key) {
+        List<Posting> postings = new ArrayList<>();
+        for (IndexSegment segment : segments) {
+            segment.collect(key, postings);
+        }
+        postings.sort(POSTING_ORDER);
+        return postings;
+    }
+
+    /**
+     * Returns every posting of the current position of a chess match, ordered by game and ply.
+     *
+     * @param chessMatch the match whose current position is looked up.
+     * @return the postings of the position; empty if no archived game reached it.
+     */
+    public List<Posting> lookup(ChessMatch chessMatch) {
+        return lookup(chessMatch.getPositionKey());
+    }
+
+    /**
+     * Returns the number of segments currently in the index.
+     *
+     * @return the segment count.
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Waits until every pending background merge has finished.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     * @throws IOException          if a background merge failed.
+     */
+    public synchronized void awaitMerges() throws InterruptedException, IOException {
+        while (mergeScheduled) {
+            wait();
+        }
+        throwMergeFailure();
+    }
+
+    /**
+     * Stops the background merges and waits for the running one to finish.
+     *
+     * @throws IOException if a background merge failed.
+     */
+    @Override
+    public void close() throws IOException {
+        merger.shutdown();
+        try {
+            merger.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            throwMergeFailure();
+        }
+    }
+
+    private void throwMergeFailure() throws IOException {
+        if (mergeFailure != null) {
+            throw new IOException("Position index merge failed", mergeFailure);
+        }
+    }
+
+    /**
+     * Reserves the sequence number of a new flush.
+     */
+    synchronized long reserveSequence() {
+        inFlight.add(nextSequence);
+        return nextSequence++;
+    }
+
+    /**
+     * Releases the sequence number of a flush that failed before its segment was published.
+     */
+    synchronized void abandonSequence(long sequence) {
+        inFlight.remove(sequence);
+    }
+
+    /**
+     * Returns the temporary file used while writing the segment of the given sequence range.
+     */
+    Path temporaryFile(long firstSequence, long lastSequence) {
+        return directory.resolve(fileName(firstSequence, lastSequence) + ".tmp");
+    }
+
+    /**
+     * Publishes a segment that was fully written to its temporary file.
+     */
+    void addSegment(long sequence) throws IOException {
+        try {
+            Path file = publish(sequence, sequence);
+            IndexSegment segment = IndexSegment.open(file, sequence, sequence);
+            synchronized (this) {
+                List<IndexSegment> updated = new ArrayList<>(segments);
+                int i = updated.size();
+                while (i > 0 && updated.get(i - 1).getFirstSequence() > sequence) {
+                    i--; // flushes from concurrent builders may finish out of order
+                }
+                updated.add(i, segment);
+                segments = Collections.unmodifiableList(updated);
+            }
+        } finally {
+            abandonSequence(sequence);
+        }
+        requestMerge();
+    }
+
+    private Path publish(long firstSequence, long lastSequence) throws IOException {
+        Path file = directory.resolve(fileName(firstSequence, lastSequence));
+        Files.move(temporaryFile(firstSequence, lastSequence), file, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    /**
+     * Asks the merge task to look for runs to merge, starting it if it is not running.
+     */
+    private void requestMerge() {
+        synchronized (this) {
+            if (mergeFailure != null || merger.isShutdown()) {
+                return;
+            }
+            mergeRequested = true;
+            if (mergeScheduled) {
+                return; // the running task looks again before it ends
+            }
+            mergeScheduled = true;
+        }
+        try {
+            merger.execute(this::runMerges);
+        } catch (RejectedExecutionException e) {
+            endMerges(); // closed concurrently
+        }
+    }
+
+    /**
+     * Runs on the merge thread: merges until the segment count is within bounds or no run can
+     * be merged, as long as segments keep being added.
+     */
+    private void runMerges() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (!mergeRequested || merger.isShutdown()) {
+                        break;
+                    }
+                    mergeRequested = false;
+                }
+                while (segments.size() > mergeFactor && mergeOnce()) {
+                    // keep merging until the segment count is within bounds
+                }
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                mergeFailure = e;
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                mergeFailure = new IOException(e);
+            }
+        } finally {
+            endMerges();
+        }
+    }
+
+    private synchronized void endMerges() {
+        mergeScheduled = false;
+        notifyAll();
+    }
+
+    /**
+     * Merges the run of {@code mergeFactor} adjacent segments with the fewest records, among the
+     * runs whose sequence range holds no flush in flight.
+     *
+     * @return {@code false} if no run could be merged.
+     */
+    private boolean mergeOnce() throws IOException {
+        List<IndexSegment> snapshot;
+        int best = -1;
+        synchronized (this) {
+            snapshot = segments;
+            long bestSize = IndexSegment.MAX_RECORDS + 1;
+            for (int start = 0; start + mergeFactor <= snapshot.size(); start++) {
+                long first = snapshot.get(start).getFirstSequence();
+                long last = snapshot.get(start + mergeFactor - 1).getLastSequence();
+                Long pending = inFlight.ceiling(first);
+                if (pending != null && pending <= last) {
+                    continue; // a late segment would fall inside the merged range
+                }
+                long total = 0;
+                for (int i = start; i < start + mergeFactor; i++) {
+                    total += snapshot.get(i).size();
+                }
+                if (total < bestSize) {
+                    best = start;
+                    bestSize = total;
+                }
+            }
+        }
+        if (best < 0) {
+            return false;
+        }
+        List<IndexSegment> inputs = snapshot.subList(best, best + mergeFactor);
+        long first = inputs.get(0).getFirstSequence();
+        long last = inputs.get(inputs.size() - 1).getLastSequence();
+
+        try (IndexSegment.Writer writer = new IndexSegment.Writer(temporaryFile(first, last))) {
+            int[] cursors = new int[inputs.size()];
+            while (true) {
+                int min = -1;
+                for (int i = 0; i < cursors.length; i++) {
+                    if (cursors[i] < inputs.get(i).size() && (min < 0 || compare(inputs.get(i), cursors[i], inputs.get(min), cursors[min]) < 0)) {
+                        min = i;
+                    }
+                }
+                if (min < 0) {
+                    break;
+                }
+                IndexSegment segment = inputs.get(min);
+                writer.append(segment.key(cursors[min]), segment.payload(cursors[min]));
+                cursors[min]++;
+            }
+        }
+        IndexSegment merged = IndexSegment.open(publish(first, last), first, last);
+
+        synchronized (this) {
+            List<IndexSegment> updated = new ArrayList<>(segments.size());
+            for (IndexSegment segment : segments) {
+                if (segment == inputs.get(0)) {
+                    updated.add(merged);
+                } else if (!containsSame(inputs, segment)) {
+                    updated.add(segment);
+                }
+            }
+            segments = Collections.unmodifiableList(updated);
+        }
+        for (IndexSegment input : inputs) {
+            try {
+                Files.delete(input.getFile());
+            } catch (IOException e) {
+                input.getFile().toFile().deleteOnExit(); // still mapped on platforms that lock mapped files
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsSame(List<IndexSegment> list, IndexSegment segment) {
+        for (IndexSegment element : list) {
+            if (element == segment) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int compare(IndexSegment a, int i, IndexSegment b, int j) {
+        int byKey = Long.compare(a.key(i), b.key(j));
+        return byKey != 0 ? byKey : Long.compare(a.payload(i), b.payload(j));
+    }
+
+    private static String fileName(long firstSequence, long lastSequence) {
+        return String.format("%012d-%012d.seg", firstSequence, lastSequence);
+    }
+}
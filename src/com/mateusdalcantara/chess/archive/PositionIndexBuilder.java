@@ -0,0 +1,163 @@
+package com.mateusdalcantara.chess.archive;
+
+import com.mateusdalcantara.chess.ChessException;
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Builds a {@link PositionIndex} by replaying archived games through {@link ChessMatch}.
+ * <p>
+ * Every position reached by a game produces one posting. Postings are collected in two
+ * primitive arrays (keys and packed payloads); when the buffer is full it is sorted and
+ * written as a new segment of the index, which the index later merges in the background.
+ * Memory use is therefore bounded by the buffer size, whatever the size of the archive.
+ * </p>
+ * <p>
+ * A builder is not thread-safe, but several builders may add segments to the same index.
+ * </p>
+ *
+ * @see PositionIndex
+ * @see GameArchive
+ */
+public class PositionIndexBuilder implements Closeable {
+
+    /** Default number of postings buffered before a segment is written (32 MB of buffers). */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 21;
+
+    /** The index receiving the segments. */
+    private final PositionIndex index;
+
+    /** The buffered position keys. */
+    private final long[] keys;
+
+    /** The buffered payloads, packed by {@link IndexSegment#payload(int, int, int)}. */
+    private final long[] payloads;
+
+    /** The number of buffered postings. */
+    private int size;
+
+    /**
+     * Constructs a builder with the default buffer size.
+     *
+     * @param index the index receiving the segments.
+     */
+    public PositionIndexBuilder(PositionIndex index) {
+        this(index, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a builder.
+     *
+     * @param index      the index receiving the segments.
+     * @param bufferSize the number of postings buffered before a segment is written.
+     */
+    public PositionIndexBuilder(PositionIndex index, int bufferSize) {
+        if (bufferSize < 1 || bufferSize > IndexSegment.MAX_RECORDS) {
+            throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+        }
+        this.index = index;
+        this.keys = new long[bufferSize];
+        this.payloads = new long[bufferSize];
+    }
+
+    /**
+     * Replays a game and adds a posting for every position it reached.
+     * <p>
+     * The game is fully replayed before any posting is buffered, so an invalid game leaves
+     * the builder unchanged.
+     * </p>
+     *
+     * @param game the game to index.
+     * @throws ChessException if the game contains a move that is not valid.
+     * @throws IOException if a segment cannot be written.
+     */
+    public void addGame(ArchivedGame game) throws IOException {
+        int[] moves = game.getMoves();
+        if (moves.length > 0xFFFF) {
+            throw new ChessException("Game " + game.getId() + " is too long to be indexed");
+        }
+        long[] gameKeys = new long[moves.length + 1];
+        ChessMatch chessMatch = new ChessMatch();
+        for (int ply = 0; ply < moves.length; ply++) {
+            gameKeys[ply] = chessMatch.getPositionKey();
+            chessMatch.performChessMove(moves[ply]);
+        }
+        gameKeys[moves.length] = chessMatch.getPositionKey();
+
+        for (int ply = 0; ply <= moves.length; ply++) {
+            if (size == keys.length) {
+                flush();
+            }
+            int nextMove = ply < moves.length ? moves[ply] : ChessMove.NONE;
+            keys[size] = gameKeys[ply];
+            payloads[size] = IndexSegment.payload(game.getId(), ply, nextMove);
+            size++;
+        }
+    }
+
+    /**
+     * Indexes every game of an archive file, skipping the games that contain invalid moves.
+     *
+     * @param archive the archive file.
+     * @return the number of games that were skipped.
+     * @throws IOException if the archive cannot be read or a segment cannot be written.
+     */
+    public int addArchive(Path archive) throws IOException {
+        int skipped = 0;
+        try (GameArchive games = new GameArchive(archive)) {
+            while (true) {
+                ArchivedGame game;
+                try {
+                    game = games.next();
+                } catch (ChessException e) {
+                    skipped++;
+                    continue;
+                }
+                if (game == null) {
+                    break;
+                }
+                try {
+                    addGame(game);
+                } catch (ChessException e) {
+                    skipped++;
+                }
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Sorts the buffered postings and writes them as a new segment of the index.
+     *
+     * @throws IOException if the segment cannot be written.
+     */
+    public void flush() throws IOException {
+        if (size == 0) {
+            return;
+        }
+        LongPairSort.sort(keys, payloads, 0, size);
+        long sequence = index.reserveSequence();
+        try (IndexSegment.Writer writer = new IndexSegment.Writer(index.temporaryFile(sequence, sequence))) {
+            for (int i = 0; i < size; i++) {
+                writer.append(keys[i], payloads[i]);
+            }
+        } catch (IOException | RuntimeException e) {
+            index.abandonSequence(sequence);
+            throw e;
+        }
+        index.addSegment(sequence);
+        size = 0;
+    }
+
+    /**
+     * Writes the remaining buffered postings.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
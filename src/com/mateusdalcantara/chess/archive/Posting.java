@@ -0,0 +1,70 @@
+package com.mateusdalcantara.chess.archive;
+
+import com.mateusdalcantara.chess.ChessMove;
+
+/**
+ * Represents one occurrence of a position in an archived game.
+ * <p>
+ * A posting tells that the game {@code gameId} reached the indexed position after
+ * {@code ply} half-moves, and which move was played next. The last position of a game
+ * has {@link ChessMove#NONE} as its next move.
+ * </p>
+ *
+ * @see PositionIndex
+ */
+public class Posting {
+
+    /** The id of the game inside the archive. */
+    private final int gameId;
+
+    /** The number of half-moves played before the position was reached. */
+    private final int ply;
+
+    /** The move played from the position, encoded with {@link ChessMove}. */
+    private final int nextMove;
+
+    /**
+     * Constructs a posting.
+     *
+     * @param gameId   the id of the game inside the archive.
+     * @param ply      the number of half-moves played before the position was reached.
+     * @param nextMove the encoded move played next, or {@link ChessMove#NONE}.
+     */
+    public Posting(int gameId, int ply, int nextMove) {
+        this.gameId = gameId;
+        this.ply = ply;
+        this.nextMove = nextMove;
+    }
+
+    /**
+     * Returns the id of the game that reached the position.
+     *
+     * @return the game id.
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Returns the number of half-moves played before the position was reached.
+     *
+     * @return the ply.
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Returns the move played from the position.
+     *
+     * @return the encoded move, or {@link ChessMove#NONE} if the game ended there.
+     */
+    public int getNextMove() {
+        return nextMove;
+    }
+
+    @Override
+    public String toString() {
+        return "game " + gameId + ", ply " + ply + ", next " + ChessMove.toString(nextMove);
+    }
+}
@@ -0,0 +1,55 @@
+package com.mateusdalcantara.chess.book;
+
+import com.mateusdalcantara.chess.ChessMove;
+
+/**
+ * Represents one move of the opening book for a position.
+ * <p>
+ * The weight of an entry measures how good the move turned out to be in the games the
+ * book was built from; moves with higher weights should be chosen more often.
+ * </p>
+ *
+ * @see OpeningBook
+ */
+public class BookEntry {
+
+    /** The book move, encoded with {@link ChessMove}. */
+    private final int move;
+
+    /** The weight of the move, from 1 to 65535. */
+    private final int weight;
+
+    /**
+     * Constructs a book entry.
+     *
+     * @param move   the encoded book move.
+     * @param weight the weight of the move.
+     */
+    public BookEntry(int move, int weight) {
+        this.move = move;
+        this.weight = weight;
+    }
+
+    /**
+     * Returns the book move.
+     *
+     * @return the move, encoded with {@link ChessMove}.
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * Returns the weight of the move.
+     *
+     * @return the weight, from 1 to 65535.
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return ChessMove.toString(move) + " (" + weight + ")";
+    }
+}
@@ -0,0 +1,204 @@
+package com.mateusdalcantara.chess.book;
+
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A read-only opening book stored in a memory-mapped file.
+ * <p>
+ * The book file starts with a 16-byte header (magic number, format version and entry count)
+ * followed by 12-byte entries: the 64-bit Zobrist key of a position, the 16-bit encoded move
+ * and its 16-bit unsigned weight. Entries are sorted by key, so the moves of a position are
+ * contiguous and found by binary search.
+ * </p>
+ * <p>
+ * Opening a book only maps the file, so it takes the same few milliseconds whatever the size
+ * of the book, and the pages are loaded lazily by the operating system and shared by every
+ * process of the host that maps the same file. Inside one process, {@link #shared(Path)} returns
+ * the same instance to every match; probing is thread-safe because the mapping is only read
+ * with absolute accesses.
+ * </p>
+ *
+ * @see OpeningBookBuilder
+ * @see ChessMatch#getPositionKey()
+ */
+public class OpeningBook {
+
+    /** Magic number at the start of every book ("CPBK"). */
+    static final int MAGIC = 0x4350424B;
+
+    /** Version of the book format. */
+    static final int VERSION = 1;
+
+    /** Size of the header in bytes. */
+    static final int HEADER_BYTES = 16;
+
+    /** Size of one entry in bytes. */
+    static final int ENTRY_BYTES = 12;
+
+    /** Largest number of entries that fits in a single mapping. */
+    static final long MAX_ENTRIES = (Integer.MAX_VALUE - HEADER_BYTES) / ENTRY_BYTES;
+
+    /** Books opened through {@link #shared(Path)}, by absolute path. */
+    private static final Map<Path, OpeningBook> SHARED = new ConcurrentHashMap<>();
+
+    /** The read-only mapping of the book file. */
+    private final MappedByteBuffer buffer;
+
+    /** The number of entries in the book. */
+    private final int size;
+
+    private OpeningBook(MappedByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file.
+     *
+     * @param file the book file.
+     * @return the opened book.
+     * @throws IOException if the file cannot be read or is not a valid book.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            long size = buffer.getLong(8);
+            if (size < 0 || HEADER_BYTES + size * ENTRY_BYTES != buffer.capacity()) {
+                throw new IOException("Truncated opening book: " + file);
+            }
+            return new OpeningBook(buffer, (int) size);
+        }
+    }
+
+    /**
+     * Returns the book of the given file, mapping it the first time it is requested.
+     * <p>
+     * Every caller in the process receives the same instance, so any number of matches can
+     * use the book without extra memory.
+     * </p>
+     *
+     * @param file the book file.
+     * @return the shared book.
+     * @throws UncheckedIOException if the file cannot be read or is not a valid book.
+     */
+    public static OpeningBook shared(Path file) {
+        return SHARED.computeIfAbsent(file.toAbsolutePath().normalize(), path -> {
+            try {
+                return open(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of entries in the book.
+     *
+     * @return the entry count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the book moves of a position, from the highest weight to the lowest.
+     *
+     * @param key the Zobrist key of the position.
+     * @return the book entries of the position; empty if the position is not in the book.
+     */
+    public List<BookEntry> probe(long key) {
+        List<BookEntry> entries = new ArrayList<>();
+        for (int i = lowerBound(key); i < size && key(i) == key; i++) {
+            entries.add(new BookEntry(move(i), weight(i)));
+        }
+        entries.sort(Comparator.comparingInt(BookEntry::getWeight).reversed());
+        return entries;
+    }
+
+    /**
+     * Returns the book moves of the current position of a match, from the highest weight to
+     * the lowest.
+     *
+     * @param chessMatch the match to probe.
+     * @return the book entries of the position; empty if the position is not in the book.
+     */
+    public List<BookEntry> probe(ChessMatch chessMatch) {
+        return probe(chessMatch.getPositionKey());
+    }
+
+    /**
+     * Chooses a book move for the current position of a match.
+     * <p>
+     * The move is chosen at random with a probability proportional to its weight, so the
+     * engine varies its openings while preferring the moves that scored best. No object is
+     * allocated.
+     * </p>
+     *
+     * @param chessMatch the match to probe.
+     * @param random     the source of randomness.
+     * @return the encoded book move, or {@link ChessMove#NONE} if the position is not in the book.
+     */
+    public int chooseMove(ChessMatch chessMatch, Random random) {
+        long key = chessMatch.getPositionKey();
+        int first = lowerBound(key);
+        int total = 0;
+        int end = first;
+        while (end < size && key(end) == key) {
+            total += weight(end++);
+        }
+        if (total == 0) {
+            return ChessMove.NONE;
+        }
+        int pick = random.nextInt(total);
+        for (int i = first; i < end; i++) {
+            pick -= weight(i);
+            if (pick < 0) {
+                return move(i);
+            }
+        }
+        return move(end - 1);
+    }
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (key(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long key(int i) {
+        return buffer.getLong(HEADER_BYTES + i * ENTRY_BYTES);
+    }
+
+    private int move(int i) {
+        return buffer.getShort(HEADER_BYTES + i * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weight(int i) {
+        return buffer.getShort(HEADER_BYTES + i * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+}
@@ -0,0 +1,190 @@
+package com.mateusdalcantara.chess.book;
+
+import com.mateusdalcantara.chess.ChessException;
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.archive.ArchivedGame;
+import com.mateusdalcantara.chess.archive.GameArchive;
+import com.mateusdalcantara.chess.archive.LongPairSort;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Builds an {@link OpeningBook} file from archived games.
+ * <p>
+ * The first plies of every game are replayed through {@link ChessMatch}, and each move is
+ * recorded with the position key it was played from and the points it earned for the side
+ * that played it (2 for a win, 1 for a draw or an unknown result, 0 for a loss). When the
+ * book is written, identical (position, move) pairs are merged and the weight of a move is
+ * the sum of its points. Moves played in too few games or that never scored are left out of
+ * the book.
+ * </p>
+ *
+ * @see OpeningBook
+ * @see GameArchive
+ */
+public class OpeningBookBuilder {
+
+    /** Default number of plies of each game that are added to the book. */
+    public static final int DEFAULT_MAX_PLY = 20;
+
+    /** Default minimum number of games in which a move must have been played. */
+    public static final int DEFAULT_MIN_GAMES = 2;
+
+    /** Number of plies of each game that are added to the book. */
+    private final int maxPly;
+
+    /** Minimum number of games in which a move must have been played. */
+    private final int minGames;
+
+    /** The recorded position keys. */
+    private long[] keys = new long[1024];
+
+    /** The recorded moves and points, packed as {@code move << 32 | points}. */
+    private long[] payloads = new long[1024];
+
+    /** The number of recorded moves. */
+    private int size;
+
+    /**
+     * Constructs a builder with the default depth and minimum number of games.
+     */
+    public OpeningBookBuilder() {
+        this(DEFAULT_MAX_PLY, DEFAULT_MIN_GAMES);
+    }
+
+    /**
+     * Constructs a builder.
+     *
+     * @param maxPly   the number of plies of each game that are added to the book.
+     * @param minGames the minimum number of games in which a move must have been played.
+     */
+    public OpeningBookBuilder(int maxPly, int minGames) {
+        this.maxPly = maxPly;
+        this.minGames = minGames;
+    }
+
+    /**
+     * Replays the opening of a game and records its moves.
+     *
+     * @param game the game to add.
+     * @throws ChessException if the opening contains a move that is not valid; nothing is
+     *                        recorded then.
+     */
+    public void addGame(ArchivedGame game) {
+        int[] moves = game.getMoves();
+        int plies = Math.min(maxPly, moves.length);
+        long[] gameKeys = new long[plies];
+        ChessMatch chessMatch = new ChessMatch();
+        for (int ply = 0; ply < plies; ply++) {
+            gameKeys[ply] = chessMatch.getPositionKey();
+            chessMatch.performChessMove(moves[ply]);
+        }
+
+        if (size + plies > keys.length) {
+            int capacity = Math.max(keys.length * 2, size + plies);
+            keys = Arrays.copyOf(keys, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            Color mover = (ply % 2 == 0) ? Color.WHITE : Color.BLACK;
+            keys[size] = gameKeys[ply];
+            payloads[size] = ((long) moves[ply] << 32) | points(game.getResult(), mover);
+            size++;
+        }
+    }
+
+    /**
+     * Adds every game of an archive file, skipping the games whose opening contains invalid moves.
+     *
+     * @param archive the archive file.
+     * @return the number of games that were skipped.
+     * @throws IOException if the archive cannot be read.
+     */
+    public int addArchive(Path archive) throws IOException {
+        int skipped = 0;
+        try (GameArchive games = new GameArchive(archive)) {
+            while (true) {
+                ArchivedGame game;
+                try {
+                    game = games.next();
+                    if (game == null) {
+                        break;
+                    }
+                    addGame(game);
+                } catch (ChessException e) {
+                    skipped++;
+                }
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Writes the book file.
+     * <p>
+     * The records are sorted and each (position, move) pair becomes one entry. The book is
+     * written to a temporary file that then replaces {@code file} atomically, so processes that
+     * already mapped the previous book keep reading a consistent file.
+     * </p>
+     *
+     * @param file the book file to write.
+     * @return the number of entries written.
+     * @throws IOException if the file cannot be written.
+     */
+    public int write(Path file) throws IOException {
+        LongPairSort.sort(keys, payloads, 0, size);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int count = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeLong(0L);
+            int i = 0;
+            while (i < size) {
+                long key = keys[i];
+                long move = payloads[i] >>> 32;
+                int games = 0;
+                int weight = 0;
+                for (; i < size && keys[i] == key && payloads[i] >>> 32 == move; i++) {
+                    games++;
+                    weight += (int) payloads[i];
+                }
+                if (games >= minGames && weight > 0) {
+                    if (count == OpeningBook.MAX_ENTRIES) {
+                        throw new IOException("Too many entries for one opening book");
+                    }
+                    out.writeLong(key);
+                    out.writeShort((int) move);
+                    out.writeShort(Math.min(weight, 0xFFFF));
+                    count++;
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).putLong(0, count), 8);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    private static int points(String result, Color mover) {
+        if (result.equals("1-0")) {
+            return mover == Color.WHITE ? 2 : 0;
+        }
+        if (result.equals("0-1")) {
+            return mover == Color.BLACK ? 2 : 0;
+        }
+        return 1;
+    }
+}
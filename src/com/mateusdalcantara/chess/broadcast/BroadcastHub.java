@@ -0,0 +1,404 @@
+package com.mateusdalcantara.chess.broadcast;
+
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broadcasts the moves of a match to spectators connected over a local socket.
+ * <p>
+ * The thread that plays the match calls {@link #publishMove(ChessMatch)} after every move.
+ * Instead of a full board, each move is sent as a small delta frame: the ply, the encoded move
+ * and the square of the captured piece. Every {@code keyframeInterval} moves, and whenever
+ * {@link #publishPosition(ChessMatch)} is called, a keyframe with the whole position in FEN is
+ * sent as well. A new spectator receives the latest keyframe and the deltas that followed it.
+ * </p>
+ * <p>
+ * Each frame is encoded once and shared by every spectator. All the sockets are served by one
+ * non-blocking I/O thread, so the publisher never waits for the network and thousands of
+ * spectators do not need thousands of threads. A spectator whose unsent frames exceed
+ * {@code maxPendingBytes} is skipped ahead: its backlog is discarded and it resumes at the next
+ * keyframe. A spectator that has to be skipped {@value #MAX_SKIPS} times without ever catching
+ * up is disconnected.
+ * </p>
+ * <p>
+ * Frames start with a type byte and the ply as an {@code int}. A {@link #MOVE} frame goes on
+ * with the move as an {@code int} and the captured square as a {@code short} (-1 for none),
+ * 11 bytes in all; a {@link #KEYFRAME} frame goes on with the FEN as written by
+ * {@link java.io.DataOutput#writeUTF(String)}. {@link Spectator} reads them.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     BroadcastHub hub = new BroadcastHub(9000, 20, 64 * 1024);
+ *     hub.publishPosition(chessMatch);
+ *     chessMatch.performChessMove(source, target);
+ *     hub.publishMove(chessMatch);
+ * </pre>
+ *
+ * @see Spectator
+ */
+public class BroadcastHub implements AutoCloseable {
+
+    /** The type of a frame holding the whole position. */
+    public static final byte KEYFRAME = 1;
+
+    /** The type of a frame holding one move. */
+    public static final byte MOVE = 2;
+
+    /** The number of skips in a row after which a slow spectator is disconnected. */
+    public static final int MAX_SKIPS = 3;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final int keyframeInterval;
+    private final int maxPendingBytes;
+
+    /** The frames published and not yet handed to the spectators by the I/O thread. */
+    private final ConcurrentLinkedQueue<byte[]> outbox = new ConcurrentLinkedQueue<>();
+
+    /** The number of moves published since the last keyframe; only used by the publisher. */
+    private int movesSinceKeyframe;
+
+    /** The connected spectators; only used by the I/O thread. */
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    /** The latest keyframe and the deltas published after it, sent to new spectators; only used by the I/O thread. */
+    private byte[] latestKeyframe;
+    private final List<byte[]> sinceKeyframe = new ArrayList<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong skips = new AtomicLong();
+    private final AtomicLong drops = new AtomicLong();
+
+    private final Thread ioThread;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a hub listening on the loopback interface and starts its I/O thread.
+     *
+     * @param port             the port, or 0 to pick a free one.
+     * @param keyframeInterval the number of moves between two keyframes.
+     * @param maxPendingBytes  the unsent bytes a spectator may accumulate before it is skipped ahead.
+     * @throws IOException if the port cannot be opened.
+     */
+    public BroadcastHub(int port, int keyframeInterval, int maxPendingBytes) throws IOException {
+        if (keyframeInterval < 1 || maxPendingBytes < 1) {
+            throw new IllegalArgumentException("The keyframe interval and the pending limit must be positive");
+        }
+        this.keyframeInterval = keyframeInterval;
+        this.maxPendingBytes = maxPendingBytes;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        ioThread = new Thread(this::serve, "broadcast-hub");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * Returns the port the hub listens on.
+     *
+     * @return the local port.
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Sends a keyframe with the current position of a match, for example at the start of a
+     * game or after the position was replaced. Must be called on the thread that owns the match.
+     *
+     * @param chessMatch the match.
+     */
+    public void publishPosition(ChessMatch chessMatch) {
+        movesSinceKeyframe = 0;
+        publish(keyframe(chessMatch));
+    }
+
+    /**
+     * Sends the last move played in a match, followed by a keyframe when one is due. Must be
+     * called on the thread that owns the match, after each move.
+     *
+     * @param chessMatch the match.
+     */
+    public void publishMove(ChessMatch chessMatch) {
+        int move = chessMatch.getLastMove();
+        int captured = chessMatch.getLastCapturedPiece() == null ? -1 : ChessMove.target(move);
+        ByteBuffer frame = ByteBuffer.allocate(11);
+        frame.put(MOVE).putInt(chessMatch.getPly()).putInt(move).putShort((short) captured);
+        publish(frame.array());
+        if (++movesSinceKeyframe >= keyframeInterval) {
+            movesSinceKeyframe = 0;
+            publish(keyframe(chessMatch));
+        }
+    }
+
+    /**
+     * Returns the number of connected spectators.
+     *
+     * @return the spectator count.
+     */
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Returns the number of times a slow spectator was skipped ahead to the next keyframe.
+     *
+     * @return the skip count.
+     */
+    public long getSkips() {
+        return skips.get();
+    }
+
+    /**
+     * Returns the number of slow spectators that were disconnected.
+     *
+     * @return the drop count.
+     */
+    public long getDrops() {
+        return drops.get();
+    }
+
+    /**
+     * Disconnects every spectator and stops the I/O thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        try {
+            ioThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(byte[] frame) {
+        outbox.add(frame);
+        selector.wakeup();
+    }
+
+    private static byte[] keyframe(ChessMatch chessMatch) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(KEYFRAME);
+            out.writeInt(chessMatch.getPly());
+            out.writeUTF(chessMatch.toFen());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a byte array stream does not fail
+        }
+    }
+
+    /**
+     * Runs on the I/O thread: accepts spectators, hands them the published frames and writes
+     * as much as each socket accepts without blocking.
+     */
+    private void serve() {
+        ByteBuffer discard = ByteBuffer.allocate(256);
+        try {
+            while (!closed) {
+                selector.select();
+                byte[] frame;
+                while ((frame = outbox.poll()) != null) {
+                    distribute(frame);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Subscriber subscriber = (Subscriber) key.attachment();
+                    if (key.isReadable()) {
+                        discard.clear();
+                        if (subscriber.channel.read(discard) < 0) {
+                            disconnect(subscriber); // spectators only listen; end of stream means they left
+                            continue;
+                        }
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        flush(subscriber);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // the selector failed; the hub cannot serve anyone any more
+        } finally {
+            for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+                disconnect(subscriber);
+            }
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Subscriber subscriber = new Subscriber(channel);
+        subscriber.key = channel.register(selector, SelectionKey.OP_READ, subscriber);
+        subscribers.add(subscriber);
+        subscriberCount.incrementAndGet();
+        if (latestKeyframe == null) {
+            subscriber.awaitingKeyframe = true;
+            return;
+        }
+        enqueue(subscriber, latestKeyframe);
+        for (byte[] delta : sinceKeyframe) {
+            enqueue(subscriber, delta);
+        }
+        flush(subscriber);
+    }
+
+    private void distribute(byte[] frame) {
+        boolean keyframe = frame[0] == KEYFRAME;
+        if (keyframe) {
+            latestKeyframe = frame;
+            sinceKeyframe.clear();
+        } else {
+            sinceKeyframe.add(frame);
+        }
+        for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+            if (subscriber.awaitingKeyframe) {
+                if (!keyframe) {
+                    continue;
+                }
+                subscriber.awaitingKeyframe = false;
+            }
+            enqueue(subscriber, frame);
+            if (subscriber.pendingBytes > maxPendingBytes) {
+                skip(subscriber);
+            } else {
+                flush(subscriber);
+            }
+        }
+    }
+
+    private static void enqueue(Subscriber subscriber, byte[] frame) {
+        subscriber.pending.addLast(frame);
+        subscriber.pendingBytes += frame.length;
+    }
+
+    /**
+     * Discards the backlog of a slow spectator, so that it resumes at the next keyframe, or
+     * disconnects it if it keeps falling behind.
+     */
+    private void skip(Subscriber subscriber) {
+        if (++subscriber.skipsInARow > MAX_SKIPS) {
+            drops.incrementAndGet();
+            disconnect(subscriber);
+            return;
+        }
+        skips.incrementAndGet();
+        // a frame already partly written must be completed, or the stream would be corrupt
+        byte[] head = subscriber.offset > 0 ? subscriber.pending.peekFirst() : null;
+        subscriber.pending.clear();
+        subscriber.pendingBytes = 0;
+        if (head != null) {
+            enqueue(subscriber, head);
+        }
+        subscriber.awaitingKeyframe = true;
+        flush(subscriber);
+    }
+
+    /**
+     * Writes the pending frames of a spectator until the socket buffer is full.
+     */
+    private void flush(Subscriber subscriber) {
+        try {
+            while (!subscriber.pending.isEmpty()) {
+                byte[] head = subscriber.pending.peekFirst();
+                ByteBuffer buffer = ByteBuffer.wrap(head, subscriber.offset, head.length - subscriber.offset);
+                subscriber.channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    subscriber.offset = buffer.position();
+                    subscriber.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                subscriber.pending.pollFirst();
+                subscriber.pendingBytes -= head.length;
+                subscriber.offset = 0;
+            }
+            if (!subscriber.awaitingKeyframe) {
+                subscriber.skipsInARow = 0; // caught up with the broadcast
+            }
+            subscriber.key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            disconnect(subscriber);
+        }
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+        subscriber.pending.clear();
+        try {
+            subscriber.channel.close();
+        } catch (IOException e) {
+            // already closed by the peer
+        }
+    }
+
+    /**
+     * A connected spectator and its unsent frames; only used by the I/O thread.
+     */
+    private static final class Subscriber {
+
+        private final SocketChannel channel;
+        private SelectionKey key;
+
+        /** The frames not yet written, oldest first; the first one is written from {@code offset}. */
+        private final ArrayDeque<byte[]> pending = new ArrayDeque<>();
+        private int offset;
+        private int pendingBytes;
+
+        /** Whether the spectator waits for a keyframe, after joining before the first one or after a skip. */
+        private boolean awaitingKeyframe;
+
+        /** The number of skips since the spectator last caught up. */
+        private int skipsInARow;
+
+        Subscriber(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.mateusdalcantara.chess.broadcast;
+
+import com.mateusdalcantara.chess.ChessException;
+import com.mateusdalcantara.chess.ChessMatch;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Follows a match broadcast by a {@link BroadcastHub}, keeping a local copy of the position up
+ * to date from the frames it receives.
+ * <p>
+ * A keyframe replaces the local position, and a move frame plays one move on it, so a viewer
+ * only has to redraw the squares that changed: the source and target of the move and, for a
+ * capture, the captured square. The spectator is not thread-safe; one thread calls {@link #next()}
+ * in a loop.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     try (Spectator spectator = new Spectator(9000)) {
+ *         while (spectator.next() != -1) {
+ *             UI.printBoard(spectator.getMatch().getPieces());
+ *         }
+ *     }
+ * </pre>
+ *
+ * @see BroadcastHub
+ */
+public class Spectator implements AutoCloseable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final ChessMatch chessMatch;
+
+    /** The ply of the last frame received. */
+    private int ply;
+
+    /** The captured square of the last move frame, or -1. */
+    private int capturedSquare = -1;
+
+    /**
+     * Connects to a hub on the local host that broadcasts a match on an 8x8 board.
+     *
+     * @param port the port of the hub.
+     * @throws IOException if the connection fails.
+     */
+    public Spectator(int port) throws IOException {
+        this(port, new ChessMatch());
+    }
+
+    /**
+     * Connects to a hub on the local host, following the match on a board of the given match.
+     *
+     * @param port       the port of the hub.
+     * @param chessMatch the match receiving the position, of the same board size as the broadcast one.
+     * @throws IOException if the connection fails.
+     */
+    public Spectator(int port, ChessMatch chessMatch) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.chessMatch = chessMatch;
+    }
+
+    /**
+     * Waits for the next frame and applies it to the local position.
+     *
+     * @return {@link BroadcastHub#KEYFRAME}, {@link BroadcastHub#MOVE}, or -1 when the hub closed the connection.
+     * @throws IOException    if reading fails.
+     * @throws ChessException if a frame does not apply to the local position.
+     */
+    public int next() throws IOException {
+        int type;
+        try {
+            type = in.readByte();
+            ply = in.readInt();
+            if (type == BroadcastHub.KEYFRAME) {
+                chessMatch.setPosition(in.readUTF());
+                capturedSquare = -1;
+            } else if (type == BroadcastHub.MOVE) {
+                int move = in.readInt();
+                capturedSquare = in.readShort();
+                if (!chessMatch.makeMove(move)) {
+                    throw new ChessException("Illegal broadcast move: " + chessMatch.moveToString(move));
+                }
+            } else {
+                throw new IOException("Unknown frame type " + type);
+            }
+        } catch (EOFException e) {
+            return -1;
+        }
+        return type;
+    }
+
+    /**
+     * Returns the local copy of the broadcast match.
+     *
+     * @return the match.
+     */
+    public ChessMatch getMatch() {
+        return chessMatch;
+    }
+
+    /**
+     * Returns the ply of the last frame received.
+     *
+     * @return the ply of the broadcast position.
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Returns the square of the piece captured by the last move received.
+     *
+     * @return the square index, or -1 if the last frame was not a capture.
+     */
+    public int getCapturedSquare() {
+        return capturedSquare;
+    }
+
+    /**
+     * Disconnects from the hub.
+     *
+     * @throws IOException if closing the socket fails.
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,291 @@
+package com.mateusdalcantara.chess.eval;
+
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessPiece;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.PieceType;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates the material and piece-square terms of many static positions at once, for the
+ * training and analysis jobs that score large batches of snapshots.
+ * <p>
+ * The positions are stored in structure-of-arrays form. Each piece of a position is reduced
+ * to a feature index, its color, type and square, and the feature indices are stored by
+ * slot: slot {@code k} of every position of the batch is one contiguous run of the array, padded
+ * with an index whose value is 0 for positions with fewer pieces. The value of every feature,
+ * material plus piece-square table, signed for white, is precomputed in one table, so
+ * evaluating a position is the sum of one table lookup per slot, with no branch on the pieces.
+ * The kings are the exception: their table value depends on the game phase, so it is computed
+ * when a position is added and added to the sums afterwards.
+ * </p>
+ * <p>
+ * That layout lets {@link #evaluate(int[])} evaluate a lane of positions per instruction:
+ * when the {@code jdk.incubator.vector} module is available, a SIMD kernel loads the indices
+ * of one slot for as many positions as the vector has lanes, gathers their values from the
+ * table and adds them to the lane sums. Otherwise the same sums are computed by a scalar loop.
+ * The choice is made once, when the class is loaded; {@link #isVectorized()} tells which.
+ * </p>
+ * <p>
+ * The vector kernel lives in the separate {@code src-vector} source root, so that the project
+ * builds without the incubating module. To use it, compile that root after {@code src} and run
+ * with the module:
+ * </p>
+ * <pre>
+ *     javac --add-modules jdk.incubator.vector -cp out -d out src-vector/com/mateusdalcantara/chess/eval/VectorKernel.java
+ *     java --add-modules jdk.incubator.vector -cp out ...
+ * </pre>
+ * <p>
+ * When the kernel class is missing or the module is not added at run time, the scalar code is
+ * used.
+ * </p>
+ * <p>
+ * The scores are those of {@link Evaluation} without its mobility and mop-up terms, from
+ * white's point of view. An instance is not thread-safe; each worker keeps its own.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     BatchEvaluation batch = new BatchEvaluation(4096);
+ *     for (String fen : fens) {
+ *         chessMatch.setPosition(fen);
+ *         batch.add(chessMatch);
+ *     }
+ *     int[] scores = new int[batch.size()];
+ *     batch.evaluate(scores);
+ * </pre>
+ *
+ * @see Evaluation
+ */
+public class BatchEvaluation {
+
+    /** The number of slots allocated at first; grown when a position has more pieces. */
+    private static final int INITIAL_SLOTS = 32;
+
+    /** The scalar summing code. */
+    private static final Kernel SCALAR_KERNEL = BatchEvaluation::scalarSum;
+
+    /** The summing code: the vector kernel when the module is present, else the scalar one. */
+    private static final Kernel KERNEL = loadKernel();
+
+    private final int rows;
+    private final int columns;
+    private final int capacity;
+
+    /** The value of each feature, signed for white; the last entry is the padding, worth 0. */
+    private final int[] values;
+
+    /** Gives the king values, which depend on the phase of each position. */
+    private final Evaluation evaluation;
+
+    /** The value of the two kings of each position, signed for white. */
+    private final int[] kingValues;
+
+    /** The index of the padding feature. */
+    private final int padding;
+
+    /** The feature index of slot {@code k} of position {@code i} at {@code k * capacity + i}. */
+    private int[] features;
+    private int slots;
+
+    /** The number of positions in the batch. */
+    private int size;
+
+    /**
+     * Constructs an empty batch of positions on an 8x8 board.
+     *
+     * @param capacity the maximum number of positions.
+     */
+    public BatchEvaluation(int capacity) {
+        this(8, 8, capacity);
+    }
+
+    /**
+     * Constructs an empty batch of positions on a board of the given dimensions.
+     *
+     * @param rows     the number of rows of the board.
+     * @param columns  the number of columns of the board.
+     * @param capacity the maximum number of positions.
+     */
+    public BatchEvaluation(int rows, int columns, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.capacity = capacity;
+        int squares = rows * columns;
+        evaluation = new Evaluation(rows, columns);
+        kingValues = new int[capacity];
+        values = new int[12 * squares + 1];
+        for (PieceType type : PieceType.values()) {
+            for (Color color : Color.values()) {
+                int plane = type.ordinal() * 2 + color.ordinal();
+                int sign = color == Color.WHITE ? 1 : -1;
+                for (int square = 0; square < squares; square++) {
+                    values[plane * squares + square] = sign * evaluation.staticValue(type, color, square);
+                }
+            }
+        }
+        padding = values.length - 1;
+        slots = INITIAL_SLOTS;
+        features = new int[slots * capacity];
+        Arrays.fill(features, padding);
+    }
+
+    /**
+     * Checks whether the batches are summed by the SIMD kernel.
+     *
+     * @return {@code true} if the vector module is available, {@code false} if the scalar code is used.
+     */
+    public static boolean isVectorized() {
+        return KERNEL != SCALAR_KERNEL;
+    }
+
+    /**
+     * Adds the position of a match to the batch.
+     *
+     * @param chessMatch the match; its board must have the dimensions of the batch.
+     * @return the index of the position in the batch.
+     */
+    public int add(ChessMatch chessMatch) {
+        return add(chessMatch.getPieces());
+    }
+
+    /**
+     * Adds a board snapshot to the batch.
+     *
+     * @param pieces the pieces indexed by row and column, {@code null} for an empty square, as returned by {@link ChessMatch#getPieces()}.
+     * @return the index of the position in the batch.
+     * @throws IllegalStateException    if the batch is full.
+     * @throws IllegalArgumentException if the board does not have the dimensions of the batch.
+     */
+    public int add(ChessPiece[][] pieces) {
+        if (size == capacity) {
+            throw new IllegalStateException("The batch is full");
+        }
+        if (pieces.length != rows || pieces[0].length != columns) {
+            throw new IllegalArgumentException("The board must be " + rows + "x" + columns);
+        }
+        int slot = 0;
+        int phase = 0;
+        int whiteKing = -1;
+        int blackKing = -1;
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                ChessPiece piece = pieces[row][column];
+                if (piece != null) {
+                    if (slot == slots) {
+                        grow();
+                    }
+                    int square = row * columns + column;
+                    features[slot * capacity + size] = feature(piece, square);
+                    slot++;
+                    phase += Evaluation.phaseWeight(piece.getType());
+                    if (piece.getType() == PieceType.KING) {
+                        if (piece.getColor() == Color.WHITE) {
+                            whiteKing = square;
+                        } else {
+                            blackKing = square;
+                        }
+                    }
+                }
+            }
+        }
+        kingValues[size] = evaluation.kingPlacement(Color.WHITE, whiteKing, phase)
+                - evaluation.kingPlacement(Color.BLACK, blackKing, phase);
+        return size++;
+    }
+
+    /**
+     * Returns the number of positions in the batch.
+     *
+     * @return the size of the batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every position from the batch, keeping its arrays.
+     */
+    public void clear() {
+        Arrays.fill(features, padding);
+        size = 0;
+    }
+
+    /**
+     * Evaluates every position of the batch.
+     *
+     * @param scores receives the score of position {@code i} at index {@code i}: material plus
+     *               piece-square tables, in centipawns, from white's point of view.
+     * @throws IllegalArgumentException if the array is shorter than the batch.
+     */
+    public void evaluate(int[] scores) {
+        if (scores.length < size) {
+            throw new IllegalArgumentException("The score array is shorter than the batch");
+        }
+        KERNEL.sum(values, features, slots, capacity, size, scores);
+        for (int i = 0; i < size; i++) {
+            scores[i] += kingValues[i];
+        }
+    }
+
+    private int feature(ChessPiece piece, int square) {
+        int plane = piece.getType().ordinal() * 2 + piece.getColor().ordinal();
+        return plane * rows * columns + square;
+    }
+
+    /**
+     * Doubles the number of slots, padding the new ones.
+     */
+    private void grow() {
+        features = Arrays.copyOf(features, 2 * slots * capacity);
+        Arrays.fill(features, slots * capacity, features.length, padding);
+        slots *= 2;
+    }
+
+    private static Kernel loadKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (Kernel) Class.forName("com.mateusdalcantara.chess.eval.VectorKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // the scalar kernel below
+            }
+        }
+        return SCALAR_KERNEL;
+    }
+
+    /**
+     * Sums the feature values of each position, one position at a time.
+     */
+    static void scalarSum(int[] values, int[] features, int slots, int capacity, int count, int[] scores) {
+        scalarSum(values, features, slots, capacity, 0, count, scores);
+    }
+
+    /**
+     * Sums the feature values of the positions from {@code from} to {@code count}; the vector
+     * kernel uses it for the positions left after the last full lane.
+     */
+    static void scalarSum(int[] values, int[] features, int slots, int capacity, int from, int count, int[] scores) {
+        for (int i = from; i < count; i++) {
+            scores[i] = 0;
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            int offset = slot * capacity;
+            for (int i = from; i < count; i++) {
+                scores[i] += values[features[offset + i]];
+            }
+        }
+    }
+
+    /**
+     * Sums the feature values of a batch; see {@link #scalarSum(int[], int[], int, int, int, int[])}
+     * for the meaning of the arguments.
+     */
+    interface Kernel {
+        void sum(int[] values, int[] features, int slots, int capacity, int count, int[] scores);
+    }
+}
@@ -0,0 +1,411 @@
+package com.mateusdalcantara.chess.eval;
+
+import com.mateusdalcantara.chess.ChessPiece;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.PieceType;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the terms of the static evaluation of a position as running totals.
+ * <p>
+ * Instead of scanning the board every time a position is evaluated, the evaluation is told
+ * about every piece placed on or removed from the board (see {@code BoardListener}) and
+ * updates its totals in constant time. A move is a removal and a placement, and undoing it
+ * performs the inverse operations, so the totals are reverted automatically on unmake.
+ * </p>
+ * <p>
+ * The terms kept are:
+ * </p>
+ * <ul>
+ *     <li>the material of each side;</li>
+ *     <li>the piece-square table score of each side, except for the kings;</li>
+ *     <li>the game phase, from the material left other than kings and pawns, which blends the
+ *     middlegame king table, that keeps the king sheltered behind its pieces, into the endgame
+ *     one, that brings it to the centre once the pieces have been traded;</li>
+ *     <li>an approximation of rook mobility: the number of empty squares on the rank and
+ *     file of each rook, ignoring which of them are blocked;</li>
+ *     <li>an approximation of king mobility: the number of empty squares next to each king;</li>
+ *     <li>the king distance (mop-up) term, which drives the losing king to the edge and the
+ *     winning king towards it once one side is clearly ahead in material.</li>
+ * </ul>
+ * <p>
+ * Computing {@link #evaluate(Color)} takes constant time, so it can be called at every node of
+ * a search, including quiescence nodes.
+ * </p>
+ * <p>
+ * Squares are numbered from 0 ('a8') to 63 ('h1'), as in {@code ChessMove}. On boards of
+ * other sizes, the piece-square tables are stretched over the board, so that each square
+ * takes the value of the 8x8 square at the same relative place, and the occupancy is kept
+ * in a bitset of as many 64-bit words as the board needs.
+ * </p>
+ *
+ * @see com.mateusdalcantara.boardgame.BoardListener
+ * @see com.mateusdalcantara.chess.ChessMatch#evaluate()
+ */
+public class Evaluation {
+
+    /** Material value of each piece type, in centipawns, indexed by {@link PieceType} ordinal. */
+    public static final int[] PIECE_VALUES = {0, 900, 500, 330, 320, 100};
+
+    /** Score of each empty square on the rank and file of a rook. */
+    private static final int ROOK_MOBILITY_WEIGHT = 2;
+
+    /** Score of each empty square next to a king. */
+    private static final int KING_MOBILITY_WEIGHT = 2;
+
+    /** Material lead, in centipawns, from which the mop-up term is applied. */
+    private static final int MOP_UP_MARGIN = 400;
+
+    /** Weight of each piece type in the game phase, indexed by {@link PieceType} ordinal. */
+    private static final int[] PHASE_WEIGHTS = {0, 4, 2, 1, 1, 0};
+
+    /** The game phase of the standard setup, and of any position with more pieces. */
+    static final int MAX_PHASE = 24;
+
+    /**
+     * King table of the middlegame, from white's point of view: the king stays on its first
+     * rank, towards a corner, behind its pawns.
+     */
+    private static final int[] KING_MIDDLEGAME_TABLE = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20};
+
+    /**
+     * Piece-square tables from white's point of view, indexed by {@link PieceType} ordinal and
+     * then by square. Black uses the vertically mirrored square. The king table is the endgame
+     * one, which rewards centralisation; it is blended with {@link #KING_MIDDLEGAME_TABLE} by
+     * the game phase instead of being kept in the running totals.
+     */
+    private static final int[][] PIECE_SQUARE_TABLES = {
+            { // king, endgame
+                    -50, -40, -30, -20, -20, -30, -40, -50,
+                    -30, -20, -10,   0,   0, -10, -20, -30,
+                    -30, -10,  20,  30,  30,  20, -10, -30,
+                    -30, -10,  30,  40,  40,  30, -10, -30,
+                    -30, -10,  30,  40,  40,  30, -10, -30,
+                    -30, -10,  20,  30,  30,  20, -10, -30,
+                    -30, -30,   0,   0,   0,   0, -30, -30,
+                    -50, -30, -30, -30, -30, -30, -30, -50},
+            { // queen
+                    -20, -10, -10,  -5,  -5, -10, -10, -20,
+                    -10,   0,   0,   0,   0,   0,   0, -10,
+                    -10,   0,   5,   5,   5,   5,   0, -10,
+                     -5,   0,   5,   5,   5,   5,   0,  -5,
+                      0,   0,   5,   5,   5,   5,   0,  -5,
+                    -10,   5,   5,   5,   5,   5,   0, -10,
+                    -10,   0,   5,   0,   0,   0,   0, -10,
+                    -20, -10, -10,  -5,  -5, -10, -10, -20},
+            { // rook
+                      0,   0,   0,   0,   0,   0,   0,   0,
+                      5,  10,  10,  10,  10,  10,  10,   5,
+                     -5,   0,   0,   0,   0,   0,   0,  -5,
+                     -5,   0,   0,   0,   0,   0,   0,  -5,
+                     -5,   0,   0,   0,   0,   0,   0,  -5,
+                     -5,   0,   0,   0,   0,   0,   0,  -5,
+                     -5,   0,   0,   0,   0,   0,   0,  -5,
+                      0,   0,   0,   5,   5,   0,   0,   0},
+            { // bishop
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10,   0,   0,   0,   0,   0,   0, -10,
+                    -10,   0,   5,  10,  10,   5,   0, -10,
+                    -10,   5,   5,  10,  10,   5,   5, -10,
+                    -10,   0,  10,  10,  10,  10,   0, -10,
+                    -10,  10,  10,  10,  10,  10,  10, -10,
+                    -10,   5,   0,   0,   0,   0,   5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20},
+            { // knight
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20,   0,   0,   0,   0, -20, -40,
+                    -30,   0,  10,  15,  15,  10,   0, -30,
+                    -30,   5,  15,  20,  20,  15,   5, -30,
+                    -30,   0,  15,  20,  20,  15,   0, -30,
+                    -30,   5,  10,  15,  15,  10,   5, -30,
+                    -40, -20,   0,   5,   5,   0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50},
+            { // pawn
+                      0,   0,   0,   0,   0,   0,   0,   0,
+                     50,  50,  50,  50,  50,  50,  50,  50,
+                     10,  10,  20,  30,  30,  20,  10,  10,
+                      5,   5,  10,  25,  25,  10,   5,   5,
+                      0,   0,   0,  20,  20,   0,   0,   0,
+                      5,  -5, -10,   0,   0, -10,  -5,   5,
+                      5,  10,  10, -20, -20,  10,  10,   5,
+                      0,   0,   0,   0,   0,   0,   0,   0}
+    };
+
+    private final int rows;
+    private final int columns;
+
+    /** The square of the piece-square tables used by each square, for white and for black. */
+    private final int[] whiteTableSquares;
+    private final int[] blackTableSquares;
+
+    /** The squares next to each square. */
+    private final int[][] kingZones;
+
+    /** The Manhattan distance from each square to the central squares. */
+    private final int[] centreDistance;
+
+    /** The largest Manhattan distance between two squares of the board. */
+    private final int maxDistance;
+
+    /** Material of each side, indexed by {@link Color} ordinal. */
+    private final int[] material = new int[2];
+
+    /** Piece-square table score of each side. */
+    private final int[] placement = new int[2];
+
+    /** Sum over the rooks of each side of the empty squares on their rank and file. */
+    private final int[] rookMobility = new int[2];
+
+    /** Square of the king of each side, or -1. */
+    private final int[] kingSquares = {-1, -1};
+
+    /** Sum of the phase weights of the pieces on the board; see {@link #MAX_PHASE}. */
+    private int phase;
+
+    /** The occupied squares, one bit per square. */
+    private final long[] occupancy;
+
+    /** Number of pieces on each row and on each column. */
+    private final int[] rowCounts;
+    private final int[] columnCounts;
+
+    /** Number of rooks of each side on each row and on each column. */
+    private final int[][] rooksOnRow;
+    private final int[][] rooksOnColumn;
+
+    /**
+     * Constructs the evaluation of an empty 8x8 board.
+     */
+    public Evaluation() {
+        this(8, 8);
+    }
+
+    /**
+     * Constructs the evaluation of an empty board of the given dimensions.
+     *
+     * @param rows    the number of rows of the board.
+     * @param columns the number of columns of the board.
+     */
+    public Evaluation(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        int squares = rows * columns;
+        whiteTableSquares = new int[squares];
+        blackTableSquares = new int[squares];
+        kingZones = new int[squares][];
+        centreDistance = new int[squares];
+        maxDistance = rows + columns - 2;
+        occupancy = new long[(squares + 63) / 64];
+        rowCounts = new int[rows];
+        columnCounts = new int[columns];
+        rooksOnRow = new int[2][rows];
+        rooksOnColumn = new int[2][columns];
+        int[] zone = new int[8];
+        for (int square = 0; square < squares; square++) {
+            int row = square / columns;
+            int column = square % columns;
+            int tableColumn = column * 8 / columns;
+            whiteTableSquares[square] = row * 8 / rows * 8 + tableColumn;
+            blackTableSquares[square] = (rows - 1 - row) * 8 / rows * 8 + tableColumn;
+            int size = 0;
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    int r = row + i;
+                    int c = column + j;
+                    if ((i != 0 || j != 0) && r >= 0 && r < rows && c >= 0 && c < columns) {
+                        zone[size++] = r * columns + c;
+                    }
+                }
+            }
+            kingZones[square] = Arrays.copyOf(zone, size);
+            centreDistance[square] = Math.max((rows - 1) / 2 - row, row - rows / 2)
+                    + Math.max((columns - 1) / 2 - column, column - columns / 2);
+        }
+    }
+
+    /**
+     * Adds a piece placed on a square to the totals.
+     *
+     * @param piece  the piece that was placed.
+     * @param square the square index.
+     */
+    public void add(ChessPiece piece, int square) {
+        int side = piece.getColor().ordinal();
+        int type = piece.getType().ordinal();
+        int row = square / columns;
+        int column = square % columns;
+
+        material[side] += PIECE_VALUES[type];
+        phase += PHASE_WEIGHTS[type];
+        if (piece.getType() != PieceType.KING) {
+            placement[side] += PIECE_SQUARE_TABLES[type][tableSquare(piece.getColor(), square)];
+        }
+
+        // the new piece takes one empty square from every rook on its rank and file
+        for (int k = 0; k < 2; k++) {
+            rookMobility[k] -= rooksOnRow[k][row] + rooksOnColumn[k][column];
+        }
+        rowCounts[row]++;
+        columnCounts[column]++;
+        occupancy[square >>> 6] |= 1L << square;
+
+        if (piece.getType() == PieceType.ROOK) {
+            rooksOnRow[side][row]++;
+            rooksOnColumn[side][column]++;
+            rookMobility[side] += (columns - rowCounts[row]) + (rows - columnCounts[column]);
+        } else if (piece.getType() == PieceType.KING) {
+            kingSquares[side] = square;
+        }
+    }
+
+    /**
+     * Removes a piece taken off a square from the totals.
+     *
+     * @param piece  the piece that was removed.
+     * @param square the square index.
+     */
+    public void remove(ChessPiece piece, int square) {
+        int side = piece.getColor().ordinal();
+        int type = piece.getType().ordinal();
+        int row = square / columns;
+        int column = square % columns;
+
+        if (piece.getType() == PieceType.ROOK) {
+            rookMobility[side] -= (columns - rowCounts[row]) + (rows - columnCounts[column]);
+            rooksOnRow[side][row]--;
+            rooksOnColumn[side][column]--;
+        } else if (piece.getType() == PieceType.KING && kingSquares[side] == square) {
+            kingSquares[side] = -1;
+        }
+
+        rowCounts[row]--;
+        columnCounts[column]--;
+        occupancy[square >>> 6] &= ~(1L << square);
+        for (int k = 0; k < 2; k++) {
+            rookMobility[k] += rooksOnRow[k][row] + rooksOnColumn[k][column];
+        }
+
+        material[side] -= PIECE_VALUES[type];
+        phase -= PHASE_WEIGHTS[type];
+        if (piece.getType() != PieceType.KING) {
+            placement[side] -= PIECE_SQUARE_TABLES[type][tableSquare(piece.getColor(), square)];
+        }
+    }
+
+    /**
+     * Returns the static evaluation of the position, in centipawns.
+     *
+     * @param sideToMove the color of the side to move.
+     * @return the score from the point of view of the side to move (positive if it is better).
+     */
+    public int evaluate(Color sideToMove) {
+        int white = Color.WHITE.ordinal();
+        int black = Color.BLACK.ordinal();
+        int score = material[white] - material[black]
+                + placement[white] - placement[black]
+                + kingPlacement(Color.WHITE, kingSquares[white], phase)
+                - kingPlacement(Color.BLACK, kingSquares[black], phase)
+                + ROOK_MOBILITY_WEIGHT * (rookMobility[white] - rookMobility[black])
+                + KING_MOBILITY_WEIGHT * (kingMobility(white) - kingMobility(black));
+        if (kingSquares[white] >= 0 && kingSquares[black] >= 0) {
+            if (material[white] >= material[black] + MOP_UP_MARGIN) {
+                score += mopUp(kingSquares[white], kingSquares[black]);
+            } else if (material[black] >= material[white] + MOP_UP_MARGIN) {
+                score -= mopUp(kingSquares[black], kingSquares[white]);
+            }
+        }
+        return sideToMove == Color.WHITE ? score : -score;
+    }
+
+    /**
+     * Returns the material of one side.
+     *
+     * @param color the side.
+     * @return the material value, in centipawns.
+     */
+    public int getMaterial(Color color) {
+        return material[color.ordinal()];
+    }
+
+    /**
+     * Returns the material and piece-square table value of a piece on a square, the two terms
+     * that {@link BatchEvaluation} sums over many positions at once. The table value of a king
+     * depends on the game phase and is left out; see {@link #kingPlacement}.
+     *
+     * @param type   the piece type.
+     * @param color  the color of the piece.
+     * @param square the square index.
+     * @return the value, in centipawns, from the point of view of the piece's own side.
+     */
+    int staticValue(PieceType type, Color color, int square) {
+        int value = PIECE_VALUES[type.ordinal()];
+        return type == PieceType.KING ? value : value + PIECE_SQUARE_TABLES[type.ordinal()][tableSquare(color, square)];
+    }
+
+    /**
+     * Returns the weight of a piece type in the game phase.
+     *
+     * @param type the piece type.
+     * @return the weight; 0 for kings and pawns.
+     */
+    static int phaseWeight(PieceType type) {
+        return PHASE_WEIGHTS[type.ordinal()];
+    }
+
+    /**
+     * Returns the table value of a king, blending its middlegame and endgame tables by the game
+     * phase.
+     *
+     * @param color  the color of the king.
+     * @param square the square of the king, or -1 if it is not on the board.
+     * @param phase  the sum of the phase weights of the pieces on the board.
+     * @return the value, in centipawns, from the point of view of the king's side.
+     */
+    int kingPlacement(Color color, int square, int phase) {
+        if (square < 0) {
+            return 0;
+        }
+        int tableSquare = tableSquare(color, square);
+        int middlegame = Math.min(phase, MAX_PHASE);
+        return (KING_MIDDLEGAME_TABLE[tableSquare] * middlegame
+                + PIECE_SQUARE_TABLES[PieceType.KING.ordinal()][tableSquare] * (MAX_PHASE - middlegame)) / MAX_PHASE;
+    }
+
+    private int kingMobility(int side) {
+        int square = kingSquares[side];
+        if (square < 0) {
+            return 0;
+        }
+        int empty = 0;
+        for (int neighbour : kingZones[square]) {
+            if ((occupancy[neighbour >>> 6] & 1L << neighbour) == 0) {
+                empty++;
+            }
+        }
+        return empty;
+    }
+
+    /**
+     * Rewards the winning side for pushing the losing king to the edge and approaching it.
+     */
+    private int mopUp(int strongKing, int weakKing) {
+        int distance = Math.abs(strongKing / columns - weakKing / columns) + Math.abs(strongKing % columns - weakKing % columns);
+        return 10 * centreDistance[weakKing] + 4 * (maxDistance - distance);
+    }
+
+    /**
+     * Returns the square of the piece-square tables that applies to a piece of the given color.
+     */
+    private int tableSquare(Color color, int square) {
+        return color == Color.WHITE ? whiteTableSquares[square] : blackTableSquares[square];
+    }
+}
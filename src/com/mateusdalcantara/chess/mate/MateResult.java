@@ -0,0 +1,130 @@
+package com.mateusdalcantara.chess.mate;
+
+import com.mateusdalcantara.chess.ChessMove;
+
+/**
+ * The result of a mate search: the length of the shortest forced mate and its solution line,
+ * or the proof that there is no mate within the searched number of moves.
+ *
+ * @see MateSolver
+ */
+public class MateResult {
+
+    /** The number of moves of the shortest mate, or 0 if there is none within {@link #maxMoves}. */
+    private final int mateIn;
+
+    /** The number of moves that was searched. */
+    private final int maxMoves;
+
+    /** The solution line, from the first move of the attacker to the mating move. */
+    private final int[] line;
+
+    /** The number of positions visited. */
+    private final long nodes;
+
+    /** The duration of the search, in milliseconds. */
+    private final long timeMillis;
+
+    /** The dimensions of the board, used to write the moves. */
+    private final int rows;
+    private final int columns;
+
+    /**
+     * Constructs a mate search result.
+     *
+     * @param mateIn     the number of moves of the shortest mate, or 0 if there is none.
+     * @param maxMoves   the number of moves that was searched.
+     * @param line       the solution line, empty if there is no mate.
+     * @param nodes      the number of positions visited.
+     * @param timeMillis the duration of the search, in milliseconds.
+     * @param rows       the number of rows of the board.
+     * @param columns    the number of columns of the board.
+     */
+    public MateResult(int mateIn, int maxMoves, int[] line, long nodes, long timeMillis, int rows, int columns) {
+        this.mateIn = mateIn;
+        this.maxMoves = maxMoves;
+        this.line = line;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /**
+     * Checks whether a forced mate was found.
+     *
+     * @return {@code true} if the side to move mates within the searched number of moves.
+     */
+    public boolean isMate() {
+        return mateIn > 0;
+    }
+
+    /**
+     * Returns the length of the shortest forced mate.
+     *
+     * @return the number of moves of the attacker, or 0 if there is no mate within {@link #getMaxMoves()}.
+     */
+    public int getMateIn() {
+        return mateIn;
+    }
+
+    /**
+     * Returns the number of moves that was searched. When there is no mate, the result proves
+     * that no mate exists within that many moves.
+     *
+     * @return the maximum number of moves.
+     */
+    public int getMaxMoves() {
+        return maxMoves;
+    }
+
+    /**
+     * Returns the solution line: the moves of the attacker alternating with the longest
+     * defence, ending with the mating move.
+     *
+     * @return a copy of the encoded moves, empty if there is no mate.
+     */
+    public int[] getLine() {
+        return line.clone();
+    }
+
+    /**
+     * Returns the number of positions visited.
+     *
+     * @return the node count.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the duration of the search.
+     *
+     * @return the time in milliseconds.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Returns the solution line in coordinate notation.
+     *
+     * @return the moves separated by spaces.
+     */
+    public String lineString() {
+        StringBuilder sb = new StringBuilder();
+        for (int move : line) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(ChessMove.toString(move, rows, columns));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        String text = isMate() ? "mate in " + mateIn + ": " + lineString() : "no mate in " + maxMoves;
+        return text + " (nodes " + nodes + ", time " + timeMillis + " ms)";
+    }
+}
@@ -0,0 +1,326 @@
+package com.mateusdalcantara.chess.mate;
+
+import com.mateusdalcantara.chess.ChessException;
+import com.mateusdalcantara.chess.ChessMatch;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proves the shortest forced mate of a position, or proves that there is none within a
+ * number of moves.
+ * <p>
+ * Unlike {@link com.mateusdalcantara.chess.search.Search}, the solver does not evaluate
+ * positions: it is a depth-first AND/OR search. A position where the attacker is to move is
+ * won within {@code n} moves if one of its moves leads to a position that is lost for the
+ * defender, and a position where the defender is to move is lost if it is checkmate, or if
+ * every reply leads to a position won by the attacker within {@code n - 1} moves. Every move is
+ * tried, so a negative answer is a proof.
+ * </p>
+ * <p>
+ * The root position is searched with increasing {@code n}, so the first mate found is the
+ * shortest. At each {@code n} the root moves are shared between worker threads, each with its
+ * own copy of the position and its own hash table of proven results, kept from one {@code n} to
+ * the next. A table entry records either "mate within {@code n}" or "no mate within {@code n}"
+ * for a position with the attacker to move, which also answers every larger or smaller
+ * {@code n} respectively. On the attacker's last move only checks are considered.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     MateResult result = new MateSolver(4, 16).solve(chessMatch, 3);
+ *     System.out.println(result);   // mate in 2: a1a7 h8g8 a7a8 (nodes 1234, time 5 ms)
+ * </pre>
+ *
+ * @see MateResult
+ */
+public class MateSolver {
+
+    /** The longest mate that can be searched, in moves. */
+    public static final int MAX_MOVES = 32;
+
+    /** The number of bytes of one hash slot: the key and the value. */
+    private static final int SLOT_SIZE = 12;
+
+    private final int threads;
+    private final int hashMegabytes;
+
+    /**
+     * Constructs a solver.
+     *
+     * @param threads       the number of worker threads.
+     * @param hashMegabytes the size of the hash table of each worker.
+     */
+    public MateSolver(int threads, int hashMegabytes) {
+        if (threads < 1 || hashMegabytes < 1) {
+            throw new IllegalArgumentException("The number of threads and the hash size must be positive");
+        }
+        this.threads = threads;
+        this.hashMegabytes = hashMegabytes;
+    }
+
+    /**
+     * Searches the shortest forced mate of the side to move.
+     *
+     * @param chessMatch the match holding the position; it is not changed.
+     * @param maxMoves   the longest mate searched, in moves of the side to move.
+     * @return the shortest mate and its line, or the proof that there is no mate within {@code maxMoves}.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the workers.
+     */
+    public MateResult solve(ChessMatch chessMatch, int maxMoves) throws InterruptedException {
+        if (maxMoves < 1 || maxMoves > MAX_MOVES) {
+            throw new ChessException("The number of moves must be from 1 to " + MAX_MOVES + ".");
+        }
+        long start = System.nanoTime();
+        String fen = chessMatch.toFen();
+        Prover main = new Prover(chessMatch, fen, maxMoves, hashMegabytes);
+        int[] rootMoves = main.legalMoves();
+        Prover[] provers = new Prover[Math.min(threads, rootMoves.length)];
+        for (int t = 0; t < provers.length; t++) {
+            provers[t] = t == 0 ? main : new Prover(chessMatch, fen, maxMoves, hashMegabytes);
+        }
+
+        int mateIn = 0;
+        int best = -1;
+        for (int n = 1; n <= maxMoves && best < 0; n++) {
+            best = searchRootMoves(provers, rootMoves, n);
+            mateIn = n;
+        }
+        int[] line = best < 0 ? new int[0] : main.line(rootMoves[best], mateIn);
+        long nodes = 0;
+        for (Prover prover : provers) {
+            nodes += prover.nodes;
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new MateResult(best < 0 ? 0 : mateIn, maxMoves, line, nodes, elapsed,
+                chessMatch.getRows(), chessMatch.getColumns());
+    }
+
+    /**
+     * Checks every root move for a mate in exactly {@code n} moves, sharing the moves between
+     * the provers, each on its own thread.
+     * <p>
+     * Once a root move mates, the moves after it are skipped, but the moves before it are still
+     * searched, so that the result does not depend on the timing of the threads.
+     * </p>
+     *
+     * @return the index of the first root move that mates, or -1.
+     */
+    private static int searchRootMoves(Prover[] provers, int[] rootMoves, int n) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger first = new AtomicInteger(rootMoves.length);
+        Thread[] workers = new Thread[provers.length];
+        for (int t = 0; t < workers.length; t++) {
+            Prover prover = provers[t];
+            workers[t] = new Thread(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < first.get()) {
+                    if (prover.mates(rootMoves[i], n)) {
+                        first.accumulateAndGet(i, Math::min);
+                    }
+                }
+            }, "mate-solver-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return first.get() < rootMoves.length ? first.get() : -1;
+    }
+
+    /**
+     * Runs on one thread: proves mates on its own copy of the position.
+     */
+    private static final class Prover {
+
+        private final ChessMatch chessMatch;
+
+        /** The move buffer of each ply. */
+        private final int[][] moves;
+
+        /** The hash table: the position keys and, for each, mate within n (n) or no mate within n (-n). */
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        private long nodes;
+
+        Prover(ChessMatch original, String fen, int maxMoves, int megabytes) {
+            chessMatch = new ChessMatch(original.getRows(), original.getColumns());
+            chessMatch.setPosition(fen);
+            moves = new int[2 * maxMoves + 1][chessMatch.getMoveBufferSize()];
+            int slots = Integer.highestOneBit((int) Math.min(1 << 30, (long) megabytes * 1024 * 1024 / SLOT_SIZE));
+            keys = new long[slots];
+            values = new int[slots];
+            mask = slots - 1;
+        }
+
+        /**
+         * Returns the legal moves of the root position.
+         */
+        int[] legalMoves() {
+            int count = chessMatch.generateMoves(moves[0]);
+            int legal = 0;
+            int[] result = new int[count];
+            for (int i = 0; i < count; i++) {
+                if (chessMatch.makeMove(moves[0][i])) {
+                    chessMatch.unmakeMove();
+                    result[legal++] = moves[0][i];
+                }
+            }
+            return Arrays.copyOf(result, legal);
+        }
+
+        /**
+         * Checks whether a root move mates within {@code n} moves.
+         */
+        boolean mates(int move, int n) {
+            chessMatch.makeMove(move);
+            boolean mates = defenderLoses(n, 1);
+            chessMatch.unmakeMove();
+            return mates;
+        }
+
+        /**
+         * Builds the solution line of a mate: the attacker plays the moves that keep the mate
+         * shortest and the defender the replies that delay it most.
+         */
+        int[] line(int move, int mateIn) {
+            int[] line = new int[2 * mateIn - 1];
+            int ply = 0;
+            chessMatch.makeMove(move);
+            line[ply++] = move;
+            for (int n = mateIn; n > 1; ) {
+                int count = chessMatch.generateMoves(moves[ply]);
+                int reply = 0;
+                int longest = 0;
+                for (int i = 0; i < count; i++) {
+                    if (!chessMatch.makeMove(moves[ply][i])) {
+                        continue;
+                    }
+                    int k = 1;
+                    while (!attackerMates(k, ply + 1)) {
+                        k++;
+                    }
+                    chessMatch.unmakeMove();
+                    if (k > longest) {
+                        longest = k;
+                        reply = moves[ply][i];
+                    }
+                }
+                chessMatch.makeMove(reply);
+                line[ply++] = reply;
+                n = longest;
+                count = chessMatch.generateMoves(moves[ply]);
+                for (int i = 0; i < count; i++) {
+                    if (!chessMatch.makeMove(moves[ply][i])) {
+                        continue;
+                    }
+                    if (defenderLoses(n, ply + 1)) {
+                        line[ply] = moves[ply][i];
+                        ply++;
+                        break;
+                    }
+                    chessMatch.unmakeMove();
+                }
+            }
+            for (int i = 0; i < ply; i++) {
+                chessMatch.unmakeMove();
+            }
+            return Arrays.copyOf(line, ply);
+        }
+
+        /**
+         * Checks whether the attacker, to move, mates within {@code n} moves.
+         */
+        private boolean attackerMates(int n, int ply) {
+            nodes++;
+            long key = chessMatch.getPositionKey();
+            int slot = (int) key & mask;
+            if (keys[slot] == key) {
+                int value = values[slot];
+                if (value > 0 && value <= n) {
+                    return true;
+                }
+                if (value < 0 && n <= -value) {
+                    return false;
+                }
+            }
+            int[] buffer = moves[ply];
+            int count = chessMatch.generateMoves(buffer);
+            boolean mates = false;
+            for (int i = 0; i < count && !mates; i++) {
+                if (chessMatch.makeMove(buffer[i])) {
+                    mates = defenderLoses(n, ply + 1);
+                    chessMatch.unmakeMove();
+                }
+            }
+            keys[slot] = key;
+            values[slot] = mates ? n : -n;
+            return mates;
+        }
+
+        /**
+         * Checks whether the defender, to move after the attacker played the first of its
+         * {@code n} moves, is checkmated now or after each of its replies within the other {@code n - 1}.
+         */
+        private boolean defenderLoses(int n, int ply) {
+            nodes++;
+            if (n == 1 && !chessMatch.getCheck()) {
+                return false; // the last move of the attacker must give check
+            }
+            int[] buffer = moves[ply];
+            int count = chessMatch.generateMoves(buffer);
+            boolean legal = false;
+            for (int i = 0; i < count; i++) {
+                if (!chessMatch.makeMove(buffer[i])) {
+                    continue;
+                }
+                legal = true;
+                boolean mated = n > 1 && attackerMates(n - 1, ply + 1);
+                chessMatch.unmakeMove();
+                if (!mated) {
+                    return false;
+                }
+            }
+            return legal || chessMatch.getCheck(); // no legal reply: checkmate, or stalemate
+        }
+    }
+
+    /**
+     * Solves the puzzles of a file from the command line and prints one result per line.
+     * <p>
+     * Usage: {@code MateSolver <max moves> <FEN file> [threads]}; the file has one FEN per line.
+     * </p>
+     *
+     * @param args the command line arguments.
+     * @throws IOException          if the file cannot be read.
+     * @throws InterruptedException if interrupted while waiting for the workers.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: MateSolver <max moves> <FEN file> [threads]");
+            return;
+        }
+        int maxMoves = Integer.parseInt(args[0]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        MateSolver solver = new MateSolver(threads, 16);
+        ChessMatch chessMatch = new ChessMatch();
+        for (String line : Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            String fen = line.trim();
+            if (fen.isEmpty() || fen.startsWith("#")) {
+                continue;
+            }
+            try {
+                chessMatch.setPosition(fen);
+                System.out.println(fen + "\t" + solver.solve(chessMatch, maxMoves));
+            } catch (ChessException e) {
+                System.out.println(fen + "\terror " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.mateusdalcantara.chess.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Collects low-overhead runtime metrics of the move pipeline.
+ * <p>
+ * The recording methods are static so they can be called from any part of the game without
+ * passing an object around. Counters are {@link LongAdder}s, which do not contend when many
+ * threads record at the same time, so recording costs a few nanoseconds.
+ * </p>
+ * <p>
+ * The counters can be read in process with the getters of {@link #get()}, or from outside
+ * through JMX once {@link #register()} has been called. Detailed timings of single operations
+ * are recorded as JFR events (see {@link SampledEvent}); this class also decides which of them
+ * are sampled.
+ * </p>
+ * <p>
+ * The sampling rate is read from the {@code chess.metrics.sampling} system property: one event
+ * out of that many is committed (8 by default, rounded up to a power of two). Events slower
+ * than {@code chess.metrics.outlierMicros} (1000 by default) are always committed, so latency
+ * outliers are never lost to sampling.
+ * </p>
+ *
+ * @see MetricsMXBean
+ * @see SampledEvent
+ */
+public final class Metrics implements MetricsMXBean {
+
+    /** The JMX object name of the metrics. */
+    public static final String OBJECT_NAME = "com.mateusdalcantara.chess:type=Metrics";
+
+    /** The duration from which an event is committed even if it was not sampled. */
+    static final long OUTLIER_NANOS = Long.getLong("chess.metrics.outlierMicros", 1000L) * 1000L;
+
+    /** The mask applied to the sample counter; one event out of {@code SAMPLE_MASK + 1} is sampled. */
+    private static final int SAMPLE_MASK = Integer.highestOneBit(Math.max(1, Integer.getInteger("chess.metrics.sampling", 8)) * 2 - 1) - 1;
+
+    /** The single instance. */
+    private static final Metrics INSTANCE = new Metrics();
+
+    /**
+     * The sample counter. It is updated without synchronization: a lost update only shifts
+     * which event is sampled, which is acceptable for sampling.
+     */
+    private static int sampleCounter;
+
+    private final LongAdder movesValidated = new LongAdder();
+    private final Map<RejectReason, LongAdder> movesRejected = new EnumMap<>(RejectReason.class);
+    private final LongAdder movesGenerated = new LongAdder();
+    private final LongAdder nodesSearched = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LongAdder framesRendered = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+    private final LongAccumulator maxRenderNanos = new LongAccumulator(new Max(), 0L);
+
+    private Metrics() {
+        for (RejectReason reason : RejectReason.values()) {
+            movesRejected.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * Returns the metrics of the process.
+     *
+     * @return the single instance.
+     */
+    public static Metrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server, so they can be read over JMX.
+     * Calling this method more than once has no effect.
+     */
+    public static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // already registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics MBean", e);
+        }
+    }
+
+    /**
+     * Records a move that passed validation.
+     */
+    public static void moveValidated() {
+        INSTANCE.movesValidated.increment();
+    }
+
+    /**
+     * Records a rejected move.
+     *
+     * @param reason the reason of the rejection.
+     */
+    public static void moveRejected(RejectReason reason) {
+        INSTANCE.movesRejected.get(reason).increment();
+    }
+
+    /**
+     * Records moves produced by move generation.
+     *
+     * @param count the number of moves produced.
+     */
+    public static void movesGenerated(int count) {
+        INSTANCE.movesGenerated.add(count);
+    }
+
+    /**
+     * Records a finished search.
+     *
+     * @param nodes the number of nodes visited.
+     * @param nanos the duration of the search, in nanoseconds.
+     */
+    public static void searchCompleted(long nodes, long nanos) {
+        INSTANCE.nodesSearched.add(nodes);
+        INSTANCE.searchNanos.add(nanos);
+    }
+
+    /**
+     * Records a rendered frame.
+     *
+     * @param nanos the time taken to render the frame, in nanoseconds.
+     */
+    public static void frameRendered(long nanos) {
+        INSTANCE.framesRendered.increment();
+        INSTANCE.renderNanos.add(nanos);
+        INSTANCE.maxRenderNanos.accumulate(nanos);
+    }
+
+    /**
+     * Decides whether the current event is sampled.
+     *
+     * @return {@code true} for one call out of the sampling rate.
+     */
+    static boolean sampled() {
+        return (++sampleCounter & SAMPLE_MASK) == 0;
+    }
+
+    @Override
+    public long getMovesValidated() {
+        return movesValidated.sum();
+    }
+
+    @Override
+    public Map<String, Long> getMovesRejected() {
+        Map<String, Long> rejected = new LinkedHashMap<>();
+        for (Map.Entry<RejectReason, LongAdder> entry : movesRejected.entrySet()) {
+            rejected.put(entry.getKey().name(), entry.getValue().sum());
+        }
+        return rejected;
+    }
+
+    @Override
+    public long getMovesGenerated() {
+        return movesGenerated.sum();
+    }
+
+    @Override
+    public long getNodesSearched() {
+        return nodesSearched.sum();
+    }
+
+    @Override
+    public long getNodesPerSecond() {
+        long nanos = searchNanos.sum();
+        return nanos == 0 ? 0 : nodesSearched.sum() * 1_000_000_000L / nanos;
+    }
+
+    @Override
+    public long getFramesRendered() {
+        return framesRendered.sum();
+    }
+
+    @Override
+    public long getAverageRenderMicros() {
+        long frames = framesRendered.sum();
+        return frames == 0 ? 0 : renderNanos.sum() / frames / 1000;
+    }
+
+    @Override
+    public long getMaxRenderMicros() {
+        return maxRenderNanos.get() / 1000;
+    }
+
+    @Override
+    public void reset() {
+        movesValidated.reset();
+        for (LongAdder rejected : movesRejected.values()) {
+            rejected.reset();
+        }
+        movesGenerated.reset();
+        nodesSearched.reset();
+        searchNanos.reset();
+        framesRendered.reset();
+        renderNanos.reset();
+        maxRenderNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "validated=" + getMovesValidated()
+                + ", rejected=" + getMovesRejected()
+                + ", generated=" + getMovesGenerated()
+                + ", nodes=" + getNodesSearched()
+                + ", nps=" + getNodesPerSecond()
+                + ", frames=" + getFramesRendered()
+                + ", avgRenderUs=" + getAverageRenderMicros()
+                + ", maxRenderUs=" + getMaxRenderMicros();
+    }
+
+    /**
+     * The maximum of two values.
+     */
+    private static final class Max implements LongBinaryOperator {
+        @Override
+        public long applyAsLong(long left, long right) {
+            return Math.max(left, right);
+        }
+    }
+}
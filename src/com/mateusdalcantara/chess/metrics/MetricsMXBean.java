@@ -0,0 +1,44 @@
+package com.mateusdalcantara.chess.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing the runtime metrics through JMX.
+ * <p>
+ * The metrics can be read from a live process with any JMX client (for example JConsole or
+ * JDK Mission Control) under the object name {@value Metrics#OBJECT_NAME}.
+ * </p>
+ *
+ * @see Metrics
+ */
+public interface MetricsMXBean {
+
+    /** @return the number of moves that passed validation. */
+    long getMovesValidated();
+
+    /** @return the number of rejected moves, by {@link RejectReason}. */
+    Map<String, Long> getMovesRejected();
+
+    /** @return the number of moves produced by move generation. */
+    long getMovesGenerated();
+
+    /** @return the number of nodes visited by searches. */
+    long getNodesSearched();
+
+    /** @return the average search speed, in nodes per second. */
+    long getNodesPerSecond();
+
+    /** @return the number of board frames rendered. */
+    long getFramesRendered();
+
+    /** @return the average time to render a frame, in microseconds. */
+    long getAverageRenderMicros();
+
+    /** @return the longest time taken to render a frame, in microseconds. */
+    long getMaxRenderMicros();
+
+    /**
+     * Resets every counter to zero.
+     */
+    void reset();
+}
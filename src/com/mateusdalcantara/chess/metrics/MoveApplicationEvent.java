@@ -0,0 +1,24 @@
+package com.mateusdalcantara.chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event recorded when a validated move is applied to the board.
+ *
+ * @see SampledEvent
+ */
+@Name("com.mateusdalcantara.chess.MoveApplication")
+@Label("Move Application")
+@Category({"Chess", "Move Pipeline"})
+@Description("Application of a validated move to the board")
+public class MoveApplicationEvent extends SampledEvent {
+
+    @Label("Move")
+    public String move;
+
+    @Label("Capture")
+    public boolean capture;
+}
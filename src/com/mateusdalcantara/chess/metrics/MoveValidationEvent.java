@@ -0,0 +1,28 @@
+package com.mateusdalcantara.chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event recorded when a move is validated by {@code ChessMatch.performChessMove}.
+ *
+ * @see SampledEvent
+ */
+@Name("com.mateusdalcantara.chess.MoveValidation")
+@Label("Move Validation")
+@Category({"Chess", "Move Pipeline"})
+@Description("Validation of a move before it is applied")
+public class MoveValidationEvent extends SampledEvent {
+
+    @Label("Source")
+    public String source;
+
+    @Label("Target")
+    public String target;
+
+    @Label("Rejection")
+    @Description("Rejection message, empty when the move was accepted")
+    public String rejection;
+}
@@ -0,0 +1,21 @@
+package com.mateusdalcantara.chess.metrics;
+
+/**
+ * Enum representing the reasons why a move can be rejected.
+ *
+ * @see Metrics#moveRejected(RejectReason)
+ */
+public enum RejectReason {
+    /** The input could not be read as a position. */
+    INVALID_INPUT,
+    /** There is no piece on the source position. */
+    NO_PIECE,
+    /** The piece on the source position belongs to the opponent. */
+    NOT_YOUR_PIECE,
+    /** The piece on the source position cannot move at all. */
+    NO_POSSIBLE_MOVES,
+    /** The piece cannot move to the target position. */
+    ILLEGAL_TARGET,
+    /** The move would leave the king of the player in check. */
+    SELF_CHECK;
+}
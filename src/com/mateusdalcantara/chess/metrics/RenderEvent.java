@@ -0,0 +1,22 @@
+package com.mateusdalcantara.chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event recorded when a board frame is rendered to the console.
+ *
+ * @see SampledEvent
+ */
+@Name("com.mateusdalcantara.chess.Render")
+@Label("Board Render")
+@Category({"Chess", "User Interface"})
+@Description("Rendering of one board frame to the console")
+public class RenderEvent extends SampledEvent {
+
+    @Label("Highlighted")
+    @Description("Whether the possible moves of a piece were highlighted")
+    public boolean highlighted;
+}
@@ -0,0 +1,53 @@
+package com.mateusdalcantara.chess.metrics;
+
+import jdk.jfr.Event;
+
+/**
+ * Base class of the JFR events of the move pipeline.
+ * <p>
+ * Events follow the usual JFR pattern: when recording is disabled, {@link #start()} and
+ * {@link #finish()} return immediately and the JIT removes the allocation of the event, so an
+ * instrumented method costs nothing more. When recording is enabled, only the events chosen by
+ * {@link Metrics} sampling, plus every event slower than the outlier threshold, are committed.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     RenderEvent event = new RenderEvent();
+ *     event.start();
+ *     ...
+ *     if (event.finish()) {
+ *         event.commit();
+ *     }
+ * </pre>
+ *
+ * @see Metrics
+ */
+public abstract class SampledEvent extends Event {
+
+    /** The start time used to detect outliers (transient fields are not recorded by JFR). */
+    private transient long startNanos;
+
+    /**
+     * Starts timing the event.
+     */
+    public void start() {
+        if (isEnabled()) {
+            startNanos = System.nanoTime();
+            begin();
+        }
+    }
+
+    /**
+     * Stops timing the event and decides whether it must be committed.
+     *
+     * @return {@code true} if the caller should fill in the fields and call {@link #commit()}.
+     */
+    public boolean finish() {
+        if (!isEnabled()) {
+            return false;
+        }
+        end();
+        return shouldCommit() && (Metrics.sampled() || System.nanoTime() - startNanos >= Metrics.OUTLIER_NANOS);
+    }
+}
@@ -0,0 +1,102 @@
+package com.mateusdalcantara.chess.perf;
+
+import com.mateusdalcantara.chess.ChessMatch;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that the hot paths of the engine allocate nothing.
+ * <p>
+ * Move generation, make/unmake, repetition and check detection and the evaluation run at every
+ * node of a search, so an allocation there multiplies into gigabytes of garbage and GC pauses.
+ * This program warms those paths up, then measures the bytes allocated by the current thread
+ * over many iterations with {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}.
+ * </p>
+ * <p>
+ * It exits with status 1 if anything was allocated, so it can run as a step of the build or of
+ * continuous integration: {@code java com.mateusdalcantara.chess.perf.AllocationGuard [iterations]}.
+ * </p>
+ */
+public final class AllocationGuard {
+
+    /** The positions exercised: the initial setup, a middle game and rook endgames. */
+    private static final String[] POSITIONS = {
+            ChessMatch.INITIAL_FEN,
+            "3k4/2r1r3/8/3R4/8/8/2R5/3K4 w - - 0 12",
+            "k7/8/2K5/8/8/8/8/1R6 w - - 0 1",
+            "7k/8/8/8/8/8/R7/K6r b - - 0 1",
+    };
+
+    /** The number of iterations run before measuring, so that every path is compiled. */
+    private static final int WARM_UP_ITERATIONS = 20_000;
+
+    private static final int DEFAULT_ITERATIONS = 100_000;
+
+    private AllocationGuard() {
+    }
+
+    /**
+     * Runs the check.
+     *
+     * @param args the number of measured iterations, optional.
+     */
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        ChessMatch[] matches = new ChessMatch[POSITIONS.length];
+        for (int i = 0; i < POSITIONS.length; i++) {
+            matches[i] = new ChessMatch();
+            matches[i].setPosition(POSITIONS[i]);
+        }
+        int[] moves = new int[256];
+
+        long checksum = run(matches, moves, WARM_UP_ITERATIONS);
+
+        long overhead = measureOverhead(threads, thread);
+        long before = threads.getThreadAllocatedBytes(thread);
+        checksum += run(matches, moves, iterations);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+
+        System.out.printf("%d iterations, %d bytes allocated (checksum %d)%n", iterations, Math.max(0, allocated), checksum);
+        if (allocated > 0) {
+            System.out.printf("FAILED: %.2f bytes per iteration in the move generation and make/unmake paths%n",
+                    (double) allocated / iterations);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the hot paths: for every position, generate the moves and make, inspect and unmake each of them.
+     *
+     * @return a value depending on every result, so that the work cannot be optimised away.
+     */
+    private static long run(ChessMatch[] matches, int[] moves, int iterations) {
+        long checksum = 0;
+        for (int n = 0; n < iterations; n++) {
+            ChessMatch chessMatch = matches[n % matches.length];
+            int count = chessMatch.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                if (!chessMatch.makeMove(moves[i])) {
+                    continue;
+                }
+                checksum += chessMatch.evaluate();
+                if (chessMatch.isRepetition() || chessMatch.getCheck()) {
+                    checksum++;
+                }
+                checksum ^= chessMatch.getPositionKey();
+                chessMatch.unmakeMove();
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * Measures the bytes reported for an empty interval, in case reading the counter allocates.
+     */
+    private static long measureOverhead(com.sun.management.ThreadMXBean threads, long thread) {
+        long before = threads.getThreadAllocatedBytes(thread);
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+}
@@ -0,0 +1,352 @@
+package com.mateusdalcantara.chess.perf;
+
+import com.mateusdalcantara.application.UI;
+import com.mateusdalcantara.chess.ChessException;
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
+import com.mateusdalcantara.chess.ChessPosition;
+import com.mateusdalcantara.chess.archive.ArchivedGame;
+import com.mateusdalcantara.chess.archive.GameArchive;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays recorded games through the same path as an interactive move, to measure the latency
+ * of real traffic instead of synthetic loops.
+ * <p>
+ * For every move of a game of a {@link GameArchive}, the replay does what {@code Program}
+ * does for a human move: it checks for mate and stalemate, renders the board, asks for the
+ * possible moves of the source square and renders them highlighted, then validates and plays
+ * the move with {@link ChessMatch#performChessMove(int)}. The boards are rendered by
+ * {@link UI} into a stream that discards its output. A move the match rejects ends the replay
+ * of its game and is counted.
+ * </p>
+ * <p>
+ * The replay is deterministic: each session plays the whole archive once per pass, session
+ * {@code s} starting at game {@code s}, and the checksum of the final positions only depends
+ * on the archive and the number of sessions and passes. Each final position is hashed with the
+ * index of its session and game, and the hashes are added, so that two sessions replaying the
+ * same games do not cancel out. In the concurrent mode, the sessions
+ * are shared out between the worker threads, and each worker advances its sessions by one move
+ * in turn, as a server multiplexing many games on few threads would. A first pass is played
+ * to warm up and is not measured.
+ * </p>
+ * <p>
+ * The result is printed as one JSON object per mode, so that runs of different versions can be
+ * compared by a script: the latency percentiles per move in nanoseconds ({@code p50_ns},
+ * {@code p99_ns}, {@code p999_ns}, {@code max_ns}), the bytes allocated per move by the worker
+ * threads, and the throughput.
+ * </p>
+ * <p>
+ * Usage: {@code ReplayBenchmark <archive> [sessions] [threads] [passes]}. The single-session
+ * mode is always run first; the concurrent mode follows when {@code sessions} is greater than 1
+ * (64 by default, on one thread per core).
+ * </p>
+ *
+ * @see GameArchive
+ */
+public final class ReplayBenchmark {
+
+    private static final int DEFAULT_SESSIONS = 64;
+    private static final int DEFAULT_PASSES = 3;
+
+    /**
+     * The latencies are counted in a log-linear histogram: exact below {@code 2 * SUB_BUCKETS}
+     * nanoseconds, then {@code SUB_BUCKETS} buckets per power of two, so that a percentile is
+     * accurate to within 1% whatever the number of moves, in constant memory.
+     */
+    private static final int SUB_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final ArchivedGame[] games;
+
+    private ReplayBenchmark(ArchivedGame[] games) {
+        this.games = games;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the archive, the number of sessions, threads and passes.
+     * @throws IOException          if the archive cannot be read.
+     * @throws InterruptedException if interrupted while waiting for the workers.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayBenchmark <archive> [sessions] [threads] [passes]");
+            return;
+        }
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SESSIONS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int passes = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_PASSES;
+        List<ArchivedGame> games = new ArrayList<>();
+        try (GameArchive archive = new GameArchive(Paths.get(args[0]))) {
+            ArchivedGame game;
+            while ((game = archive.next()) != null) {
+                games.add(game);
+            }
+        }
+        if (games.isEmpty()) {
+            System.out.println("The archive holds no game");
+            return;
+        }
+        ReplayBenchmark benchmark = new ReplayBenchmark(games.toArray(new ArchivedGame[0]));
+        System.out.println(benchmark.run(1, 1, passes));
+        if (sessions > 1) {
+            System.out.println(benchmark.run(sessions, Math.max(1, Math.min(threads, sessions)), passes));
+        }
+    }
+
+    /**
+     * Replays the archive in one mode.
+     *
+     * @return the result as a JSON object.
+     */
+    private String run(int sessions, int threads, int passes) throws InterruptedException {
+        Worker[] workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            int first = i * sessions / threads;
+            int last = (i + 1) * sessions / threads;
+            workers[i] = new Worker(first, last, passes);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+        for (Worker worker : workers) {
+            worker.join();
+        }
+
+        long[] histogram = new long[BUCKETS];
+        long moves = 0;
+        long total = 0;
+        long max = 0;
+        long allocated = 0;
+        long rejected = 0;
+        long checksum = 0;
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        for (Worker worker : workers) {
+            if (worker.failure != null) {
+                throw new IllegalStateException("Replay failed", worker.failure);
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] += worker.histogram[i];
+            }
+            moves += worker.measuredMoves;
+            total += worker.totalNanos;
+            max = Math.max(max, worker.maxNanos);
+            allocated += worker.allocated;
+            rejected += worker.rejected;
+            checksum += worker.checksum;
+            start = Math.min(start, worker.measureStart);
+            end = Math.max(end, worker.measureEnd);
+        }
+        long measured = Math.max(1, moves);
+        return "{\"benchmark\":\"replay\",\"sessions\":" + sessions + ",\"threads\":" + threads
+                + ",\"games\":" + games.length + ",\"passes\":" + passes + ",\"moves\":" + moves
+                + ",\"rejected\":" + rejected
+                + ",\"p50_ns\":" + percentile(histogram, moves, 0.5) + ",\"p99_ns\":" + percentile(histogram, moves, 0.99)
+                + ",\"p999_ns\":" + percentile(histogram, moves, 0.999) + ",\"max_ns\":" + max
+                + ",\"mean_ns\":" + total / measured + ",\"allocated_bytes_per_move\":" + allocated / measured
+                + ",\"moves_per_second\":" + (long) (moves * 1e9 / Math.max(1, end - start))
+                + ",\"checksum\":\"" + Long.toHexString(checksum) + "\"}";
+    }
+
+    /**
+     * Returns the lower bound of the histogram bucket holding a percentile, or 0 without values.
+     */
+    private static long percentile(long[] histogram, long count, double fraction) {
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return lowerBound(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the histogram bucket of a latency.
+     */
+    private static int bucket(long nanos) {
+        if (nanos < 2 * SUB_BUCKETS) {
+            return (int) Math.max(0, nanos);
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(nanos) - SUB_BITS - 1;
+        return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Returns the smallest latency of a histogram bucket.
+     */
+    private static long lowerBound(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    /** The SplitMix64 finalizer, a fast bijective mixing function. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * One game being replayed: the match and the position in the archive.
+     */
+    private static final class Session {
+
+        final ChessMatch chessMatch = new ChessMatch();
+        final PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+
+        /** The number of games this session has started, including the warm-up pass. */
+        int played;
+
+        /** The next move of the current game. */
+        int ply;
+    }
+
+    /**
+     * A worker thread replaying a range of sessions.
+     */
+    private final class Worker extends Thread {
+
+        private final Session[] sessions;
+        private final int passes;
+        private final int firstSession;
+
+        /** The histogram of the measured latencies; see {@link #bucket(long)}. */
+        final long[] histogram = new long[BUCKETS];
+        long measuredMoves;
+        long totalNanos;
+        long maxNanos;
+        long allocated;
+        long measureStart;
+        long measureEnd;
+        long rejected;
+        long checksum;
+        Throwable failure;
+
+        Worker(int first, int last, int passes) {
+            super("replay-" + first);
+            this.firstSession = first;
+            this.passes = passes;
+            this.sessions = new Session[last - first];
+            for (int i = 0; i < sessions.length; i++) {
+                sessions[i] = new Session();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                replay(1, false);
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                long before = threads.getThreadAllocatedBytes(getId());
+                measureStart = System.nanoTime();
+                replay(1 + passes, true);
+                measureEnd = System.nanoTime();
+                allocated = threads.getThreadAllocatedBytes(getId()) - before;
+            } catch (Throwable e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Advances every session by one move in turn, until each has played the archive
+         * {@code totalPasses} times since the start.
+         */
+        private void replay(int totalPasses, boolean measure) {
+            int target = totalPasses * games.length;
+            boolean active = true;
+            while (active) {
+                active = false;
+                for (int i = 0; i < sessions.length; i++) {
+                    Session session = sessions[i];
+                    if (session.played == target && session.ply == 0) {
+                        continue;
+                    }
+                    active = true;
+                    step(session, firstSession + i, measure);
+                }
+            }
+        }
+
+        /**
+         * Plays the next move of a session, starting its next game if needed.
+         */
+        private void step(Session session, int sessionIndex, boolean measure) {
+            ChessMatch chessMatch = session.chessMatch;
+            if (session.ply == 0) {
+                chessMatch.setPosition(ChessMatch.INITIAL_FEN);
+                session.played++;
+            }
+            ArchivedGame game = games[(sessionIndex + session.played - 1) % games.length];
+            int[] moves = game.getMoves();
+            if (moves.length == 0) {
+                endGame(session, sessionIndex);
+                return;
+            }
+            int move = moves[session.ply];
+            long start = System.nanoTime();
+            boolean accepted = playMove(session, move);
+            long latency = System.nanoTime() - start;
+            if (measure) {
+                histogram[bucket(latency)]++;
+                measuredMoves++;
+                totalNanos += latency;
+                maxNanos = Math.max(maxNanos, latency);
+                if (!accepted) {
+                    rejected++;
+                }
+            }
+            if (!accepted || ++session.ply == moves.length) {
+                endGame(session, sessionIndex);
+            }
+        }
+
+        /**
+         * Adds the final position of a game to the checksum, hashed with the session index and
+         * the game number, and rewinds the session.
+         */
+        private void endGame(Session session, int sessionIndex) {
+            long game = (long) sessionIndex << 32 | session.played;
+            checksum += mix(session.chessMatch.getPositionKey() ^ mix(game + 1));
+            session.ply = 0;
+        }
+
+        /**
+         * Plays a move the way the interactive program does.
+         *
+         * @return {@code false} if the match rejected the move.
+         */
+        private boolean playMove(Session session, int move) {
+            ChessMatch chessMatch = session.chessMatch;
+            try {
+                if (chessMatch.getCheckMate() || chessMatch.getStalemate()) {
+                    return false;
+                }
+                UI.printBoard(chessMatch.getPieces(), session.out);
+                ChessPosition source = ChessMove.toChessPosition(ChessMove.source(move));
+                boolean[][] possibleMoves = chessMatch.possibleMoves(source);
+                UI.printBoard(chessMatch.getPieces(), possibleMoves, session.out);
+                chessMatch.performChessMove(move);
+                return true;
+            } catch (ChessException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.mateusdalcantara.chess.perf;
+
+import com.mateusdalcantara.application.HeadlessEngine;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the time to the first legal move of a new engine process.
+ * <p>
+ * Analysis processes are launched by the thousand and live for one search, so their startup
+ * cost is paid again and again. This program launches {@link HeadlessEngine} repeatedly, with
+ * the class path of the current process, and measures the wall-clock time from the launch to
+ * its {@code bestmove} line, which includes starting the JVM, loading the classes and a
+ * depth 1 search. It reports the fastest, median and slowest launch.
+ * </p>
+ * <p>
+ * Usage: {@code StartupBenchmark [runs] [JVM option...]}. The options are passed to every
+ * launch, for example {@code -XX:SharedArchiveFile=engine.jsa} to measure a class-data sharing
+ * archive. The first launch is not counted, so that the files it reads are in the page cache.
+ * It exits with status 1 if a launch fails.
+ * </p>
+ *
+ * @see HeadlessEngine
+ */
+public final class StartupBenchmark {
+
+    private static final int DEFAULT_RUNS = 20;
+
+    private StartupBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the number of measured launches and the JVM options, both optional.
+     * @throws IOException          if a process cannot be launched.
+     * @throws InterruptedException if interrupted while waiting for a process.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RUNS;
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(Arrays.asList(args).subList(Math.min(1, args.length), args.length));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(HeadlessEngine.class.getName());
+
+        launch(command);
+        long[] micros = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            micros[i] = launch(command);
+            if (micros[i] < 0) {
+                System.out.println("Launch failed: " + String.join(" ", command));
+                System.exit(1);
+            }
+        }
+        Arrays.sort(micros);
+        System.out.println(runs + " launches of " + String.join(" ", command));
+        System.out.println("time to first legal move: min " + micros[0] / 1000.0 + " ms, median "
+                + micros[runs / 2] / 1000.0 + " ms, max " + micros[runs - 1] / 1000.0 + " ms");
+    }
+
+    /**
+     * Launches the engine once and waits for it to exit.
+     *
+     * @return the time to its {@code bestmove} line in microseconds, or -1 if it printed none or failed.
+     */
+    private static long launch(List<String> command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long elapsed = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (elapsed < 0 && line.startsWith("bestmove ")) {
+                    elapsed = (System.nanoTime() - start) / 1000;
+                }
+            }
+        }
+        return process.waitFor() == 0 ? elapsed : -1;
+    }
+}
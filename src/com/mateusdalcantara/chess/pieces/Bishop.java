@@ -0,0 +1,85 @@
+package com.mateusdalcantara.chess.pieces;
+
+import com.mateusdalcantara.boardgame.Board;
+import com.mateusdalcantara.chess.ChessPiece;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.PieceType;
+
+/**
+ * Represents a Bishop chess piece.
+ * <p>
+ * The {@code Bishop} class defines the behavior and properties of the Bishop piece
+ * in a chess game. The Bishop can move diagonally any number of squares, and always stays on squares
+ * of the same color.
+ * </p>
+ *
+ * @see ChessPiece
+ * @see Board
+ * @see Color
+ */
+public class Bishop extends ChessPiece {
+
+    /** The move generator of the board of the Bishop. */
+    private final MoveGenerator generator;
+
+    /**
+     * Constructs a Bishop piece with the specified color on the given board.
+     *
+     * @param board the {@code Board} on which the Bishop piece is placed.
+     * @param color the {@code Color} of the Bishop piece (either white or black).
+     */
+    public Bishop(Board board, Color color) {
+        super(board, color);
+        generator = MoveGenerator.of(board);
+    }
+
+    /**
+     * Returns the type of the Bishop piece.
+     *
+     * @return {@code PieceType.BISHOP}.
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.BISHOP;
+    }
+
+    /**
+     * Returns a string representation of the Bishop piece.
+     *
+     * @return the string "B" representing the Bishop.
+     */
+    @Override
+    public String toString() {
+        return "B";
+    }
+
+    /**
+     * Writes the moves of the Bishop into a buffer.
+     * <p>
+     * The Bishop moves any number of squares along its diagonals, as long as the path is not
+     * blocked. It stops on the first piece of its path, which it can capture if it belongs to
+     * the opponent.
+     * </p>
+     *
+     * @param moves the buffer receiving the moves.
+     * @param count the number of moves already in the buffer.
+     * @return the number of moves in the buffer.
+     */
+    @Override
+    public int generateMoves(int[] moves, int count) {
+        return generator.slide(this, getBoard(), square(), MoveGenerator.NORTH_WEST, MoveGenerator.SOUTH_EAST, moves, count);
+    }
+
+    /**
+     * Checks whether the Bishop attacks a square: the square is on the same diagonal and every square
+     * between them is empty.
+     *
+     * @param row    the row of the square.
+     * @param column the column of the square.
+     * @return {@code true} if the Bishop could capture a piece on the square.
+     */
+    @Override
+    public boolean attacks(int row, int column) {
+        return generator.slideAttacks(getBoard(), square(), square(row, column), MoveGenerator.NORTH_WEST, MoveGenerator.SOUTH_EAST);
+    }
+}
@@ -1,9 +1,9 @@
 package com.mateusdalcantara.chess.pieces;
 
 import com.mateusdalcantara.boardgame.Board;
-import com.mateusdalcantara.boardgame.Position;
 import com.mateusdalcantara.chess.ChessPiece;
 import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.PieceType;
 
 
 /**
@@ -20,6 +20,9 @@ import com.mateusdalcantara.chess.Color;
  */
 public class King extends ChessPiece {
 
+    /** The move generator of the board of the King. */
+    private final MoveGenerator generator;
+
     /**
      * Constructs a King piece with the specified color on the given board.
      * <p>
@@ -32,6 +35,17 @@ public class King extends ChessPiece {
      */
     public King(Board board, Color color) {
         super(board, color);
+        generator = MoveGenerator.of(board);
+    }
+
+    /**
+     * Returns the type of the King piece.
+     *
+     * @return {@code PieceType.KING}.
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.KING;
     }
 
     /**
@@ -48,84 +62,30 @@ public class King extends ChessPiece {
     }
 
     /**
-     * Checks if the chess piece can move to the specified position on the board, considering movement limitations.
+     * Writes the moves of the King into a buffer.
      * <p>
-     * This method displays the possible move locations in blue color on the terminal.
+     * The King moves one square in any direction (above, below, left, right and the four
+     * diagonals), to an empty square or to a square holding an opponent piece.
      * </p>
      *
-     * @see Color
-     * @see Board
-     * @see ChessPiece
-     * @see Position
-     * @return the location that piece hable to move.
-     * */
-    private boolean canMove(Position position){
-        ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p == null || p.getColor() != getColor();
+     * @param moves the buffer receiving the moves.
+     * @param count the number of moves already in the buffer.
+     * @return the number of moves in the buffer.
+     */
+    @Override
+    public int generateMoves(int[] moves, int count) {
+        return generator.kingMoves(this, getBoard(), square(), moves, count);
     }
 
     /**
+     * Checks whether the King attacks a square, that is, whether the square is next to it.
      *
-     * Calculates the possible moves for the King piece.
-     * <p>
-     * This method returns a 2D array of boolean values, where each cell represents
-     * a square on the board.
-     * The value {@code true} indicates that the square is a valid move for the King,
-     * while {@code false} indicates an invalid move.
-     * <p>
-     * The King can move horizontally and vertically any number of squares, as long as
-     * the path is not blocked by other pieces.
-     * </p>
-     *
-     * @return a 2D array representing the possible moves for the King piece.
+     * @param row    the row of the square.
+     * @param column the column of the square.
+     * @return {@code true} if the square is one of the eight squares around the King.
      */
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-        Position p = new Position(0, 0);
-        //above
-        p.setValues(position.getRow()- 1, position.getColumn());
-        if (getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //below
-        p.setValues(position.getRow()+ 1, position.getColumn());
-        if (getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //left
-        p.setValues(position.getRow(), position.getColumn()- 1);
-        if (getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //right
-        p.setValues(position.getRow(), position.getColumn()+ 1);
-        if (getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //nw
-        p.setValues(position.getRow() - 1, position.getColumn()- 1);
-        if (getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //ne
-        p.setValues(position.getRow()-1, position.getColumn()+ 1);
-        if (getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //sw
-        p.setValues(position.getRow()+1, position.getColumn()- 1);
-        if (getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        //se
-        p.setValues(position.getRow()+ 1, position.getColumn()+ 1);
-        if (getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        return mat;
+    public boolean attacks(int row, int column) {
+        return generator.kingAttacks(square(), square(row, column));
     }
 }
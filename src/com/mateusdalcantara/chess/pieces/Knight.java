@@ -0,0 +1,83 @@
+package com.mateusdalcantara.chess.pieces;
+
+import com.mateusdalcantara.boardgame.Board;
+import com.mateusdalcantara.chess.ChessPiece;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.PieceType;
+
+/**
+ * Represents a Knight chess piece.
+ * <p>
+ * The {@code Knight} class defines the behavior and properties of the Knight piece
+ * in a chess game. The Knight jumps two squares in one direction and one square in the other, in an "L"
+ * shape, and is the only piece that can jump over other pieces.
+ * </p>
+ *
+ * @see ChessPiece
+ * @see Board
+ * @see Color
+ */
+public class Knight extends ChessPiece {
+
+    /** The move generator of the board of the Knight. */
+    private final MoveGenerator generator;
+
+    /**
+     * Constructs a Knight piece with the specified color on the given board.
+     *
+     * @param board the {@code Board} on which the Knight piece is placed.
+     * @param color the {@code Color} of the Knight piece (either white or black).
+     */
+    public Knight(Board board, Color color) {
+        super(board, color);
+        generator = MoveGenerator.of(board);
+    }
+
+    /**
+     * Returns the type of the Knight piece.
+     *
+     * @return {@code PieceType.KNIGHT}.
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.KNIGHT;
+    }
+
+    /**
+     * Returns a string representation of the Knight piece.
+     *
+     * @return the string "N" representing the Knight.
+     */
+    @Override
+    public String toString() {
+        return "N";
+    }
+
+    /**
+     * Writes the moves of the Knight into a buffer.
+     * <p>
+     * The Knight jumps to the eight squares of its "L" shape that are on the board, when they
+     * are empty or hold an opponent piece. The pieces in between do not matter.
+     * </p>
+     *
+     * @param moves the buffer receiving the moves.
+     * @param count the number of moves already in the buffer.
+     * @return the number of moves in the buffer.
+     */
+    @Override
+    public int generateMoves(int[] moves, int count) {
+        return generator.knightMoves(this, getBoard(), square(), moves, count);
+    }
+
+    /**
+     * Checks whether the Knight attacks a square: the square is one jump away.
+     *
+     * @param row    the row of the square.
+     * @param column the column of the square.
+     * @return {@code true} if the Knight could capture a piece on the square.
+     */
+    @Override
+    public boolean attacks(int row, int column) {
+        return generator.knightAttacks(square(), square(row, column));
+    }
+}
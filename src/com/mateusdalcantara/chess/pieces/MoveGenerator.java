@@ -0,0 +1,324 @@
+package com.mateusdalcantara.chess.pieces;
+
+import com.mateusdalcantara.boardgame.Board;
+import com.mateusdalcantara.chess.ChessMove;
+import com.mateusdalcantara.chess.ChessPiece;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.PieceType;
+import com.mateusdalcantara.chess.metrics.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The table-driven move generator shared by every piece.
+ * <p>
+ * For each square of a board, the generator precomputes the squares of the eight rays that
+ * leave it (ordered from the nearest to the farthest) and the targets of the king and knight
+ * steps. A sliding piece then walks its rays until the first occupied square, and a stepping
+ * piece checks its few targets, without any bounds check or coordinate arithmetic at run time.
+ * Pawns use the ray tables for their pushes and captures.
+ * </p>
+ * <p>
+ * The tables only depend on the dimensions of the board, so one generator is built per size
+ * and shared by every piece and thread. Moves are written into a buffer supplied by the caller,
+ * encoded with {@link ChessMove}, and nothing is allocated.
+ * </p>
+ */
+final class MoveGenerator {
+
+    /** The directions of the rays: the four orthogonal ones first, then the four diagonal ones. */
+    static final int NORTH = 0;
+    static final int WEST = 1;
+    static final int EAST = 2;
+    static final int SOUTH = 3;
+    static final int NORTH_WEST = 4;
+    static final int NORTH_EAST = 5;
+    static final int SOUTH_WEST = 6;
+    static final int SOUTH_EAST = 7;
+
+    /** The row and column steps of each direction. */
+    private static final int[] DIRECTION_ROWS = {-1, 0, 0, 1, -1, -1, 1, 1};
+    private static final int[] DIRECTION_COLUMNS = {0, -1, 1, 0, -1, 1, -1, 1};
+
+    /** The row and column offsets of the knight jumps. */
+    private static final int[] KNIGHT_ROWS = {-2, -2, -1, -1, 1, 1, 2, 2};
+    private static final int[] KNIGHT_COLUMNS = {-1, 1, -2, 2, -2, 2, -1, 1};
+
+    /** The piece types a pawn can be promoted to, from the most to the least valuable. */
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    /** The generators already built, by board dimensions. */
+    private static final Map<Long, MoveGenerator> GENERATORS = new ConcurrentHashMap<>();
+
+    private final int rows;
+    private final int columns;
+
+    /** The row and column of each square. */
+    private final int[] rowOf;
+    private final int[] columnOf;
+
+    /** The squares of each ray: {@code rays[direction][square]}, nearest first. */
+    private final int[][][] rays;
+
+    /** The targets of the king and knight steps from each square. */
+    private final int[][] kingSteps;
+    private final int[][] knightSteps;
+
+    private MoveGenerator(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        int squares = rows * columns;
+        rowOf = new int[squares];
+        columnOf = new int[squares];
+        rays = new int[8][squares][];
+        kingSteps = new int[squares][];
+        knightSteps = new int[squares][];
+        for (int square = 0; square < squares; square++) {
+            int row = square / columns;
+            int column = square % columns;
+            rowOf[square] = row;
+            columnOf[square] = column;
+            for (int direction = 0; direction < 8; direction++) {
+                rays[direction][square] = ray(row, column, direction);
+            }
+            kingSteps[square] = steps(row, column, DIRECTION_ROWS, DIRECTION_COLUMNS);
+            knightSteps[square] = steps(row, column, KNIGHT_ROWS, KNIGHT_COLUMNS);
+        }
+    }
+
+    /**
+     * Returns the generator of the dimensions of a board.
+     *
+     * @param board the board.
+     * @return the shared generator.
+     */
+    static MoveGenerator of(Board board) {
+        long size = (long) board.getRows() << 32 | board.getColumns();
+        MoveGenerator generator = GENERATORS.get(size);
+        if (generator == null) {
+            generator = new MoveGenerator(board.getRows(), board.getColumns());
+            MoveGenerator previous = GENERATORS.putIfAbsent(size, generator);
+            if (previous != null) {
+                generator = previous;
+            }
+        }
+        return generator;
+    }
+
+    /**
+     * Writes the moves of a sliding piece along a range of directions.
+     *
+     * @param piece          the piece, on the board.
+     * @param board          the board of the piece.
+     * @param firstDirection the first direction, inclusive.
+     * @param lastDirection  the last direction, inclusive.
+     * @param moves          the buffer receiving the moves.
+     * @param count          the number of moves already in the buffer.
+     * @return the number of moves in the buffer.
+     */
+    int slide(ChessPiece piece, Board board, int source, int firstDirection, int lastDirection, int[] moves, int count) {
+        int start = count;
+        for (int direction = firstDirection; direction <= lastDirection; direction++) {
+            for (int target : rays[direction][source]) {
+                ChessPiece other = (ChessPiece) board.piece(rowOf[target], columnOf[target]);
+                if (other == null) {
+                    moves[count++] = ChessMove.encode(source, target);
+                    continue;
+                }
+                if (other.getColor() != piece.getColor()) {
+                    moves[count++] = ChessMove.encode(source, target);
+                }
+                break;
+            }
+        }
+        Metrics.movesGenerated(count - start);
+        return count;
+    }
+
+    /**
+     * Checks whether a sliding piece attacks a square along a range of directions.
+     *
+     * @param board          the board.
+     * @param source         the square of the sliding piece.
+     * @param target         the square that may be attacked.
+     * @param firstDirection the first direction the piece moves in, inclusive.
+     * @param lastDirection  the last direction the piece moves in, inclusive.
+     * @return {@code true} if the target is on one of the rays and nothing stands between.
+     */
+    boolean slideAttacks(Board board, int source, int target, int firstDirection, int lastDirection) {
+        int direction = direction(source, target);
+        if (direction < firstDirection || direction > lastDirection) {
+            return false;
+        }
+        for (int square : rays[direction][source]) {
+            if (square == target) {
+                return true;
+            }
+            if (board.piece(rowOf[square], columnOf[square]) != null) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the king moves of a piece.
+     */
+    int kingMoves(ChessPiece piece, Board board, int source, int[] moves, int count) {
+        return step(piece, board, source, kingSteps[source], moves, count);
+    }
+
+    /**
+     * Writes the knight moves of a piece.
+     */
+    int knightMoves(ChessPiece piece, Board board, int source, int[] moves, int count) {
+        return step(piece, board, source, knightSteps[source], moves, count);
+    }
+
+    /**
+     * Checks whether a king on the source square attacks the target square.
+     */
+    boolean kingAttacks(int source, int target) {
+        return contains(kingSteps[source], target);
+    }
+
+    /**
+     * Checks whether a knight on the source square attacks the target square.
+     */
+    boolean knightAttacks(int source, int target) {
+        return contains(knightSteps[source], target);
+    }
+
+    /**
+     * Writes the moves of a pawn: a push to the empty square ahead, a double push from its
+     * starting row, and diagonal captures. A move to the last row is written once per
+     * promotion piece.
+     *
+     * @param pawn   the pawn, on the board.
+     * @param board  the board of the pawn.
+     * @param source the square of the pawn.
+     * @param moves  the buffer receiving the moves.
+     * @param count  the number of moves already in the buffer.
+     * @return the number of moves in the buffer.
+     */
+    int pawnMoves(ChessPiece pawn, Board board, int source, int[] moves, int count) {
+        int start = count;
+        boolean white = pawn.getColor() == Color.WHITE;
+        int[] ahead = rays[white ? NORTH : SOUTH][source];
+        if (ahead.length > 0 && board.piece(rowOf[ahead[0]], columnOf[ahead[0]]) == null) {
+            count = pawnMove(source, ahead[0], white, moves, count);
+            int startRow = white ? rows - 2 : 1;
+            if (rowOf[source] == startRow && ahead.length > 1 && board.piece(rowOf[ahead[1]], columnOf[ahead[1]]) == null) {
+                moves[count++] = ChessMove.encode(source, ahead[1]);
+            }
+        }
+        for (int direction = white ? NORTH_WEST : SOUTH_WEST; direction <= (white ? NORTH_EAST : SOUTH_EAST); direction++) {
+            int[] ray = rays[direction][source];
+            if (ray.length == 0) {
+                continue;
+            }
+            ChessPiece other = (ChessPiece) board.piece(rowOf[ray[0]], columnOf[ray[0]]);
+            if (other != null && other.getColor() != pawn.getColor()) {
+                count = pawnMove(source, ray[0], white, moves, count);
+            }
+        }
+        Metrics.movesGenerated(count - start);
+        return count;
+    }
+
+    /**
+     * Checks whether a pawn of the given color on the source square attacks the target square.
+     */
+    boolean pawnAttacks(Color color, int source, int target) {
+        int forward = color == Color.WHITE ? -1 : 1;
+        return rowOf[target] - rowOf[source] == forward && Math.abs(columnOf[target] - columnOf[source]) == 1;
+    }
+
+    /**
+     * Writes a pawn move, or the four promotions when the target is on the last row.
+     */
+    private int pawnMove(int source, int target, boolean white, int[] moves, int count) {
+        if (rowOf[target] != (white ? 0 : rows - 1)) {
+            moves[count++] = ChessMove.encode(source, target);
+            return count;
+        }
+        for (PieceType promotion : PROMOTIONS) {
+            moves[count++] = ChessMove.encode(source, target, promotion);
+        }
+        return count;
+    }
+
+    private int step(ChessPiece piece, Board board, int source, int[] targets, int[] moves, int count) {
+        int start = count;
+        for (int target : targets) {
+            ChessPiece other = (ChessPiece) board.piece(rowOf[target], columnOf[target]);
+            if (other == null || other.getColor() != piece.getColor()) {
+                moves[count++] = ChessMove.encode(source, target);
+            }
+        }
+        Metrics.movesGenerated(count - start);
+        return count;
+    }
+
+    /**
+     * Returns the direction that leads from one square to another, or -1 if they are not on
+     * the same row, column or diagonal.
+     */
+    private int direction(int source, int target) {
+        int rowDelta = rowOf[target] - rowOf[source];
+        int columnDelta = columnOf[target] - columnOf[source];
+        if (rowDelta == 0 && columnDelta == 0) {
+            return -1;
+        }
+        if (rowDelta != 0 && columnDelta != 0 && Math.abs(rowDelta) != Math.abs(columnDelta)) {
+            return -1;
+        }
+        int rowStep = Integer.signum(rowDelta);
+        int columnStep = Integer.signum(columnDelta);
+        for (int direction = 0; direction < 8; direction++) {
+            if (DIRECTION_ROWS[direction] == rowStep && DIRECTION_COLUMNS[direction] == columnStep) {
+                return direction;
+            }
+        }
+        return -1;
+    }
+
+    private int[] ray(int row, int column, int direction) {
+        int length = 0;
+        for (int r = row + DIRECTION_ROWS[direction], c = column + DIRECTION_COLUMNS[direction];
+             r >= 0 && r < rows && c >= 0 && c < columns;
+             r += DIRECTION_ROWS[direction], c += DIRECTION_COLUMNS[direction]) {
+            length++;
+        }
+        int[] ray = new int[length];
+        for (int i = 0; i < length; i++) {
+            ray[i] = (row + DIRECTION_ROWS[direction] * (i + 1)) * columns + column + DIRECTION_COLUMNS[direction] * (i + 1);
+        }
+        return ray;
+    }
+
+    private int[] steps(int row, int column, int[] rowOffsets, int[] columnOffsets) {
+        int length = 0;
+        int[] targets = new int[rowOffsets.length];
+        for (int i = 0; i < rowOffsets.length; i++) {
+            int r = row + rowOffsets[i];
+            int c = column + columnOffsets[i];
+            if (r >= 0 && r < rows && c >= 0 && c < columns) {
+                targets[length++] = r * columns + c;
+            }
+        }
+        int[] result = new int[length];
+        System.arraycopy(targets, 0, result, 0, length);
+        return result;
+    }
+
+    private static boolean contains(int[] squares, int square) {
+        for (int s : squares) {
+            if (s == square) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,85 @@
+package com.mateusdalcantara.chess.pieces;
+
+import com.mateusdalcantara.boardgame.Board;
+import com.mateusdalcantara.chess.ChessPiece;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.PieceType;
+
+/**
+ * Represents a Pawn chess piece.
+ * <p>
+ * The {@code Pawn} class defines the behavior and properties of the Pawn piece
+ * in a chess game. The Pawn moves one square forward, or two from its starting row, captures one square
+ * diagonally forward, and is promoted when it reaches the last row.
+ * </p>
+ *
+ * @see ChessPiece
+ * @see Board
+ * @see Color
+ */
+public class Pawn extends ChessPiece {
+
+    /** The move generator of the board of the Pawn. */
+    private final MoveGenerator generator;
+
+    /**
+     * Constructs a Pawn piece with the specified color on the given board.
+     *
+     * @param board the {@code Board} on which the Pawn piece is placed.
+     * @param color the {@code Color} of the Pawn piece (either white or black).
+     */
+    public Pawn(Board board, Color color) {
+        super(board, color);
+        generator = MoveGenerator.of(board);
+    }
+
+    /**
+     * Returns the type of the Pawn piece.
+     *
+     * @return {@code PieceType.PAWN}.
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.PAWN;
+    }
+
+    /**
+     * Returns a string representation of the Pawn piece.
+     *
+     * @return the string "P" representing the Pawn.
+     */
+    @Override
+    public String toString() {
+        return "P";
+    }
+
+    /**
+     * Writes the moves of the Pawn into a buffer.
+     * <p>
+     * The Pawn moves one square forward to an empty square, or two from its starting row when
+     * both squares are empty, and captures one square diagonally forward. A move to the last
+     * row is written once for each piece the Pawn can be promoted to.
+     * </p>
+     *
+     * @param moves the buffer receiving the moves.
+     * @param count the number of moves already in the buffer.
+     * @return the number of moves in the buffer.
+     */
+    @Override
+    public int generateMoves(int[] moves, int count) {
+        return generator.pawnMoves(this, getBoard(), square(), moves, count);
+    }
+
+    /**
+     * Checks whether the Pawn attacks a square: the square is one square diagonally forward.
+     * A Pawn does not attack the square in front of it.
+     *
+     * @param row    the row of the square.
+     * @param column the column of the square.
+     * @return {@code true} if the Pawn could capture a piece on the square.
+     */
+    @Override
+    public boolean attacks(int row, int column) {
+        return generator.pawnAttacks(getColor(), square(), square(row, column));
+    }
+}
@@ -0,0 +1,85 @@
+package com.mateusdalcantara.chess.pieces;
+
+import com.mateusdalcantara.boardgame.Board;
+import com.mateusdalcantara.chess.ChessPiece;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.PieceType;
+
+/**
+ * Represents a Queen chess piece.
+ * <p>
+ * The {@code Queen} class defines the behavior and properties of the Queen piece
+ * in a chess game. The Queen combines the moves of the Rook and the Bishop: it can move horizontally,
+ * vertically or diagonally any number of squares, and it is the most powerful piece on the board.
+ * </p>
+ *
+ * @see ChessPiece
+ * @see Board
+ * @see Color
+ */
+public class Queen extends ChessPiece {
+
+    /** The move generator of the board of the Queen. */
+    private final MoveGenerator generator;
+
+    /**
+     * Constructs a Queen piece with the specified color on the given board.
+     *
+     * @param board the {@code Board} on which the Queen piece is placed.
+     * @param color the {@code Color} of the Queen piece (either white or black).
+     */
+    public Queen(Board board, Color color) {
+        super(board, color);
+        generator = MoveGenerator.of(board);
+    }
+
+    /**
+     * Returns the type of the Queen piece.
+     *
+     * @return {@code PieceType.QUEEN}.
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.QUEEN;
+    }
+
+    /**
+     * Returns a string representation of the Queen piece.
+     *
+     * @return the string "Q" representing the Queen.
+     */
+    @Override
+    public String toString() {
+        return "Q";
+    }
+
+    /**
+     * Writes the moves of the Queen into a buffer.
+     * <p>
+     * The Queen moves any number of squares along its row, its column or its diagonals, as long
+     * as the path is not blocked. It stops on the first piece of its path, which it can capture
+     * if it belongs to the opponent.
+     * </p>
+     *
+     * @param moves the buffer receiving the moves.
+     * @param count the number of moves already in the buffer.
+     * @return the number of moves in the buffer.
+     */
+    @Override
+    public int generateMoves(int[] moves, int count) {
+        return generator.slide(this, getBoard(), square(), MoveGenerator.NORTH, MoveGenerator.SOUTH_EAST, moves, count);
+    }
+
+    /**
+     * Checks whether the Queen attacks a square: the square is on the same row, column or diagonal and
+     * every square between them is empty.
+     *
+     * @param row    the row of the square.
+     * @param column the column of the square.
+     * @return {@code true} if the Queen could capture a piece on the square.
+     */
+    @Override
+    public boolean attacks(int row, int column) {
+        return generator.slideAttacks(getBoard(), square(), square(row, column), MoveGenerator.NORTH, MoveGenerator.SOUTH_EAST);
+    }
+}
@@ -1,9 +1,9 @@
 package com.mateusdalcantara.chess.pieces;
 
 import com.mateusdalcantara.boardgame.Board;
-import com.mateusdalcantara.boardgame.Position;
 import com.mateusdalcantara.chess.ChessPiece;
 import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.PieceType;
 
 /**
  * Represents a Rook chess piece.
@@ -19,6 +19,9 @@ import com.mateusdalcantara.chess.Color;
  */
 public class Rook extends ChessPiece {
 
+    /** The move generator of the board of the Rook. */
+    private final MoveGenerator generator;
+
     /**
      * Constructs a Rook piece with the specified color on the given board.
      * <p>
@@ -31,6 +34,17 @@ public class Rook extends ChessPiece {
      */
     public Rook(Board board, Color color) {
         super(board, color);
+        generator = MoveGenerator.of(board);
+    }
+
+    /**
+     * Returns the type of the Rook piece.
+     *
+     * @return {@code PieceType.ROOK}.
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.ROOK;
     }
 
     /**
@@ -48,69 +62,32 @@ public class Rook extends ChessPiece {
 
 
     /**
-     * Calculates the possible moves for the Rook piece.
-     * <p>
-     * This method returns a 2D array of boolean values, where each cell represents a square
-     * on the board. The value {@code true} indicates that the square is a valid move for the Rook,
-     * while {@code false} indicates an invalid move.
+     * Writes the moves of the Rook into a buffer.
      * <p>
      * The Rook can move horizontally and vertically any number of squares, as long as the path
-     * is not blocked by other pieces.
+     * is not blocked by other pieces. It stops on the first piece of its path, which it can
+     * capture if it belongs to the opponent.
      * </p>
      *
-     * @return a 2D array representing the possible moves for the Rook piece.
+     * @param moves the buffer receiving the moves.
+     * @param count the number of moves already in the buffer.
+     * @return the number of moves in the buffer.
      */
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-        Position p = new Position(0, 0);
-
-        //above
-        p.setValues(position.getRow() - 1, position.getColumn());
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-            p.setRow(p.getRow() - 1);
-
-        }
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        //left
-        p.setValues(position.getRow(), position.getColumn() - 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-            p.setColumn(p.getColumn() - 1);
-
-        }
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        //right
-        p.setValues(position.getRow(), position.getColumn() + 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-            p.setColumn(p.getColumn() + 1);
-
-        }
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        //below
-        p.setValues(position.getRow() + 1, position.getColumn());
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-            p.setRow(p.getRow() + 1);
-
-        }
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-
+    public int generateMoves(int[] moves, int count) {
+        return generator.slide(this, getBoard(), square(), MoveGenerator.NORTH, MoveGenerator.SOUTH, moves, count);
+    }
 
-        return mat;
+    /**
+     * Checks whether the Rook attacks a square: the square is on the same row or column and
+     * every square between them is empty.
+     *
+     * @param row    the row of the square.
+     * @param column the column of the square.
+     * @return {@code true} if the Rook could capture a piece on the square.
+     */
+    @Override
+    public boolean attacks(int row, int column) {
+        return generator.slideAttacks(getBoard(), square(), square(row, column), MoveGenerator.NORTH, MoveGenerator.SOUTH);
     }
 }
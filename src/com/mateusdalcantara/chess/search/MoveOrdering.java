@@ -0,0 +1,185 @@
+package com.mateusdalcantara.chess.search;
+
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
+import com.mateusdalcantara.chess.PieceType;
+
+import java.util.Arrays;
+
+/**
+ * Orders the moves of a search node so that the move most likely to cause a cutoff is tried
+ * first.
+ * <p>
+ * The generator produces moves in board order, which says nothing about their quality, and
+ * alpha-beta only prunes well when the best move comes first. Each move gets an ordering
+ * score, in decreasing order of priority:
+ * </p>
+ * <ol>
+ *     <li>the move of the transposition table;</li>
+ *     <li>captures and promotions that do not lose material according to the static exchange
+ *     evaluation, most valuable victim first and, among those, least valuable attacker first
+ *     (MVV-LVA);</li>
+ *     <li>the two killer moves of the ply: quiet moves that caused a cutoff at the same ply in
+ *     another branch;</li>
+ *     <li>the counter-move: the quiet move that last refuted the opponent's previous move;</li>
+ *     <li>the other quiet moves, by their butterfly history score: a running total, per side,
+ *     source and target square, of the cutoffs the move caused, weighted by depth, minus the
+ *     times it was tried before another quiet move caused one;</li>
+ *     <li>captures that lose material.</li>
+ * </ol>
+ * <p>
+ * The tables are primitive arrays owned by one {@link Search}, so a search thread never shares
+ * them. They are kept between searches, because most of what they learned still applies to
+ * the next move of the game, but {@link #newSearch(int)} ages them: the killers are cleared
+ * and the history scores halved, so that old results fade out.
+ * </p>
+ * <p>
+ * A subclass can change the scores; {@link Search#setMoveOrdering(MoveOrdering)} installs it.
+ * </p>
+ *
+ * @see Search
+ */
+public class MoveOrdering {
+
+    /** The ordering scores of each class of moves; quiet moves score their history. */
+    private static final int HASH_MOVE = 1 << 30;
+    private static final int GOOD_CAPTURE = 1 << 28;
+    private static final int KILLER = 1 << 27;
+    private static final int COUNTER_MOVE = 1 << 26;
+    private static final int BAD_CAPTURE = -(1 << 28);
+
+    /** The bound of the history scores, well below {@link #COUNTER_MOVE}. */
+    private static final int MAX_HISTORY = 1 << 14;
+
+    /** The value rank of each piece type in MVV-LVA, indexed by {@link PieceType} ordinal. */
+    private static final int[] RANKS = {6, 5, 4, 3, 2, 1};
+
+    /** The number of squares of the board the tables are sized for. */
+    private int squares;
+
+    /** The butterfly history, indexed by side, source and target: {@code (side * squares + source) * squares + target}. */
+    private int[] history = new int[0];
+
+    /** The counter-move of each previous move, indexed by {@code source * squares + target} of the previous move. */
+    private int[] counterMoves = new int[0];
+
+    /** The two killer moves of each ply, at {@code 2 * ply} and {@code 2 * ply + 1}. */
+    private final int[] killers = new int[2 * (Search.MAX_PLY + 1)];
+
+    /**
+     * Prepares the tables for a new search: sizes them for the board, or ages what they learned
+     * in the previous searches on the same board.
+     *
+     * @param squares the number of squares of the board.
+     */
+    public void newSearch(int squares) {
+        Arrays.fill(killers, ChessMove.NONE);
+        if (squares != this.squares) {
+            this.squares = squares;
+            history = new int[2 * squares * squares];
+            counterMoves = new int[squares * squares];
+            return;
+        }
+        for (int i = 0; i < history.length; i++) {
+            history[i] /= 2;
+        }
+    }
+
+    /**
+     * Scores the moves of a node.
+     *
+     * @param chessMatch the match, in the position of the node.
+     * @param moves      the moves.
+     * @param scores     receives the score of each move; the higher, the earlier it is tried.
+     * @param count      the number of moves.
+     * @param hashMove   the move of the transposition table, or {@link ChessMove#NONE}.
+     * @param ply        the ply of the node.
+     */
+    public void score(ChessMatch chessMatch, int[] moves, int[] scores, int count, int hashMove, int ply) {
+        int side = chessMatch.getCurrentPlayer().ordinal();
+        int counterMove = counterMove(chessMatch.getLastMove());
+        int firstKiller = killers[2 * ply];
+        int secondKiller = killers[2 * ply + 1];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE;
+            } else if (!isQuiet(chessMatch, move)) {
+                scores[i] = (chessMatch.see(move) >= 0 ? GOOD_CAPTURE : BAD_CAPTURE) + mvvLva(chessMatch, move);
+            } else if (move == firstKiller) {
+                scores[i] = KILLER;
+            } else if (move == secondKiller) {
+                scores[i] = KILLER - 1;
+            } else if (move == counterMove) {
+                scores[i] = COUNTER_MOVE;
+            } else {
+                scores[i] = history[historyIndex(side, move)];
+            }
+        }
+    }
+
+    /**
+     * Records that a move caused a beta cutoff. Only quiet moves are learned: captures are
+     * already ordered well by their material.
+     *
+     * @param chessMatch the match, in the position of the node.
+     * @param move       the move that caused the cutoff.
+     * @param depth      the remaining depth of the node.
+     * @param ply        the ply of the node.
+     * @param tried      the moves tried before it; their history is lowered.
+     * @param triedCount the number of moves tried before it.
+     */
+    public void cutoff(ChessMatch chessMatch, int move, int depth, int ply, int[] tried, int triedCount) {
+        if (!isQuiet(chessMatch, move)) {
+            return;
+        }
+        if (killers[2 * ply] != move) {
+            killers[2 * ply + 1] = killers[2 * ply];
+            killers[2 * ply] = move;
+        }
+        int previous = chessMatch.getLastMove();
+        if (previous != ChessMove.NONE) {
+            counterMoves[ChessMove.source(previous) * squares + ChessMove.target(previous)] = move;
+        }
+        int side = chessMatch.getCurrentPlayer().ordinal();
+        int bonus = Math.min(depth * depth, MAX_HISTORY);
+        updateHistory(historyIndex(side, move), bonus);
+        for (int i = 0; i < triedCount; i++) {
+            if (tried[i] != move && isQuiet(chessMatch, tried[i])) {
+                updateHistory(historyIndex(side, tried[i]), -bonus);
+            }
+        }
+    }
+
+    /**
+     * Adds a bonus to a history score, scaled down as the score approaches its bound, so that
+     * the score never leaves {@code [-MAX_HISTORY, MAX_HISTORY]} and recent results weigh more.
+     */
+    private void updateHistory(int index, int bonus) {
+        history[index] += bonus - history[index] * Math.abs(bonus) / MAX_HISTORY;
+    }
+
+    private int counterMove(int previous) {
+        return previous == ChessMove.NONE ? ChessMove.NONE
+                : counterMoves[ChessMove.source(previous) * squares + ChessMove.target(previous)];
+    }
+
+    private int historyIndex(int side, int move) {
+        return (side * squares + ChessMove.source(move)) * squares + ChessMove.target(move);
+    }
+
+    private static boolean isQuiet(ChessMatch chessMatch, int move) {
+        return !chessMatch.isCapture(move) && ChessMove.promotion(move) == null;
+    }
+
+    /**
+     * Returns the MVV-LVA score of a capture or promotion: the rank of the victim (or of the
+     * promotion piece) first, then the rank of the attacker, lower being better.
+     */
+    private static int mvvLva(ChessMatch chessMatch, int move) {
+        PieceType victim = chessMatch.getPieceType(ChessMove.target(move));
+        PieceType promotion = ChessMove.promotion(move);
+        int gain = (victim == null ? 0 : RANKS[victim.ordinal()]) + (promotion == null ? 0 : RANKS[promotion.ordinal()]);
+        return gain * 8 - RANKS[chessMatch.getPieceType(ChessMove.source(move)).ordinal()];
+    }
+}
@@ -0,0 +1,89 @@
+package com.mateusdalcantara.chess.search;
+
+import com.mateusdalcantara.chess.ChessMatch;
+
+/**
+ * Searches in the background while the opponent is thinking.
+ * <p>
+ * While the opponent chooses a move, the {@code Ponderer} searches the current position on a
+ * background thread, with no limit. The search fills the {@link TranspositionTable} of the
+ * {@link Search} with the opponent's likely replies and the best answers to them, so when the
+ * opponent's move is played, the search for the answer starts with those results and finishes
+ * sooner.
+ * </p>
+ * <p>
+ * The background search works on its own copy of the position, so the match can still be read
+ * while it runs, but the {@link Search} must not be used by another thread until {@link #stop()}
+ * has returned.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     ponderer.start(chessMatch);
+ *     int move = readOpponentMove();
+ *     ponderer.stop();
+ *     chessMatch.performChessMove(move);
+ *     SearchResult answer = search.search(chessMatch, limits);
+ * </pre>
+ */
+public class Ponderer {
+
+    /** The search shared with the foreground, which owns the transposition table. */
+    private final Search search;
+
+    /** The copy of the position searched in the background. */
+    private final ChessMatch position = new ChessMatch();
+
+    /** The background thread, or {@code null} when not pondering. */
+    private Thread thread;
+
+    /**
+     * Constructs a ponderer.
+     *
+     * @param search the search to run in the background; it should have a transposition table.
+     */
+    public Ponderer(Search search) {
+        this.search = search;
+    }
+
+    /**
+     * Starts searching the current position of a match in the background.
+     * A background search already running is stopped first.
+     *
+     * @param chessMatch the match whose position is searched; it is not modified.
+     */
+    public void start(ChessMatch chessMatch) {
+        stop();
+        position.setPosition(chessMatch.toFen());
+        search.prepare(SearchLimits.infinite());
+        thread = new Thread(() -> search.search(position), "ponder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the background search and waits until it has returned.
+     * The search stops at its next node, so this method returns almost at once.
+     */
+    public void stop() {
+        if (thread == null) {
+            return;
+        }
+        search.stop();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Checks whether a background search is running.
+     *
+     * @return {@code true} between {@link #start(ChessMatch)} and {@link #stop()}.
+     */
+    public boolean isRunning() {
+        return thread != null;
+    }
+}
@@ -0,0 +1,864 @@
+package com.mateusdalcantara.chess.search;
+
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
+import com.mateusdalcantara.chess.metrics.Metrics;
+import com.mateusdalcantara.chess.tablebase.Tablebase;
+
+import java.util.Arrays;
+
+/**
+ * An alpha-beta search over a {@link ChessMatch}.
+ * <p>
+ * The search uses iterative deepening: it searches to depth 1, 2, 3... until a limit of
+ * {@link SearchLimits} is reached or {@link #stop()} is called, and returns the best move of
+ * the last completed depth. Each depth is a negamax alpha-beta search that ends in a
+ * quiescence search over captures, scored by the incremental {@link ChessMatch#evaluate()}.
+ * The moves of each node are tried in the order of a {@link MoveOrdering}, and the tree is
+ * shaped by the selective features of {@link SearchFeature}, each of which can be switched off.
+ * When a {@link Tablebase} is set, positions it covers are scored exactly without searching.
+ * </p>
+ * <p>
+ * With {@link SearchLimits#withMultiPv(int)} the search finds the best {@code k} lines at once.
+ * At each depth the root moves are searched line by line: the first line over all moves, the
+ * second over the moves not already taken by the first, and so on. Each line keeps its own
+ * aspiration window around its score at the previous depth, every line shares the one
+ * transposition table and the move order learned by the others, and the
+ * {@link SearchListener} receives each line as soon as it completes its depth.
+ * </p>
+ * <p>
+ * Moves are made and taken back on the match itself, which is left in its original position
+ * when the search returns. A {@code Search} keeps its move buffers between searches, so it
+ * should be reused; it must only be used by one thread at a time, although {@link #stop()}
+ * may be called from any thread.
+ * </p>
+ *
+ * @see SearchLimits
+ * @see SearchResult
+ */
+public class Search {
+
+    /** The maximum depth of a search, in plies. */
+    public static final int MAX_PLY = 64;
+
+    /** The score of a checkmate at the root; a mate in {@code n} plies scores {@code MATE - n}. */
+    public static final int MATE = 30000;
+
+    /** A score larger than any real score. */
+    public static final int INFINITY = 32000;
+
+    /** The size of the move buffer of each ply on an 8x8 board. */
+    private static final int MAX_MOVES = 256;
+
+    /** The half-width of the first aspiration window of a line, in centipawns. */
+    private static final int ASPIRATION_WINDOW = 25;
+
+    /** The first depth searched with an aspiration window; shallower depths are too unstable. */
+    private static final int ASPIRATION_DEPTH = 4;
+
+    /** The indexes of the selective features, by {@link SearchFeature} ordinal. */
+    private static final int NULL_MOVE = SearchFeature.NULL_MOVE.ordinal();
+    private static final int LATE_MOVE_REDUCTIONS = SearchFeature.LATE_MOVE_REDUCTIONS.ordinal();
+    private static final int FUTILITY = SearchFeature.FUTILITY.ordinal();
+    private static final int RAZORING = SearchFeature.RAZORING.ordinal();
+    private static final int CHECK_EXTENSIONS = SearchFeature.CHECK_EXTENSIONS.ordinal();
+
+    /** The least depth at which a null move is tried, and its base depth reduction. */
+    private static final int NULL_MOVE_DEPTH = 2;
+    private static final int NULL_MOVE_REDUCTION = 2;
+
+    /** The non-pawn material up to which a null-move fail high is verified, in centipawns: a single rook. */
+    private static final int ZUGZWANG_MATERIAL = 500;
+
+    /** The depth from which every null-move fail high is verified. */
+    private static final int VERIFICATION_DEPTH = 8;
+
+    /** The least depth of a late-move reduction, and the number of moves searched at full depth before. */
+    private static final int REDUCTION_DEPTH = 3;
+    private static final int FULL_DEPTH_MOVES = 3;
+
+    /** The late-move reduction by depth and move number, growing with the logarithm of both. */
+    private static final int[][] REDUCTIONS = new int[MAX_PLY + 1][64];
+
+    /** The largest depth of futility pruning, and its margin per ply. */
+    private static final int FUTILITY_DEPTH = 3;
+    private static final int FUTILITY_MARGIN = 150;
+
+    /** The largest depth of razoring, and its margin per ply. */
+    private static final int RAZORING_DEPTH = 2;
+    private static final int RAZORING_MARGIN = 300;
+
+    static {
+        for (int depth = 1; depth <= MAX_PLY; depth++) {
+            for (int move = 1; move < 64; move++) {
+                REDUCTIONS[depth][move] = Math.max(1, (int) (0.5 + Math.log(depth) * Math.log(move) / 2.0));
+            }
+        }
+    }
+
+    /** The number of nodes between two checks of the time limit. */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /** The match being searched. */
+    private ChessMatch chessMatch;
+
+    /** The limits of the current search. */
+    private SearchLimits limits;
+
+    /** The optional tablebase probed in the endgame. */
+    private Tablebase tablebase;
+
+    /** The number of nodes visited by the current search. */
+    private long nodes;
+
+    /** The optional table of positions already searched. */
+    private TranspositionTable transpositionTable;
+
+    /** The move ordering of the nodes, or {@code null} to only try the move of the transposition table first. */
+    private MoveOrdering moveOrdering = new MoveOrdering();
+
+    /** Whether each selective feature is switched off, by {@link SearchFeature} ordinal. */
+    private final boolean[] disabled = new boolean[SearchFeature.values().length];
+
+    /** The attempts and successes of each selective feature in the current search. */
+    private final long[] attempts = new long[SearchFeature.values().length];
+    private final long[] successes = new long[SearchFeature.values().length];
+
+    /** Set while a null-move fail high is verified, which must not try null moves itself. */
+    private boolean verifyingNullMove;
+
+    /** The optional listener notified after each completed depth. */
+    private SearchListener listener;
+
+    /** The time at which the current search must stop, in {@link System#nanoTime()} units. */
+    private volatile long deadline;
+
+    /** Set by {@link #stop()}; read at every node. */
+    private volatile boolean stopRequested;
+
+    /** Whether the current iteration was interrupted by a limit. */
+    private boolean aborted;
+
+    /** The move buffer of each ply; grown once when a larger board is searched. */
+    private int[][] moves = new int[MAX_PLY + 1][MAX_MOVES];
+
+    /** The ordering score of each move of {@link #moves}. */
+    private int[][] moveScores = new int[MAX_PLY + 1][MAX_MOVES];
+
+    /** The legal moves of the root position, sorted from the best line to the worst. */
+    private int[] rootMoves = new int[MAX_MOVES];
+    private int rootCount;
+
+    /** The principal variation last found for each root move, kept in the order of {@link #rootMoves}. */
+    private int[][] rootLines = new int[MAX_MOVES][MAX_PLY + 1];
+    private int[] rootLineLengths = new int[MAX_MOVES];
+
+    /** The triangular principal variation table. */
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    /**
+     * Sets the tablebase probed in the endgame.
+     *
+     * @param tablebase the tablebase, or {@code null} to search every position.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Sets the transposition table used by the search.
+     * <p>
+     * The table is kept between searches, so a search of a position reached by a move that was
+     * expected, for example by a background search during the opponent's turn, starts with the
+     * results already found.
+     * </p>
+     *
+     * @param transpositionTable the table, or {@code null} to search without one.
+     */
+    public void setTranspositionTable(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Returns the transposition table used by the search.
+     *
+     * @return the table, or {@code null}.
+     */
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * Sets the move ordering of the search. Its tables belong to this search and are kept
+     * between searches.
+     *
+     * @param moveOrdering the move ordering, or {@code null} to try the moves in the order
+     *                     they are generated, after the move of the transposition table.
+     */
+    public void setMoveOrdering(MoveOrdering moveOrdering) {
+        this.moveOrdering = moveOrdering;
+    }
+
+    /**
+     * Returns the move ordering of the search.
+     *
+     * @return the move ordering, or {@code null}.
+     */
+    public MoveOrdering getMoveOrdering() {
+        return moveOrdering;
+    }
+
+    /**
+     * Switches a selective feature on or off; all are on by default.
+     *
+     * @param feature the feature.
+     * @param on      whether the search uses it.
+     */
+    public void setEnabled(SearchFeature feature, boolean on) {
+        disabled[feature.ordinal()] = !on;
+    }
+
+    /**
+     * Checks whether a selective feature is on.
+     *
+     * @param feature the feature.
+     * @return {@code true} if the search uses it.
+     */
+    public boolean isEnabled(SearchFeature feature) {
+        return !disabled[feature.ordinal()];
+    }
+
+    /**
+     * Returns how many times a selective feature was attempted in the current or last search.
+     *
+     * @param feature the feature; its documentation tells what an attempt is.
+     * @return the attempt count.
+     */
+    public long getAttempts(SearchFeature feature) {
+        return attempts[feature.ordinal()];
+    }
+
+    /**
+     * Returns how many times a selective feature succeeded in the current or last search.
+     *
+     * @param feature the feature; its documentation tells what a success is.
+     * @return the success count.
+     */
+    public long getSuccesses(SearchFeature feature) {
+        return successes[feature.ordinal()];
+    }
+
+    /**
+     * Sets the listener notified after each completed depth.
+     *
+     * @param listener the listener, or {@code null}.
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Searches the current position of a match.
+     *
+     * @param chessMatch the match to search; its position is restored before returning.
+     * @param limits     the limits of the search.
+     * @return the best move found and its score.
+     */
+    public SearchResult search(ChessMatch chessMatch, SearchLimits limits) {
+        prepare(limits);
+        return search(chessMatch);
+    }
+
+    /**
+     * Sets the limits of the next search and clears any previous stop request.
+     * <p>
+     * The time limit is counted from this call. Preparing the search on one thread and running
+     * it on another lets the first thread call {@link #stop()} or {@link #setTimeLimit(long)}
+     * at any time after this method returns, even before the search has actually started.
+     * </p>
+     *
+     * @param limits the limits of the search.
+     */
+    public void prepare(SearchLimits limits) {
+        this.limits = limits;
+        stopRequested = false;
+        setTimeLimit(limits.getTimeMillis());
+    }
+
+    /**
+     * Searches the current position of a match with the limits given to {@link #prepare(SearchLimits)}.
+     *
+     * @param chessMatch the match to search; its position is restored before returning.
+     * @return the best move found and its score.
+     */
+    public SearchResult search(ChessMatch chessMatch) {
+        this.chessMatch = chessMatch;
+        if (moves[0].length < chessMatch.getMoveBufferSize()) {
+            moves = new int[MAX_PLY + 1][chessMatch.getMoveBufferSize()];
+            moveScores = new int[MAX_PLY + 1][chessMatch.getMoveBufferSize()];
+            rootMoves = new int[chessMatch.getMoveBufferSize()];
+            rootLines = new int[chessMatch.getMoveBufferSize()][MAX_PLY + 1];
+            rootLineLengths = new int[chessMatch.getMoveBufferSize()];
+        }
+        long start = System.nanoTime();
+        nodes = 0;
+        aborted = false;
+        verifyingNullMove = false;
+        Arrays.fill(attempts, 0);
+        Arrays.fill(successes, 0);
+        if (moveOrdering != null) {
+            moveOrdering.newSearch(chessMatch.getRows() * chessMatch.getColumns());
+        }
+        generateRootMoves();
+
+        int lineCount = Math.min(limits.getMultiPv(), rootCount);
+        SearchResult[] lines = new SearchResult[lineCount];
+        int[] previousScores = new int[lineCount];
+        for (int depth = 1; depth <= limits.getDepth() && lineCount > 0; depth++) {
+            for (int line = 0; line < lineCount && !aborted; line++) {
+                int score = aspirationSearch(depth, line, previousScores[line]);
+                if (aborted) {
+                    break;
+                }
+                previousScores[line] = score;
+                lines[line] = lineResult(line, score, depth, start, null);
+                if (line == 0) {
+                    storeRoot(score, depth);
+                }
+                if (listener != null) {
+                    listener.depthCompleted(lines[line]);
+                }
+            }
+            if (aborted || (lineCount == 1 && Math.abs(previousScores[0]) >= MATE - depth)) {
+                break; // a single line that is a mate deeper searches cannot improve
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Metrics.searchCompleted(nodes, elapsed);
+        if (lineCount == 0) {
+            int score = chessMatch.getCheck() ? -MATE : 0;
+            return new SearchResult(ChessMove.NONE, score, 0, nodes, elapsed / 1_000_000, new int[0],
+                    chessMatch.getRows(), chessMatch.getColumns());
+        }
+        return finalResult(lines, elapsed / 1_000_000);
+    }
+
+    /**
+     * Generates the legal moves of the root position into {@link #rootMoves}, sorted by the
+     * move ordering, or with only the move of the transposition table first.
+     */
+    private void generateRootMoves() {
+        int[] buffer = moves[0];
+        int count = chessMatch.generateMoves(buffer);
+        rootCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (chessMatch.makeMove(buffer[i])) {
+                chessMatch.unmakeMove();
+                rootLineLengths[rootCount] = 0;
+                rootMoves[rootCount++] = buffer[i];
+            }
+        }
+        int hashMove = ChessMove.NONE;
+        if (transpositionTable != null) {
+            long entry = transpositionTable.probe(chessMatch.getPositionKey());
+            if (entry != TranspositionTable.MISS) {
+                hashMove = TranspositionTable.move(entry);
+            }
+        }
+        if (moveOrdering != null) {
+            int[] scores = moveScores[0];
+            moveOrdering.score(chessMatch, rootMoves, scores, rootCount, hashMove, 0);
+            for (int i = 0; i < rootCount; i++) {
+                nextBest(rootMoves, scores, i, rootCount);
+            }
+        } else if (hashMove != ChessMove.NONE) {
+            moveToFront(rootMoves, rootCount, hashMove);
+        }
+    }
+
+    /**
+     * Searches one line of the root at one depth inside an aspiration window: a narrow window
+     * around the score the line had at the previous depth, widened on the failing side until
+     * the score falls inside it.
+     *
+     * @param line     the index of the line; the root moves of the lines before it are excluded.
+     * @param previous the score of the line at the previous depth.
+     * @return the exact score of the line.
+     */
+    private int aspirationSearch(int depth, int line, int previous) {
+        int delta = ASPIRATION_WINDOW;
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        if (depth >= ASPIRATION_DEPTH && Math.abs(previous) < MATE - MAX_PLY) {
+            alpha = Math.max(previous - delta, -INFINITY);
+            beta = Math.min(previous + delta, INFINITY);
+        }
+        while (true) {
+            int score = searchRoot(depth, line, alpha, beta);
+            if (aborted) {
+                return score;
+            }
+            if (score <= alpha && alpha > -INFINITY) {
+                alpha = Math.max(alpha - delta, -INFINITY);
+            } else if (score >= beta && beta < INFINITY) {
+                beta = Math.min(beta + delta, INFINITY);
+            } else {
+                return score;
+            }
+            delta *= 2;
+        }
+    }
+
+    /**
+     * Searches the root moves from index {@code first}, the moves before it belonging to the
+     * lines already found at this depth.
+     * <p>
+     * A move that raises alpha is moved to index {@code first} with its line, and the other
+     * moves keep their order, so that the root moves stay sorted from the best line to the
+     * worst and the next depth and the next line search the most promising moves first.
+     * </p>
+     *
+     * @return alpha, raised to the best score if one move scored above it.
+     */
+    private int searchRoot(int depth, int first, int alpha, int beta) {
+        if (countNode()) {
+            return alpha;
+        }
+        for (int i = first; i < rootCount; i++) {
+            int move = rootMoves[i];
+            chessMatch.makeMove(move);
+            int score = -alphaBeta(depth - 1, 1, -beta, -alpha);
+            chessMatch.unmakeMove();
+            if (aborted) {
+                return alpha;
+            }
+            if (score > alpha) {
+                alpha = score;
+                int[] line = rootLines[i];
+                line[0] = move;
+                System.arraycopy(pv[1], 0, line, 1, pvLength[1]);
+                int length = pvLength[1] + 1;
+                System.arraycopy(rootMoves, first, rootMoves, first + 1, i - first);
+                System.arraycopy(rootLines, first, rootLines, first + 1, i - first);
+                System.arraycopy(rootLineLengths, first, rootLineLengths, first + 1, i - first);
+                rootMoves[first] = move;
+                rootLines[first] = line;
+                rootLineLengths[first] = length;
+                if (score >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Stores the best line of the root in the transposition table, so that a later search of
+     * the same position starts with its move.
+     */
+    private void storeRoot(int score, int depth) {
+        if (transpositionTable != null) {
+            transpositionTable.store(chessMatch.getPositionKey(), rootMoves[0], toTable(score, 0), depth,
+                    TranspositionTable.EXACT);
+        }
+    }
+
+    private SearchResult lineResult(int line, int score, int depth, long start, SearchResult[] lines) {
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new SearchResult(rootMoves[line], score, depth, nodes, elapsed,
+                Arrays.copyOf(rootLines[line], rootLineLengths[line]),
+                chessMatch.getRows(), chessMatch.getColumns(), line + 1, lines);
+    }
+
+    /**
+     * Builds the result of the search from the last completed result of each line.
+     * <p>
+     * When the search stops in the middle of a depth, the lines it has not finished keep the
+     * result of the previous depth, and a move may then appear in two lines; only its newer
+     * line is kept. If not even the first line of depth 1 was completed, the best root move
+     * found so far is returned.
+     * </p>
+     */
+    private SearchResult finalResult(SearchResult[] lines, long timeMillis) {
+        if (lines[0] == null) {
+            int move = rootMoves[0];
+            int[] line = rootLineLengths[0] > 0 ? Arrays.copyOf(rootLines[0], rootLineLengths[0]) : new int[]{move};
+            return new SearchResult(move, 0, 0, nodes, timeMillis, line, chessMatch.getRows(), chessMatch.getColumns());
+        }
+        SearchResult[] distinct = new SearchResult[lines.length];
+        int count = 0;
+        for (SearchResult line : lines) {
+            boolean duplicate = line == null;
+            for (int i = 0; i < count && !duplicate; i++) {
+                duplicate = distinct[i].getBestMove() == line.getBestMove();
+            }
+            if (!duplicate) {
+                distinct[count] = new SearchResult(line.getBestMove(), line.getScore(), line.getDepth(), nodes, timeMillis,
+                        line.getPrincipalVariation(), chessMatch.getRows(), chessMatch.getColumns(), count + 1, null);
+                count++;
+            }
+        }
+        if (count == 1) {
+            return distinct[0];
+        }
+        SearchResult[] all = Arrays.copyOf(distinct, count);
+        SearchResult best = all[0];
+        return new SearchResult(best.getBestMove(), best.getScore(), best.getDepth(), nodes, timeMillis,
+                best.getPrincipalVariation(), chessMatch.getRows(), chessMatch.getColumns(), 1, all);
+    }
+
+    /**
+     * Asks the running search to stop as soon as possible. May be called from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Replaces the time limit of the running search. May be called from any thread.
+     *
+     * @param timeMillis the time left from now, in milliseconds, or {@code Long.MAX_VALUE} for no limit.
+     */
+    public void setTimeLimit(long timeMillis) {
+        deadline = timeMillis == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + timeMillis * 1_000_000L;
+    }
+
+    /**
+     * Returns the number of nodes visited by the current or last search.
+     *
+     * @return the node count.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * The negamax alpha-beta search below the root, which is searched by {@link #searchRoot}.
+     *
+     * @return the score of the position from the point of view of the side to move.
+     */
+    private int alphaBeta(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        boolean inCheck = chessMatch.getCheck();
+        if (inCheck && !disabled[CHECK_EXTENSIONS]) {
+            depth++;
+            attempts[CHECK_EXTENSIONS]++;
+            successes[CHECK_EXTENSIONS]++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiescence(ply, alpha, beta);
+        }
+        if (countNode()) {
+            return 0;
+        }
+        if (chessMatch.isRepetition()) {
+            return 0;
+        }
+        int exact = probeTablebase(ply);
+        if (exact != Tablebase.NOT_FOUND) {
+            return exact;
+        }
+
+        long key = chessMatch.getPositionKey();
+        int hashMove = ChessMove.NONE;
+        if (transpositionTable != null) {
+            long entry = transpositionTable.probe(key);
+            if (entry != TranspositionTable.MISS) {
+                hashMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        // the selective features only apply to null-window nodes, away from mate scores
+        boolean futile = false;
+        if (beta - alpha == 1 && !inCheck && Math.abs(beta) < MATE - MAX_PLY) {
+            int staticEval = chessMatch.evaluate();
+            if (!disabled[RAZORING] && depth <= RAZORING_DEPTH && staticEval + RAZORING_MARGIN * depth <= alpha) {
+                attempts[RAZORING]++;
+                int score = quiescence(ply, alpha, beta);
+                if (aborted) {
+                    return 0;
+                }
+                if (score <= alpha) {
+                    successes[RAZORING]++;
+                    return score;
+                }
+            }
+            if (!disabled[NULL_MOVE] && !verifyingNullMove && depth >= NULL_MOVE_DEPTH && staticEval >= beta
+                    && chessMatch.getLastMove() != ChessMove.NONE) {
+                int score = nullMove(depth, ply, beta);
+                if (aborted) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    return score;
+                }
+            }
+            futile = !disabled[FUTILITY] && depth <= FUTILITY_DEPTH && staticEval + FUTILITY_MARGIN * depth <= alpha;
+            if (futile) {
+                attempts[FUTILITY]++;
+            }
+        }
+
+        int[] buffer = moves[ply];
+        int[] scores = moveScores[ply];
+        int count = chessMatch.generateMoves(buffer);
+        if (moveOrdering != null) {
+            moveOrdering.score(chessMatch, buffer, scores, count, hashMove, ply);
+        } else if (hashMove != ChessMove.NONE) {
+            moveToFront(buffer, count, hashMove);
+        }
+        int originalAlpha = alpha;
+        int bestMove = ChessMove.NONE;
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moveOrdering != null ? nextBest(buffer, scores, i, count) : buffer[i];
+            boolean quiet = !chessMatch.isCapture(move) && ChessMove.promotion(move) == null;
+            if (!chessMatch.makeMove(move)) {
+                continue;
+            }
+            legal++;
+            boolean reduce = !disabled[LATE_MOVE_REDUCTIONS] && quiet && !inCheck
+                    && depth >= REDUCTION_DEPTH && legal > FULL_DEPTH_MOVES;
+            if ((futile && quiet && legal > 1) || reduce) {
+                boolean givesCheck = chessMatch.getCheck();
+                if (futile && quiet && legal > 1 && !givesCheck) {
+                    chessMatch.unmakeMove();
+                    successes[FUTILITY]++;
+                    continue;
+                }
+                reduce &= !givesCheck;
+            }
+            int score;
+            if (reduce) {
+                attempts[LATE_MOVE_REDUCTIONS]++;
+                int reduction = Math.min(REDUCTIONS[Math.min(depth, MAX_PLY)][Math.min(legal, 63)], depth - 2);
+                score = -alphaBeta(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && !aborted) {
+                    score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha);
+                } else {
+                    successes[LATE_MOVE_REDUCTIONS]++;
+                }
+            } else {
+                score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha);
+            }
+            chessMatch.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+                updatePrincipalVariation(ply, move);
+                if (score >= beta) {
+                    if (moveOrdering != null) {
+                        moveOrdering.cutoff(chessMatch, move, depth, ply, buffer, i);
+                    }
+                    break;
+                }
+            }
+        }
+        if (legal == 0) {
+            alpha = inCheck ? -MATE + ply : 0;
+        }
+        if (transpositionTable != null) {
+            int bound = alpha >= beta ? TranspositionTable.LOWER
+                    : alpha > originalAlpha || legal == 0 ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            transpositionTable.store(key, bestMove, toTable(alpha, ply), depth, bound);
+        }
+        return alpha;
+    }
+
+    /**
+     * Tries null-move pruning at a node whose static evaluation is at least beta: passes, and
+     * searches the opponent's reply to a reduced depth with a null window around beta.
+     * <p>
+     * The side to move must have pieces besides its king and pawns, since without them zugzwang
+     * is common and passing would be better than any real move. With little material, or at
+     * large depths, a fail high is only trusted once a reduced search of the node itself,
+     * without null moves, fails high too.
+     * </p>
+     *
+     * @return a score of at least beta if the node can be pruned, or a lower score.
+     */
+    private int nullMove(int depth, int ply, int beta) {
+        int material = chessMatch.getNonPawnMaterial(chessMatch.getCurrentPlayer());
+        if (material == 0) {
+            return -INFINITY;
+        }
+        int reduction = NULL_MOVE_REDUCTION + depth / 4;
+        attempts[NULL_MOVE]++;
+        chessMatch.makeNullMove();
+        int score = -alphaBeta(depth - 1 - reduction, ply + 1, -beta, -beta + 1);
+        chessMatch.unmakeMove();
+        if (aborted || score < beta) {
+            return score;
+        }
+        if (material <= ZUGZWANG_MATERIAL || depth >= VERIFICATION_DEPTH) {
+            verifyingNullMove = true;
+            int verified = alphaBeta(depth - reduction, ply, beta - 1, beta);
+            verifyingNullMove = false;
+            if (aborted || verified < beta) {
+                return -INFINITY;
+            }
+        }
+        successes[NULL_MOVE]++;
+        return score >= MATE - MAX_PLY ? beta : score; // a mate after passing proves nothing
+    }
+
+    /**
+     * Converts a mate score relative to the root into one relative to the current position,
+     * so that it stays correct when the position is reached at another ply.
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a mate score read from the transposition table back to a score relative to the root.
+     */
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Searches captures only, until the position is quiet, so that the static evaluation is
+     * never taken in the middle of an exchange.
+     * <p>
+     * Captures are tried in the order of their static exchange evaluation, and captures that
+     * lose material are not searched at all: they cannot improve on standing pat.
+     * </p>
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if (countNode()) {
+            return 0;
+        }
+        int standPat = chessMatch.evaluate();
+        if (standPat >= beta || ply >= MAX_PLY) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+        int[] buffer = moves[ply];
+        int[] scores = moveScores[ply];
+        int count = chessMatch.generateMoves(buffer);
+        int captures = 0;
+        for (int i = 0; i < count; i++) {
+            int move = buffer[i];
+            if (chessMatch.isCapture(move)) {
+                int see = chessMatch.see(move);
+                if (see >= 0) {
+                    buffer[captures] = move;
+                    scores[captures++] = see;
+                }
+            }
+        }
+        for (int i = 0; i < captures; i++) {
+            int move = nextBest(buffer, scores, i, captures);
+            if (!chessMatch.makeMove(move)) {
+                continue;
+            }
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            chessMatch.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                updatePrincipalVariation(ply, move);
+                if (score >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a node and checks the limits.
+     *
+     * @return {@code true} if the search must stop.
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= limits.getNodes() || stopRequested
+                || (nodes % CHECK_INTERVAL == 0 && System.nanoTime() >= deadline)) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    /**
+     * Returns the exact score of a tablebase position, or {@link Tablebase#NOT_FOUND}.
+     */
+    private int probeTablebase(int ply) {
+        if (tablebase == null || chessMatch.getPieceCount() > 4) {
+            return Tablebase.NOT_FOUND;
+        }
+        int value = tablebase.probe(chessMatch);
+        if (value == Tablebase.NOT_FOUND || value == 0) {
+            return value;
+        }
+        int plies = ply + Tablebase.pliesToMate(value);
+        return Tablebase.isWin(value) ? MATE - plies : -MATE + plies;
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        pv[ply][0] = move;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+
+    /**
+     * Moves the move with the highest score among the moves from {@code from} to {@code count}
+     * to index {@code from}, and returns it.
+     */
+    private static int nextBest(int[] buffer, int[] scores, int from, int count) {
+        int best = from;
+        for (int i = from + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = buffer[best];
+        int score = scores[best];
+        buffer[best] = buffer[from];
+        scores[best] = scores[from];
+        buffer[from] = move;
+        scores[from] = score;
+        return move;
+    }
+
+    private static void moveToFront(int[] buffer, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (buffer[i] == move) {
+                System.arraycopy(buffer, 0, buffer, 1, i);
+                buffer[0] = move;
+                return;
+            }
+        }
+    }
+}
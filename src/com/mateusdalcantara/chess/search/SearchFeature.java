@@ -0,0 +1,69 @@
+package com.mateusdalcantara.chess.search;
+
+/**
+ * The selective features of a {@link Search}: the prunings, reductions and extensions that
+ * make the search deeper at the same cost by spending less time on moves that are unlikely
+ * to matter and more on forcing ones.
+ * <p>
+ * Each feature can be switched off with {@link Search#setEnabled(SearchFeature, boolean)} to
+ * measure its effect, and the search counts, for the last search, how many times each was
+ * attempted and how many times it succeeded ({@link Search#getAttempts(SearchFeature)} and
+ * {@link Search#getSuccesses(SearchFeature)}). The meaning of both counts is given for each
+ * feature.
+ * </p>
+ *
+ * @see Search
+ */
+public enum SearchFeature {
+
+    /**
+     * Null-move pruning: when the static evaluation is already above beta, the side to move
+     * passes and a reduced search checks whether the opponent can do anything about it; if not,
+     * the node fails high without searching its moves. Passing is only tried when the side to
+     * move is not in check, did not just pass, and has pieces besides its king and pawns. As
+     * a guard against zugzwang, a fail high is confirmed by a reduced search without null moves
+     * when the side has no more than a rook besides its king and pawns, and at large depths.
+     * <p>
+     * Attempts: null-move searches. Successes: nodes pruned after a confirmed fail high.
+     * </p>
+     */
+    NULL_MOVE,
+
+    /**
+     * Late-move reductions: quiet moves tried late in a node, once the ordering has offered
+     * its best candidates, are searched to a reduced depth with a null window, and searched
+     * again at full depth only if they beat alpha.
+     * <p>
+     * Attempts: reduced searches. Successes: reduced searches that did not need a re-search.
+     * </p>
+     */
+    LATE_MOVE_REDUCTIONS,
+
+    /**
+     * Futility pruning: at the last plies before the horizon, when the static evaluation plus
+     * a margin per ply cannot reach alpha, quiet moves that do not give check are skipped.
+     * <p>
+     * Attempts: nodes where the condition held. Successes: moves skipped.
+     * </p>
+     */
+    FUTILITY,
+
+    /**
+     * Razoring: at the last plies before the horizon, when the static evaluation is far below
+     * alpha, a quiescence search decides the node, which fails low if the captures cannot
+     * restore the balance either.
+     * <p>
+     * Attempts: quiescence searches. Successes: nodes that failed low.
+     * </p>
+     */
+    RAZORING,
+
+    /**
+     * Check extensions: a node whose side to move is in check is searched one ply deeper, so
+     * that forcing lines are followed to their end instead of stopping at the horizon.
+     * <p>
+     * Attempts and successes: extended nodes.
+     * </p>
+     */
+    CHECK_EXTENSIONS
+}
@@ -0,0 +1,175 @@
+package com.mateusdalcantara.chess.search;
+
+/**
+ * The limits that stop a search: depth, number of nodes and time, and the number of lines
+ * the search reports.
+ * <p>
+ * A search stops at the first limit reached. Limits that are not set are unbounded,
+ * except the depth, which can never exceed {@link Search#MAX_PLY}. By default the search
+ * reports a single line, the best one; {@link #withMultiPv(int)} asks for the best {@code k}.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     SearchLimits limits = SearchLimits.depth(6).withTime(500);
+ * </pre>
+ *
+ * @see Search
+ */
+public class SearchLimits {
+
+    /** The maximum depth, in plies. */
+    private final int depth;
+
+    /** The maximum number of nodes. */
+    private final long nodes;
+
+    /** The maximum time, in milliseconds. */
+    private final long timeMillis;
+
+    /** The number of principal variations searched and reported. */
+    private final int multiPv;
+
+    /**
+     * Constructs search limits.
+     *
+     * @param depth      the maximum depth, in plies.
+     * @param nodes      the maximum number of nodes.
+     * @param timeMillis the maximum time, in milliseconds.
+     */
+    public SearchLimits(int depth, long nodes, long timeMillis) {
+        this(depth, nodes, timeMillis, 1);
+    }
+
+    /**
+     * Constructs search limits that report several lines.
+     *
+     * @param depth      the maximum depth, in plies.
+     * @param nodes      the maximum number of nodes.
+     * @param timeMillis the maximum time, in milliseconds.
+     * @param multiPv    the number of best lines to search; positions with fewer legal moves report them all.
+     */
+    public SearchLimits(int depth, long nodes, long timeMillis, int multiPv) {
+        if (depth < 1 || nodes < 1 || timeMillis < 1 || multiPv < 1) {
+            throw new IllegalArgumentException("Search limits must be positive");
+        }
+        this.depth = Math.min(depth, Search.MAX_PLY);
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.multiPv = multiPv;
+    }
+
+    /**
+     * Returns limits that only bound the depth.
+     *
+     * @param depth the maximum depth, in plies.
+     * @return the limits.
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns limits that only bound the number of nodes.
+     *
+     * @param nodes the maximum number of nodes.
+     * @return the limits.
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(Search.MAX_PLY, nodes, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns limits that only bound the time.
+     *
+     * @param timeMillis the maximum time, in milliseconds.
+     * @return the limits.
+     */
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(Search.MAX_PLY, Long.MAX_VALUE, timeMillis);
+    }
+
+    /**
+     * Returns limits that are unbounded except for the maximum depth; such a search runs until it is stopped.
+     *
+     * @return the limits.
+     */
+    public static SearchLimits infinite() {
+        return new SearchLimits(Search.MAX_PLY, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a copy of these limits with a node limit.
+     *
+     * @param nodes the maximum number of nodes.
+     * @return the new limits.
+     */
+    public SearchLimits withNodes(long nodes) {
+        return new SearchLimits(depth, nodes, timeMillis, multiPv);
+    }
+
+    /**
+     * Returns a copy of these limits with a time limit.
+     *
+     * @param timeMillis the maximum time, in milliseconds.
+     * @return the new limits.
+     */
+    public SearchLimits withTime(long timeMillis) {
+        return new SearchLimits(depth, nodes, timeMillis, multiPv);
+    }
+
+    /**
+     * Returns a copy of these limits that searches the best {@code lines} moves instead of
+     * only the best one. Use {@code Integer.MAX_VALUE} to score every legal move.
+     *
+     * @param lines the number of principal variations.
+     * @return the new limits.
+     */
+    public SearchLimits withMultiPv(int lines) {
+        return new SearchLimits(depth, nodes, timeMillis, lines);
+    }
+
+    /**
+     * Returns the maximum depth.
+     *
+     * @return the maximum depth, in plies.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the maximum number of nodes.
+     *
+     * @return the node limit, or {@code Long.MAX_VALUE} if unbounded.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the maximum time.
+     *
+     * @return the time limit in milliseconds, or {@code Long.MAX_VALUE} if unbounded.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Returns the number of principal variations to search.
+     *
+     * @return the number of lines, 1 for a normal search.
+     */
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth
+                + (nodes == Long.MAX_VALUE ? "" : ", nodes " + nodes)
+                + (timeMillis == Long.MAX_VALUE ? "" : ", time " + timeMillis + " ms")
+                + (multiPv == 1 ? "" : ", multipv " + multiPv);
+    }
+}
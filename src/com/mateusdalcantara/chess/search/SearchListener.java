@@ -0,0 +1,20 @@
+package com.mateusdalcantara.chess.search;
+
+/**
+ * Receives the progress of a running {@link Search}.
+ * <p>
+ * The listener is called on the searching thread, so it should return quickly.
+ * </p>
+ *
+ * @see Search#setListener(SearchListener)
+ */
+public interface SearchListener {
+
+    /**
+     * Called when the search has completed a depth. A multi-PV search calls it once per line
+     * and depth, as soon as the line is complete; {@link SearchResult#getMultiPv()} tells which.
+     *
+     * @param result the best move, score and statistics of the completed depth.
+     */
+    void depthCompleted(SearchResult result);
+}
@@ -0,0 +1,259 @@
+package com.mateusdalcantara.chess.search;
+
+import com.mateusdalcantara.chess.ChessMove;
+
+import java.util.Arrays;
+
+/**
+ * The result of a search: the best move found, its score and the search statistics.
+ * <p>
+ * A multi-PV search ({@link SearchLimits#withMultiPv(int)}) reports one result per line, each
+ * with its own first move, score and principal variation, numbered from 1 by
+ * {@link #getMultiPv()}. The final result of such a search is its first line, and
+ * {@link #getLines()} returns all of them, best first.
+ * </p>
+ *
+ * @see Search
+ */
+public class SearchResult {
+
+    /** The score returned by {@link #targetScores(int)} for a square that no line moves to. */
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+
+    /** The best move, encoded with {@link ChessMove}, or {@link ChessMove#NONE}. */
+    private final int bestMove;
+
+    /** The score of the best move, in centipawns, from the point of view of the side to move. */
+    private final int score;
+
+    /** The last depth that was completed. */
+    private final int depth;
+
+    /** The number of nodes visited. */
+    private final long nodes;
+
+    /** The duration of the search, in milliseconds. */
+    private final long timeMillis;
+
+    /** The principal variation, starting with the best move. */
+    private final int[] principalVariation;
+
+    /** The dimensions of the board, used to write the moves. */
+    private final int rows;
+    private final int columns;
+
+    /** The number of this line in a multi-PV search, from 1. */
+    private final int multiPv;
+
+    /** Every line of a multi-PV search, best first, or {@code null} if this is the only line. */
+    private final SearchResult[] lines;
+
+    /**
+     * Constructs a search result.
+     *
+     * @param bestMove           the encoded best move, or {@link ChessMove#NONE} if there is no legal move.
+     * @param score              the score of the best move.
+     * @param depth              the last depth that was completed.
+     * @param nodes              the number of nodes visited.
+     * @param timeMillis         the duration of the search, in milliseconds.
+     * @param principalVariation the expected line of play, starting with the best move.
+     */
+    public SearchResult(int bestMove, int score, int depth, long nodes, long timeMillis, int[] principalVariation) {
+        this(bestMove, score, depth, nodes, timeMillis, principalVariation, 8, 8);
+    }
+
+    /**
+     * Constructs a search result for a position on a board of the given dimensions.
+     *
+     * @param bestMove           the encoded best move, or {@link ChessMove#NONE} if there is no legal move.
+     * @param score              the score of the best move.
+     * @param depth              the last depth that was completed.
+     * @param nodes              the number of nodes visited.
+     * @param timeMillis         the duration of the search, in milliseconds.
+     * @param principalVariation the expected line of play, starting with the best move.
+     * @param rows               the number of rows of the board.
+     * @param columns            the number of columns of the board.
+     */
+    public SearchResult(int bestMove, int score, int depth, long nodes, long timeMillis, int[] principalVariation,
+                        int rows, int columns) {
+        this(bestMove, score, depth, nodes, timeMillis, principalVariation, rows, columns, 1, null);
+    }
+
+    /**
+     * Constructs one line of a multi-PV search result.
+     *
+     * @param bestMove           the encoded first move of the line, or {@link ChessMove#NONE} if there is no legal move.
+     * @param score              the score of the line.
+     * @param depth              the last depth that was completed for the line.
+     * @param nodes              the number of nodes visited.
+     * @param timeMillis         the duration of the search, in milliseconds.
+     * @param principalVariation the expected line of play, starting with its first move.
+     * @param rows               the number of rows of the board.
+     * @param columns            the number of columns of the board.
+     * @param multiPv            the number of the line, from 1 for the best.
+     * @param lines              every line of the search, best first, or {@code null} if there is only this one.
+     */
+    public SearchResult(int bestMove, int score, int depth, long nodes, long timeMillis, int[] principalVariation,
+                        int rows, int columns, int multiPv, SearchResult[] lines) {
+        this.multiPv = multiPv;
+        this.lines = lines;
+        this.rows = rows;
+        this.columns = columns;
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.principalVariation = principalVariation;
+    }
+
+    /**
+     * Returns the best move.
+     *
+     * @return the encoded move, or {@link ChessMove#NONE} if there is no legal move.
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Returns the score of the best move, from the point of view of the side to move.
+     *
+     * @return the score in centipawns, or a mate score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the last depth that was completed.
+     *
+     * @return the depth, in plies.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of nodes visited.
+     *
+     * @return the node count.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the duration of the search.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Returns the expected line of play.
+     *
+     * @return the encoded moves, starting with the best move.
+     */
+    public int[] getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    /**
+     * Returns the number of this line in a multi-PV search.
+     *
+     * @return 1 for the best line, 2 for the second best, and so on.
+     */
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    /**
+     * Returns every line of a multi-PV search.
+     *
+     * @return a copy of the lines, best first; a single-line search returns only this result.
+     */
+    public SearchResult[] getLines() {
+        return lines == null ? new SearchResult[]{this} : lines.clone();
+    }
+
+    /**
+     * Returns the score of every target square of the lines that start from a square, in the
+     * shape of {@link com.mateusdalcantara.chess.ChessMatch#possibleMoves}, so that a view can
+     * colour the candidate moves of a piece by their score.
+     *
+     * @param source the square index of the piece, {@code row * columns + column}.
+     * @return the scores indexed by row and column, {@link #NO_SCORE} where no line moves to.
+     */
+    public int[][] targetScores(int source) {
+        int[][] scores = new int[rows][columns];
+        for (int[] row : scores) {
+            Arrays.fill(row, NO_SCORE);
+        }
+        for (SearchResult line : getLines()) {
+            int move = line.getBestMove();
+            if (move != ChessMove.NONE && ChessMove.source(move) == source) {
+                int target = ChessMove.target(move);
+                int row = target / columns;
+                int column = target % columns;
+                // a promotion to several pieces keeps the best of them
+                scores[row][column] = Math.max(scores[row][column], line.getScore());
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Returns the search speed.
+     *
+     * @return the number of nodes visited per second.
+     */
+    public long getNodesPerSecond() {
+        return timeMillis == 0 ? nodes * 1000 : nodes * 1000 / timeMillis;
+    }
+
+    /**
+     * Checks whether the score is a forced mate.
+     *
+     * @return {@code true} if one side mates by force.
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * Returns the number of moves until mate, when the score is a forced mate.
+     *
+     * @return a positive number if the side to move mates, negative if it gets mated.
+     */
+    public int getMateIn() {
+        int plies = Search.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2;
+    }
+
+    /**
+     * Returns the principal variation in coordinate notation.
+     *
+     * @return the moves separated by spaces.
+     */
+    public String principalVariationString() {
+        StringBuilder sb = new StringBuilder();
+        for (int move : principalVariation) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(ChessMove.toString(move, rows, columns));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return (lines == null && multiPv == 1 ? "" : "multipv " + multiPv + " ")
+                + ChessMove.toString(bestMove, rows, columns)
+                + " score " + (isMate() ? "mate " + getMateIn() : "cp " + score)
+                + " depth " + depth + " nodes " + nodes + " time " + timeMillis + " ms";
+    }
+}
@@ -0,0 +1,150 @@
+package com.mateusdalcantara.chess.search;
+
+import com.mateusdalcantara.chess.ChessMove;
+
+import java.util.Arrays;
+
+/**
+ * A hash table of positions already searched, keyed by Zobrist key.
+ * <p>
+ * Each entry keeps the best move, the score, the depth and the kind of bound of one search of
+ * a position, so that a later search reaching the same position, through another move order
+ * or in a later search of the same game, can reuse the result instead of searching again.
+ * </p>
+ * <p>
+ * The table has a fixed number of slots; a position is stored in the slot selected by the low
+ * bits of its key, and the full key is kept to detect collisions. An entry is packed in a
+ * {@code long}, so the whole table is two primitive arrays. The table is not thread-safe.
+ * </p>
+ *
+ * @see Search#setTranspositionTable(TranspositionTable)
+ */
+public class TranspositionTable {
+
+    /** The score is exact. */
+    public static final int EXACT = 3;
+
+    /** The score is a lower bound: the search failed high. */
+    public static final int LOWER = 2;
+
+    /** The score is an upper bound: no move reached alpha. */
+    public static final int UPPER = 1;
+
+    /** The value returned by {@link #probe(long)} when the position is not in the table. */
+    public static final long MISS = 0;
+
+    /** The number of bytes of one slot: the key and the packed entry. */
+    private static final int SLOT_SIZE = 16;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * Constructs an empty table.
+     *
+     * @param megabytes the maximum size of the table; the number of slots is rounded down to a power of two.
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("The table size must be positive");
+        }
+        int slots = Integer.highestOneBit((int) Math.min(1 << 30, (long) megabytes * 1024 * 1024 / SLOT_SIZE));
+        keys = new long[slots];
+        entries = new long[slots];
+        mask = slots - 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key the Zobrist key of the position.
+     * @return the packed entry, or {@link #MISS}.
+     */
+    public long probe(long key) {
+        int slot = (int) key & mask;
+        return keys[slot] == key ? entries[slot] : MISS;
+    }
+
+    /**
+     * Stores the result of a search of a position.
+     * <p>
+     * A deeper result of the same position is not replaced by a shallower one; a result of
+     * another position always replaces the slot.
+     * </p>
+     *
+     * @param key   the Zobrist key of the position.
+     * @param move  the best move, or {@link ChessMove#NONE}.
+     * @param score the score, with mate scores relative to the position.
+     * @param depth the depth of the search, in plies.
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int slot = (int) key & mask;
+        if (keys[slot] == key && depth(entries[slot]) > depth) {
+            return;
+        }
+        keys[slot] = key;
+        entries[slot] = (move & 0xFFFFFL)
+                | (score + 0x8000L & 0xFFFFL) << 20
+                | (long) (depth & 0xFF) << 36
+                | (long) bound << 44;
+    }
+
+    /**
+     * Removes every entry, for example before a new game.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, 0);
+    }
+
+    /**
+     * Returns the number of slots of the table.
+     *
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the best move of a packed entry.
+     *
+     * @param entry the packed entry.
+     * @return the encoded move, or {@link ChessMove#NONE}.
+     */
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFFF);
+    }
+
+    /**
+     * Returns the score of a packed entry.
+     *
+     * @param entry the packed entry.
+     * @return the score.
+     */
+    public static int score(long entry) {
+        return (int) (entry >>> 20 & 0xFFFF) - 0x8000;
+    }
+
+    /**
+     * Returns the depth of a packed entry.
+     *
+     * @param entry the packed entry.
+     * @return the depth, in plies.
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> 36 & 0xFF);
+    }
+
+    /**
+     * Returns the kind of bound of a packed entry.
+     *
+     * @param entry the packed entry.
+     * @return {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> 44 & 0x3);
+    }
+}
@@ -0,0 +1,116 @@
+package com.mateusdalcantara.chess.session;
+
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.PackedBoard;
+
+import java.util.ArrayDeque;
+
+/**
+ * A pool of 8x8 {@link ChessMatch} instances, so that a server inflating parked games does not
+ * allocate a board, pieces, piece lists and history arrays for every move it receives.
+ * <p>
+ * {@link #acquire(PackedBoard)} loads a packed position into an idle match, or into a new one
+ * when none is idle, and {@link #release(ChessMatch)} gives the match back once the move has
+ * been played and the game packed again. At most {@code maxIdle} matches are kept; the others
+ * are left to the garbage collector. An idle match keeps the pieces of its last game, and
+ * reuses them for the next position loaded into it. The pool is thread-safe, but a match belongs to one thread between
+ * {@code acquire} and {@code release}.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     ChessMatch chessMatch = pool.acquire(parked);
+ *     chessMatch.performChessMove(move);
+ *     parked = PackedBoard.pack(chessMatch);
+ *     pool.release(chessMatch);
+ * </pre>
+ *
+ * @see ParkedGames
+ */
+public class MatchPool {
+
+    private final int maxIdle;
+
+    /** The idle matches; guarded by itself. */
+    private final ArrayDeque<ChessMatch> idle = new ArrayDeque<>();
+
+    /** The number of matches created by the pool; guarded by {@link #idle}. */
+    private long created;
+
+    /**
+     * Constructs an empty pool.
+     *
+     * @param maxIdle the maximum number of idle matches kept.
+     */
+    public MatchPool(int maxIdle) {
+        if (maxIdle < 0) {
+            throw new IllegalArgumentException("The number of idle matches cannot be negative");
+        }
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Takes a match from the pool and loads a position into it.
+     *
+     * @param board the position.
+     * @return a match holding the position, with an empty history.
+     * @throws com.mateusdalcantara.chess.ChessException if the packed board is invalid; the match goes back to the pool.
+     */
+    public ChessMatch acquire(PackedBoard board) {
+        ChessMatch chessMatch;
+        synchronized (idle) {
+            chessMatch = idle.pollFirst();
+            if (chessMatch == null) {
+                created++;
+            }
+        }
+        if (chessMatch == null) {
+            chessMatch = new ChessMatch(8, 8);
+        }
+        try {
+            board.unpack(chessMatch);
+        } catch (RuntimeException e) {
+            release(chessMatch);
+            throw e;
+        }
+        return chessMatch;
+    }
+
+    /**
+     * Gives a match back to the pool. The caller must not use it afterwards.
+     *
+     * @param chessMatch the match; matches that are not 8x8 are not kept.
+     */
+    public void release(ChessMatch chessMatch) {
+        if (chessMatch.getRows() != 8 || chessMatch.getColumns() != 8) {
+            return;
+        }
+        synchronized (idle) {
+            if (idle.size() < maxIdle) {
+                idle.addFirst(chessMatch);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of idle matches.
+     *
+     * @return the number of matches waiting in the pool.
+     */
+    public int getIdle() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    /**
+     * Returns the number of matches the pool had to create because none was idle.
+     *
+     * @return the creation count.
+     */
+    public long getCreated() {
+        synchronized (idle) {
+            return created;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.mateusdalcantara.chess.session;
+
+import com.mateusdalcantara.chess.ChessMatch;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serializes the moves submitted to a match from any number of threads, so that the match,
+ * which is not thread-safe, only ever has one writer and needs no lock.
+ * <p>
+ * {@link #submit(int)} appends the move to a lock-free multi-producer, single-consumer queue
+ * and returns at once with a future of its {@link MoveStatus}. The first submission to an idle
+ * session schedules a drain task on the session's {@link Executor}; the drain task takes up to
+ * {@value #MAX_BATCH} moves, validates and plays each of them with
+ * {@link ChessMatch#tryChessMove(int, int[], int)}, then completes their futures. The moves of
+ * a position are generated once for the whole batch and again only after a move is played, so
+ * a burst of rejected moves is validated against one move list. When more moves are waiting
+ * after a batch, the task is scheduled again instead of looping, so that a busy match does not
+ * starve the other sessions of a shared executor.
+ * </p>
+ * <p>
+ * At most one drain task of a session runs at a time, and each one starts after the previous
+ * one has finished, so the match is only touched by one thread at a time. Giving every session
+ * of a shard the same single-threaded executor also keeps the data of a match in the cache of
+ * one core. The futures are completed, and the {@link MoveListener} called, on the drain
+ * thread: dependent actions that take time should be attached with the {@code async} methods
+ * of {@link CompletableFuture}. An exception thrown by the listener is passed to the uncaught
+ * exception handler of the drain thread; the move stays {@link MoveStatus#ACCEPTED} and the
+ * next moves of the batch are still played.
+ * </p>
+ * <p>
+ * If the executor rejects a drain task, the futures of every move waiting in the queue are
+ * completed exceptionally with the {@link RejectedExecutionException}, and the next submission
+ * tries to schedule a drain task again.
+ * </p>
+ * <p>
+ * The match must not be used directly while moves are submitted. A move rejected in one
+ * position may be valid in a later one, so the moves of a player should be submitted in the
+ * order they are meant to be played, from one thread, or each after the previous one has
+ * completed.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     MatchSession session = new MatchSession(chessMatch, shardExecutor);
+ *     session.setListener((match, move) -&gt; hub.publishMove(match));
+ *     session.submit(ChessMove.parse("e2e4"))
+ *            .thenAccept(status -&gt; reply(status));
+ * </pre>
+ *
+ * @see MoveStatus
+ */
+public class MatchSession {
+
+    /** The largest number of moves validated by one drain task. */
+    public static final int MAX_BATCH = 64;
+
+    private final ChessMatch chessMatch;
+    private final Executor executor;
+    private volatile MoveListener listener;
+
+    /**
+     * The last request of the queue, swapped in by the producers. The queue is a linked list
+     * whose first node is a consumed request, {@link #head}: a producer swaps its request in as
+     * the new tail, then links it from the previous tail.
+     */
+    private final AtomicReference<Request> tail;
+
+    /** The last consumed request; only touched by the drain task. */
+    private Request head;
+
+    /** Whether a drain task is scheduled or running. */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /** The task draining the queue, created once. */
+    private final Runnable drain = this::drain;
+
+    /** The buffers of the drain task. */
+    private final int[] moves;
+    private final Request[] batch = new Request[MAX_BATCH];
+    private final MoveStatus[] statuses = new MoveStatus[MAX_BATCH];
+
+    /**
+     * Constructs a session over a match.
+     *
+     * @param chessMatch the match; it must not be used directly afterwards.
+     * @param executor   the executor running the drain tasks of the session.
+     */
+    public MatchSession(ChessMatch chessMatch, Executor executor) {
+        this.chessMatch = chessMatch;
+        this.executor = executor;
+        this.moves = new int[chessMatch.getMoveBufferSize()];
+        this.head = new Request(0);
+        this.tail = new AtomicReference<>(head);
+    }
+
+    /**
+     * Sets the listener notified of every move played.
+     *
+     * @param listener the listener, or {@code null} for none.
+     */
+    public void setListener(MoveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Submits a move. May be called from any thread, and never blocks.
+     *
+     * @param move the encoded move.
+     * @return the future status of the move, completed once the move has been validated and,
+     *         if it was accepted, played; completed exceptionally if the executor rejects the
+     *         drain task.
+     */
+    public CompletableFuture<MoveStatus> submit(int move) {
+        Request request = new Request(move);
+        Request previous = tail.getAndSet(request);
+        previous.next = request;
+        schedule();
+        return request;
+    }
+
+    /**
+     * Returns the match of the session. It may only be read from a {@link MoveListener}, from an
+     * action of a completed future, or once no move is pending.
+     *
+     * @return the match.
+     */
+    public ChessMatch getChessMatch() {
+        return chessMatch;
+    }
+
+    /**
+     * Schedules a drain task unless one is already scheduled or running. If the executor rejects
+     * it, fails the waiting requests instead, then tries again for the requests submitted
+     * meanwhile.
+     */
+    private void schedule() {
+        while (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(drain);
+                return;
+            } catch (RejectedExecutionException e) {
+                Request request;
+                while ((request = poll()) != null) {
+                    request.completeExceptionally(e);
+                }
+                scheduled.set(false);
+                if (tail.get() == head) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs on the executor: validates and plays one batch of moves, publishes their statuses,
+     * and schedules itself again if more moves are waiting.
+     */
+    private void drain() {
+        int size = 0;
+        try {
+            int count = -1; // the moves of the current position are generated on demand
+            while (size < MAX_BATCH) {
+                Request request = poll();
+                if (request == null) {
+                    break;
+                }
+                if (count < 0) {
+                    count = chessMatch.generateMoves(moves);
+                }
+                MoveStatus status;
+                try {
+                    status = MoveStatus.of(chessMatch.tryChessMove(request.move, moves, count));
+                } catch (RuntimeException e) {
+                    request.completeExceptionally(e);
+                    continue;
+                }
+                batch[size] = request;
+                statuses[size] = status;
+                size++;
+                if (status == MoveStatus.ACCEPTED) {
+                    count = -1;
+                    notifyListener();
+                }
+            }
+        } finally {
+            for (int i = 0; i < size; i++) {
+                batch[i].complete(statuses[i]);
+                batch[i] = null;
+            }
+            scheduled.set(false);
+            if (tail.get() != head) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Calls the listener after a move, passing its exception to the uncaught exception handler
+     * of the current thread.
+     */
+    private void notifyListener() {
+        MoveListener current = listener;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.movePlayed(chessMatch, chessMatch.getLastMove());
+        } catch (RuntimeException e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * Takes the next request of the queue, waiting for a producer that has swapped its request
+     * in but not yet linked it.
+     *
+     * @return the request, or {@code null} if the queue is empty.
+     */
+    private Request poll() {
+        Request next = head.next;
+        if (next == null) {
+            if (tail.get() == head) {
+                return null;
+            }
+            while ((next = head.next) == null) {
+                Thread.onSpinWait();
+            }
+        }
+        head.next = null; // helps the collector: the consumed requests are not chained
+        head = next;
+        return next;
+    }
+
+    /**
+     * A submitted move, which is both a node of the queue and the future of its status.
+     */
+    private static final class Request extends CompletableFuture<MoveStatus> {
+
+        final int move;
+        volatile Request next;
+
+        Request(int move) {
+            this.move = move;
+        }
+    }
+}
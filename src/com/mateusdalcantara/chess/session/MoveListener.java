@@ -0,0 +1,25 @@
+package com.mateusdalcantara.chess.session;
+
+import com.mateusdalcantara.chess.ChessMatch;
+
+/**
+ * Receives the moves played by a {@link MatchSession}, for example to publish them to the
+ * spectators of a {@link com.mateusdalcantara.chess.broadcast.BroadcastHub}.
+ * <p>
+ * The listener is called on the thread that owns the match at that moment, right after the
+ * move, so it may read the match but must not keep it or change it, and it should return
+ * quickly.
+ * </p>
+ *
+ * @see MatchSession#setListener(MoveListener)
+ */
+public interface MoveListener {
+
+    /**
+     * Called after a submitted move has been played.
+     *
+     * @param chessMatch the match, in the position after the move.
+     * @param move       the encoded move, as played.
+     */
+    void movePlayed(ChessMatch chessMatch, int move);
+}
@@ -0,0 +1,49 @@
+package com.mateusdalcantara.chess.session;
+
+import com.mateusdalcantara.chess.metrics.RejectReason;
+
+/**
+ * The outcome of a move submitted to a {@link MatchSession}: accepted, or the reason it was
+ * rejected. Rejections are reported as values rather than exceptions, so that a stream of bad
+ * moves costs no stack traces.
+ *
+ * @see MatchSession#submit(int)
+ */
+public enum MoveStatus {
+    /** The move was played. */
+    ACCEPTED,
+    /** There is no piece on the source square. */
+    NO_PIECE,
+    /** The piece on the source square belongs to the opponent. */
+    NOT_YOUR_PIECE,
+    /** The piece on the source square cannot move at all. */
+    NO_POSSIBLE_MOVES,
+    /** The piece cannot move to the target square. */
+    ILLEGAL_TARGET,
+    /** The move would leave the king of the player in check. */
+    SELF_CHECK;
+
+    /**
+     * Returns the status of a move validated by {@link com.mateusdalcantara.chess.ChessMatch#tryChessMove(int, int[], int)}.
+     *
+     * @param reason the reason of the rejection, or {@code null} if the move was played.
+     * @return the status.
+     */
+    public static MoveStatus of(RejectReason reason) {
+        if (reason == null) {
+            return ACCEPTED;
+        }
+        switch (reason) {
+            case NO_PIECE:
+                return NO_PIECE;
+            case NOT_YOUR_PIECE:
+                return NOT_YOUR_PIECE;
+            case NO_POSSIBLE_MOVES:
+                return NO_POSSIBLE_MOVES;
+            case SELF_CHECK:
+                return SELF_CHECK;
+            default:
+                return ILLEGAL_TARGET;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.mateusdalcantara.chess.session;
+
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.PackedBoard;
+
+/**
+ * Keeps idle games, such as correspondence games waiting for a move, in packed form, and
+ * inflates them into pooled matches only while a move is played.
+ * <p>
+ * A parked game takes one slot of an open-addressing hash table made of primitive arrays:
+ * the game id, the three {@code long}s and the state word of its {@link PackedBoard}, 36
+ * bytes per slot with no object per game. The table doubles when it is half full, so a
+ * million parked games take at most 76 megabytes. An empty slot has a state
+ * word of 0, which no packed board has since turns start at 1.
+ * </p>
+ * <p>
+ * {@link #resume(long)} removes a game from the table and returns it in a match of the
+ * {@link MatchPool}; {@link #park(long, ChessMatch)} packs it back and returns the match to the
+ * pool. The move history does not survive parking: see {@link PackedBoard}. All methods are
+ * thread-safe, and the packing and unpacking are done outside the lock.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     ChessMatch chessMatch = parkedGames.resume(gameId);
+ *     chessMatch.performChessMove(move);
+ *     parkedGames.park(gameId, chessMatch);
+ * </pre>
+ *
+ * @see MatchPool
+ */
+public class ParkedGames {
+
+    /** The number of slots of a new table. */
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final MatchPool pool;
+
+    /** The slots, in parallel arrays; guarded by {@code this}. */
+    private long[] ids;
+    private long[] occupancies;
+    private long[] lowPieces;
+    private long[] highPieces;
+    private int[] states;
+
+    /** The number of parked games. */
+    private int size;
+
+    /**
+     * Constructs an empty store.
+     *
+     * @param pool the pool providing the matches of resumed games and receiving those of parked ones.
+     */
+    public ParkedGames(MatchPool pool) {
+        this.pool = pool;
+        allocate(INITIAL_SLOTS);
+    }
+
+    /**
+     * Parks a game: packs its position, replacing any game parked under the same id, and gives
+     * the match back to the pool. The caller must not use the match afterwards.
+     *
+     * @param gameId     the id of the game.
+     * @param chessMatch the match of the game.
+     * @throws com.mateusdalcantara.chess.ChessException if the match cannot be packed; it is then not released.
+     */
+    public void park(long gameId, ChessMatch chessMatch) {
+        PackedBoard board = PackedBoard.pack(chessMatch);
+        pool.release(chessMatch);
+        synchronized (this) {
+            if (2 * (size + 1) > states.length) {
+                grow();
+            }
+            int slot = find(gameId);
+            if (states[slot] == 0) {
+                size++;
+            }
+            store(slot, gameId, board.getOccupancy(), board.getLowPieces(), board.getHighPieces(), board.getState());
+        }
+    }
+
+    /**
+     * Resumes a parked game: removes it from the store and loads it into a match of the pool.
+     * The match must be given back with {@link #park(long, ChessMatch)} or
+     * {@link MatchPool#release(ChessMatch)}.
+     *
+     * @param gameId the id of the game.
+     * @return the match of the game, or {@code null} if no game is parked under this id.
+     */
+    public ChessMatch resume(long gameId) {
+        PackedBoard board = remove(gameId);
+        return board == null ? null : pool.acquire(board);
+    }
+
+    /**
+     * Returns the position of a parked game without resuming it.
+     *
+     * @param gameId the id of the game.
+     * @return the packed position, or {@code null} if no game is parked under this id.
+     */
+    public synchronized PackedBoard get(long gameId) {
+        int slot = find(gameId);
+        return states[slot] == 0 ? null : board(slot);
+    }
+
+    /**
+     * Removes a parked game.
+     *
+     * @param gameId the id of the game.
+     * @return the packed position of the game, or {@code null} if no game is parked under this id.
+     */
+    public synchronized PackedBoard remove(long gameId) {
+        int slot = find(gameId);
+        if (states[slot] == 0) {
+            return null;
+        }
+        PackedBoard board = board(slot);
+        delete(slot);
+        size--;
+        return board;
+    }
+
+    /**
+     * Returns the number of parked games.
+     *
+     * @return the game count.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the pool of the matches of resumed games.
+     *
+     * @return the match pool.
+     */
+    public MatchPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the slot of a game, or the empty slot where it would go.
+     */
+    private int find(long gameId) {
+        int mask = states.length - 1;
+        int slot = hash(gameId) & mask;
+        while (states[slot] != 0 && ids[slot] != gameId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot and moves back the games of the same probe sequence that follow it, so
+     * that no tombstones are needed.
+     */
+    private void delete(int slot) {
+        int mask = states.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (states[next] == 0) {
+                break;
+            }
+            int home = hash(ids[next]) & mask;
+            // the game at next can fill the hole unless its home lies cyclically in (slot, next]
+            if (slot <= next ? slot < home && home <= next : slot < home || home <= next) {
+                continue;
+            }
+            store(slot, ids[next], occupancies[next], lowPieces[next], highPieces[next], states[next]);
+            slot = next;
+        }
+        states[slot] = 0;
+    }
+
+    private PackedBoard board(int slot) {
+        return new PackedBoard(occupancies[slot], lowPieces[slot], highPieces[slot], states[slot]);
+    }
+
+    private void store(int slot, long gameId, long occupancy, long low, long high, int state) {
+        ids[slot] = gameId;
+        occupancies[slot] = occupancy;
+        lowPieces[slot] = low;
+        highPieces[slot] = high;
+        states[slot] = state;
+    }
+
+    private void grow() {
+        long[] oldIds = ids;
+        long[] oldOccupancies = occupancies;
+        long[] oldLowPieces = lowPieces;
+        long[] oldHighPieces = highPieces;
+        int[] oldStates = states;
+        allocate(2 * oldStates.length);
+        for (int i = 0; i < oldStates.length; i++) {
+            if (oldStates[i] != 0) {
+                store(find(oldIds[i]), oldIds[i], oldOccupancies[i], oldLowPieces[i], oldHighPieces[i], oldStates[i]);
+            }
+        }
+    }
+
+    private void allocate(int slots) {
+        ids = new long[slots];
+        occupancies = new long[slots];
+        lowPieces = new long[slots];
+        highPieces = new long[slots];
+        states = new int[slots];
+    }
+
+    /**
+     * Spreads the bits of a game id, so that sequential ids do not fill one run of slots.
+     */
+    private static int hash(long gameId) {
+        long z = gameId * 0x9E3779B97F4A7C15L;
+        return (int) (z ^ z >>> 32);
+    }
+}
@@ -0,0 +1,82 @@
+package com.mateusdalcantara.chess.tablebase;
+
+import com.mateusdalcantara.chess.Color;
+
+/**
+ * Enum representing the endgames covered by the tablebase.
+ * <p>
+ * Each endgame has the two kings plus a fixed list of rooks. Tables are always stored with
+ * white as the side with more material; positions where black is stronger are probed with
+ * the colors swapped and the board mirrored.
+ * </p>
+ *
+ * @see Tablebase
+ * @see TablebaseGenerator
+ */
+public enum Endgame {
+    /** King and rook against king. */
+    KRK(Color.WHITE),
+    /** King and two rooks against king. */
+    KRRK(Color.WHITE, Color.WHITE),
+    /** King and rook against king and rook. */
+    KRKR(Color.WHITE, Color.BLACK);
+
+    /** The colors of the rooks, in the order their squares appear in the table index. */
+    private final Color[] rooks;
+
+    Endgame(Color... rooks) {
+        this.rooks = rooks;
+    }
+
+    /**
+     * Returns the colors of the rooks of the endgame.
+     *
+     * @return the rook colors, in index order.
+     */
+    Color[] getRooks() {
+        return rooks;
+    }
+
+    /**
+     * Returns the number of pieces of the endgame, kings included.
+     *
+     * @return the piece count.
+     */
+    int pieceCount() {
+        return 2 + rooks.length;
+    }
+
+    /**
+     * Returns the number of entries of the table of this endgame.
+     *
+     * @return the table size in bytes.
+     */
+    int tableSize() {
+        int size = TablebaseIndex.KING_SQUARES * 2;
+        for (int i = 1; i < pieceCount(); i++) {
+            size *= 64;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the endgame with the given number of white and black rooks.
+     *
+     * @param whiteRooks the number of white rooks.
+     * @param blackRooks the number of black rooks.
+     * @return the endgame, or {@code null} if there is no table for that material
+     *         (including when black has more rooks than white).
+     */
+    static Endgame of(int whiteRooks, int blackRooks) {
+        if (whiteRooks == 1 && blackRooks == 0) {
+            return KRK;
+        }
+        if (whiteRooks == 2 && blackRooks == 0) {
+            return KRRK;
+        }
+        if (whiteRooks == 1 && blackRooks == 1) {
+            return KRKR;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,227 @@
+package com.mateusdalcantara.chess.tablebase;
+
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessPiece;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.PieceType;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A read-only endgame tablebase stored in a memory-mapped file.
+ * <p>
+ * The tables hold one byte per position with the exact distance to mate, in plies, from the
+ * point of view of the side to move:
+ * </p>
+ * <ul>
+ *     <li>a positive value {@code n} means the side to move mates in {@code n} plies;</li>
+ *     <li>a negative value {@code -(n + 1)} means the side to move is mated in {@code n} plies
+ *     ({@code -1} means it is already checkmated);</li>
+ *     <li>zero means the position is a draw.</li>
+ * </ul>
+ * <p>
+ * A probe only computes an index and reads one byte from the mapping, so it takes constant
+ * time and allocates nothing. The file is mapped read-only and its pages are shared by every
+ * match and every process that probes it.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     Tablebase tablebase = Tablebase.open(Paths.get("kr.tb"));
+ *     int value = tablebase.probe(chessMatch);
+ *     if (value != Tablebase.NOT_FOUND &amp;&amp; Tablebase.isWin(value)) { ... }
+ * </pre>
+ *
+ * @see TablebaseGenerator
+ * @see Endgame
+ */
+public class Tablebase {
+
+    /** Result of a probe when the position is not covered by the tablebase. */
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    /** Table value of the positions that cannot occur in a game. */
+    static final byte ILLEGAL = Byte.MIN_VALUE;
+
+    /** Magic number at the start of every tablebase file ("CPTB"). */
+    static final int MAGIC = 0x43505442;
+
+    /** Version of the tablebase format. */
+    static final int VERSION = 1;
+
+    /** Size of the header in bytes. */
+    static final int HEADER_BYTES = 16;
+
+    /** Size of one directory entry in bytes. */
+    static final int DIRECTORY_ENTRY_BYTES = 16;
+
+    /** The read-only mapping of the tablebase file. */
+    private final MappedByteBuffer buffer;
+
+    /** The offset of each table in the file, indexed by endgame ordinal, or -1 if absent. */
+    private final int[] offsets;
+
+    /** Scratch arrays of the probing thread. */
+    private final ThreadLocal<Probe> probes = ThreadLocal.withInitial(Probe::new);
+
+    private Tablebase(MappedByteBuffer buffer, int[] offsets) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Maps a tablebase file.
+     *
+     * @param file the tablebase file written by {@link TablebaseGenerator#write(Path)}.
+     * @return the opened tablebase.
+     * @throws IOException if the file cannot be read or is not a valid tablebase.
+     */
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a tablebase: " + file);
+            }
+            int count = buffer.getInt(8);
+            int[] offsets = new int[Endgame.values().length];
+            Arrays.fill(offsets, -1);
+            for (int i = 0; i < count; i++) {
+                int entry = HEADER_BYTES + i * DIRECTORY_ENTRY_BYTES;
+                int ordinal = buffer.getInt(entry);
+                int size = buffer.getInt(entry + 4);
+                long offset = buffer.getLong(entry + 8);
+                if (ordinal < 0 || ordinal >= offsets.length || size != Endgame.values()[ordinal].tableSize()
+                        || offset + size > buffer.capacity()) {
+                    throw new IOException("Corrupted tablebase directory: " + file);
+                }
+                offsets[ordinal] = (int) offset;
+            }
+            return new Tablebase(buffer, offsets);
+        }
+    }
+
+    /**
+     * Checks whether the tablebase contains the table of an endgame.
+     *
+     * @param endgame the endgame.
+     * @return {@code true} if positions of that endgame can be probed.
+     */
+    public boolean contains(Endgame endgame) {
+        return offsets[endgame.ordinal()] >= 0;
+    }
+
+    /**
+     * Returns the exact value of the current position of a match.
+     *
+     * @param chessMatch the match to probe.
+     * @return the distance to mate as described in the class documentation, or {@link #NOT_FOUND}
+     *         if the material is not covered by the tablebase or the board is not 8x8.
+     */
+    public int probe(ChessMatch chessMatch) {
+        Probe probe = probes.get();
+        if (chessMatch.getRows() != 8 || chessMatch.getColumns() != 8
+                || chessMatch.getPieceCount() > probe.squares.length) {
+            return NOT_FOUND;
+        }
+        int whites = chessMatch.getPieceSquares(Color.WHITE, probe.squares, 0);
+        int count = whites + chessMatch.getPieceSquares(Color.BLACK, probe.squares, whites);
+        for (int i = 0; i < count; i++) {
+            PieceType type = chessMatch.getPieceType(probe.squares[i]);
+            if (type != PieceType.KING && type != PieceType.ROOK) {
+                return NOT_FOUND;
+            }
+            probe.kings[i] = type == PieceType.KING;
+            probe.colors[i] = i < whites ? Color.WHITE : Color.BLACK;
+        }
+        return probe(probe, count, chessMatch.getCurrentPlayer());
+    }
+
+    /**
+     * Returns the exact value of a position given as a matrix of pieces.
+     *
+     * @param pieces      the 8x8 matrix of pieces, as returned by {@link ChessMatch#getPieces()}.
+     * @param sideToMove  the color of the side to move.
+     * @return the distance to mate as described in the class documentation, or {@link #NOT_FOUND}
+     *         if the material is not covered by the tablebase.
+     */
+    public int probe(ChessPiece[][] pieces, Color sideToMove) {
+        Probe probe = probes.get();
+        int count = 0;
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                ChessPiece piece = pieces[i][j];
+                if (piece == null) {
+                    continue;
+                }
+                if (count == probe.squares.length || (piece.getType() != PieceType.KING && piece.getType() != PieceType.ROOK)) {
+                    return NOT_FOUND;
+                }
+                probe.squares[count] = i * 8 + j;
+                probe.kings[count] = piece.getType() == PieceType.KING;
+                probe.colors[count] = piece.getColor();
+                count++;
+            }
+        }
+        return probe(probe, count, sideToMove);
+    }
+
+    /**
+     * Looks up the position described by the first {@code count} pieces of a probe.
+     */
+    private int probe(Probe probe, int count, Color sideToMove) {
+        int located = TablebaseIndex.locate(probe.squares, probe.kings, probe.colors, count, sideToMove == Color.BLACK, probe.scratch);
+        if (located == TablebaseIndex.BARE_KINGS) {
+            return 0;
+        }
+        if (located == TablebaseIndex.NOT_COVERED || offsets[located >>> 24] < 0) {
+            return NOT_FOUND;
+        }
+        byte value = buffer.get(offsets[located >>> 24] + (located & 0xFFFFFF));
+        return value == ILLEGAL ? NOT_FOUND : value;
+    }
+
+    /**
+     * Checks whether a probe result is a win for the side to move.
+     *
+     * @param value a value returned by {@link #probe(ChessMatch)}.
+     * @return {@code true} if the side to move mates.
+     */
+    public static boolean isWin(int value) {
+        return value > 0 && value != NOT_FOUND;
+    }
+
+    /**
+     * Checks whether a probe result is a loss for the side to move.
+     *
+     * @param value a value returned by {@link #probe(ChessMatch)}.
+     * @return {@code true} if the side to move gets mated.
+     */
+    public static boolean isLoss(int value) {
+        return value < 0 && value != NOT_FOUND;
+    }
+
+    /**
+     * Returns the number of plies until mate of a win or loss.
+     *
+     * @param value a value returned by {@link #probe(ChessMatch)} that is a win or a loss.
+     * @return the distance to mate in plies.
+     */
+    public static int pliesToMate(int value) {
+        return value > 0 ? value : -value - 1;
+    }
+
+    /**
+     * The per-thread arrays used to describe the probed position.
+     */
+    private static class Probe {
+        final int[] squares = new int[4];
+        final boolean[] kings = new boolean[4];
+        final Color[] colors = new Color[4];
+        final int[] scratch = new int[4];
+    }
+}
@@ -0,0 +1,348 @@
+package com.mateusdalcantara.chess.tablebase;
+
+import com.mateusdalcantara.chess.Color;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.IntStream;
+
+/**
+ * Generates the king and rook endgame tables by retrograde analysis.
+ * <p>
+ * Every table entry holds the distance to mate of one position, from the point of view of the
+ * side to move (see {@link Tablebase} for the encoding). The generator starts by marking the
+ * illegal, checkmate and stalemate positions. Then, in pass {@code n}, an unresolved position
+ * becomes a win in {@code n} plies if one of its moves leads to a loss in {@code n - 1} plies,
+ * and a loss in {@code n} plies if every move leads to a win in less than {@code n} plies. The
+ * passes stop when a pass resolves nothing; the positions still unresolved are draws.
+ * </p>
+ * <p>
+ * Each pass splits the table in chunks that are processed on all cores through a parallel
+ * stream. Threads of the same pass may see each other's writes or not: a pass only relies on
+ * values resolved by earlier passes, so the result is the same either way. Captures lead into
+ * smaller tables, which are therefore generated first.
+ * </p>
+ * <p>
+ * The rules are those of standard chess: a king may not move into check, and a side with no
+ * legal move is checkmated if its king is attacked and stalemated otherwise.
+ * </p>
+ *
+ * @see Tablebase
+ * @see Endgame
+ */
+public class TablebaseGenerator {
+
+    /** Value of the positions not resolved yet. Replaced by a draw when generation ends. */
+    private static final byte UNKNOWN = Byte.MAX_VALUE;
+
+    /** The longest distance to mate that can be stored in a byte. */
+    private static final int MAX_PLIES = 126;
+
+    /** Number of positions processed by one task of a parallel pass. */
+    private static final int CHUNK_SIZE = 4096;
+
+    /** The king steps, as (row, column) offsets. */
+    private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+    /** The rook directions, as (row, column) offsets. */
+    private static final int[][] ROOK_STEPS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    /** The generated tables, indexed by endgame ordinal. */
+    private final byte[][] tables = new byte[Endgame.values().length][];
+
+    /**
+     * Returns the table of an endgame, generating it (and the tables it depends on) if needed.
+     *
+     * @param endgame the endgame to generate.
+     * @return the table of the endgame.
+     */
+    public byte[] generate(Endgame endgame) {
+        if (tables[endgame.ordinal()] == null) {
+            if (endgame != Endgame.KRK) {
+                generate(Endgame.KRK); // every capture in the larger endgames leads to KRK
+            }
+            tables[endgame.ordinal()] = retrograde(endgame);
+        }
+        return tables[endgame.ordinal()];
+    }
+
+    /**
+     * Writes every generated table to a tablebase file.
+     * <p>
+     * The file starts with a 16-byte header (magic number, format version, table count and a
+     * reserved word), followed by one 16-byte directory entry per table (endgame ordinal, size
+     * and offset) and by the tables themselves.
+     * </p>
+     *
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        int count = 0;
+        for (byte[] table : tables) {
+            if (table != null) {
+                count++;
+            }
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(Tablebase.VERSION);
+            out.writeInt(count);
+            out.writeInt(0);
+            long offset = Tablebase.HEADER_BYTES + (long) count * Tablebase.DIRECTORY_ENTRY_BYTES;
+            for (Endgame endgame : Endgame.values()) {
+                byte[] table = tables[endgame.ordinal()];
+                if (table != null) {
+                    out.writeInt(endgame.ordinal());
+                    out.writeInt(table.length);
+                    out.writeLong(offset);
+                    offset += table.length;
+                }
+            }
+            for (byte[] table : tables) {
+                if (table != null) {
+                    out.write(table);
+                }
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Generates the tables and writes them to a file.
+     *
+     * @param args the output file, optionally followed by the endgames to generate
+     *             (all of them by default).
+     * @throws IOException if the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: TablebaseGenerator <file> [KRK] [KRRK] [KRKR]");
+            return;
+        }
+        TablebaseGenerator generator = new TablebaseGenerator();
+        Endgame[] endgames = Endgame.values();
+        if (args.length > 1) {
+            endgames = new Endgame[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                endgames[i - 1] = Endgame.valueOf(args[i]);
+            }
+        }
+        for (Endgame endgame : endgames) {
+            long start = System.nanoTime();
+            generator.generate(endgame);
+            System.out.printf("%s generated in %d ms%n", endgame, (System.nanoTime() - start) / 1_000_000);
+        }
+        generator.write(Paths.get(args[0]));
+    }
+
+    /**
+     * Runs the retrograde analysis of one endgame.
+     */
+    private byte[] retrograde(Endgame endgame) {
+        byte[] table = new byte[endgame.tableSize()];
+        int chunks = (table.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        IntStream.range(0, chunks).parallel().forEach(chunk -> new Worker(endgame, table).run(chunk, 0));
+
+        int deepestCapture = 0;
+        for (byte[] other : tables) {
+            if (other != null) {
+                for (byte value : other) {
+                    if (value != Tablebase.ILLEGAL) {
+                        deepestCapture = Math.max(deepestCapture, Math.abs(value));
+                    }
+                }
+            }
+        }
+        for (int n = 1; n <= MAX_PLIES; n++) {
+            final int pass = n;
+            int resolved = IntStream.range(0, chunks).parallel().map(chunk -> new Worker(endgame, table).run(chunk, pass)).sum();
+            if (resolved == 0 && n > deepestCapture + 1) {
+                break;
+            }
+        }
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == UNKNOWN) {
+                table[i] = 0;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Evaluates the positions of one chunk with its own scratch arrays.
+     */
+    private class Worker {
+
+        private final byte[] table;
+        private final int count;
+        private final boolean[] kings;
+        private final Color[] colors;
+        private final int[] squares;
+        private final int[] moved;
+        private final int[] scratch = new int[4];
+
+        Worker(Endgame endgame, byte[] table) {
+            this.table = table;
+            this.count = endgame.pieceCount();
+            this.kings = new boolean[count];
+            this.colors = new Color[count];
+            this.squares = new int[count];
+            this.moved = new int[count];
+            kings[0] = true;
+            kings[1] = true;
+            colors[0] = Color.WHITE;
+            colors[1] = Color.BLACK;
+            System.arraycopy(endgame.getRooks(), 0, colors, 2, count - 2);
+        }
+
+        /**
+         * Runs one pass over a chunk.
+         *
+         * @return the number of positions resolved.
+         */
+        int run(int chunk, int pass) {
+            int resolved = 0;
+            int end = Math.min(table.length, (chunk + 1) * CHUNK_SIZE);
+            for (int index = chunk * CHUNK_SIZE; index < end; index++) {
+                if (pass == 0 || table[index] == UNKNOWN) {
+                    byte value = evaluate(index, pass);
+                    table[index] = value;
+                    if (pass > 0 && value != UNKNOWN) {
+                        resolved++;
+                    }
+                }
+            }
+            return resolved;
+        }
+
+        /**
+         * Returns the value of a position at the given pass, or {@code UNKNOWN}.
+         */
+        private byte evaluate(int index, int pass) {
+            boolean blackToMove = TablebaseIndex.decode(index, count, squares);
+            for (int i = 0; i < count; i++) {
+                for (int j = i + 1; j < count; j++) {
+                    if (squares[i] == squares[j]) {
+                        return Tablebase.ILLEGAL;
+                    }
+                }
+            }
+            Color side = blackToMove ? Color.BLACK : Color.WHITE;
+            Color opponent = blackToMove ? Color.WHITE : Color.BLACK;
+            if (isAttacked(squares, squares[blackToMove ? 0 : 1], side)) {
+                return Tablebase.ILLEGAL; // the side that just moved left its king in check
+            }
+
+            boolean hasMove = false;
+            boolean allWinning = true;
+            for (int i = 0; i < count; i++) {
+                if (colors[i] != side) {
+                    continue;
+                }
+                int[][] steps = kings[i] ? KING_STEPS : ROOK_STEPS;
+                for (int[] step : steps) {
+                    int row = squares[i] >> 3;
+                    int column = squares[i] & 7;
+                    while (true) {
+                        row += step[0];
+                        column += step[1];
+                        if (row < 0 || row > 7 || column < 0 || column > 7) {
+                            break;
+                        }
+                        int target = row * 8 + column;
+                        int occupant = pieceAt(squares, target);
+                        if (occupant >= 0 && (colors[occupant] == side || kings[occupant])) {
+                            break;
+                        }
+                        System.arraycopy(squares, 0, moved, 0, count);
+                        moved[i] = target;
+                        if (occupant >= 0) {
+                            moved[occupant] = -1;
+                        }
+                        if (!isAttacked(moved, moved[blackToMove ? 1 : 0], opponent)) {
+                            hasMove = true;
+                            if (pass == 0) {
+                                return UNKNOWN;
+                            }
+                            int value = successor(moved, !blackToMove, occupant >= 0);
+                            if (value == -pass) {
+                                return (byte) pass;
+                            }
+                            if (value < 1 || value >= pass) {
+                                allWinning = false;
+                            }
+                        }
+                        if (kings[i] || occupant >= 0) {
+                            break;
+                        }
+                    }
+                }
+            }
+            if (!hasMove) {
+                return isAttacked(squares, squares[blackToMove ? 1 : 0], opponent) ? (byte) -1 : 0;
+            }
+            return allWinning ? (byte) -(pass + 1) : UNKNOWN;
+        }
+
+        /**
+         * Returns the value of the position reached by a move, from the point of view of the opponent.
+         */
+        private int successor(int[] position, boolean blackToMove, boolean capture) {
+            if (!capture) {
+                return table[TablebaseIndex.index(position, count, blackToMove)];
+            }
+            int located = TablebaseIndex.locate(position, kings, colors, count, blackToMove, scratch);
+            if (located == TablebaseIndex.BARE_KINGS) {
+                return 0;
+            }
+            return tables[located >>> 24][located & 0xFFFFFF];
+        }
+
+        private int pieceAt(int[] position, int square) {
+            for (int i = 0; i < count; i++) {
+                if (position[i] == square) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Checks whether a square is attacked by a side, considering the pieces that block rooks.
+         */
+        private boolean isAttacked(int[] position, int square, Color by) {
+            int row = square >> 3;
+            int column = square & 7;
+            for (int i = 0; i < count; i++) {
+                if (position[i] < 0 || position[i] == square || colors[i] != by) {
+                    continue;
+                }
+                int pieceRow = position[i] >> 3;
+                int pieceColumn = position[i] & 7;
+                if (kings[i]) {
+                    if (Math.abs(pieceRow - row) <= 1 && Math.abs(pieceColumn - column) <= 1) {
+                        return true;
+                    }
+                } else if (pieceRow == row || pieceColumn == column) {
+                    int step = pieceRow == row ? Integer.signum(column - pieceColumn) : 8 * Integer.signum(row - pieceRow);
+                    int between = position[i] + step;
+                    while (between != square && pieceAt(position, between) < 0) {
+                        between += step;
+                    }
+                    if (between == square) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.mateusdalcantara.chess.tablebase;
+
+import com.mateusdalcantara.chess.Color;
+
+/**
+ * Maps endgame positions to table indexes.
+ * <p>
+ * Squares are numbered from 0 ('a8') to 63 ('h1') as in {@code ChessMove}. Because positions
+ * with kings and rooks only are symmetric under the eight reflections and rotations of the
+ * board, every position is first transformed so that the white king stands in the triangle
+ * a1-d1-d4 (10 squares). The index is then built from the triangle index of the white king,
+ * the squares of the other pieces and the side to move, which makes the tables about six
+ * times smaller than a naive 64-square layout.
+ * </p>
+ *
+ * @see Endgame
+ */
+final class TablebaseIndex {
+
+    /** Number of squares in the a1-d1-d4 triangle. */
+    static final int KING_SQUARES = 10;
+
+    /** {@code MAP[t][square]} is the square obtained by applying transform {@code t}. */
+    private static final int[][] MAP = new int[8][64];
+
+    /** The transform that brings a white king on each square into the triangle. */
+    private static final int[] CANONICAL = new int[64];
+
+    /** The triangle index of each square, or -1 for squares outside the triangle. */
+    private static final int[] TRIANGLE_INDEX = new int[64];
+
+    /** The square of each triangle index. */
+    private static final int[] TRIANGLE_SQUARES = new int[KING_SQUARES];
+
+    static {
+        for (int t = 0; t < 8; t++) {
+            for (int square = 0; square < 64; square++) {
+                int row = square >> 3;
+                int column = square & 7;
+                if ((t & 4) != 0) {
+                    int aux = row;
+                    row = column;
+                    column = aux;
+                }
+                if ((t & 1) != 0) {
+                    column = 7 - column;
+                }
+                if ((t & 2) != 0) {
+                    row = 7 - row;
+                }
+                MAP[t][square] = row * 8 + column;
+            }
+        }
+        int count = 0;
+        for (int square = 0; square < 64; square++) {
+            TRIANGLE_INDEX[square] = -1;
+            if (inTriangle(square)) {
+                TRIANGLE_INDEX[square] = count;
+                TRIANGLE_SQUARES[count++] = square;
+            }
+        }
+        for (int square = 0; square < 64; square++) {
+            for (int t = 0; t < 8; t++) {
+                if (inTriangle(MAP[t][square])) {
+                    CANONICAL[square] = t;
+                    break;
+                }
+            }
+        }
+    }
+
+    private TablebaseIndex() {
+    }
+
+    /**
+     * Returns the table index of a position.
+     *
+     * @param squares     the squares of the pieces: white king, black king, then the rooks in the
+     *                    order of {@link Endgame#getRooks()}.
+     * @param count       the number of pieces of the endgame.
+     * @param blackToMove whether black is to move.
+     * @return the index of the position in its table.
+     */
+    static int index(int[] squares, int count, boolean blackToMove) {
+        int[] map = MAP[CANONICAL[squares[0]]];
+        int index = TRIANGLE_INDEX[map[squares[0]]];
+        for (int i = 1; i < count; i++) {
+            index = index * 64 + map[squares[i]];
+        }
+        return index * 2 + (blackToMove ? 1 : 0);
+    }
+
+    /**
+     * Decodes a table index into piece squares.
+     *
+     * @param index   the table index.
+     * @param count   the number of pieces of the endgame.
+     * @param squares receives the squares of the pieces, in the order used by {@link #index}.
+     * @return whether black is to move.
+     */
+    static boolean decode(int index, int count, int[] squares) {
+        boolean blackToMove = (index & 1) != 0;
+        index >>= 1;
+        for (int i = count - 1; i > 0; i--) {
+            squares[i] = index & 63;
+            index >>= 6;
+        }
+        squares[0] = TRIANGLE_SQUARES[index];
+        return blackToMove;
+    }
+
+    /** Result of {@link #locate} when only the two kings are left. */
+    static final int BARE_KINGS = -2;
+
+    /** Result of {@link #locate} when the material is not covered by any table. */
+    static final int NOT_COVERED = -1;
+
+    /**
+     * Finds the table and the index of an arbitrary king and rook position.
+     * <p>
+     * The pieces may be given in any order and with either side stronger; captured pieces are
+     * marked with square -1. When black has more rooks than white, the board is mirrored and
+     * the colors are swapped so that the position can be found in a white-strong table.
+     * </p>
+     *
+     * @param squares     the squares of the pieces, or -1 for captured pieces.
+     * @param kings       whether each piece is a king (otherwise it is a rook).
+     * @param colors      the color of each piece.
+     * @param count       the number of pieces in the arrays.
+     * @param blackToMove whether black is to move.
+     * @param scratch     an array of at least 4 elements used to build the index.
+     * @return {@code endgame.ordinal() << 24 | index}, {@link #BARE_KINGS} or {@link #NOT_COVERED}.
+     */
+    static int locate(int[] squares, boolean[] kings, Color[] colors, int count, boolean blackToMove, int[] scratch) {
+        int whiteRooks = 0;
+        int blackRooks = 0;
+        int whiteKing = -1;
+        int blackKing = -1;
+        for (int i = 0; i < count; i++) {
+            if (squares[i] < 0) {
+                continue;
+            }
+            if (kings[i]) {
+                if (colors[i] == Color.WHITE) {
+                    whiteKing = squares[i];
+                } else {
+                    blackKing = squares[i];
+                }
+            } else if (colors[i] == Color.WHITE) {
+                whiteRooks++;
+            } else {
+                blackRooks++;
+            }
+        }
+        if (whiteKing < 0 || blackKing < 0) {
+            return NOT_COVERED;
+        }
+        boolean swap = blackRooks > whiteRooks;
+        Endgame endgame = swap ? Endgame.of(blackRooks, whiteRooks) : Endgame.of(whiteRooks, blackRooks);
+        if (endgame == null) {
+            return whiteRooks + blackRooks == 0 ? BARE_KINGS : NOT_COVERED;
+        }
+        Color strong = swap ? Color.BLACK : Color.WHITE;
+        scratch[0] = swap ? mirror(blackKing) : whiteKing;
+        scratch[1] = swap ? mirror(whiteKing) : blackKing;
+        int next = 2;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < count; i++) {
+                // strong side rooks first, then the weak side ones, as in Endgame.getRooks()
+                if (squares[i] >= 0 && !kings[i] && (colors[i] == strong) == (pass == 0)) {
+                    scratch[next++] = swap ? mirror(squares[i]) : squares[i];
+                }
+            }
+        }
+        return endgame.ordinal() << 24 | index(scratch, next, blackToMove != swap);
+    }
+
+    /**
+     * Returns the square seen from the other side of the board, used to swap colors.
+     */
+    static int mirror(int square) {
+        return square ^ 56;
+    }
+
+    private static boolean inTriangle(int square) {
+        int row = square >> 3;
+        int column = square & 7;
+        return column <= 3 && row >= 4 && 7 - row <= column;
+    }
+}
@@ -0,0 +1,83 @@
+package com.mateusdalcantara.chess.tournament;
+
+import com.mateusdalcantara.chess.search.Search;
+import com.mateusdalcantara.chess.search.SearchLimits;
+import com.mateusdalcantara.chess.search.TranspositionTable;
+
+/**
+ * The settings of one engine of a {@link Tournament}: its name, its limits per move and the
+ * size of its transposition table.
+ * <p>
+ * Two settings of the same engine with different values are a parameter variant: playing them
+ * against each other measures the effect of the change.
+ * </p>
+ */
+public class EngineSettings {
+
+    /** The name shown in the tournament results. */
+    private final String name;
+
+    /** The limits of the search of each move. */
+    private final SearchLimits limits;
+
+    /** The size of the transposition table, in megabytes, or 0 for none. */
+    private final int hashMegabytes;
+
+    /**
+     * Constructs engine settings.
+     *
+     * @param name          the name shown in the results.
+     * @param limits        the limits of the search of each move.
+     * @param hashMegabytes the size of the transposition table in megabytes, or 0 for none.
+     */
+    public EngineSettings(String name, SearchLimits limits, int hashMegabytes) {
+        this.name = name;
+        this.limits = limits;
+        this.hashMegabytes = hashMegabytes;
+    }
+
+    /**
+     * Returns the name shown in the results.
+     *
+     * @return the engine name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the limits of the search of each move.
+     *
+     * @return the search limits.
+     */
+    public SearchLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Returns the size of the transposition table.
+     *
+     * @return the size in megabytes, or 0 for none.
+     */
+    public int getHashMegabytes() {
+        return hashMegabytes;
+    }
+
+    /**
+     * Builds a search configured with these settings.
+     *
+     * @return a new search.
+     */
+    Search newSearch() {
+        Search search = new Search();
+        if (hashMegabytes > 0) {
+            search.setTranspositionTable(new TranspositionTable(hashMegabytes));
+        }
+        return search;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + limits + (hashMegabytes > 0 ? ", hash " + hashMegabytes + " MB" : "") + ")";
+    }
+}
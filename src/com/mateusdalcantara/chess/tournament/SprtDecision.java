@@ -0,0 +1,18 @@
+package com.mateusdalcantara.chess.tournament;
+
+/**
+ * The state of a sequential probability ratio test (SPRT).
+ *
+ * @see TournamentStats#getDecision()
+ */
+public enum SprtDecision {
+
+    /** Not enough games yet to accept either hypothesis. */
+    CONTINUE,
+
+    /** The Elo difference is at least the upper bound of the test: the change is an improvement. */
+    ACCEPT_H1,
+
+    /** The Elo difference is at most the lower bound of the test: the change is not an improvement. */
+    ACCEPT_H0
+}
@@ -0,0 +1,186 @@
+package com.mateusdalcantara.chess.tournament;
+
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.search.Search;
+import com.mateusdalcantara.chess.search.SearchLimits;
+import com.mateusdalcantara.chess.search.SearchResult;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays games between two engine settings on every core and reports the results as they arrive.
+ * <p>
+ * Each worker thread plays one game at a time with its own {@link ChessMatch} and its own
+ * {@link Search} for each engine. Every opening is played twice, once with each engine as
+ * white, so that an unbalanced opening does not favour either engine. The tournament stops
+ * after the requested number of games, or as soon as the SPRT of the {@link TournamentStats}
+ * accepts a hypothesis.
+ * </p>
+ * <p>
+ * A game is a draw by stalemate, by repetition of a position, after {@value #MAX_PLIES_WITHOUT_CAPTURE}
+ * plies without a capture, or after {@value #MAX_GAME_PLIES} plies.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     Tournament tournament = new Tournament(baseline, candidate, openings, new TournamentStats(0, 5, 0.05, 0.05));
+ *     tournament.run(20000, Runtime.getRuntime().availableProcessors(), System.out);
+ * </pre>
+ */
+public class Tournament {
+
+    /** The length after which a game is adjudicated a draw, in plies. */
+    public static final int MAX_GAME_PLIES = 300;
+
+    /** The number of plies without a capture after which a game is a draw. */
+    public static final int MAX_PLIES_WITHOUT_CAPTURE = 100;
+
+    private final EngineSettings first;
+    private final EngineSettings second;
+    private final List<String> openings;
+    private final TournamentStats stats;
+
+    /** The number of the next game to play. */
+    private final AtomicInteger nextGame = new AtomicInteger();
+
+    /**
+     * Constructs a tournament.
+     *
+     * @param first    the first engine; the statistics are from its point of view.
+     * @param second   the second engine.
+     * @param openings the starting positions in FEN, or an empty list to start every game from the initial setup.
+     * @param stats    the statistics receiving the results.
+     */
+    public Tournament(EngineSettings first, EngineSettings second, List<String> openings, TournamentStats stats) {
+        this.first = first;
+        this.second = second;
+        this.openings = openings.isEmpty() ? Collections.singletonList(ChessMatch.INITIAL_FEN) : new ArrayList<>(openings);
+        this.stats = stats;
+    }
+
+    /**
+     * Plays the tournament and blocks until it is over.
+     *
+     * @param games   the maximum number of games.
+     * @param threads the number of games played at the same time.
+     * @param log     the stream receiving one line of statistics per game, or {@code null}.
+     * @return the statistics.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public TournamentStats run(int games, int threads, PrintStream log) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> play(games, log), "tournament-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return stats;
+    }
+
+    /**
+     * Runs on a worker thread: plays games until the tournament is over.
+     */
+    private void play(int games, PrintStream log) {
+        ChessMatch chessMatch = new ChessMatch();
+        Search firstSearch = first.newSearch();
+        Search secondSearch = second.newSearch();
+        int game;
+        while ((game = nextGame.getAndIncrement()) < games && stats.getDecision() == SprtDecision.CONTINUE) {
+            boolean firstIsWhite = game % 2 == 0;
+            String opening = openings.get(game / 2 % openings.size());
+            chessMatch.setPosition(opening);
+            double whiteScore = playGame(chessMatch,
+                    firstIsWhite ? firstSearch : secondSearch, firstIsWhite ? first : second,
+                    firstIsWhite ? secondSearch : firstSearch, firstIsWhite ? second : first);
+            stats.add(firstIsWhite ? whiteScore : 1 - whiteScore);
+            if (log != null) {
+                log.println(stats);
+            }
+        }
+    }
+
+    /**
+     * Plays one game from the current position of the match.
+     *
+     * @return the score of white: 1, 0.5 or 0.
+     */
+    private static double playGame(ChessMatch chessMatch, Search whiteSearch, EngineSettings whiteSettings,
+                                   Search blackSearch, EngineSettings blackSettings) {
+        clearTable(whiteSearch);
+        clearTable(blackSearch);
+        int pliesWithoutCapture = 0;
+        for (int ply = 0; ply < MAX_GAME_PLIES; ply++) {
+            boolean whiteToMove = chessMatch.getCurrentPlayer() == Color.WHITE;
+            Search search = whiteToMove ? whiteSearch : blackSearch;
+            SearchLimits limits = whiteToMove ? whiteSettings.getLimits() : blackSettings.getLimits();
+            SearchResult result = search.search(chessMatch, limits);
+            int move = result.getBestMove();
+            if (move == ChessMove.NONE) {
+                if (!chessMatch.getCheck()) {
+                    return 0.5;
+                }
+                return whiteToMove ? 0 : 1;
+            }
+            pliesWithoutCapture = chessMatch.isCapture(move) ? 0 : pliesWithoutCapture + 1;
+            chessMatch.makeMove(move);
+            if (pliesWithoutCapture >= MAX_PLIES_WITHOUT_CAPTURE || chessMatch.isRepetition()) {
+                return 0.5;
+            }
+        }
+        return 0.5;
+    }
+
+    /**
+     * Forgets the previous game, so that every game is played under the same conditions.
+     */
+    private static void clearTable(Search search) {
+        if (search.getTranspositionTable() != null) {
+            search.getTranspositionTable().clear();
+        }
+    }
+
+    /**
+     * Runs a tournament from the command line between two node limits of the same engine.
+     * <p>
+     * Usage: {@code Tournament <games> <nodes of first> <nodes of second> [openings file] [threads]};
+     * the openings file has one FEN per line.
+     * </p>
+     *
+     * @param args the command line arguments.
+     * @throws IOException          if the openings cannot be read.
+     * @throws InterruptedException if interrupted while waiting for the games.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.out.println("Usage: Tournament <games> <nodes of first> <nodes of second> [openings file] [threads]");
+            return;
+        }
+        EngineSettings first = new EngineSettings("first", SearchLimits.nodes(Long.parseLong(args[1])), 16);
+        EngineSettings second = new EngineSettings("second", SearchLimits.nodes(Long.parseLong(args[2])), 16);
+        List<String> openings = new ArrayList<>();
+        if (args.length > 3) {
+            for (String line : Files.readAllLines(Paths.get(args[3]), StandardCharsets.UTF_8)) {
+                if (!line.trim().isEmpty() && !line.startsWith("#")) {
+                    openings.add(line.trim());
+                }
+            }
+        }
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        System.out.println(first + " vs " + second);
+        TournamentStats stats = new Tournament(first, second, openings, new TournamentStats(0, 5, 0.05, 0.05))
+                .run(Integer.parseInt(args[0]), threads, System.out);
+        System.out.println("Final: " + stats);
+    }
+}
@@ -0,0 +1,193 @@
+package com.mateusdalcantara.chess.tournament;
+
+/**
+ * The running results of a {@link Tournament}, from the point of view of the first engine,
+ * with the Elo estimate and a sequential probability ratio test (SPRT).
+ * <p>
+ * The SPRT tests the hypothesis H0, "the Elo difference is {@code elo0}", against H1, "it is
+ * {@code elo1}", after every game, and stops as soon as one of them is accepted with error
+ * rates {@code alpha} (accepting H1 when H0 is true) and {@code beta} (the opposite). The
+ * log-likelihood ratio uses the normal approximation of the trinomial (win/draw/loss) model,
+ * which is accurate from a few dozen games on.
+ * </p>
+ * <p>
+ * This class is thread-safe: results may be added by every game thread.
+ * </p>
+ */
+public class TournamentStats {
+
+    /** The Elo difference of the null hypothesis. */
+    private final double elo0;
+
+    /** The Elo difference of the alternative hypothesis. */
+    private final double elo1;
+
+    /** The lower bound of the log-likelihood ratio: below it, H0 is accepted. */
+    private final double lowerBound;
+
+    /** The upper bound of the log-likelihood ratio: above it, H1 is accepted. */
+    private final double upperBound;
+
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /**
+     * Constructs empty statistics.
+     *
+     * @param elo0  the Elo difference of the null hypothesis, for example 0.
+     * @param elo1  the Elo difference of the alternative hypothesis, for example 5.
+     * @param alpha the probability of accepting H1 when H0 is true, for example 0.05.
+     * @param beta  the probability of accepting H0 when H1 is true, for example 0.05.
+     */
+    public TournamentStats(double elo0, double elo1, double alpha, double beta) {
+        if (elo1 <= elo0 || alpha <= 0 || beta <= 0 || alpha >= 1 || beta >= 1) {
+            throw new IllegalArgumentException("Invalid SPRT parameters");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Adds the result of a game.
+     *
+     * @param score the score of the first engine: 1 for a win, 0.5 for a draw, 0 for a loss.
+     */
+    public synchronized void add(double score) {
+        if (score > 0.5) {
+            wins++;
+        } else if (score < 0.5) {
+            losses++;
+        } else {
+            draws++;
+        }
+    }
+
+    /**
+     * Returns the number of games played.
+     *
+     * @return the number of results added.
+     */
+    public synchronized int getGames() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * Returns the number of wins of the first engine.
+     *
+     * @return the number of wins.
+     */
+    public synchronized int getWins() {
+        return wins;
+    }
+
+    /**
+     * Returns the number of draws.
+     *
+     * @return the number of draws.
+     */
+    public synchronized int getDraws() {
+        return draws;
+    }
+
+    /**
+     * Returns the number of losses of the first engine.
+     *
+     * @return the number of losses.
+     */
+    public synchronized int getLosses() {
+        return losses;
+    }
+
+    /**
+     * Returns the estimated Elo difference of the first engine over the second.
+     *
+     * @return the Elo difference, or 0 before the first game.
+     */
+    public synchronized double getElo() {
+        int games = wins + draws + losses;
+        return games == 0 ? 0 : elo(clamp((wins + draws / 2.0) / games));
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of {@link #getElo()}.
+     *
+     * @return the error margin in Elo, or infinity with fewer than two games.
+     */
+    public synchronized double getEloError() {
+        int games = wins + draws + losses;
+        if (games < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double score = (wins + draws / 2.0) / games;
+        double deviation = Math.sqrt(variance(score) / games);
+        return (elo(clamp(score + 1.96 * deviation)) - elo(clamp(score - 1.96 * deviation))) / 2;
+    }
+
+    /**
+     * Returns the log-likelihood ratio of H1 against H0.
+     *
+     * @return the ratio, or 0 while every game has the same result.
+     */
+    public synchronized double getLlr() {
+        int games = wins + draws + losses;
+        if (games == 0) {
+            return 0;
+        }
+        double score = (wins + draws / 2.0) / games;
+        double variance = variance(score);
+        if (variance == 0) {
+            return 0;
+        }
+        double score0 = expectedScore(elo0);
+        double score1 = expectedScore(elo1);
+        return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * Returns the state of the test.
+     *
+     * @return whether a hypothesis has been accepted.
+     */
+    public synchronized SprtDecision getDecision() {
+        double llr = getLlr();
+        if (llr >= upperBound) {
+            return SprtDecision.ACCEPT_H1;
+        }
+        if (llr <= lowerBound) {
+            return SprtDecision.ACCEPT_H0;
+        }
+        return SprtDecision.CONTINUE;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Games %d: +%d =%d -%d  Elo %.1f +/- %.1f  LLR %.2f [%.2f, %.2f] %s",
+                getGames(), wins, draws, losses, getElo(), getEloError(), getLlr(), lowerBound, upperBound, getDecision());
+    }
+
+    /**
+     * Returns the variance of the result of one game around a mean score.
+     */
+    private double variance(double score) {
+        int games = wins + draws + losses;
+        return (wins * (1 - score) * (1 - score)
+                + draws * (0.5 - score) * (0.5 - score)
+                + losses * score * score) / games;
+    }
+
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    private static double elo(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /** Keeps a score away from 0 and 1, where the Elo difference is infinite. */
+    private static double clamp(double score) {
+        return Math.max(1e-3, Math.min(1 - 1e-3, score));
+    }
+}
@@ -0,0 +1,197 @@
+package com.mateusdalcantara.chess.training;
+
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.ChessMove;
+import com.mateusdalcantara.chess.Color;
+import com.mateusdalcantara.chess.search.Search;
+import com.mateusdalcantara.chess.search.SearchLimits;
+import com.mateusdalcantara.chess.search.SearchResult;
+import com.mateusdalcantara.chess.search.TranspositionTable;
+import com.mateusdalcantara.chess.tournament.Tournament;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates training data by letting the engine play against itself on every core.
+ * <p>
+ * Each game starts from the initial setup with a few random moves, so that the games differ,
+ * and then every move is chosen by a search. Each searched position is recorded with the
+ * score of the search; when the game ends, its result is set in all of its records and the
+ * game is handed to the {@link TrainingDataWriter} in one call. Games end as in a
+ * {@link Tournament}: by mate, stalemate, repetition, {@value Tournament#MAX_PLIES_WITHOUT_CAPTURE}
+ * plies without a capture, or after {@value Tournament#MAX_GAME_PLIES} plies, all but mate
+ * scored as draws.
+ * </p>
+ * <p>
+ * Each worker thread owns its match, search and game buffer, so the only point shared between
+ * workers is the short copy into the writer.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     try (TrainingDataWriter writer = new TrainingDataWriter(file, TrainingDataWriter.DEFAULT_CHUNK_RECORDS, true)) {
+ *         long positions = new SelfPlay(SearchLimits.nodes(5000), 8, 42).run(100000, 8, writer);
+ *     }
+ * </pre>
+ *
+ * @see TrainingRecord
+ */
+public class SelfPlay {
+
+    /** The size of the transposition table of each worker, in megabytes. */
+    private static final int HASH_MEGABYTES = 16;
+
+    private final SearchLimits limits;
+    private final int randomPlies;
+    private final long seed;
+
+    /** The number of the next game to play. */
+    private final AtomicInteger nextGame = new AtomicInteger();
+
+    /**
+     * Constructs a self-play generator.
+     *
+     * @param limits      the limits of the search of every move.
+     * @param randomPlies the number of random moves played at the start of every game.
+     * @param seed        the seed of the random moves; game {@code n} uses {@code seed + n}, so a run can be repeated.
+     */
+    public SelfPlay(SearchLimits limits, int randomPlies, long seed) {
+        this.limits = limits;
+        this.randomPlies = randomPlies;
+        this.seed = seed;
+    }
+
+    /**
+     * Plays games and writes their positions, and blocks until every game is over.
+     *
+     * @param games   the number of games.
+     * @param threads the number of games played at the same time.
+     * @param writer  the writer receiving the records.
+     * @return the number of positions written.
+     * @throws IOException          if the writer fails.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public long run(int games, int threads, TrainingDataWriter writer) throws IOException, InterruptedException {
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        long before = writer.getRecords();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> play(games, writer, failure), "self-play-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return writer.getRecords() - before;
+    }
+
+    /**
+     * Runs on a worker thread: plays games until all have been played or the writer fails.
+     */
+    private void play(int games, TrainingDataWriter writer, AtomicReference<IOException> failure) {
+        ChessMatch chessMatch = new ChessMatch();
+        Search search = new Search();
+        search.setTranspositionTable(new TranspositionTable(HASH_MEGABYTES));
+        byte[] records = new byte[Tournament.MAX_GAME_PLIES * TrainingRecord.SIZE];
+        int[] moves = new int[chessMatch.getMoveBufferSize()];
+        int game;
+        while ((game = nextGame.getAndIncrement()) < games && failure.get() == null) {
+            search.getTranspositionTable().clear();
+            if (!playOpening(chessMatch, new Random(seed + game), moves)) {
+                continue;
+            }
+            int count = 0;
+            int result = TrainingRecord.DRAW;
+            int pliesWithoutCapture = 0;
+            for (int ply = 0; ply < Tournament.MAX_GAME_PLIES; ply++) {
+                SearchResult searchResult = search.search(chessMatch, limits);
+                int move = searchResult.getBestMove();
+                if (move == ChessMove.NONE) {
+                    if (chessMatch.getCheck()) {
+                        result = chessMatch.getCurrentPlayer() == Color.WHITE ? TrainingRecord.BLACK_WIN : TrainingRecord.WHITE_WIN;
+                    }
+                    break;
+                }
+                TrainingRecord.write(chessMatch, searchResult.getScore(), randomPlies + ply, records, count * TrainingRecord.SIZE);
+                count++;
+                pliesWithoutCapture = chessMatch.isCapture(move) ? 0 : pliesWithoutCapture + 1;
+                chessMatch.makeMove(move);
+                if (pliesWithoutCapture >= Tournament.MAX_PLIES_WITHOUT_CAPTURE || chessMatch.isRepetition()) {
+                    break;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                TrainingRecord.setResult(records, i * TrainingRecord.SIZE, result);
+            }
+            try {
+                writer.write(records, 0, count);
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     * Places the initial setup and plays the random opening moves.
+     *
+     * @return {@code false} if the random moves ended the game.
+     */
+    private boolean playOpening(ChessMatch chessMatch, Random random, int[] moves) {
+        chessMatch.setPosition(ChessMatch.INITIAL_FEN);
+        for (int ply = 0; ply < randomPlies; ply++) {
+            int count = chessMatch.generateMoves(moves);
+            int legal = 0;
+            for (int i = 0; i < count; i++) {
+                if (chessMatch.makeMove(moves[i])) {
+                    chessMatch.unmakeMove();
+                    moves[legal++] = moves[i];
+                }
+            }
+            if (legal == 0) {
+                return false;
+            }
+            chessMatch.makeMove(moves[random.nextInt(legal)]);
+        }
+        return true;
+    }
+
+    /**
+     * Generates training data from the command line.
+     * <p>
+     * Usage: {@code SelfPlay <games> <nodes per move> <output file> [threads] [compress]},
+     * where {@code compress} is {@code true} or {@code false}.
+     * </p>
+     *
+     * @param args the command line arguments.
+     * @throws IOException          if the output cannot be written.
+     * @throws InterruptedException if interrupted while waiting for the games.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.out.println("Usage: SelfPlay <games> <nodes per move> <output file> [threads] [compress]");
+            return;
+        }
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        boolean compress = args.length > 4 && Boolean.parseBoolean(args[4]);
+        SelfPlay selfPlay = new SelfPlay(SearchLimits.nodes(Long.parseLong(args[1])), 8, System.nanoTime());
+        long start = System.nanoTime();
+        TrainingDataWriter writer = new TrainingDataWriter(Paths.get(args[2]),
+                TrainingDataWriter.DEFAULT_CHUNK_RECORDS, compress);
+        long positions;
+        try {
+            positions = selfPlay.run(Integer.parseInt(args[0]), threads, writer);
+        } finally {
+            writer.close();
+        }
+        long elapsed = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println(positions + " positions in " + elapsed + " ms (" + positions * 1000 / elapsed
+                + " per second), " + writer.getBytesWritten() + " bytes, " + writer.getStalls() + " stalls");
+    }
+}
@@ -0,0 +1,182 @@
+package com.mateusdalcantara.chess.training;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the {@link TrainingRecord}s of a file written by {@link TrainingDataWriter}, or of a
+ * range of its chunks.
+ * <p>
+ * To read a file with several threads, find its chunks with {@link #chunkOffsets(Path)},
+ * which only reads the chunk headers, share them out, and give each thread a reader over its
+ * own range. Each chunk is read and, if needed, inflated in one piece.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     long[] chunks = TrainingDataReader.chunkOffsets(file);
+ *     try (TrainingDataReader reader = new TrainingDataReader(file, chunks[0], chunks[chunks.length / 2])) {
+ *         byte[] record = new byte[TrainingRecord.SIZE];
+ *         while (reader.next(record, 0)) {
+ *             train(record);
+ *         }
+ *     }
+ * </pre>
+ *
+ * @see TrainingDataWriter
+ */
+public class TrainingDataReader implements Closeable {
+
+    private final FileChannel channel;
+
+    /** The offset of the next chunk header. */
+    private long position;
+
+    /** The offset at which reading stops. */
+    private final long end;
+
+    private final ByteBuffer header = ByteBuffer.allocate(TrainingDataWriter.HEADER_BYTES);
+    private final Inflater inflater = new Inflater();
+
+    /** The records of the current chunk. */
+    private byte[] chunk = new byte[0];
+    private byte[] payload = new byte[0];
+    private int chunkLength;
+    private int chunkOffset;
+
+    /**
+     * Opens a reader over the whole file.
+     *
+     * @param file the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public TrainingDataReader(Path file) throws IOException {
+        this(file, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Opens a reader over the chunks that start from {@code start} up to, but excluding, {@code end}.
+     *
+     * @param file  the file.
+     * @param start the offset of the first chunk, as returned by {@link #chunkOffsets(Path)}.
+     * @param end   the offset of the first chunk not to read, or the size of the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public TrainingDataReader(Path file, long start, long end) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.position = start;
+        this.end = Math.min(end, channel.size());
+    }
+
+    /**
+     * Returns the offset of every chunk of a file.
+     *
+     * @param file the file.
+     * @return the offsets, in file order.
+     * @throws IOException if the file cannot be read or is not a training data file.
+     */
+    public static long[] chunkOffsets(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(TrainingDataWriter.HEADER_BYTES);
+            long[] offsets = new long[16];
+            int count = 0;
+            long size = channel.size();
+            for (long position = 0; position < size; ) {
+                readHeader(channel, header, position);
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, 2 * count);
+                }
+                offsets[count++] = position;
+                position += TrainingDataWriter.HEADER_BYTES + header.getInt(12);
+            }
+            return Arrays.copyOf(offsets, count);
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @param record the array receiving the record.
+     * @param offset the offset of the record in the array.
+     * @return {@code false} at the end of the range.
+     * @throws IOException if reading fails or the file is corrupt.
+     */
+    public boolean next(byte[] record, int offset) throws IOException {
+        while (chunkOffset == chunkLength) {
+            if (position >= end) {
+                return false;
+            }
+            readChunk();
+        }
+        System.arraycopy(chunk, chunkOffset, record, offset, TrainingRecord.SIZE);
+        chunkOffset += TrainingRecord.SIZE;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+
+    private void readChunk() throws IOException {
+        readHeader(channel, header, position);
+        int codec = header.getInt(4);
+        int records = header.getInt(8);
+        int payloadLength = header.getInt(12);
+        chunkLength = records * TrainingRecord.SIZE;
+        if (chunk.length < chunkLength) {
+            chunk = new byte[chunkLength];
+        }
+        if (codec == TrainingDataWriter.RAW) {
+            if (payloadLength != chunkLength) {
+                throw new IOException("Corrupt training data chunk at " + position);
+            }
+            readFully(channel, ByteBuffer.wrap(chunk, 0, payloadLength), position + TrainingDataWriter.HEADER_BYTES);
+        } else if (codec == TrainingDataWriter.DEFLATE) {
+            if (payload.length < payloadLength) {
+                payload = new byte[payloadLength];
+            }
+            readFully(channel, ByteBuffer.wrap(payload, 0, payloadLength), position + TrainingDataWriter.HEADER_BYTES);
+            inflater.reset();
+            inflater.setInput(payload, 0, payloadLength);
+            try {
+                if (inflater.inflate(chunk, 0, chunkLength) != chunkLength || !inflater.finished()) {
+                    throw new IOException("Corrupt training data chunk at " + position);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt training data chunk at " + position, e);
+            }
+        } else {
+            throw new IOException("Unknown training data codec " + codec + " at " + position);
+        }
+        chunkOffset = 0;
+        position += TrainingDataWriter.HEADER_BYTES + payloadLength;
+    }
+
+    private static void readHeader(FileChannel channel, ByteBuffer header, long position) throws IOException {
+        header.clear();
+        readFully(channel, header, position);
+        if (header.getInt(0) != TrainingDataWriter.MAGIC) {
+            throw new IOException("Not a training data chunk at " + position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException("Truncated training data at " + position);
+            }
+            position += n;
+        }
+    }
+}
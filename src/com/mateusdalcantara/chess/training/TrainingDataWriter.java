@@ -0,0 +1,316 @@
+package com.mateusdalcantara.chess.training;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+
+/**
+ * Writes {@link TrainingRecord}s to a file in chunks, on a background thread, with two buffers.
+ * <p>
+ * Producers copy their records into the filling buffer under a short lock and never touch
+ * the file. When the buffer is full, it is handed to the writer thread and the producers go
+ * on with the other buffer, so that generating the next chunk overlaps with writing the
+ * previous one. A producer only waits if the writer thread still holds the other buffer when
+ * the filling one is full again, that is when the disk is slower than the producers over a
+ * whole chunk; {@link #getStalls()} counts those waits.
+ * </p>
+ * <p>
+ * The file is a sequence of chunks, each holding whole records. A chunk starts with a
+ * {@value #HEADER_BYTES}-byte header: the magic number, the codec ({@link #RAW} or
+ * {@link #DEFLATE}), the number of records and the number of payload bytes that follow.
+ * With compression, each chunk is deflated on its own, and stored raw when that does not
+ * make it smaller. The headers let {@link TrainingDataReader#chunkOffsets(Path)} find the
+ * chunk boundaries without decompressing anything, so the file can be split between parallel
+ * readers at any chunk.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ *     try (TrainingDataWriter writer = new TrainingDataWriter(Paths.get("selfplay.bin"), 1 &lt;&lt; 16, true)) {
+ *         writer.write(records, 0, count);
+ *     }
+ * </pre>
+ *
+ * @see TrainingDataReader
+ * @see SelfPlay
+ */
+public class TrainingDataWriter implements AutoCloseable {
+
+    /** Magic number at the start of every chunk ("CTRN"). */
+    static final int MAGIC = 0x4354524E;
+
+    /** The codec of a chunk whose records are stored as they are. */
+    static final int RAW = 0;
+
+    /** The codec of a deflated chunk. */
+    static final int DEFLATE = 1;
+
+    /** Size of a chunk header in bytes. */
+    static final int HEADER_BYTES = 16;
+
+    /** The default number of records per chunk. */
+    public static final int DEFAULT_CHUNK_RECORDS = 1 << 16;
+
+    private final FileChannel channel;
+    private final boolean compress;
+    private final int chunkBytes;
+
+    /** Guards the buffers and the state below. */
+    private final Object lock = new Object();
+
+    /** The buffer receiving the records of the producers. */
+    private ByteBuffer filling;
+
+    /** The free buffer, or {@code null} while the writer thread holds it. */
+    private ByteBuffer spare;
+
+    /** The full buffer waiting for the writer thread, or {@code null}. */
+    private ByteBuffer pending;
+
+    private boolean closed;
+
+    /** The first write failure of the writer thread, reported to the producers. */
+    private IOException failure;
+
+    private long records;
+    private long stalls;
+    private long bytesWritten;
+
+    private final Thread thread;
+
+    /** Owned by the writer thread. */
+    private final Deflater deflater;
+    private final byte[] compressed;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+    /**
+     * Creates or truncates a file and starts the writer thread.
+     *
+     * @param file         the file to write.
+     * @param chunkRecords the number of records per chunk.
+     * @param compress     whether to deflate each chunk.
+     * @throws IOException if the file cannot be opened.
+     */
+    public TrainingDataWriter(Path file, int chunkRecords, boolean compress) throws IOException {
+        if (chunkRecords < 1) {
+            throw new IllegalArgumentException("The chunk size must be positive");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.compress = compress;
+        this.chunkBytes = chunkRecords * TrainingRecord.SIZE;
+        this.filling = ByteBuffer.allocate(chunkBytes);
+        this.spare = ByteBuffer.allocate(chunkBytes);
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        this.compressed = compress ? new byte[chunkBytes] : null;
+        this.thread = new Thread(this::writeChunks, "training-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Appends records. May be called from any thread. Records are always written whole, but
+     * when a call has to wait for the writer thread, the records of other calls may be
+     * written between its own.
+     *
+     * @param records the array holding the records.
+     * @param offset  the offset of the first record.
+     * @param count   the number of records.
+     * @throws IOException if the writer is closed or a previous chunk could not be written.
+     */
+    public void write(byte[] records, int offset, int count) throws IOException {
+        int length = count * TrainingRecord.SIZE;
+        synchronized (lock) {
+            checkOpen();
+            while (length > 0) {
+                int n = Math.min(length, filling.remaining());
+                filling.put(records, offset, n);
+                offset += n;
+                length -= n;
+                if (!filling.hasRemaining()) {
+                    handOff(false);
+                }
+            }
+            this.records += count;
+        }
+    }
+
+    /**
+     * Returns the number of records written so far.
+     *
+     * @return the record count, including the records still in the buffers.
+     */
+    public long getRecords() {
+        synchronized (lock) {
+            return records;
+        }
+    }
+
+    /**
+     * Returns the number of times a producer waited for the writer thread.
+     *
+     * @return the stall count.
+     */
+    public long getStalls() {
+        synchronized (lock) {
+            return stalls;
+        }
+    }
+
+    /**
+     * Returns the number of bytes written to the file so far.
+     *
+     * @return the size of the chunks written, headers included.
+     */
+    public long getBytesWritten() {
+        synchronized (lock) {
+            return bytesWritten;
+        }
+    }
+
+    /**
+     * Writes the last, partial chunk, waits for the writer thread and closes the file.
+     *
+     * @throws IOException if a chunk could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            if (filling.position() > 0 && failure == null) {
+                handOff(true);
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the training data");
+        } finally {
+            channel.close();
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+        synchronized (lock) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IOException("The training data writer is closed");
+        }
+    }
+
+    /**
+     * Hands the filling buffer to the writer thread and continues with the spare one. Called
+     * with the lock held.
+     *
+     * @param partial whether a buffer that is not full may be handed off; otherwise nothing is
+     *                done if another producer has already handed off the full buffer while this one waited.
+     */
+    private void handOff(boolean partial) throws IOException {
+        while (pending != null || spare == null) {
+            stalls++;
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the training data writer");
+            }
+            checkOpen();
+        }
+        if (!partial && filling.hasRemaining()) {
+            return;
+        }
+        pending = filling;
+        filling = spare;
+        spare = null;
+        lock.notifyAll();
+    }
+
+    /**
+     * Runs on the writer thread: writes every chunk handed off until the writer is closed.
+     */
+    private void writeChunks() {
+        while (true) {
+            ByteBuffer chunk;
+            synchronized (lock) {
+                while (pending == null && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending == null) {
+                    return;
+                }
+                chunk = pending;
+            }
+            long written = 0;
+            IOException error = null;
+            try {
+                written = writeChunk(chunk);
+            } catch (IOException e) {
+                error = e;
+            }
+            synchronized (lock) {
+                chunk.clear();
+                spare = chunk;
+                pending = null;
+                bytesWritten += written;
+                if (error != null && failure == null) {
+                    failure = error;
+                }
+                lock.notifyAll();
+                if (failure != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes one chunk, deflated if that makes it smaller.
+     *
+     * @return the number of bytes written.
+     */
+    private long writeChunk(ByteBuffer chunk) throws IOException {
+        int length = chunk.position();
+        int codec = RAW;
+        ByteBuffer payload = ByteBuffer.wrap(chunk.array(), 0, length);
+        if (compress) {
+            deflater.reset();
+            deflater.setInput(chunk.array(), 0, length);
+            deflater.finish();
+            int size = deflater.deflate(compressed);
+            if (deflater.finished() && size < length) {
+                codec = DEFLATE;
+                payload = ByteBuffer.wrap(compressed, 0, size);
+            }
+        }
+        header.clear();
+        header.putInt(MAGIC).putInt(codec).putInt(length / TrainingRecord.SIZE).putInt(payload.remaining()).flip();
+        long written = 0;
+        ByteBuffer[] buffers = {header, payload};
+        while (payload.hasRemaining()) {
+            written += channel.write(buffers);
+        }
+        return written;
+    }
+}
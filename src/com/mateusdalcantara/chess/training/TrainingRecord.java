@@ -0,0 +1,115 @@
+package com.mateusdalcantara.chess.training;
+
+import com.mateusdalcantara.chess.ChessException;
+import com.mateusdalcantara.chess.ChessMatch;
+import com.mateusdalcantara.chess.PackedPosition;
+
+/**
+ * Reads and writes labelled training positions as fixed-size binary records.
+ * <p>
+ * A record takes {@value #SIZE} bytes: the {@link PackedPosition} record of the position
+ * (board and side to move, {@value PackedPosition#SIZE} bytes), then the search score as a
+ * big-endian 16-bit integer from the point of view of the side to move, the game result
+ * ({@link #BLACK_WIN}, {@link #DRAW} or {@link #WHITE_WIN}), one reserved byte, and the
+ * ply of the position in its game as a big-endian 16-bit integer.
+ * </p>
+ *
+ * @see TrainingDataWriter
+ * @see TrainingDataReader
+ */
+public final class TrainingRecord {
+
+    /** The size of one record in bytes. */
+    public static final int SIZE = PackedPosition.SIZE + 6;
+
+    /** The game results. */
+    public static final int BLACK_WIN = 0;
+    public static final int DRAW = 1;
+    public static final int WHITE_WIN = 2;
+
+    /** The offsets of the fields after the packed position. */
+    private static final int SCORE = PackedPosition.SIZE;
+    private static final int RESULT = PackedPosition.SIZE + 2;
+    private static final int PLY = PackedPosition.SIZE + 4;
+
+    private TrainingRecord() {
+    }
+
+    /**
+     * Writes the current position of a match and its score into a record. The result is set
+     * to {@link #DRAW} until {@link #setResult(byte[], int, int)} is called at the end of the game.
+     *
+     * @param chessMatch the match, on an 8x8 board.
+     * @param score      the search score, from the point of view of the side to move.
+     * @param ply        the ply of the position in its game.
+     * @param record     the array receiving the record.
+     * @param offset     the offset of the record in the array.
+     * @throws ChessException if the board of the match is not 8x8.
+     */
+    public static void write(ChessMatch chessMatch, int score, int ply, byte[] record, int offset) {
+        PackedPosition.pack(chessMatch, record, offset);
+        int clamped = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score));
+        record[offset + SCORE] = (byte) (clamped >> 8);
+        record[offset + SCORE + 1] = (byte) clamped;
+        record[offset + RESULT] = DRAW;
+        record[offset + RESULT + 1] = 0;
+        record[offset + PLY] = (byte) (ply >> 8);
+        record[offset + PLY + 1] = (byte) ply;
+    }
+
+    /**
+     * Sets the game result of a record.
+     *
+     * @param record the array holding the record.
+     * @param offset the offset of the record in the array.
+     * @param result {@link #BLACK_WIN}, {@link #DRAW} or {@link #WHITE_WIN}.
+     */
+    public static void setResult(byte[] record, int offset, int result) {
+        record[offset + RESULT] = (byte) result;
+    }
+
+    /**
+     * Loads the position of a record into a match, replacing its current position.
+     *
+     * @param record     the array holding the record.
+     * @param offset     the offset of the record in the array.
+     * @param chessMatch the match receiving the position.
+     * @throws ChessException if the record is invalid or the board of the match is not 8x8.
+     */
+    public static void unpack(byte[] record, int offset, ChessMatch chessMatch) {
+        PackedPosition.unpack(record, offset, chessMatch);
+    }
+
+    /**
+     * Returns the search score of a record.
+     *
+     * @param record the array holding the record.
+     * @param offset the offset of the record in the array.
+     * @return the score, from the point of view of the side to move.
+     */
+    public static int score(byte[] record, int offset) {
+        return (short) (record[offset + SCORE] << 8 | record[offset + SCORE + 1] & 0xFF);
+    }
+
+    /**
+     * Returns the game result of a record.
+     *
+     * @param record the array holding the record.
+     * @param offset the offset of the record in the array.
+     * @return {@link #BLACK_WIN}, {@link #DRAW} or {@link #WHITE_WIN}.
+     */
+    public static int result(byte[] record, int offset) {
+        return record[offset + RESULT];
+    }
+
+    /**
+     * Returns the ply of the position of a record in its game.
+     *
+     * @param record the array holding the record.
+     * @param offset the offset of the record in the array.
+     * @return the ply.
+     */
+    public static int ply(byte[] record, int offset) {
+        return (record[offset + PLY] & 0xFF) << 8 | record[offset + PLY + 1] & 0xFF;
+    }
+}